@@ -0,0 +1,79 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import com.github.subh0m0y.matrix.Workspace;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state loops over the allocating operations of {@link Matrix} and
+ * their destination and {@link Workspace} overloads. Run with
+ * {@code -prof gc}: the {@code gc.alloc.rate.norm} of every *Into
+ * benchmark should be (close to) zero bytes per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AllocationBenchmark {
+    @Param({"64", "512"})
+    public int size;
+
+    private Matrix a;
+    private Matrix b;
+    private Matrix destination;
+    private Workspace workspace;
+
+    @Setup
+    public void setUp() {
+        a = Matrix.random(size, size).scale(1.0 / size);
+        b = Matrix.random(size, size);
+        destination = Matrix.zero(size, size);
+        workspace = new Workspace();
+    }
+
+    @Benchmark
+    public Matrix elementWise() {
+        return a.add(b).elementMultiply(b).subtract(a);
+    }
+
+    @Benchmark
+    public Matrix elementWiseInto() {
+        a.add(b, destination);
+        destination.elementMultiply(b, destination);
+        return destination.subtract(a, destination);
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public Matrix multiplyInto() {
+        return a.multiply(b, destination, workspace);
+    }
+
+    @Benchmark
+    public Matrix exponentiate() {
+        return a.exponentiate(5);
+    }
+
+    @Benchmark
+    public Matrix exponentiateInto() {
+        return a.exponentiate(5, destination, workspace);
+    }
+
+    @Benchmark
+    public Matrix transpose() {
+        return a.transpose();
+    }
+
+    @Benchmark
+    public Matrix transposeInto() {
+        return a.transpose(destination);
+    }
+}
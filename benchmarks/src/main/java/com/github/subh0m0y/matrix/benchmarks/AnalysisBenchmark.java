@@ -0,0 +1,47 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the derived results of a matrix. They are cached until the matrix
+ * changes, so every invocation marks the matrix as modified first, and
+ * pays for the full computation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AnalysisBenchmark {
+    @Param({"128", "512"})
+    public int size;
+
+    private Matrix matrix;
+
+    @Setup
+    public void setUp() {
+        matrix = Matrix.random(size, size);
+    }
+
+    @Benchmark
+    public int getRank() {
+        matrix.markModified();
+        return matrix.getRank();
+    }
+
+    @Benchmark
+    public Matrix getInverse() {
+        matrix.markModified();
+        return matrix.getInverse();
+    }
+
+    @Benchmark
+    public double getDeterminant() {
+        matrix.markModified();
+        return matrix.getDeterminant();
+    }
+}
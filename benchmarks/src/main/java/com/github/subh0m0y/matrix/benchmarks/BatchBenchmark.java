@@ -0,0 +1,88 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.LUDecomposition;
+import com.github.subh0m0y.matrix.Matrix;
+import com.github.subh0m0y.matrix.MatrixBatch;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link MatrixBatch} with the same work done one {@link Matrix}
+ * at a time, on many small, diagonally dominant matrices. The batch writes
+ * into preallocated destinations; the matrices do where their API allows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+    private static final int COUNT = 10_000;
+
+    @Param({"3", "4", "8"})
+    public int order;
+
+    private Matrix[] left;
+    private Matrix[] right;
+    private Matrix[] results;
+    private MatrixBatch leftBatch;
+    private MatrixBatch rightBatch;
+    private MatrixBatch resultBatch;
+    private double[] determinants;
+
+    @Setup
+    public void setUp() {
+        left = new Matrix[COUNT];
+        right = new Matrix[COUNT];
+        results = new Matrix[COUNT];
+        for (int k = 0; k < COUNT; k++) {
+            left[k] = Matrix.random(order, order).add(Matrix.identity(order).scale(order));
+            right[k] = Matrix.random(order, order);
+            results[k] = Matrix.zero(order, order);
+        }
+        leftBatch = MatrixBatch.of(left);
+        rightBatch = MatrixBatch.of(right);
+        resultBatch = MatrixBatch.zero(COUNT, order, order);
+        determinants = new double[COUNT];
+    }
+
+    @Benchmark
+    public void multiplyMatrices() {
+        for (int k = 0; k < COUNT; k++) {
+            left[k].multiply(right[k], results[k]);
+        }
+    }
+
+    @Benchmark
+    public MatrixBatch multiplyBatch() {
+        return leftBatch.multiply(rightBatch, resultBatch);
+    }
+
+    @Benchmark
+    public void inverseMatrices(final Blackhole blackhole) {
+        for (int k = 0; k < COUNT; k++) {
+            blackhole.consume(new LUDecomposition(left[k]).inverse());
+        }
+    }
+
+    @Benchmark
+    public MatrixBatch inverseBatch() {
+        return leftBatch.inverse(resultBatch);
+    }
+
+    @Benchmark
+    public double[] determinantMatrices() {
+        for (int k = 0; k < COUNT; k++) {
+            determinants[k] = new LUDecomposition(left[k]).determinant();
+        }
+        return determinants;
+    }
+
+    @Benchmark
+    public double[] determinantBatch() {
+        return leftBatch.determinants(determinants);
+    }
+}
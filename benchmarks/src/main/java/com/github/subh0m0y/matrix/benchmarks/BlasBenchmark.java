@@ -0,0 +1,76 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Blas;
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a matrix-vector product through an n x 1 {@link Matrix}, the
+ * only way before {@link Blas}, with {@link Blas#gemv} into a preallocated
+ * array, on the matrix and on its transpose. One step of the conjugate
+ * gradient method is timed as well, as a typical level 2 bound loop.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BlasBenchmark {
+    @Param({"256", "2048"})
+    public int size;
+
+    private Matrix a;
+    private double[] x;
+    private double[] y;
+    private double[] r;
+    private double[] p;
+    private double[] ap;
+
+    @Setup
+    public void setUp() {
+        a = Matrix.random(size, size);
+        x = new double[size];
+        y = new double[size];
+        r = new double[size];
+        p = new double[size];
+        ap = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = 1.0 / (i + 1);
+            r[i] = x[i];
+            p[i] = x[i];
+        }
+    }
+
+    @Benchmark
+    public double[] columnMatrix() {
+        return a.multiply(Matrix.fromLinearArray(size, 1, x)).getColumn(0);
+    }
+
+    @Benchmark
+    public double[] gemv() {
+        Blas.gemv(false, 1, a, x, 0, y);
+        return y;
+    }
+
+    @Benchmark
+    public double[] gemvTranspose() {
+        Blas.gemv(true, 1, a, x, 0, y);
+        return y;
+    }
+
+    @Benchmark
+    public double conjugateGradientStep() {
+        Blas.gemv(false, 1, a, p, 0, ap);
+        double rr = Blas.dot(r, r);
+        double alpha = rr / Blas.dot(p, ap);
+        Blas.axpy(alpha, p, y);
+        Blas.axpy(-alpha, ap, r);
+        double beta = Blas.dot(r, r) / rr;
+        Blas.scal(beta, p);
+        Blas.axpy(1, r, p);
+        return Blas.norm2(r);
+    }
+}
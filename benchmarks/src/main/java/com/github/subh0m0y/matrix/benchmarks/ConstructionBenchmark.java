@@ -0,0 +1,53 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the static factories that create a matrix, each of which copies or
+ * generates every element.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConstructionBenchmark {
+    @Param({"64", "512", "2048"})
+    public int size;
+
+    private double[][] array;
+    private double[] linearArray;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        array = new double[size][size];
+        linearArray = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                array[i][j] = random.nextGaussian();
+                linearArray[i * size + j] = array[i][j];
+            }
+        }
+    }
+
+    @Benchmark
+    public Matrix fromArray() {
+        return Matrix.fromArray(array);
+    }
+
+    @Benchmark
+    public Matrix fromLinearArray() {
+        return Matrix.fromLinearArray(size, size, linearArray);
+    }
+
+    @Benchmark
+    public Matrix random() {
+        return Matrix.random(size, size);
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.CholeskyDecomposition;
+import com.github.subh0m0y.matrix.LUDecomposition;
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the blocked LU and Cholesky factorizations with their
+ * unblocked counterparts, which are obtained by making a single panel
+ * cover the whole matrix. The block size can be tuned through the
+ * "blockSize" parameter.
+ * <p>
+ * The auxiliary "flops" counter reports 2n^3/3 floating point operations
+ * per LU factorization and n^3/3 per Cholesky factorization.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DecompositionBenchmark {
+    @Param({"256", "512", "1024", "2048"})
+    public int size;
+
+    @Param({"32", "64", "128"})
+    public int blockSize;
+
+    private Matrix general;
+    private Matrix positiveDefinite;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Flops {
+        public long flops;
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double[] elements = new double[size * size];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = random.nextGaussian();
+        }
+        general = Matrix.fromLinearArray(size, size, elements);
+        positiveDefinite = general.transpose().multiply(general);
+        for (int i = 0; i < size; i++) {
+            positiveDefinite.set(i, i, positiveDefinite.get(i, i) + size);
+        }
+    }
+
+    @Benchmark
+    public LUDecomposition luBlocked(Flops flops) {
+        flops.flops += 2L * size * size * size / 3;
+        return new LUDecomposition(general, blockSize);
+    }
+
+    @Benchmark
+    public LUDecomposition luUnblocked(Flops flops) {
+        flops.flops += 2L * size * size * size / 3;
+        return new LUDecomposition(general, size);
+    }
+
+    @Benchmark
+    public CholeskyDecomposition choleskyBlocked(Flops flops) {
+        flops.flops += (long) size * size * size / 3;
+        return new CholeskyDecomposition(positiveDefinite, blockSize);
+    }
+
+    @Benchmark
+    public CholeskyDecomposition choleskyUnblocked(Flops flops) {
+        flops.flops += (long) size * size * size / 3;
+        return new CholeskyDecomposition(positiveDefinite, size);
+    }
+}
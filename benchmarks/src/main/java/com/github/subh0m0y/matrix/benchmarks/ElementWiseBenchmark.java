@@ -0,0 +1,61 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the allocating element-wise operations and transposition, which
+ * are bound by memory bandwidth rather than arithmetic beyond the smallest
+ * sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ElementWiseBenchmark {
+    @Param({"64", "512", "2048"})
+    public int size;
+
+    private Matrix a;
+    private Matrix b;
+
+    @Setup
+    public void setUp() {
+        a = Matrix.random(size, size);
+        b = Matrix.random(size, size);
+    }
+
+    @Benchmark
+    public Matrix add() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public Matrix subtract() {
+        return a.subtract(b);
+    }
+
+    @Benchmark
+    public Matrix elementMultiply() {
+        return a.elementMultiply(b);
+    }
+
+    @Benchmark
+    public Matrix elementDivide() {
+        return a.elementDivide(b);
+    }
+
+    @Benchmark
+    public Matrix scale() {
+        return a.scale(0.5);
+    }
+
+    @Benchmark
+    public Matrix transpose() {
+        return a.transpose();
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times {@link Matrix#exponentiate(int, ForkJoinPool)} of a general square
+ * matrix on a pool of the given number of threads. A power of 100 takes
+ * six squarings and three further products.
+ *
+ * @see PowerBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExponentiationBenchmark {
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"100"})
+    public int power;
+
+    private Matrix matrix;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        // Scaled so that the powers stay clear of overflow and subnormals
+        matrix = Matrix.random(size, size).scale(2.0 / size);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Matrix exponentiate() {
+        return matrix.exponentiate(power, pool);
+    }
+}
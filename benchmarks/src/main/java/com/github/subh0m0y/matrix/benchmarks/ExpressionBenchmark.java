@@ -0,0 +1,56 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import com.github.subh0m0y.matrix.MatrixExpression;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the eager chain {@code a.add(b).scale(2).elementMultiply(c).subtract(d)},
+ * which allocates and fills a temporary matrix per step, with the same
+ * chain as a fused {@link MatrixExpression}, evaluated into a new matrix
+ * and into a reused one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpressionBenchmark {
+    @Param({"256", "1024", "2048"})
+    public int size;
+
+    private Matrix a;
+    private Matrix b;
+    private Matrix c;
+    private Matrix d;
+    private Matrix destination;
+    private MatrixExpression expression;
+
+    @Setup
+    public void setUp() {
+        a = Matrix.random(size, size);
+        b = Matrix.random(size, size);
+        c = Matrix.random(size, size);
+        d = Matrix.random(size, size);
+        destination = Matrix.zero(size, size);
+        expression = a.lazy().add(b).scale(2).elementMultiply(c).subtract(d);
+    }
+
+    @Benchmark
+    public Matrix eager() {
+        return a.add(b).scale(2).elementMultiply(c).subtract(d);
+    }
+
+    @Benchmark
+    public Matrix lazy() {
+        return expression.evaluate();
+    }
+
+    @Benchmark
+    public Matrix lazyInto() {
+        return expression.evaluateInto(destination);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import com.github.subh0m0y.matrix.QRDecomposition;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fits an overdetermined system of rows x cols through the normal
+ * equations, formed with transpose, multiply and inverse, and through the
+ * QR decomposition: blocked, unblocked (a single panel covering every
+ * column) and with column pivoting. The largest fits need a heap of a few
+ * times the size of the matrix; run them with e.g. {@code -p rows=100000}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LeastSquaresBenchmark {
+    @Param({"20000"})
+    public int rows;
+
+    @Param({"200"})
+    public int cols;
+
+    private Matrix a;
+    private double[] b;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double[] elements = new double[rows * cols];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = random.nextGaussian();
+        }
+        a = Matrix.fromLinearArray(rows, cols, elements);
+        b = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            b[i] = random.nextGaussian();
+        }
+    }
+
+    @Benchmark
+    public double[] normalEquations() {
+        Matrix transpose = a.transpose();
+        return transpose.multiply(a).getInverse().multiply(transpose.multiply(b));
+    }
+
+    @Benchmark
+    public double[] qrBlocked() {
+        return new QRDecomposition(a).solveLeastSquares(b);
+    }
+
+    @Benchmark
+    public double[] qrUnblocked() {
+        return new QRDecomposition(a, false, cols).solveLeastSquares(b);
+    }
+
+    @Benchmark
+    public double[] qrPivoted() {
+        return new QRDecomposition(a, true).solveLeastSquares(b);
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cache-blocked kernel behind {@link Matrix#multiply(Matrix)},
+ * sequentially and on the common pool, with the original i-j-k triple loop
+ * on square matrices.
+ * <p>
+ * Throughput is reported both as operations per second and, through the
+ * auxiliary "flops" counter, as floating point operations per second
+ * (2n^3 per product); divide the latter by 10^9 to get GFLOP/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MultiplicationBenchmark {
+    @Param({"64", "256", "512", "1024", "2048"})
+    public int size;
+
+    private double[][] left;
+    private double[][] right;
+    private Matrix leftMatrix;
+    private Matrix rightMatrix;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Flops {
+        public long flops;
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        left = new double[size][size];
+        right = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                left[i][j] = random.nextGaussian();
+                right[i][j] = random.nextGaussian();
+            }
+        }
+        leftMatrix = Matrix.fromArray(left);
+        rightMatrix = Matrix.fromArray(right);
+    }
+
+    @Benchmark
+    public void naive(Flops flops, Blackhole blackhole) {
+        double[][] product = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                product[i][j] = 0;
+                for (int k = 0; k < size; k++) {
+                    product[i][j] += left[i][k] * right[k][j];
+                }
+            }
+        }
+        flops.flops += 2L * size * size * size;
+        blackhole.consume(product);
+    }
+
+    @Benchmark
+    public void blocked(Flops flops, Blackhole blackhole) {
+        blackhole.consume(leftMatrix.multiply(rightMatrix));
+        flops.flops += 2L * size * size * size;
+    }
+
+    @Benchmark
+    public void parallel(Flops flops, Blackhole blackhole) {
+        blackhole.consume(leftMatrix.multiplyParallel(rightMatrix));
+        flops.flops += 2L * size * size * size;
+    }
+}
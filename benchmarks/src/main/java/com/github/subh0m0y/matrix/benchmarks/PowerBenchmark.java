@@ -0,0 +1,82 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import com.github.subh0m0y.matrix.Workspace;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raises a general, an upper triangular and a diagonal matrix to a large
+ * power, and applies the general power to a vector without forming it.
+ * The general matrix is a transition matrix, so that its powers stay clear
+ * of the subnormal range, where arithmetic is many times slower.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PowerBenchmark {
+    @Param({"500"})
+    public int size;
+
+    @Param({"1000000"})
+    public int power;
+
+    private Matrix general;
+    private Matrix upper;
+    private Matrix diagonal;
+    private double[] vector;
+    private Matrix destination;
+    private Workspace workspace;
+
+    @Setup
+    public void setUp() {
+        general = Matrix.random(size, size);
+        upper = general.copy();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < i; j++) {
+                upper.set(i, j, 0);
+            }
+        }
+        toTransitionMatrix(general);
+        toTransitionMatrix(upper);
+        diagonal = Matrix.identity(size).scale(0.999999);
+        vector = new double[size];
+        vector[0] = 1;
+        destination = Matrix.zero(size, size);
+        workspace = new Workspace();
+    }
+
+    private static void toTransitionMatrix(final Matrix matrix) {
+        for (int i = 0; i < matrix.getRows(); i++) {
+            double sum = 0;
+            for (int j = 0; j < matrix.getCols(); j++) {
+                sum += matrix.get(i, j);
+            }
+            matrix.rowView(i).scaleInPlace(1 / sum);
+        }
+    }
+
+    @Benchmark
+    public Matrix general() {
+        return general.exponentiate(power, destination, workspace);
+    }
+
+    @Benchmark
+    public Matrix triangular() {
+        return upper.exponentiate(power, destination, workspace);
+    }
+
+    @Benchmark
+    public Matrix diagonal() {
+        return diagonal.exponentiate(power, destination, workspace);
+    }
+
+    @Benchmark
+    public double[] vector() {
+        return general.exponentiate(power, vector, workspace);
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.FloatMatrix;
+import com.github.subh0m0y.matrix.Matrix;
+import com.github.subh0m0y.matrix.Workspace;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link FloatMatrix} with {@link Matrix} on a product, which is
+ * bound by arithmetic, and on a sum, which is bound by memory bandwidth.
+ * Both write into preallocated destinations, so that only the kernels are
+ * timed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PrecisionBenchmark {
+    @Param({"256", "1024"})
+    public int size;
+
+    private Matrix left;
+    private Matrix right;
+    private Matrix result;
+    private FloatMatrix floatLeft;
+    private FloatMatrix floatRight;
+    private FloatMatrix floatResult;
+    private Workspace workspace;
+
+    @Setup
+    public void setUp() {
+        left = Matrix.random(size, size);
+        right = Matrix.random(size, size);
+        result = Matrix.zero(size, size);
+        floatLeft = FloatMatrix.fromMatrix(left);
+        floatRight = FloatMatrix.fromMatrix(right);
+        floatResult = FloatMatrix.zero(size, size);
+        workspace = new Workspace();
+    }
+
+    @Benchmark
+    public Matrix multiplyDouble() {
+        return left.multiply(right, result, workspace);
+    }
+
+    @Benchmark
+    public FloatMatrix multiplyFloat() {
+        return floatLeft.multiply(floatRight, floatResult, workspace);
+    }
+
+    @Benchmark
+    public Matrix addDouble() {
+        return left.add(right, result);
+    }
+
+    @Benchmark
+    public FloatMatrix addFloat() {
+        return floatLeft.add(floatRight, floatResult);
+    }
+}
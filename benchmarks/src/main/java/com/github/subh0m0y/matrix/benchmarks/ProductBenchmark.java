@@ -0,0 +1,76 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times multiplication of square, tall, wide and outer-product shaped
+ * operands on a pool of the given number of threads.
+ * Every shape performs the same 2 * size<sup>3</sup> flops:
+ * <ul>
+ * <li>square: (size x size) times (size x size)</li>
+ * <li>tall: (4size x size/4) times (size/4 x size)</li>
+ * <li>wide: (size/4 x 4size) times (4size x size)</li>
+ * <li>outer: (4size x size/16) times (size/16 x 4size)</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProductBenchmark {
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"square", "tall", "wide", "outer"})
+    public String shape;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Matrix left;
+    private Matrix right;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        int m, n, p;
+        switch (shape) {
+            case "tall":
+                m = 4 * size;
+                n = size / 4;
+                p = size;
+                break;
+            case "wide":
+                m = size / 4;
+                n = 4 * size;
+                p = size;
+                break;
+            case "outer":
+                m = 4 * size;
+                n = size / 16;
+                p = 4 * size;
+                break;
+            default:
+                m = n = p = size;
+        }
+        left = Matrix.random(m, n);
+        right = Matrix.random(n, p);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return left.multiply(right, pool);
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.BinaryFormat;
+import com.github.subh0m0y.matrix.Matrix;
+import com.github.subh0m0y.matrix.TextFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times {@link BinaryFormat} against the CSV of {@link TextFormat} and the
+ * preview of {@link Matrix#toString()}. The binary format is written to and
+ * read from a direct buffer, and written to a file, so the throughput can
+ * be compared with the bandwidth of memory and disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+    @Param({"1000"})
+    public int size;
+
+    private Matrix matrix;
+    private ByteBuffer buffer;
+    private Path file;
+    private FileChannel channel;
+    private StringBuilder text;
+    private byte[] csv;
+
+    @Setup
+    public void setUp() throws IOException {
+        matrix = Matrix.random(size, size);
+        buffer = ByteBuffer.allocateDirect((int) BinaryFormat.sizeOf(matrix));
+        BinaryFormat.write(matrix, buffer);
+        file = Files.createTempFile("matrix", ".bin");
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        text = new StringBuilder();
+        TextFormat.writeCsv(matrix, text);
+        csv = text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        channel.close();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public String text() {
+        return matrix.toString();
+    }
+
+    @Benchmark
+    public StringBuilder writeCsv() throws IOException {
+        text.setLength(0);
+        TextFormat.writeCsv(matrix, text);
+        return text;
+    }
+
+    @Benchmark
+    public Matrix readCsv() throws IOException {
+        return TextFormat.readCsv(new ByteArrayInputStream(csv));
+    }
+
+    @Benchmark
+    public ByteBuffer writeBuffer() {
+        buffer.clear();
+        BinaryFormat.write(matrix, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public Matrix readBuffer() {
+        buffer.clear();
+        return BinaryFormat.read(buffer);
+    }
+
+    @Benchmark
+    public FileChannel writeFile() throws IOException {
+        channel.position(0);
+        BinaryFormat.write(matrix, channel);
+        return channel;
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves the five-point Poisson system on a grid of size x size points,
+ * directly through the dense inverse and LU decomposition, and with the
+ * iterative solvers on the sparse matrix, with and without incomplete LU
+ * preconditioning. The dense solves are only practical for small grids;
+ * run them with e.g. {@code -p size=32}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+    @Param({"32", "128"})
+    public int size;
+
+    private CSRMatrix sparse;
+    private Matrix dense;
+    private double[] b;
+    private Preconditioner ilu;
+
+    @Setup
+    public void setUp() {
+        int n = size * size;
+        int[] rows = new int[5 * n];
+        int[] cols = new int[5 * n];
+        double[] values = new double[5 * n];
+        int count = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int i = x * size + y;
+                rows[count] = i;
+                cols[count] = i;
+                values[count++] = 4;
+                int[][] neighbours = {{x - 1, y}, {x + 1, y}, {x, y - 1}, {x, y + 1}};
+                for (int[] neighbour : neighbours) {
+                    if (neighbour[0] >= 0 && neighbour[0] < size && neighbour[1] >= 0 && neighbour[1] < size) {
+                        rows[count] = i;
+                        cols[count] = neighbour[0] * size + neighbour[1];
+                        values[count++] = -1;
+                    }
+                }
+            }
+        }
+        sparse = CSRMatrix.fromTriplets(n, n, Arrays.copyOf(rows, count), Arrays.copyOf(cols, count),
+                Arrays.copyOf(values, count));
+        dense = size <= 32 ? sparse.toDense() : null;
+        b = new double[n];
+        Arrays.fill(b, 1);
+        ilu = new IncompleteLUPreconditioner(sparse);
+    }
+
+    @Benchmark
+    public double[] inverse() {
+        return new Matrix(dense).getInverse().multiply(b);
+    }
+
+    @Benchmark
+    public double[] luDecomposition() {
+        return new LUDecomposition(dense).solve(b);
+    }
+
+    @Benchmark
+    public double[] conjugateGradient() {
+        return new ConjugateGradient(1e-10, 100000).solve(sparse, b).getSolution();
+    }
+
+    @Benchmark
+    public double[] conjugateGradientILU() {
+        return new ConjugateGradient(1e-10, 100000).solve(sparse, b, ilu).getSolution();
+    }
+
+    @Benchmark
+    public double[] gmresILU() {
+        return new GMRES(30, 1e-10, 100000).solve(sparse, b, ilu).getSolution();
+    }
+
+    @Benchmark
+    public double[] biCGSTABILU() {
+        return new BiCGSTAB(1e-10, 100000).solve(sparse, b, ilu).getSolution();
+    }
+
+    @Benchmark
+    public Preconditioner factorILU() {
+        return new IncompleteLUPreconditioner(sparse);
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Matrix#multiplyStrassen(Matrix, int, ForkJoinPool)} with
+ * the classical blocked kernel on square matrices, over a range of
+ * crossovers, to show where the recursion starts to pay. The classical
+ * product does not depend on the crossover; run it with a single one,
+ * e.g. {@code -p crossover=256}, to save time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class StrassenBenchmark {
+    @Param({"512", "1024", "2048", "4096"})
+    public int size;
+
+    @Param({"128", "256", "512"})
+    public int crossover;
+
+    private Matrix left;
+    private Matrix right;
+
+    @Setup
+    public void setUp() {
+        left = Matrix.random(size, size);
+        right = Matrix.random(size, size);
+    }
+
+    @Benchmark
+    public Matrix classical() {
+        return left.multiply(right);
+    }
+
+    @Benchmark
+    public Matrix strassen() {
+        return left.multiplyStrassen(right, crossover, null);
+    }
+
+    @Benchmark
+    public Matrix strassenParallel() {
+        return left.multiplyStrassen(right, crossover, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public Matrix classicalParallel() {
+        return left.multiplyParallel(right);
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the packed symmetric, triangular and band kernels with the
+ * dense operations they replace, on matrices of the same order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StructuredBenchmark {
+    @Param({"256", "1024"})
+    public int order;
+
+    private Matrix data;
+    private Matrix symmetricDense;
+    private SymmetricMatrix symmetric;
+    private Matrix lowerDense;
+    private TriangularMatrix lower;
+    private Matrix tridiagonalDense;
+    private BandMatrix tridiagonal;
+    private double[] x;
+    private double[] y;
+
+    @Setup
+    public void setUp() {
+        data = Matrix.random(order, order);
+        symmetricDense = data.add(data.transpose());
+        symmetric = SymmetricMatrix.fromMatrix(symmetricDense);
+        lowerDense = Matrix.zero(order, order);
+        tridiagonalDense = Matrix.zero(order, order);
+        for (int i = 0; i < order; i++) {
+            for (int j = 0; j <= i; j++) {
+                lowerDense.set(i, j, data.get(i, j));
+            }
+            lowerDense.set(i, i, order);
+            tridiagonalDense.set(i, i, 4);
+            if (i > 0) {
+                tridiagonalDense.set(i, i - 1, -1);
+                tridiagonalDense.set(i - 1, i, -1);
+            }
+        }
+        lower = TriangularMatrix.lower(lowerDense);
+        tridiagonal = BandMatrix.fromMatrix(tridiagonalDense, 1, 1);
+        x = new double[order];
+        y = new double[order];
+        for (int i = 0; i < order; i++) {
+            x[i] = 1.0 / (i + 1);
+        }
+    }
+
+    @Benchmark
+    public double[] symmetricVectorDense() {
+        return symmetricDense.multiply(x, y);
+    }
+
+    @Benchmark
+    public double[] symmetricVectorPacked() {
+        return symmetric.multiply(x, y);
+    }
+
+    @Benchmark
+    public Matrix gramDense() {
+        return data.transpose().multiply(data);
+    }
+
+    @Benchmark
+    public SymmetricMatrix gramPacked() {
+        return SymmetricMatrix.gram(data);
+    }
+
+    @Benchmark
+    public Matrix triangularInverseLU() {
+        return new LUDecomposition(lowerDense).inverse();
+    }
+
+    @Benchmark
+    public Matrix triangularInverseDispatched() {
+        return new Matrix(lowerDense).getInverse();
+    }
+
+    @Benchmark
+    public double[] triangularSolveLU() {
+        return new LUDecomposition(lowerDense).solve(x);
+    }
+
+    @Benchmark
+    public double[] triangularSolvePacked() {
+        return lower.solve(x);
+    }
+
+    @Benchmark
+    public double[] tridiagonalSolveLU() {
+        return new LUDecomposition(tridiagonalDense).solve(x);
+    }
+
+    @Benchmark
+    public double[] tridiagonalSolveBand() {
+        return tridiagonal.solve(x);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original column-order transposition loop with the
+ * cache-oblivious {@link Matrix#transpose(Matrix)}, and times
+ * {@link Matrix#transposeInPlace()} on a square matrix and on a 2:1
+ * rectangular one. The destination is reused, so only the copying is
+ * measured.
+ * <p>
+ * At the default size of 10000 the matrices take about 2 GB together.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Thread)
+public class TransposeBenchmark {
+    @Param({"10000"})
+    public int size;
+
+    private double[] source;
+    private double[] destination;
+    private Matrix sourceMatrix;
+    private Matrix destinationMatrix;
+    private Matrix rectangle;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        source = new double[size * size];
+        for (int i = 0; i < source.length; i++) {
+            source[i] = random.nextGaussian();
+        }
+        destination = new double[size * size];
+        sourceMatrix = Matrix.fromLinearArray(size, size, source, false);
+        destinationMatrix = Matrix.fromLinearArray(size, size, destination, false);
+        rectangle = Matrix.random(size, size / 2);
+    }
+
+    @Benchmark
+    public double[] naive() {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                destination[j * size + i] = source[i * size + j];
+            }
+        }
+        return destination;
+    }
+
+    @Benchmark
+    public Matrix blocked() {
+        return sourceMatrix.transpose(destinationMatrix);
+    }
+
+    @Benchmark
+    public Matrix inPlaceSquare() {
+        sourceMatrix.transposeInPlace();
+        return sourceMatrix;
+    }
+
+    @Benchmark
+    public Matrix inPlaceRectangular() {
+        rectangle.transposeInPlace();
+        return rectangle;
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.subh0m0y.matrix.benchmarks;
+
+import com.github.subh0m0y.matrix.Matrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the kernels behind the element-wise operations, matrix-vector
+ * products and matrix multiplication with the scalar loops and with the
+ * DoubleVector backend at each vector width.
+ * <p>
+ * The backend is chosen once per JVM, so every width runs in a fork of its
+ * own, which sets the system properties the kernels read before touching
+ * them. Needs JDK 17 or later; widths the processor lacks are emulated and
+ * very slow.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class VectorBenchmark {
+    @Param({"scalar", "128", "256", "512"})
+    public String backend;
+
+    @Param({"1024"})
+    public int size;
+
+    private Matrix a;
+    private Matrix b;
+    private Matrix destination;
+    private double[] vector;
+
+    @Setup
+    public void setUp() {
+        if (backend.equals("scalar")) {
+            System.setProperty("matrix.vector", "false");
+        } else {
+            System.setProperty("matrix.vector.bits", backend);
+        }
+        a = Matrix.random(size, size);
+        b = Matrix.random(size, size).scale(1.0 / size);
+        destination = Matrix.zero(size, size);
+        vector = new double[size];
+        vector[0] = 1;
+    }
+
+    @Benchmark
+    public Matrix add() {
+        return a.add(b, destination);
+    }
+
+    @Benchmark
+    public Matrix elementMultiply() {
+        return a.elementMultiply(b, destination);
+    }
+
+    @Benchmark
+    public Matrix scale() {
+        return a.scale(0.5, destination);
+    }
+
+    @Benchmark
+    public double[] matrixVector() {
+        return b.exponentiate(1, vector);
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return a.multiply(b, destination);
+    }
+}
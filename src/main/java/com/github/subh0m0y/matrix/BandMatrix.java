@@ -0,0 +1,330 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * A band matrix, whose non-zeros lie within a lower bandwidth below the
+ * diagonal and an upper bandwidth above it, such as the tridiagonal
+ * matrices of one-dimensional finite differences. A diagonal matrix is a
+ * band matrix with both bandwidths zero.
+ * <p>
+ * Row i stores elements (i, i - lower) to (i, i + upper), so the storage
+ * is n(lower + upper + 1) elements, a few of which at the corners lie
+ * outside the matrix and are always zero. Products cost time in
+ * proportion to the storage, and {@link #solve(double[])} eliminates
+ * within the band in O(n * lower * (lower + upper)) operations instead of
+ * the O(n<sup>3</sup>) of a dense decomposition.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BandMatrix extends StructuredMatrix {
+    private final int lower;
+    private final int upper;
+    private final int width;
+
+    BandMatrix(final int order, final int lower, final int upper, final double[] packed) {
+        super(order, packed);
+        this.lower = lower;
+        this.upper = upper;
+        this.width = lower + upper + 1;
+    }
+
+    /**
+     * @param order The order of the matrix.
+     * @param lower The number of diagonals below the main one.
+     * @param upper The number of diagonals above the main one.
+     * @return A band matrix of zeros.
+     */
+    public static BandMatrix zero(final int order, final int lower, final int upper)
+            throws IllegalArgumentException {
+        throwIfInvalidOrder(order);
+        if (lower < 0 || upper < 0) {
+            throw new IllegalArgumentException("Invalid bandwidths : " + lower + ", " + upper);
+        }
+        return new BandMatrix(order, lower, upper, new double[Math.multiplyExact(order, lower + upper + 1)]);
+    }
+
+    /**
+     * @param diagonal The elements of the diagonal.
+     * @return The diagonal matrix with the given diagonal.
+     */
+    public static BandMatrix diagonal(final double[] diagonal) {
+        return new BandMatrix(diagonal.length, 0, 0, diagonal.clone());
+    }
+
+    /**
+     * Packs the band of the given matrix. The elements outside it are not
+     * read, and are taken to be zero.
+     *
+     * @param matrix The square matrix to pack.
+     * @param lower  The number of diagonals below the main one.
+     * @param upper  The number of diagonals above the main one.
+     * @return The band matrix.
+     * @throws IllegalArgumentException If the matrix is not square or a
+     *                                  bandwidth is negative.
+     */
+    public static BandMatrix fromMatrix(final Matrix matrix, final int lower, final int upper)
+            throws IllegalArgumentException {
+        throwIfNotSquare(matrix);
+        BandMatrix band = zero(matrix.getRows(), lower, upper);
+        double[] data = matrix.getData();
+        for (int i = 0; i < band.order; i++) {
+            int first = band.firstColumn(i);
+            Kernels.copy(band.lastColumn(i) - first + 1, data, matrix.index(i, first), matrix.getColStride(),
+                    band.packed, band.position(i, first), 1);
+        }
+        return band;
+    }
+
+    public int getLowerBandwidth() {
+        return lower;
+    }
+
+    public int getUpperBandwidth() {
+        return upper;
+    }
+
+    public boolean isDiagonal() {
+        return lower == 0 && upper == 0;
+    }
+
+    private int position(final int i, final int j) {
+        return i * width + j - i + lower;
+    }
+
+    private int firstColumn(final int i) {
+        return Math.max(0, i - lower);
+    }
+
+    private int lastColumn(final int i) {
+        return Math.min(order - 1, i + upper);
+    }
+
+    private boolean isInBand(final int i, final int j) {
+        return j >= i - lower && j <= i + upper;
+    }
+
+    @Override
+    double element(final int i, final int j) {
+        return isInBand(i, j) ? packed[position(i, j)] : 0;
+    }
+
+    /**
+     * Sets an element of the band.
+     *
+     * @throws IllegalArgumentException If a non-zero value is set outside
+     *                                  the band.
+     */
+    public void set(final int i, final int j, final double value)
+            throws IndexOutOfBoundsException, IllegalArgumentException {
+        throwIfInvalidElement(i, j);
+        if (isInBand(i, j)) {
+            packed[position(i, j)] = value;
+        } else if (value != 0) {
+            throw new IllegalArgumentException("Cannot set an element outside the band : ("
+                    + i + ", " + j + ")");
+        }
+    }
+
+    @Override
+    boolean hasSameStructure(final StructuredMatrix matrix) {
+        return matrix instanceof BandMatrix && matrix.order == order
+                && ((BandMatrix) matrix).lower == lower && ((BandMatrix) matrix).upper == upper;
+    }
+
+    @Override
+    BandMatrix withPacked(final double[] elements) {
+        return new BandMatrix(order, lower, upper, elements);
+    }
+
+    @Override
+    public double[] multiply(final double[] vector, final double[] destination) throws IllegalArgumentException {
+        throwIfInvalidVectors(vector, destination);
+        for (int i = 0; i < order; i++) {
+            int first = firstColumn(i);
+            destination[i] = Kernels.dot(lastColumn(i) - first + 1, packed, position(i, first), 1,
+                    vector, first, 1);
+        }
+        return destination;
+    }
+
+    @Override
+    public Matrix multiply(final Matrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand.getRows() != order) {
+            throwIncompatible("multiplication");
+        }
+        int p = multiplicand.getCols();
+        double[] b = multiplicand.getData();
+        double[] product = new double[order * p];
+        for (int i = 0; i < order; i++) {
+            for (int j = firstColumn(i), q = position(i, j); j <= lastColumn(i); j++, q++) {
+                Kernels.axpy(p, packed[q], b, multiplicand.index(j, 0), multiplicand.getColStride(),
+                        product, i * p, 1);
+            }
+        }
+        return Matrix.fromLinearArray(order, p, product, false);
+    }
+
+    @Override
+    Matrix leftMultiply(final Matrix multiplier) throws IllegalArgumentException {
+        if (multiplier.getCols() != order) {
+            throwIncompatible("multiplication");
+        }
+        int m = multiplier.getRows();
+        double[] a = multiplier.getData();
+        double[] product = new double[m * order];
+        for (int r = 0; r < m; r++) {
+            for (int k = 0, ak = multiplier.index(r, 0); k < order; k++, ak += multiplier.getColStride()) {
+                if (a[ak] != 0) {
+                    int first = firstColumn(k);
+                    Kernels.axpy(lastColumn(k) - first + 1, a[ak], packed, position(k, first), 1,
+                            product, r * order + first, 1);
+                }
+            }
+        }
+        return Matrix.fromLinearArray(m, order, product, false);
+    }
+
+    /**
+     * @return The transpose, with the bandwidths exchanged.
+     */
+    @Override
+    public BandMatrix transpose() {
+        BandMatrix transpose = zero(order, upper, lower);
+        for (int i = 0; i < order; i++) {
+            for (int j = firstColumn(i), q = position(i, j); j <= lastColumn(i); j++, q++) {
+                transpose.packed[transpose.position(j, i)] = packed[q];
+            }
+        }
+        return transpose;
+    }
+
+    /**
+     * The LU decomposition within the band, with partial pivoting. Row
+     * exchanges widen the upper band of U by the lower bandwidth, so row i
+     * keeps columns i - lower to i + lower + upper. The multipliers of L
+     * are kept below the diagonal, unpermuted, as in LAPACK, so they are
+     * applied interleaved with the exchanges.
+     */
+    private final class Factors {
+        final int factorWidth = 2 * lower + upper + 1;
+        final double[] lu = new double[order * factorWidth];
+        final int[] pivot = new int[order];
+
+        Factors() throws ArithmeticException {
+            for (int i = 0; i < order; i++) {
+                int first = firstColumn(i);
+                System.arraycopy(packed, position(i, first), lu, at(i, first), lastColumn(i) - first + 1);
+            }
+            double tolerance = pivotTolerance();
+            for (int k = 0; k < order; k++) {
+                int rowEnd = Math.min(order - 1, k + lower);
+                int colEnd = Math.min(order - 1, k + lower + upper);
+                int p = k;
+                for (int i = k + 1; i <= rowEnd; i++) {
+                    if (Math.abs(lu[at(i, k)]) > Math.abs(lu[at(p, k)])) {
+                        p = i;
+                    }
+                }
+                if (Math.abs(lu[at(p, k)]) <= tolerance) {
+                    throw new ArithmeticException("Cannot solve a system with a singular matrix.");
+                }
+                pivot[k] = p;
+                if (p != k) {
+                    for (int j = k, a = at(k, k), b = at(p, k); j <= colEnd; j++, a++, b++) {
+                        double temp = lu[a];
+                        lu[a] = lu[b];
+                        lu[b] = temp;
+                    }
+                }
+                for (int i = k + 1; i <= rowEnd; i++) {
+                    double multiplier = lu[at(i, k)] / lu[at(k, k)];
+                    lu[at(i, k)] = multiplier;
+                    Kernels.axpy(colEnd - k, -multiplier, lu, at(k, k + 1), 1, lu, at(i, k + 1), 1);
+                }
+            }
+        }
+
+        int at(final int i, final int j) {
+            return i * factorWidth + j - i + lower;
+        }
+
+        /**
+         * Solves in place for the rows of x, each of cols elements.
+         */
+        void solve(final double[] x, final int cols) {
+            for (int k = 0; k < order; k++) {
+                if (pivot[k] != k) {
+                    for (int c = 0, a = k * cols, b = pivot[k] * cols; c < cols; c++, a++, b++) {
+                        double temp = x[a];
+                        x[a] = x[b];
+                        x[b] = temp;
+                    }
+                }
+                for (int i = k + 1, rowEnd = Math.min(order - 1, k + lower); i <= rowEnd; i++) {
+                    Kernels.axpy(cols, -lu[at(i, k)], x, k * cols, 1, x, i * cols, 1);
+                }
+            }
+            for (int i = order - 1; i >= 0; i--) {
+                for (int j = i + 1, colEnd = Math.min(order - 1, i + lower + upper); j <= colEnd; j++) {
+                    Kernels.axpy(cols, -lu[at(i, j)], x, j * cols, 1, x, i * cols, 1);
+                }
+                Kernels.scale(cols, 1 / lu[at(i, i)], x, i * cols, 1);
+            }
+        }
+    }
+
+    /**
+     * Solves Ax = b by Gaussian elimination with partial pivoting, confined
+     * to the band.
+     *
+     * @param b The right-hand side, of length equal to the order of A.
+     * @return The solution x, in a new array.
+     * @throws ArithmeticException If A is singular.
+     */
+    public double[] solve(final double[] b) throws IllegalArgumentException, ArithmeticException {
+        throwIfInvalidRightHandSide(b);
+        double[] x = b.clone();
+        new Factors().solve(x, 1);
+        return x;
+    }
+
+    /**
+     * Solves AX = B for X, treating every column of B as a separate
+     * right-hand side.
+     *
+     * @param b The right-hand sides, with as many rows as the order of A.
+     * @return The solution X, in a new matrix of the same shape as B.
+     * @throws ArithmeticException If A is singular.
+     */
+    public Matrix solve(final Matrix b) throws IllegalArgumentException, ArithmeticException {
+        throwIfInvalidRightHandSide(b);
+        double[] x = b.toLinearArray();
+        new Factors().solve(x, b.getCols());
+        return Matrix.fromLinearArray(order, b.getCols(), x, false);
+    }
+
+    /**
+     * Finds the inverse. The inverse of a diagonal matrix is diagonal, and
+     * is returned as a band matrix; that of any other band matrix is in
+     * general dense, and is returned as a dense matrix.
+     *
+     * @return The inverse of this matrix.
+     * @throws ArithmeticException If this matrix is singular.
+     */
+    public RealMatrix getInverse() throws ArithmeticException {
+        if (!isDiagonal()) {
+            try {
+                return solve(Matrix.identity(order));
+            } catch (ArithmeticException e) {
+                throw new ArithmeticException("Cannot find inverse of singular matrix.");
+            }
+        }
+        double tolerance = pivotTolerance();
+        double[] inverse = new double[order];
+        for (int i = 0; i < order; i++) {
+            if (Math.abs(packed[i]) <= tolerance) {
+                throw new ArithmeticException("Cannot find inverse of singular matrix.");
+            }
+            inverse[i] = 1 / packed[i];
+        }
+        return new BandMatrix(order, 0, 0, inverse);
+    }
+}
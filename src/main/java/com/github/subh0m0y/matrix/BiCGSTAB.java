@@ -0,0 +1,92 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * The stabilized biconjugate gradient method of van der Vorst, for
+ * general non-symmetric systems.
+ * <p>
+ * Each iteration costs two products with A and two applications of the
+ * preconditioner, and the memory use is fixed at seven vectors, however
+ * many iterations are needed. The preconditioner is applied on the
+ * right, so the residual that is tracked and compared with the tolerance
+ * is that of the original system. Convergence is often irregular, and
+ * the method can break down on some systems; the solve then ends
+ * unconverged.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BiCGSTAB extends IterativeSolver {
+    public BiCGSTAB() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * @param tolerance     The relative residual norm to reach.
+     * @param maxIterations The largest number of iterations.
+     */
+    public BiCGSTAB(final double tolerance, final int maxIterations) throws IllegalArgumentException {
+        super(tolerance, maxIterations);
+    }
+
+    @Override
+    Result iterate(final LinearOperator a, final double[] b, final double[] x,
+                   final Preconditioner preconditioner, final double target) {
+        int n = b.length;
+        double[] r = new double[n];
+        double[] shadow = new double[n];
+        double[] p = new double[n];
+        double[] v = new double[n];
+        double[] t = new double[n];
+        double[] pHat = new double[n];
+        double[] sHat = new double[n];
+        double norm = residual(a, b, x, r);
+        report(0, norm);
+        if (norm <= target) {
+            return new Result(x, 0, norm, true);
+        }
+        System.arraycopy(r, 0, shadow, 0, n);
+        double rho = 1;
+        double alpha = 1;
+        double omega = 1;
+        for (int iteration = 1; iteration <= getMaxIterations(); iteration++) {
+            double previous = rho;
+            rho = Blas.dot(shadow, r);
+            if (rho == 0 || omega == 0) {
+                return new Result(x, iteration - 1, norm, false);
+            }
+            if (iteration == 1) {
+                System.arraycopy(r, 0, p, 0, n);
+            } else {
+                // p = r + beta * (p - omega * v)
+                Blas.axpy(-omega, v, p);
+                Blas.scal(rho / previous * (alpha / omega), p);
+                Blas.axpy(1, r, p);
+            }
+            preconditioner.apply(p, pHat);
+            a.multiply(pHat, v);
+            double shadowV = Blas.dot(shadow, v);
+            if (shadowV == 0) {
+                return new Result(x, iteration - 1, norm, false);
+            }
+            alpha = rho / shadowV;
+            // The half step: s = r - alpha * v, kept in r
+            Blas.axpy(alpha, pHat, x);
+            Blas.axpy(-alpha, v, r);
+            norm = Blas.norm2(r);
+            if (norm <= target) {
+                report(iteration, norm);
+                return new Result(x, iteration, norm, true);
+            }
+            preconditioner.apply(r, sHat);
+            a.multiply(sHat, t);
+            double tt = Blas.dot(t, t);
+            omega = tt == 0 ? 0 : Blas.dot(t, r) / tt;
+            Blas.axpy(omega, sHat, x);
+            Blas.axpy(-omega, t, r);
+            norm = Blas.norm2(r);
+            report(iteration, norm);
+            if (norm <= target) {
+                return new Result(x, iteration, norm, true);
+            }
+        }
+        return new Result(x, getMaxIterations(), norm, false);
+    }
+}
@@ -0,0 +1,442 @@
+package com.github.subh0m0y.matrix;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes matrices in a compact, versioned binary format.
+ * <p>
+ * A matrix is stored as a header of {@link #HEADER_SIZE} bytes followed by
+ * its elements, all little-endian:
+ * <pre>
+ * offset  size  field
+ *      0     4  magic number, the ASCII characters "MTRX"
+ *      4     2  format version, currently {@value #VERSION}
+ *      6     1  element type, {@value #FLOAT64} for doubles
+ *      7     1  layout, {@value #ROW_MAJOR} for row-major or {@value #COLUMN_MAJOR} for column-major
+ *      8     4  number of rows
+ *     12     4  number of columns
+ *     16    16  reserved, zero
+ *     32        rows x cols elements, in the order given by the layout
+ * </pre>
+ * The header is a multiple of the element size, so the elements of a file
+ * are aligned and can be mapped straight into a {@link MappedMatrix} by
+ * {@link #map(Path, boolean)}, without being read at all.
+ * <p>
+ * Elements are moved by bulk transfers between the backing array and a
+ * byte buffer, with no per-element parsing; on little-endian hardware each
+ * transfer is a plain memory copy. Compact matrices are written with a
+ * single transfer, in column-major layout if they are compact transposed
+ * views. Streams and channels are served through a buffer of at most
+ * {@link #CHUNK_SIZE} bytes, so that memory use does not grow with the
+ * matrix.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class BinaryFormat {
+    public static final int HEADER_SIZE = 32;
+    public static final short VERSION = 1;
+    public static final byte FLOAT64 = 1;
+    public static final byte ROW_MAJOR = 0;
+    public static final byte COLUMN_MAJOR = 1;
+    /**
+     * "MTRX" read as a little-endian integer.
+     */
+    static final int MAGIC = 0x5852544D;
+    /**
+     * The largest buffer used to transfer elements through a stream or channel.
+     */
+    static final int CHUNK_SIZE = 1 << 20;
+
+    private BinaryFormat() {
+    }
+
+    /**
+     * @return The number of bytes the given matrix takes when written.
+     */
+    public static long sizeOf(final Matrix matrix) {
+        return HEADER_SIZE + (long) matrix.getRows() * matrix.getCols() * Double.BYTES;
+    }
+
+    /**
+     * The destination of the chunks of a matrix being written.
+     */
+    private interface Sink {
+        void drain(ByteBuffer chunk) throws IOException;
+    }
+
+    /**
+     * The source of the chunks of a matrix being read.
+     */
+    private interface Source {
+        /**
+         * Fills the remainder of the chunk.
+         *
+         * @throws EOFException If the source runs out first.
+         */
+        void fill(ByteBuffer chunk) throws IOException;
+    }
+
+    /**
+     * Writes the given matrix to the stream. The stream is not flushed or
+     * closed.
+     */
+    public static void write(final Matrix matrix, final OutputStream stream) throws IOException {
+        ByteBuffer chunk = chunk(sizeOf(matrix));
+        write(matrix, chunk, buffer -> stream.write(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                buffer.remaining()));
+    }
+
+    /**
+     * Writes the given matrix to the channel.
+     */
+    public static void write(final Matrix matrix, final WritableByteChannel channel) throws IOException {
+        ByteBuffer chunk = chunk(sizeOf(matrix));
+        write(matrix, chunk, buffer -> {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        });
+    }
+
+    /**
+     * Writes the given matrix into the buffer, at its position, which is
+     * advanced past it. The byte order of the buffer is left unchanged.
+     *
+     * @throws java.nio.BufferOverflowException If fewer than
+     *                                          {@link #sizeOf(Matrix)} bytes remain.
+     */
+    public static void write(final Matrix matrix, final ByteBuffer buffer) {
+        if (buffer.remaining() < sizeOf(matrix)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        putHeader(matrix, buffer);
+        DoubleBuffer elements = buffer.asDoubleBuffer();
+        putElements(matrix, elements, 0, matrix.getRows());
+        buffer.position(buffer.position() + elements.position() * Double.BYTES);
+        buffer.order(order);
+    }
+
+    private static ByteBuffer chunk(final long size) {
+        return ByteBuffer.allocate((int) Math.min(size, CHUNK_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte layoutOf(final Matrix matrix) {
+        return matrix.isCompactTransposed() && !matrix.isCompact() ? COLUMN_MAJOR : ROW_MAJOR;
+    }
+
+    private static void putHeader(final Matrix matrix, final ByteBuffer buffer) {
+        putHeader(matrix.getRows(), matrix.getCols(), layoutOf(matrix), buffer);
+    }
+
+    private static void putHeader(final int rows, final int cols, final byte layout, final ByteBuffer buffer) {
+        buffer.putInt(MAGIC)
+                .putShort(VERSION)
+                .put(FLOAT64)
+                .put(layout)
+                .putInt(rows)
+                .putInt(cols)
+                .putLong(0)
+                .putLong(0);
+    }
+
+    /**
+     * Puts the elements of the given rows into the buffer, in the layout
+     * the matrix is written in. A compact matrix is put as one run.
+     */
+    private static void putElements(final Matrix matrix, final DoubleBuffer elements,
+                                    final int rowStart, final int rowEnd) {
+        if (rowEnd == rowStart) {
+            return;
+        }
+        double[] data = matrix.getData();
+        int cols = matrix.getCols();
+        if (layoutOf(matrix) == COLUMN_MAJOR || matrix.isCompact()) {
+            // Either way, one unbroken run of the array
+            elements.put(data, matrix.index(rowStart, 0), (rowEnd - rowStart) * cols);
+            return;
+        }
+        for (int i = rowStart; i < rowEnd; i++) {
+            if (matrix.getColStride() == 1) {
+                elements.put(data, matrix.index(i, 0), cols);
+            } else {
+                for (int j = 0, k = matrix.index(i, 0); j < cols; j++, k += matrix.getColStride()) {
+                    elements.put(data[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the header and then as many rows per chunk as fit, or for a
+     * column-major matrix as many columns.
+     */
+    private static void write(final Matrix matrix, final ByteBuffer chunk, final Sink sink) throws IOException {
+        putHeader(matrix, chunk);
+        boolean columnMajor = layoutOf(matrix) == COLUMN_MAJOR;
+        // A column-major matrix is written as the row-major transpose it is
+        Matrix source = columnMajor ? matrix.transposeView() : matrix;
+        int lines = source.getRows();
+        int length = source.getCols();
+        int line = 0;
+        while (line < lines || chunk.position() > 0) {
+            DoubleBuffer elements = chunk.asDoubleBuffer();
+            int count = length == 0 ? lines - line
+                    : Math.min(lines - line, elements.remaining() / length);
+            if (count == 0 && chunk.position() == 0) {
+                // A line longer than a chunk: write it in pieces
+                double[] data = source.getData();
+                for (int j = 0; j < length; ) {
+                    elements = chunk.asDoubleBuffer();
+                    int piece = Math.min(length - j, elements.remaining());
+                    if (source.getColStride() == 1) {
+                        elements.put(data, source.index(line, j), piece);
+                    } else {
+                        for (int p = 0, k = source.index(line, j); p < piece; p++, k += source.getColStride()) {
+                            elements.put(data[k]);
+                        }
+                    }
+                    chunk.position(chunk.position() + piece * Double.BYTES);
+                    drain(chunk, sink);
+                    j += piece;
+                }
+                line++;
+                continue;
+            }
+            putElements(source, elements, line, line + count);
+            chunk.position(chunk.position() + elements.position() * Double.BYTES);
+            line += count;
+            drain(chunk, sink);
+        }
+    }
+
+    private static void drain(final ByteBuffer chunk, final Sink sink) throws IOException {
+        chunk.flip();
+        sink.drain(chunk);
+        chunk.clear();
+    }
+
+    /**
+     * Reads a matrix from the stream, consuming exactly its bytes.
+     *
+     * @throws IOException If the stream does not hold a matrix in a
+     *                     supported version of the format, or ends early.
+     */
+    public static Matrix read(final InputStream stream) throws IOException {
+        return read(buffer -> {
+            while (buffer.hasRemaining()) {
+                int count = stream.read(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                        buffer.remaining());
+                if (count < 0) {
+                    throw new EOFException("The matrix ends after " + buffer.position() + " bytes of a chunk.");
+                }
+                buffer.position(buffer.position() + count);
+            }
+        });
+    }
+
+    /**
+     * Reads a matrix from the channel, consuming exactly its bytes.
+     *
+     * @throws IOException If the channel does not hold a matrix in a
+     *                     supported version of the format, or ends early.
+     */
+    public static Matrix read(final ReadableByteChannel channel) throws IOException {
+        return read(buffer -> {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("The matrix ends after " + buffer.position() + " bytes of a chunk.");
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads a matrix from the buffer, at its position, which is advanced
+     * past it. The elements are copied into the new matrix in one transfer.
+     * The byte order of the buffer is left unchanged.
+     *
+     * @throws IllegalArgumentException         If the buffer does not hold a
+     *                                          matrix in a supported version
+     *                                          of the format.
+     * @throws java.nio.BufferUnderflowException If the buffer ends early.
+     */
+    public static Matrix read(final ByteBuffer buffer) throws IllegalArgumentException {
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            Header header = Header.parse(buffer);
+            Matrix matrix = header.allocate();
+            int size = header.rows * header.cols;
+            if (buffer.remaining() < (long) size * Double.BYTES) {
+                throw new java.nio.BufferUnderflowException();
+            }
+            buffer.asDoubleBuffer().get(matrix.getData(), 0, size);
+            buffer.position(buffer.position() + size * Double.BYTES);
+            return matrix;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        } finally {
+            buffer.order(order);
+        }
+    }
+
+    private static Matrix read(final Source source) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        source.fill(header);
+        header.flip();
+        Header parsed = Header.parse(header);
+        Matrix matrix = parsed.allocate();
+        double[] data = matrix.getData();
+        int size = parsed.rows * parsed.cols;
+        ByteBuffer chunk = chunk((long) size * Double.BYTES);
+        for (int done = 0; done < size; ) {
+            int count = Math.min(size - done, chunk.capacity() / Double.BYTES);
+            chunk.clear().limit(count * Double.BYTES);
+            source.fill(chunk);
+            chunk.flip();
+            chunk.asDoubleBuffer().get(data, done, count);
+            done += count;
+        }
+        return matrix;
+    }
+
+    /**
+     * Maps the elements of a file written in this format into a matrix,
+     * without reading them.
+     *
+     * @param file     A file holding a row-major matrix of doubles.
+     * @param writable Whether the matrix may be modified, writing through
+     *                 to the file.
+     * @return The matrix.
+     * @throws IOException If the file does not hold a row-major matrix in
+     *                     a supported version of the format.
+     */
+    public static MappedMatrix map(final Path file, final boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("The file is too short to hold a matrix.");
+                }
+            }
+            buffer.flip();
+            Header header = Header.parse(buffer);
+            if (header.layout != ROW_MAJOR) {
+                throw new IOException("Only row-major matrices can be mapped.");
+            }
+            long expected = HEADER_SIZE + (long) header.rows * header.cols * Double.BYTES;
+            if (channel.size() < expected) {
+                throw new EOFException("Invalid file size. Expected : " + expected + " Found : " + channel.size());
+            }
+            return new MappedMatrix(channel, HEADER_SIZE, header.rows, header.cols, writable,
+                    MappedMatrix.SEGMENT_SHIFT);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a zero matrix in a file in this format, replacing whatever the
+     * file held, and maps it, so that results too large for the heap can be
+     * written in place and read back later with {@link #map(Path, boolean)}.
+     *
+     * @param file The file to store the matrix in.
+     * @param rows The number of rows.
+     * @param cols The number of columns.
+     * @return The matrix, open for reading and writing.
+     */
+    public static MappedMatrix createMapped(final Path file, final int rows, final int cols) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            putHeader(rows, cols, ROW_MAJOR, header);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            return new MappedMatrix(channel, HEADER_SIZE, rows, cols, true, MappedMatrix.SEGMENT_SHIFT);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A parsed and validated header.
+     */
+    private static final class Header {
+        private final int rows;
+        private final int cols;
+        private final byte layout;
+
+        private Header(final int rows, final int cols, final byte layout) {
+            this.rows = rows;
+            this.cols = cols;
+            this.layout = layout;
+        }
+
+        /**
+         * Reads a header from a little-endian buffer.
+         */
+        static Header parse(final ByteBuffer buffer) throws IOException {
+            if (buffer.remaining() < HEADER_SIZE) {
+                throw new EOFException("The data is too short to hold a matrix.");
+            }
+            int start = buffer.position();
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("The data does not hold a matrix.");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported format version : " + version);
+            }
+            byte type = buffer.get();
+            if (type != FLOAT64) {
+                throw new IOException("Unsupported element type : " + type);
+            }
+            byte layout = buffer.get();
+            if (layout != ROW_MAJOR && layout != COLUMN_MAJOR) {
+                throw new IOException("Unsupported layout : " + layout);
+            }
+            int rows = buffer.getInt();
+            int cols = buffer.getInt();
+            if (rows < 0 || cols < 0) {
+                throw new IOException("Invalid shape : " + rows + " x " + cols);
+            }
+            buffer.position(start + HEADER_SIZE);
+            return new Header(rows, cols, layout);
+        }
+
+        /**
+         * @return A zero matrix of the shape and layout of the header, whose
+         * array the elements are read into as they are stored.
+         */
+        Matrix allocate() throws IOException {
+            if ((long) rows * cols > Integer.MAX_VALUE - 8) {
+                throw new IOException("The matrix is too large to read into memory; map it instead : "
+                        + rows + " x " + cols);
+            }
+            double[] data = new double[rows * cols];
+            return layout == ROW_MAJOR
+                    ? new Matrix(rows, cols, data, 0, cols, 1)
+                    : new Matrix(rows, cols, data, 0, 1, rows);
+        }
+    }
+}
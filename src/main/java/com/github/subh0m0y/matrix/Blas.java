@@ -0,0 +1,245 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * Vector and matrix-vector operations in the manner of BLAS levels 1 and 2,
+ * on plain double arrays and directly on the elements of a {@link Matrix},
+ * so that iterative methods can run without wrapping vectors in matrices
+ * or allocating anything per step.
+ * <p>
+ * A vector is either a whole array or, in the overloads taking an offset
+ * and an increment, the n elements x[offset], x[offset + inc], ... of one.
+ * Increments must be positive. Output vectors must not overlap input
+ * vectors; the matrix may be any view, including a transposed one.
+ * <p>
+ * Everything is built on the loops of {@link Kernels}, and so uses the
+ * vector backend when one is available.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class Blas {
+    /**
+     * Sums of squares beyond these bounds may have overflowed or lost
+     * precision to underflow, and are recomputed with scaling.
+     */
+    private static final double SQUARES_MAX = 0x1p1000;
+    private static final double SQUARES_MIN = 0x1p-1000;
+
+    private Blas() {
+    }
+
+    private static void checkLength(final double[] x, final int length) throws IllegalArgumentException {
+        if (x.length != length) {
+            throw new IllegalArgumentException("Invalid number of elements. Expected : " + length
+                    + " Found : " + x.length);
+        }
+    }
+
+    private static void checkVector(final int n, final double[] x, final int offset, final int inc)
+            throws IllegalArgumentException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Invalid number of elements : " + n);
+        }
+        if (inc < 1) {
+            throw new IllegalArgumentException("Invalid increment : " + inc);
+        }
+        if (n > 0 && (offset < 0 || offset + (long) (n - 1) * inc >= x.length)) {
+            throw new IllegalArgumentException("Invalid region of " + x.length + " elements : offset "
+                    + offset + " increment " + inc + " for " + n + " elements");
+        }
+    }
+
+    // ---- Level 1 ----
+
+    /**
+     * @return The dot product of x and y, which must have the same length.
+     */
+    public static double dot(final double[] x, final double[] y) throws IllegalArgumentException {
+        checkLength(y, x.length);
+        return Kernels.dot(x.length, x, 0, 1, y, 0, 1);
+    }
+
+    public static double dot(final int n, final double[] x, final int xOffset, final int incX,
+                             final double[] y, final int yOffset, final int incY) throws IllegalArgumentException {
+        checkVector(n, x, xOffset, incX);
+        checkVector(n, y, yOffset, incY);
+        return Kernels.dot(n, x, xOffset, incX, y, yOffset, incY);
+    }
+
+    /**
+     * y += alpha * x, for x and y of the same length.
+     */
+    public static void axpy(final double alpha, final double[] x, final double[] y) throws IllegalArgumentException {
+        checkLength(y, x.length);
+        Kernels.axpy(x.length, alpha, x, 0, 1, y, 0, 1);
+    }
+
+    public static void axpy(final int n, final double alpha, final double[] x, final int xOffset, final int incX,
+                            final double[] y, final int yOffset, final int incY) throws IllegalArgumentException {
+        checkVector(n, x, xOffset, incX);
+        checkVector(n, y, yOffset, incY);
+        Kernels.axpy(n, alpha, x, xOffset, incX, y, yOffset, incY);
+    }
+
+    /**
+     * x *= alpha
+     */
+    public static void scal(final double alpha, final double[] x) {
+        Kernels.scale(x.length, alpha, x, 0, 1);
+    }
+
+    public static void scal(final int n, final double alpha, final double[] x, final int offset, final int inc)
+            throws IllegalArgumentException {
+        checkVector(n, x, offset, inc);
+        Kernels.scale(n, alpha, x, offset, inc);
+    }
+
+    /**
+     * @return The Euclidean norm of x.
+     */
+    public static double norm2(final double[] x) {
+        return norm2(x.length, x, 0, 1);
+    }
+
+    /**
+     * Computes the Euclidean norm as the square root of the dot product of
+     * x with itself, which is as accurate and several times faster than
+     * scaling every element. Only if that sum of squares is so large or so
+     * small that it may have overflowed or underflowed is it recomputed
+     * with the elements scaled by the largest of them.
+     *
+     * @return The Euclidean norm of the given vector.
+     */
+    public static double norm2(final int n, final double[] x, final int offset, final int inc)
+            throws IllegalArgumentException {
+        checkVector(n, x, offset, inc);
+        double squares = Kernels.dot(n, x, offset, inc, x, offset, inc);
+        if (squares < SQUARES_MAX && squares > SQUARES_MIN) {
+            return Math.sqrt(squares);
+        }
+        if (Double.isNaN(squares)) {
+            return squares;
+        }
+        double max = 0;
+        for (int i = 0, k = offset; i < n; i++, k += inc) {
+            max = Math.max(max, Math.abs(x[k]));
+        }
+        if (max == 0 || Double.isInfinite(max)) {
+            return max;
+        }
+        double sum = 0;
+        for (int i = 0, k = offset; i < n; i++, k += inc) {
+            double scaled = x[k] / max;
+            sum += scaled * scaled;
+        }
+        return max * Math.sqrt(sum);
+    }
+
+    // ---- Level 2 ----
+
+    /**
+     * y = alpha * op(a) * x + beta * y, where op(a) is a or its transpose.
+     * When beta is zero, y need not be initialized.
+     *
+     * @param transpose Whether to multiply by the transpose of a.
+     * @param alpha     The scale of the product.
+     * @param a         The matrix, which may be a view.
+     * @param x         A vector with as many elements as op(a) has columns.
+     * @param beta      The scale of y.
+     * @param y         A vector with as many elements as op(a) has rows.
+     */
+    public static void gemv(final boolean transpose, final double alpha, final Matrix a, final double[] x,
+                            final double beta, final double[] y) throws IllegalArgumentException {
+        int m = transpose ? a.getCols() : a.getRows();
+        int n = transpose ? a.getRows() : a.getCols();
+        checkLength(x, n);
+        checkLength(y, m);
+        gemv(transpose, alpha, a, x, 0, 1, beta, y, 0, 1);
+    }
+
+    /**
+     * As {@link #gemv(boolean, double, Matrix, double[], double, double[])},
+     * for vectors within larger arrays.
+     */
+    public static void gemv(final boolean transpose, final double alpha, final Matrix a,
+                            final double[] x, final int xOffset, final int incX,
+                            final double beta, final double[] y, final int yOffset, final int incY)
+            throws IllegalArgumentException {
+        // op(a) is m x n, with element (i, j) at offset + i * rowStride + j * colStride
+        int m = transpose ? a.getCols() : a.getRows();
+        int n = transpose ? a.getRows() : a.getCols();
+        int rowStride = transpose ? a.getColStride() : a.getRowStride();
+        int colStride = transpose ? a.getRowStride() : a.getColStride();
+        checkVector(n, x, xOffset, incX);
+        checkVector(m, y, yOffset, incY);
+        double[] data = a.getData();
+        int offset = a.index(0, 0);
+        if (beta == 0) {
+            for (int i = 0, k = yOffset; i < m; i++, k += incY) {
+                y[k] = 0;
+            }
+        } else if (beta != 1) {
+            Kernels.scale(m, beta, y, yOffset, incY);
+        }
+        if (alpha == 0 || m == 0) {
+            return;
+        }
+        if (colStride == 1 || incY != 1 || rowStride != 1) {
+            // One dot product per row of op(a)
+            for (int i = 0, k = yOffset; i < m; i++, k += incY) {
+                y[k] += alpha * Kernels.dot(n, data, offset + i * rowStride, colStride, x, xOffset, incX);
+            }
+            return;
+        }
+        // The columns of op(a) are unit-stride runs: add them to y four at a time
+        int j = 0;
+        for (; j + 3 < n; j += 4) {
+            int xj = xOffset + j * incX;
+            Kernels.axpy4(m, alpha * x[xj], alpha * x[xj + incX], alpha * x[xj + 2 * incX],
+                    alpha * x[xj + 3 * incX], data, offset + j * colStride, colStride, y, yOffset);
+        }
+        for (; j < n; j++) {
+            Kernels.axpy(m, alpha * x[xOffset + j * incX], data, offset + j * colStride, 1, y, yOffset, 1);
+        }
+    }
+
+    /**
+     * a += alpha * x * y<sup>T</sup>, the rank-one update.
+     *
+     * @param alpha The scale of the update.
+     * @param x     A vector with as many elements as a has rows.
+     * @param y     A vector with as many elements as a has columns.
+     * @param a     The matrix to update, which may be a view.
+     */
+    public static void ger(final double alpha, final double[] x, final double[] y, final Matrix a)
+            throws IllegalArgumentException, UnsupportedOperationException {
+        checkLength(x, a.getRows());
+        checkLength(y, a.getCols());
+        ger(alpha, x, 0, 1, y, 0, 1, a);
+    }
+
+    /**
+     * As {@link #ger(double, double[], double[], Matrix)}, for vectors
+     * within larger arrays.
+     */
+    public static void ger(final double alpha, final double[] x, final int xOffset, final int incX,
+                           final double[] y, final int yOffset, final int incY, final Matrix a)
+            throws IllegalArgumentException, UnsupportedOperationException {
+        int m = a.getRows();
+        int n = a.getCols();
+        checkVector(m, x, xOffset, incX);
+        checkVector(n, y, yOffset, incY);
+        if (a.isFrozen()) {
+            throw new UnsupportedOperationException("Cannot modify a frozen matrix.");
+        }
+        double[] data = a.getData();
+        if (a.getColStride() == 1 || a.getRowStride() != 1) {
+            for (int i = 0, k = xOffset; i < m; i++, k += incX) {
+                Kernels.axpy(n, alpha * x[k], y, yOffset, incY, data, a.index(i, 0), a.getColStride());
+            }
+        } else {
+            for (int j = 0, k = yOffset; j < n; j++, k += incY) {
+                Kernels.axpy(m, alpha * y[k], x, xOffset, incX, data, a.index(0, j), 1);
+            }
+        }
+        a.markModified();
+    }
+}
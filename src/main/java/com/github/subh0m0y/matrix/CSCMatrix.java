@@ -0,0 +1,169 @@
+package com.github.subh0m0y.matrix;
+
+import java.util.Arrays;
+
+/**
+ * A sparse matrix in compressed sparse column form: the non-zeros are
+ * stored column after column, each column sorted by row. Columns can be
+ * read quickly, which suits column-oriented algorithms and makes this the
+ * natural form of the transpose of a {@link CSRMatrix}.
+ *
+ * @see SparseMatrix
+ * @see CSRMatrix
+ */
+@SuppressWarnings("WeakerAccess")
+public class CSCMatrix extends SparseMatrix {
+    /**
+     * Wraps the given compressed arrays, which must already be in
+     * canonical form, without copying them.
+     */
+    CSCMatrix(final int rows, final int cols, final int[] columnPointers,
+              final int[] rowIndices, final double[] values) {
+        super(rows, cols, columnPointers, rowIndices, values);
+    }
+
+    /**
+     * Creates a sparse matrix from its non-zero elements, given as
+     * (row, column, value) triplets in any order. Triplets for the same
+     * element are summed.
+     *
+     * @param rows          The number of rows.
+     * @param cols          The number of columns.
+     * @param rowIndices    The row of each triplet.
+     * @param columnIndices The column of each triplet.
+     * @param values        The value of each triplet.
+     * @return The matrix.
+     */
+    public static CSCMatrix fromTriplets(final int rows, final int cols, final int[] rowIndices,
+                                         final int[] columnIndices, final double[] values)
+            throws IllegalArgumentException, IndexOutOfBoundsException {
+        return compress(rows, cols, cols, rows, columnIndices, rowIndices, values, CSCMatrix::new);
+    }
+
+    /**
+     * @param matrix The dense matrix to convert.
+     * @return The non-zero elements of the given matrix, in sparse form.
+     */
+    public static CSCMatrix fromMatrix(final Matrix matrix) {
+        return CSRMatrix.fromMatrix(matrix.transposeView()).transpose();
+    }
+
+    @Override
+    public double get(final int i, final int j) throws IndexOutOfBoundsException {
+        throwIfInvalidElement(i, j);
+        return find(j, i);
+    }
+
+    /**
+     * Returns the transpose in row form, sharing the arrays of this
+     * matrix. Nothing is copied.
+     *
+     * @return The transpose.
+     */
+    @Override
+    public CSRMatrix transpose() {
+        return new CSRMatrix(cols, rows, pointers, indices, values);
+    }
+
+    /**
+     * @return This matrix in compressed sparse row form.
+     */
+    public CSRMatrix toCSR() {
+        return regroup(rows, CSRMatrix::new);
+    }
+
+    @Override
+    public RealMatrix add(final RealMatrix addend) throws IllegalArgumentException {
+        if (addend instanceof CSCMatrix) {
+            return add((CSCMatrix) addend);
+        }
+        if (addend instanceof CSRMatrix) {
+            return add(((CSRMatrix) addend).toCSC());
+        }
+        return add(addend.toDense());
+    }
+
+    public CSCMatrix add(final CSCMatrix addend) throws IllegalArgumentException {
+        if (addend.rows != rows || addend.cols != cols) {
+            throwIncompatible("addition");
+        }
+        return merge(addend, CSCMatrix::new);
+    }
+
+    @Override
+    public RealMatrix multiply(final RealMatrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand instanceof CSCMatrix) {
+            return multiply((CSCMatrix) multiplicand);
+        }
+        if (multiplicand instanceof CSRMatrix) {
+            return multiply(((CSRMatrix) multiplicand).toCSC());
+        }
+        return multiply(multiplicand.toDense());
+    }
+
+    public CSCMatrix multiply(final CSCMatrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand.rows != cols) {
+            throwIncompatible("multiplication");
+        }
+        // Column j of the product combines the columns of this matrix picked out by column j of the other
+        return product(multiplicand, this, rows, rows, multiplicand.cols, CSCMatrix::new);
+    }
+
+    @Override
+    public Matrix multiply(final Matrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand.getRows() != cols) {
+            throwIncompatible("multiplication");
+        }
+        int p = multiplicand.getCols();
+        double[] b = multiplicand.getData();
+        double[] product = new double[rows * p];
+        for (int k = 0; k < cols; k++) {
+            int bk = multiplicand.index(k, 0);
+            for (int q = pointers[k]; q < pointers[k + 1]; q++) {
+                Kernels.axpy(p, values[q], b, bk, multiplicand.getColStride(), product, indices[q] * p, 1);
+            }
+        }
+        return Matrix.fromLinearArray(rows, p, product, false);
+    }
+
+    @Override
+    public double[] multiply(final double[] vector, final double[] product) throws IllegalArgumentException {
+        throwIfInvalidVectors(vector, product);
+        Arrays.fill(product, 0);
+        for (int k = 0; k < cols; k++) {
+            double value = vector[k];
+            for (int q = pointers[k]; q < pointers[k + 1]; q++) {
+                product[indices[q]] += values[q] * value;
+            }
+        }
+        return product;
+    }
+
+    @Override
+    Matrix leftMultiply(final Matrix multiplier) throws IllegalArgumentException {
+        if (multiplier.getCols() != rows) {
+            throwIncompatible("multiplication");
+        }
+        int m = multiplier.getRows();
+        double[] a = multiplier.getData();
+        double[] product = new double[m * cols];
+        for (int j = 0; j < cols; j++) {
+            for (int q = pointers[j]; q < pointers[j + 1]; q++) {
+                Kernels.axpy(m, values[q], a, multiplier.index(0, indices[q]), multiplier.getRowStride(),
+                        product, j, cols);
+            }
+        }
+        return Matrix.fromLinearArray(m, cols, product, false);
+    }
+
+    @Override
+    void addTo(final Matrix target) {
+        double[] data = target.getData();
+        for (int j = 0; j < cols; j++) {
+            for (int q = pointers[j]; q < pointers[j + 1]; q++) {
+                data[target.index(indices[q], j)] += values[q];
+            }
+        }
+        target.markModified();
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * A sparse matrix in compressed sparse row form: the non-zeros are stored
+ * row after row, each row sorted by column. Rows can be read quickly,
+ * which makes this the form of choice for multiplying by vectors and
+ * dense matrices.
+ *
+ * @see SparseMatrix
+ * @see CSCMatrix
+ */
+@SuppressWarnings("WeakerAccess")
+public class CSRMatrix extends SparseMatrix {
+    /**
+     * Wraps the given compressed arrays, which must already be in
+     * canonical form, without copying them.
+     */
+    CSRMatrix(final int rows, final int cols, final int[] rowPointers,
+              final int[] columnIndices, final double[] values) {
+        super(rows, cols, rowPointers, columnIndices, values);
+    }
+
+    /**
+     * Creates a sparse matrix from its non-zero elements, given as
+     * (row, column, value) triplets in any order. Triplets for the same
+     * element are summed.
+     *
+     * @param rows          The number of rows.
+     * @param cols          The number of columns.
+     * @param rowIndices    The row of each triplet.
+     * @param columnIndices The column of each triplet.
+     * @param values        The value of each triplet.
+     * @return The matrix.
+     */
+    public static CSRMatrix fromTriplets(final int rows, final int cols, final int[] rowIndices,
+                                         final int[] columnIndices, final double[] values)
+            throws IllegalArgumentException, IndexOutOfBoundsException {
+        return compress(rows, cols, rows, cols, rowIndices, columnIndices, values, CSRMatrix::new);
+    }
+
+    /**
+     * @param matrix The dense matrix to convert.
+     * @return The non-zero elements of the given matrix, in sparse form.
+     */
+    public static CSRMatrix fromMatrix(final Matrix matrix) {
+        int rows = matrix.getRows();
+        int cols = matrix.getCols();
+        double[] data = matrix.getData();
+        int nonZeros = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0, k = matrix.index(i, 0); j < cols; j++, k += matrix.getColStride()) {
+                if (data[k] != 0) {
+                    nonZeros++;
+                }
+            }
+        }
+        int[] pointers = new int[rows + 1];
+        int[] indices = new int[nonZeros];
+        double[] values = new double[nonZeros];
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0, k = matrix.index(i, 0); j < cols; j++, k += matrix.getColStride()) {
+                if (data[k] != 0) {
+                    indices[count] = j;
+                    values[count++] = data[k];
+                }
+            }
+            pointers[i + 1] = count;
+        }
+        return new CSRMatrix(rows, cols, pointers, indices, values);
+    }
+
+    @Override
+    public double get(final int i, final int j) throws IndexOutOfBoundsException {
+        throwIfInvalidElement(i, j);
+        return find(i, j);
+    }
+
+    /**
+     * Returns the transpose in column form, sharing the arrays of this
+     * matrix. Nothing is copied.
+     *
+     * @return The transpose.
+     */
+    @Override
+    public CSCMatrix transpose() {
+        return new CSCMatrix(cols, rows, pointers, indices, values);
+    }
+
+    /**
+     * @return This matrix in compressed sparse column form.
+     */
+    public CSCMatrix toCSC() {
+        return regroup(cols, CSCMatrix::new);
+    }
+
+    @Override
+    public RealMatrix add(final RealMatrix addend) throws IllegalArgumentException {
+        if (addend instanceof CSRMatrix) {
+            return add((CSRMatrix) addend);
+        }
+        if (addend instanceof CSCMatrix) {
+            return add(((CSCMatrix) addend).toCSR());
+        }
+        return add(addend.toDense());
+    }
+
+    public CSRMatrix add(final CSRMatrix addend) throws IllegalArgumentException {
+        if (addend.rows != rows || addend.cols != cols) {
+            throwIncompatible("addition");
+        }
+        return merge(addend, CSRMatrix::new);
+    }
+
+    @Override
+    public RealMatrix multiply(final RealMatrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand instanceof CSRMatrix) {
+            return multiply((CSRMatrix) multiplicand);
+        }
+        if (multiplicand instanceof CSCMatrix) {
+            return multiply(((CSCMatrix) multiplicand).toCSR());
+        }
+        return multiply(multiplicand.toDense());
+    }
+
+    public CSRMatrix multiply(final CSRMatrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand.rows != cols) {
+            throwIncompatible("multiplication");
+        }
+        return product(this, multiplicand, multiplicand.cols, rows, multiplicand.cols, CSRMatrix::new);
+    }
+
+    @Override
+    public Matrix multiply(final Matrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand.getRows() != cols) {
+            throwIncompatible("multiplication");
+        }
+        int p = multiplicand.getCols();
+        double[] b = multiplicand.getData();
+        double[] product = new double[rows * p];
+        for (int i = 0; i < rows; i++) {
+            for (int q = pointers[i]; q < pointers[i + 1]; q++) {
+                Kernels.axpy(p, values[q], b, multiplicand.index(indices[q], 0), multiplicand.getColStride(),
+                        product, i * p, 1);
+            }
+        }
+        return Matrix.fromLinearArray(rows, p, product, false);
+    }
+
+    @Override
+    public double[] multiply(final double[] vector, final double[] product) throws IllegalArgumentException {
+        throwIfInvalidVectors(vector, product);
+        for (int i = 0; i < rows; i++) {
+            double sum = 0;
+            for (int q = pointers[i]; q < pointers[i + 1]; q++) {
+                sum += values[q] * vector[indices[q]];
+            }
+            product[i] = sum;
+        }
+        return product;
+    }
+
+    @Override
+    Matrix leftMultiply(final Matrix multiplier) throws IllegalArgumentException {
+        if (multiplier.getCols() != rows) {
+            throwIncompatible("multiplication");
+        }
+        int m = multiplier.getRows();
+        double[] a = multiplier.getData();
+        double[] product = new double[m * cols];
+        for (int i = 0; i < m; i++) {
+            for (int k = 0, ak = multiplier.index(i, 0); k < rows; k++, ak += multiplier.getColStride()) {
+                double value = a[ak];
+                if (value == 0) {
+                    continue;
+                }
+                for (int q = pointers[k]; q < pointers[k + 1]; q++) {
+                    product[i * cols + indices[q]] += value * values[q];
+                }
+            }
+        }
+        return Matrix.fromLinearArray(m, cols, product, false);
+    }
+
+    @Override
+    void addTo(final Matrix target) {
+        double[] data = target.getData();
+        for (int i = 0; i < rows; i++) {
+            for (int q = pointers[i]; q < pointers[i + 1]; q++) {
+                data[target.index(i, indices[q])] += values[q];
+            }
+        }
+        target.markModified();
+    }
+}
@@ -0,0 +1,221 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * The Cholesky decomposition of a symmetric positive definite matrix,
+ * such that A = LL<sup>T</sup>, where L is lower triangular with a
+ * positive diagonal.
+ * <p>
+ * Only the lower triangle of the matrix is read; the upper triangle is
+ * assumed to mirror it. The decomposition needs half the work of
+ * {@link LUDecomposition} and no pivoting, and is numerically stable for
+ * every positive definite matrix.
+ * <p>
+ * Like {@link LUDecomposition}, the factorization is blocked and
+ * right-looking: a diagonal block is factored, the panel below it is
+ * found by a triangular solve, and the lower triangle of the rest of the
+ * matrix is updated by the cache-blocked {@link Gemm} kernel, one band of
+ * rows at a time.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CholeskyDecomposition {
+    /**
+     * The number of columns factored per panel, unless specified otherwise.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private final int order;
+    private final double[] l;
+
+    /**
+     * Decomposes the given matrix. The matrix itself is not modified.
+     *
+     * @param matrix The symmetric positive definite matrix to decompose.
+     * @throws IllegalArgumentException If the matrix is not square.
+     * @throws ArithmeticException      If the matrix is not positive definite.
+     */
+    public CholeskyDecomposition(final Matrix matrix) throws IllegalArgumentException, ArithmeticException {
+        this(matrix, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Decomposes the given matrix, factoring blockSize columns at a time.
+     * The matrix itself is not modified.
+     *
+     * @param matrix    The symmetric positive definite matrix to decompose.
+     * @param blockSize The number of columns per panel.
+     * @throws IllegalArgumentException If the matrix is not square or the
+     *                                  block size is not positive.
+     * @throws ArithmeticException      If the matrix is not positive definite.
+     */
+    public CholeskyDecomposition(final Matrix matrix, final int blockSize)
+            throws IllegalArgumentException, ArithmeticException {
+        if (!matrix.isSquare()) {
+            throw new IllegalArgumentException("Cannot find Cholesky decomposition of a non-square matrix.");
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Invalid block size : " + blockSize);
+        }
+        order = matrix.getRows();
+        l = matrix.toLinearArray();
+        for (int kk = 0; kk < order; kk += blockSize) {
+            int kEnd = Math.min(order, kk + blockSize);
+            factorDiagonalBlock(kk, kEnd);
+            if (kEnd < order) {
+                solvePanel(kk, kEnd);
+                updateTrailing(kk, kEnd, blockSize);
+            }
+        }
+        // Whatever is left above the diagonal is the input or scratch from the updates
+        for (int i = 0; i < order; i++) {
+            for (int j = i + 1; j < order; j++) {
+                l[i * order + j] = 0;
+            }
+        }
+    }
+
+    /**
+     * Factors the diagonal block [kk, kEnd) in place, by the unblocked
+     * right-looking algorithm restricted to its lower triangle.
+     */
+    private void factorDiagonalBlock(final int kk, final int kEnd) throws ArithmeticException {
+        for (int j = kk; j < kEnd; j++) {
+            double diagonal = l[j * order + j];
+            // Also rejects NaN
+            if (!(diagonal > 0)) {
+                throw new ArithmeticException("Cannot find Cholesky decomposition of a matrix "
+                        + "that is not positive definite.");
+            }
+            diagonal = Math.sqrt(diagonal);
+            l[j * order + j] = diagonal;
+            for (int i = j + 1; i < kEnd; i++) {
+                l[i * order + j] /= diagonal;
+            }
+            for (int i = j + 1; i < kEnd; i++) {
+                Kernels.axpy(i - j, -l[i * order + j], l, (j + 1) * order + j, order,
+                        l, i * order + j + 1, 1);
+            }
+        }
+    }
+
+    /**
+     * Solves L21 * transpose(L11) = A21 for the rows below the diagonal
+     * block [kk, kEnd), one row at a time.
+     */
+    private void solvePanel(final int kk, final int kEnd) {
+        for (int i = kEnd; i < order; i++) {
+            int row = i * order;
+            for (int j = kk; j < kEnd; j++) {
+                double sum = l[row + j];
+                for (int k = kk, a = j * order + kk; k < j; k++, a++) {
+                    sum -= l[a] * l[row + k];
+                }
+                l[row + j] = sum / l[j * order + j];
+            }
+        }
+    }
+
+    /**
+     * A22 -= L21 * transpose(L21), over the lower triangle only. Each band
+     * of rows is updated up to the end of its own diagonal block, so that
+     * about half the work of the full product is done.
+     */
+    private void updateTrailing(final int kk, final int kEnd, final int blockSize) {
+        int depth = kEnd - kk;
+        for (int r = kEnd; r < order; r += blockSize) {
+            int rEnd = Math.min(order, r + blockSize);
+            // transpose(L21) is read straight out of L21, with the strides exchanged
+            Gemm.multiplyAdd(-1, l, r * order + kk, order, 1,
+                    l, kEnd * order + kk, 1, order,
+                    1, l, r * order + kEnd, order,
+                    rEnd - r, depth, rEnd - kEnd, null);
+        }
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * @return The lower triangular factor L.
+     */
+    public Matrix getL() {
+        return Matrix.fromLinearArray(order, order, l);
+    }
+
+    /**
+     * @return The determinant of the decomposed matrix.
+     */
+    public double determinant() {
+        double determinant = 1;
+        for (int i = 0; i < order; i++) {
+            double diagonal = l[i * order + i];
+            determinant *= diagonal * diagonal;
+        }
+        return determinant;
+    }
+
+    /**
+     * Solves Ax = b for x.
+     *
+     * @param b The right-hand side, of length equal to the order of A.
+     * @return The solution x, in a new array.
+     */
+    public double[] solve(final double[] b) throws IllegalArgumentException {
+        if (b.length != order) {
+            throw new IllegalArgumentException("Invalid number of elements. Expected : " + order
+                    + " Found : " + b.length);
+        }
+        double[] x = b.clone();
+        // Forward substitution with L
+        for (int i = 0; i < order; i++) {
+            double sum = x[i];
+            for (int k = 0, a = i * order; k < i; k++, a++) {
+                sum -= l[a] * x[k];
+            }
+            x[i] = sum / l[i * order + i];
+        }
+        // Back substitution with transpose(L), a column of L at a time
+        for (int k = order - 1; k >= 0; k--) {
+            x[k] /= l[k * order + k];
+            Kernels.axpy(k, -x[k], l, k * order, 1, x, 0, 1);
+        }
+        return x;
+    }
+
+    /**
+     * Solves AX = B for X, treating every column of B as a separate
+     * right-hand side.
+     *
+     * @param b The right-hand sides, with as many rows as the order of A.
+     * @return The solution X, in a new matrix of the same shape as B.
+     */
+    public Matrix solve(final Matrix b) throws IllegalArgumentException {
+        if (b.getRows() != order) {
+            throw new IllegalArgumentException("Given matrix is not compatible with the decomposition for "
+                    + "solving. Expected rows : " + order + " Found : " + b.getRows());
+        }
+        int cols = b.getCols();
+        double[] x = b.toLinearArray();
+        // Whole rows at a time, so that every inner loop has unit stride
+        for (int k = 0; k < order; k++) {
+            Kernels.scale(cols, 1 / l[k * order + k], x, k * cols, 1);
+            for (int i = k + 1; i < order; i++) {
+                Kernels.axpy(cols, -l[i * order + k], x, k * cols, 1, x, i * cols, 1);
+            }
+        }
+        for (int k = order - 1; k >= 0; k--) {
+            Kernels.scale(cols, 1 / l[k * order + k], x, k * cols, 1);
+            for (int i = 0; i < k; i++) {
+                Kernels.axpy(cols, -l[k * order + i], x, k * cols, 1, x, i * cols, 1);
+            }
+        }
+        return Matrix.fromLinearArray(order, cols, x, false);
+    }
+
+    /**
+     * @return The inverse of the decomposed matrix.
+     */
+    public Matrix inverse() {
+        return solve(Matrix.identity(order));
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * The preconditioned conjugate gradient method, for symmetric positive
+ * definite systems.
+ * <p>
+ * Each iteration costs one product with A, one application of the
+ * preconditioner and a few vector operations, and keeps only four
+ * vectors. In exact arithmetic the solution is reached in at most n
+ * iterations; in practice the number depends on the spread of the
+ * eigenvalues of M<sup>-1</sup>A. The preconditioner must be symmetric
+ * positive definite as well; {@link JacobiPreconditioner} always is for
+ * such an A.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ConjugateGradient extends IterativeSolver {
+    public ConjugateGradient() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * @param tolerance     The relative residual norm to reach.
+     * @param maxIterations The largest number of iterations.
+     */
+    public ConjugateGradient(final double tolerance, final int maxIterations) throws IllegalArgumentException {
+        super(tolerance, maxIterations);
+    }
+
+    @Override
+    Result iterate(final LinearOperator a, final double[] b, final double[] x,
+                   final Preconditioner preconditioner, final double target) {
+        int n = b.length;
+        double[] r = new double[n];
+        double[] z = new double[n];
+        double[] p = new double[n];
+        double[] q = new double[n];
+        double norm = residual(a, b, x, r);
+        report(0, norm);
+        if (norm <= target) {
+            return new Result(x, 0, norm, true);
+        }
+        preconditioner.apply(r, z);
+        System.arraycopy(z, 0, p, 0, n);
+        double rz = Blas.dot(r, z);
+        for (int iteration = 1; iteration <= getMaxIterations(); iteration++) {
+            a.multiply(p, q);
+            double pq = Blas.dot(p, q);
+            if (pq == 0 || rz == 0) {
+                // Breakdown: there is no direction left to search
+                return new Result(x, iteration - 1, norm, false);
+            }
+            double alpha = rz / pq;
+            Blas.axpy(alpha, p, x);
+            Blas.axpy(-alpha, q, r);
+            norm = Blas.norm2(r);
+            report(iteration, norm);
+            if (norm <= target) {
+                return new Result(x, iteration, norm, true);
+            }
+            preconditioner.apply(r, z);
+            double previous = rz;
+            rz = Blas.dot(r, z);
+            // p = z + beta * p
+            Blas.scal(rz / previous, p);
+            Blas.axpy(1, z, p);
+        }
+        return new Result(x, getMaxIterations(), norm, false);
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.subh0m0y.matrix;
+
+import java.math.BigInteger;
+
+/**
+ * Converts a decimal m x 10^q, with m of at most 19 digits, to the nearest
+ * double, using the algorithm of Eisel and Lemire ("Number Parsing at a
+ * Gigabyte per Second", 2021).
+ * <p>
+ * m is multiplied by a 128-bit approximation of 10^q, which decides the
+ * correctly rounded result in all but a vanishing fraction of cases. Those
+ * are reported as {@link Double#NaN}, for the caller to fall back to
+ * {@link Double#parseDouble(String)}.
+ */
+final class DecimalToDouble {
+    static final int MIN_EXPONENT = -342;
+    static final int MAX_EXPONENT = 308;
+    /**
+     * The mantissa of 5^q, or of its reciprocal, normalized to 128 bits
+     * with the top one set: the high half at 2 * (q - MIN_EXPONENT) and the
+     * low half just after it.
+     */
+    private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+    private DecimalToDouble() {
+    }
+
+    private static long[] powersOfFive() {
+        long[] table = new long[2 * (MAX_EXPONENT - MIN_EXPONENT + 1)];
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+            BigInteger power = BigInteger.valueOf(5).pow(Math.abs(q));
+            BigInteger mantissa;
+            if (q >= 0) {
+                mantissa = power;
+            } else {
+                // Rounded up, as the error analysis assumes
+                int bits = power.bitLength();
+                int scale = q >= -27 ? bits + 127 : 2 * bits + 128;
+                mantissa = BigInteger.ONE.shiftLeft(scale).divide(power).add(BigInteger.ONE);
+            }
+            int excess = mantissa.bitLength() - 128;
+            mantissa = excess > 0 ? mantissa.shiftRight(excess) : mantissa.shiftLeft(-excess);
+            int index = 2 * (q - MIN_EXPONENT);
+            table[index] = mantissa.shiftRight(64).longValue();
+            table[index + 1] = mantissa.and(mask).longValue();
+        }
+        return table;
+    }
+
+    /**
+     * @param mantissa A decimal mantissa, read as unsigned.
+     * @param exponent Its decimal exponent.
+     * @param negative Whether the result is negative.
+     * @return The double nearest to the decimal, or {@link Double#NaN} if
+     * that cannot be decided quickly.
+     */
+    static double convert(long mantissa, final int exponent, final boolean negative) {
+        long sign = negative ? Long.MIN_VALUE : 0;
+        if (mantissa == 0 || exponent < MIN_EXPONENT) {
+            return Double.longBitsToDouble(sign);
+        }
+        if (exponent > MAX_EXPONENT) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        mantissa <<= leadingZeros;
+        int index = 2 * (exponent - MIN_EXPONENT);
+        long high = unsignedMultiplyHigh(mantissa, POWERS_OF_FIVE[index]);
+        long low = mantissa * POWERS_OF_FIVE[index];
+        if ((high & 0x1FF) == 0x1FF) {
+            // Too close to call with 64 bits of the power; use all 128
+            long next = unsignedMultiplyHigh(mantissa, POWERS_OF_FIVE[index + 1]);
+            low += next;
+            if (Long.compareUnsigned(next, low) > 0) {
+                high++;
+            }
+        }
+        if (low == -1 && (exponent < -27 || exponent > 55)) {
+            return Double.NaN;
+        }
+        int upperBit = (int) (high >>> 63);
+        int shift = upperBit + 9;
+        long bits = high >>> shift;
+        int power2 = (((152170 + 65536) * exponent) >> 16) + 63 + upperBit - leadingZeros + 1023;
+        if (power2 <= 0) {
+            // Subnormal, or zero
+            if (-power2 + 1 >= 64) {
+                return Double.longBitsToDouble(sign);
+            }
+            bits >>>= -power2 + 1;
+            bits += bits & 1;
+            bits >>>= 1;
+            power2 = bits < 1L << 52 ? 0 : 1;
+            return Double.longBitsToDouble(sign | (long) power2 << 52 | bits & ((1L << 52) - 1));
+        }
+        if (Long.compareUnsigned(low, 1) <= 0 && exponent >= -4 && exponent <= 23 && (bits & 3) == 1
+                && bits << shift == high) {
+            // Exactly half way: round to even
+            bits &= ~1L;
+        }
+        bits += bits & 1;
+        bits >>>= 1;
+        if (bits >= 2L << 52) {
+            bits = 1L << 52;
+            power2++;
+        }
+        if (power2 >= 0x7FF) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return Double.longBitsToDouble(sign | (long) power2 << 52 | bits & ((1L << 52) - 1));
+    }
+
+    /**
+     * @return The high 64 bits of the unsigned 128-bit product.
+     */
+    static long unsignedMultiplyHigh(final long x, final long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long t = x1 * y0 + (x0 * y0 >>> 32);
+        long middle = x0 * y1 + (t & 0xFFFFFFFFL);
+        return x1 * y1 + (t >>> 32) + (middle >>> 32);
+    }
+}
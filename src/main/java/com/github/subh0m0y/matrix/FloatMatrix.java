@@ -0,0 +1,538 @@
+package com.github.subh0m0y.matrix;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A dense matrix of floats, for work that needs no more than single
+ * precision, at half the memory and bandwidth of {@link Matrix}.
+ * <p>
+ * The elements are stored row after row in a single float array. Unlike
+ * {@link Matrix}, a float matrix is always compact: there are no views,
+ * and {@link #transpose()} copies. Arithmetic runs on float kernels of its
+ * own, with products blocked and packed as in {@link Matrix#multiply(Matrix)}
+ * and every element accumulated in float, in ascending order of k.
+ * <p>
+ * Through {@link RealMatrix}, a float matrix combines with any other
+ * matrix: with another float matrix in single precision, and with anything
+ * else in double precision, by way of {@link #toDense()}. Precision is
+ * changed explicitly with {@link #fromMatrix(Matrix)} and {@link #toDense()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class FloatMatrix implements RealMatrix {
+    private static final int TRANSPOSE_TILE = 32;
+    private final int rows;
+    private final int cols;
+    private final float[] data;
+
+    /**
+     * Creates a new zero matrix of order rows x cols.
+     */
+    FloatMatrix(final int rows, final int cols) {
+        this(rows, cols, new float[checkedSize(rows, cols)]);
+    }
+
+    /**
+     * Wraps the given row-major elements, without copying them.
+     */
+    FloatMatrix(final int rows, final int cols, final float[] data) {
+        if (data.length != checkedSize(rows, cols)) {
+            throw new IllegalArgumentException("Invalid number of elements: " + data.length
+                    + " Expected: " + rows * cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+    }
+
+    private static int checkedSize(final int rows, final int cols) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Invalid number of rows : " + rows);
+        }
+        if (cols < 0) {
+            throw new IllegalArgumentException("Invalid number of columns : " + cols);
+        }
+        long size = (long) rows * cols;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many elements : " + rows + " x " + cols);
+        }
+        return (int) size;
+    }
+
+    public static FloatMatrix zero(final int rows, final int cols) {
+        return new FloatMatrix(rows, cols);
+    }
+
+    public static FloatMatrix identity(final int order) {
+        FloatMatrix matrix = new FloatMatrix(order, order);
+        for (int i = 0; i < order; i++) {
+            matrix.data[i * order + i] = 1;
+        }
+        return matrix;
+    }
+
+    public static FloatMatrix fromLinearArray(final int rows, final int cols, final float... elements) {
+        return fromLinearArray(rows, cols, elements, true);
+    }
+
+    /**
+     * Creates a matrix from the given row-major elements.
+     *
+     * @param rows         The number of rows.
+     * @param cols         The number of columns.
+     * @param elements     The rows * cols elements, row after row.
+     * @param makeDeepCopy Whether to copy the elements or wrap the given array,
+     *                     in which case changes to either are visible in the other.
+     * @return The matrix.
+     */
+    public static FloatMatrix fromLinearArray(final int rows, final int cols, final float[] elements,
+                                              final boolean makeDeepCopy) {
+        return new FloatMatrix(rows, cols, makeDeepCopy ? Arrays.copyOf(elements, elements.length) : elements);
+    }
+
+    /**
+     * @param matrix The matrix to convert, which may be a view.
+     * @return The elements of the given matrix, each rounded to the
+     * nearest float.
+     */
+    public static FloatMatrix fromMatrix(final Matrix matrix) {
+        int rows = matrix.getRows();
+        int cols = matrix.getCols();
+        FloatMatrix converted = new FloatMatrix(rows, cols);
+        double[] source = matrix.getData();
+        for (int i = 0, c = 0; i < rows; i++) {
+            for (int j = 0, k = matrix.index(i, 0); j < cols; j++, k += matrix.getColStride()) {
+                converted.data[c++] = (float) source[k];
+            }
+        }
+        return converted;
+    }
+
+    public static FloatMatrix random(final int rows, final int cols) {
+        FloatMatrix matrix = new FloatMatrix(rows, cols);
+        Random random = new Random();
+        for (int i = 0; i < matrix.data.length; i++) {
+            matrix.data[i] = random.nextFloat();
+        }
+        return matrix;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return The backing array, row-major.
+     */
+    float[] getData() {
+        return data;
+    }
+
+    private void throwIfInvalidElement(final int i, final int j) throws IndexOutOfBoundsException {
+        if (i < 0 || i >= rows) {
+            throw new IndexOutOfBoundsException("Invalid row index : " + i);
+        }
+        if (j < 0 || j >= cols) {
+            throw new IndexOutOfBoundsException("Invalid column index : " + j);
+        }
+    }
+
+    @Override
+    public double get(final int i, final int j) throws IndexOutOfBoundsException {
+        return getFloat(i, j);
+    }
+
+    public float getFloat(final int i, final int j) throws IndexOutOfBoundsException {
+        throwIfInvalidElement(i, j);
+        return data[i * cols + j];
+    }
+
+    public void set(final int i, final int j, final float value) throws IndexOutOfBoundsException {
+        throwIfInvalidElement(i, j);
+        data[i * cols + j] = value;
+    }
+
+    /**
+     * @return A copy of the elements, row after row.
+     */
+    public float[] toLinearArray() {
+        return Arrays.copyOf(data, data.length);
+    }
+
+    public FloatMatrix copy() {
+        return new FloatMatrix(rows, cols, toLinearArray());
+    }
+
+    /**
+     * @return The elements of this matrix widened to doubles, which is exact.
+     */
+    @Override
+    public Matrix toDense() {
+        double[] widened = new double[data.length];
+        for (int i = 0; i < data.length; i++) {
+            widened[i] = data[i];
+        }
+        return Matrix.fromLinearArray(rows, cols, widened, false);
+    }
+
+    public boolean isSquare() {
+        return rows == cols;
+    }
+
+    @Override
+    public FloatMatrix transpose() {
+        FloatMatrix transpose = new FloatMatrix(cols, rows);
+        // Square tiles, so that both the rows read and the rows written stay in cache
+        for (int ii = 0; ii < rows; ii += TRANSPOSE_TILE) {
+            int iEnd = Math.min(rows, ii + TRANSPOSE_TILE);
+            for (int jj = 0; jj < cols; jj += TRANSPOSE_TILE) {
+                int jEnd = Math.min(cols, jj + TRANSPOSE_TILE);
+                for (int i = ii; i < iEnd; i++) {
+                    for (int j = jj; j < jEnd; j++) {
+                        transpose.data[j * rows + i] = data[i * cols + j];
+                    }
+                }
+            }
+        }
+        return transpose;
+    }
+
+    private void throwIncompatible(final String operation) throws IllegalArgumentException {
+        throw new IllegalArgumentException("Given matrix is not compatible with the invoking matrix for "
+                + operation);
+    }
+
+    private void throwIfNotShaped(final FloatMatrix destination, final int rows, final int cols)
+            throws IllegalArgumentException {
+        if (destination.rows != rows || destination.cols != cols) {
+            throw new IllegalArgumentException("Invalid destination. Expected : " + rows + " x " + cols
+                    + " Found : " + destination.rows + " x " + destination.cols);
+        }
+    }
+
+    private void throwIfNotSameShape(final FloatMatrix matrix, final String operation) {
+        if (matrix.rows != rows || matrix.cols != cols) {
+            throwIncompatible(operation);
+        }
+    }
+
+    /**
+     * Copies this matrix into the destination, unless it is this matrix,
+     * ahead of an in-place operation on the destination.
+     */
+    private FloatMatrix copyInto(final FloatMatrix destination) {
+        if (destination != this) {
+            System.arraycopy(data, 0, destination.data, 0, data.length);
+        }
+        return destination;
+    }
+
+    public void addInPlace(final FloatMatrix addend) throws IllegalArgumentException {
+        throwIfNotSameShape(addend, "addition");
+        Kernels.add(data.length, addend.data, 0, data, 0);
+    }
+
+    public FloatMatrix add(final FloatMatrix addend) throws IllegalArgumentException {
+        return add(addend, new FloatMatrix(rows, cols));
+    }
+
+    /**
+     * Stores the sum of this matrix and the given one in the destination.
+     *
+     * @param addend      The matrix to add.
+     * @param destination A matrix of the same shape, which may be either operand.
+     * @return The destination.
+     */
+    public FloatMatrix add(final FloatMatrix addend, final FloatMatrix destination)
+            throws IllegalArgumentException {
+        throwIfNotSameShape(addend, "addition");
+        throwIfNotShaped(destination, rows, cols);
+        if (destination == addend) {
+            destination.addInPlace(this);
+        } else {
+            copyInto(destination).addInPlace(addend);
+        }
+        return destination;
+    }
+
+    /**
+     * Adds a matrix in any representation: in single precision if it is a
+     * float matrix, and in double precision otherwise.
+     */
+    @Override
+    public RealMatrix add(final RealMatrix addend) throws IllegalArgumentException {
+        if (addend instanceof FloatMatrix) {
+            return add((FloatMatrix) addend);
+        }
+        return toDense().add(addend);
+    }
+
+    public void subtractInPlace(final FloatMatrix subtrahend) throws IllegalArgumentException {
+        throwIfNotSameShape(subtrahend, "subtraction");
+        Kernels.subtract(data.length, subtrahend.data, 0, data, 0);
+    }
+
+    public FloatMatrix subtract(final FloatMatrix subtrahend) throws IllegalArgumentException {
+        return subtract(subtrahend, new FloatMatrix(rows, cols));
+    }
+
+    /**
+     * Stores the difference of this matrix and the given one in the destination.
+     *
+     * @param subtrahend  The matrix to subtract.
+     * @param destination A matrix of the same shape, which may be either operand.
+     * @return The destination.
+     */
+    public FloatMatrix subtract(final FloatMatrix subtrahend, final FloatMatrix destination)
+            throws IllegalArgumentException {
+        throwIfNotSameShape(subtrahend, "subtraction");
+        throwIfNotShaped(destination, rows, cols);
+        if (destination == subtrahend) {
+            float[] difference = destination.data;
+            for (int i = 0; i < data.length; i++) {
+                difference[i] = data[i] - difference[i];
+            }
+        } else {
+            copyInto(destination).subtractInPlace(subtrahend);
+        }
+        return destination;
+    }
+
+    public void elementMultiplyInPlace(final FloatMatrix matrix) throws IllegalArgumentException {
+        throwIfNotSameShape(matrix, "element-wise multiplication");
+        Kernels.multiply(data.length, matrix.data, 0, data, 0);
+    }
+
+    public FloatMatrix elementMultiply(final FloatMatrix matrix) throws IllegalArgumentException {
+        return elementMultiply(matrix, new FloatMatrix(rows, cols));
+    }
+
+    /**
+     * Stores the element-wise product of this matrix and the given one in
+     * the destination.
+     *
+     * @param matrix      The matrix to multiply by.
+     * @param destination A matrix of the same shape, which may be either operand.
+     * @return The destination.
+     */
+    public FloatMatrix elementMultiply(final FloatMatrix matrix, final FloatMatrix destination)
+            throws IllegalArgumentException {
+        throwIfNotSameShape(matrix, "element-wise multiplication");
+        throwIfNotShaped(destination, rows, cols);
+        if (destination == matrix) {
+            destination.elementMultiplyInPlace(this);
+        } else {
+            copyInto(destination).elementMultiplyInPlace(matrix);
+        }
+        return destination;
+    }
+
+    public void elementDivideInPlace(final FloatMatrix matrix) throws IllegalArgumentException {
+        throwIfNotSameShape(matrix, "element-wise division");
+        Kernels.divide(data.length, matrix.data, 0, data, 0);
+    }
+
+    public FloatMatrix elementDivide(final FloatMatrix matrix) throws IllegalArgumentException {
+        return elementDivide(matrix, new FloatMatrix(rows, cols));
+    }
+
+    /**
+     * Stores the element-wise quotient of this matrix and the given one in
+     * the destination.
+     *
+     * @param matrix      The matrix to divide by.
+     * @param destination A matrix of the same shape, which may be either operand.
+     * @return The destination.
+     */
+    public FloatMatrix elementDivide(final FloatMatrix matrix, final FloatMatrix destination)
+            throws IllegalArgumentException {
+        throwIfNotSameShape(matrix, "element-wise division");
+        throwIfNotShaped(destination, rows, cols);
+        if (destination == matrix) {
+            float[] quotient = destination.data;
+            for (int i = 0; i < data.length; i++) {
+                quotient[i] = data[i] / quotient[i];
+            }
+        } else {
+            copyInto(destination).elementDivideInPlace(matrix);
+        }
+        return destination;
+    }
+
+    public void scaleInPlace(final float scale) {
+        Kernels.scale(data.length, scale, data, 0);
+    }
+
+    public FloatMatrix scale(final float scale) {
+        return scale(scale, new FloatMatrix(rows, cols));
+    }
+
+    /**
+     * Stores this matrix multiplied by the given scalar in the given matrix.
+     *
+     * @param scale       The scalar.
+     * @param destination A matrix of the same shape, which may be this one.
+     * @return The destination.
+     */
+    public FloatMatrix scale(final float scale, final FloatMatrix destination) throws IllegalArgumentException {
+        throwIfNotShaped(destination, rows, cols);
+        copyInto(destination).scaleInPlace(scale);
+        return destination;
+    }
+
+    public FloatMatrix multiply(final FloatMatrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand.rows != cols) {
+            throwIncompatible("multiplication");
+        }
+        FloatMatrix product = new FloatMatrix(rows, multiplicand.cols);
+        storeProduct(multiplicand, product, null);
+        return product;
+    }
+
+    /**
+     * Stores the product of this matrix and the given one in the
+     * destination. Large products need a buffer to pack their operands
+     * into, which is allocated unless a workspace is given.
+     *
+     * @param multiplicand The matrix to multiply by.
+     * @param destination  A matrix with as many rows as this one and as many
+     *                     columns as the multiplicand. If it is either
+     *                     operand, the product is computed in a temporary
+     *                     matrix first.
+     * @return The destination.
+     * @see #multiply(FloatMatrix, FloatMatrix, Workspace)
+     */
+    public FloatMatrix multiply(final FloatMatrix multiplicand, final FloatMatrix destination)
+            throws IllegalArgumentException {
+        return multiply(multiplicand, destination, null);
+    }
+
+    /**
+     * Stores the product of this matrix and the given one in the
+     * destination, packing operands in the given workspace, so that
+     * nothing is allocated.
+     *
+     * @param multiplicand The matrix to multiply by.
+     * @param destination  A matrix with as many rows as this one and as many
+     *                     columns as the multiplicand. If it is either
+     *                     operand, the product is computed in a temporary
+     *                     matrix first.
+     * @param workspace    The workspace, or null to allocate as needed.
+     * @return The destination.
+     */
+    public FloatMatrix multiply(final FloatMatrix multiplicand, final FloatMatrix destination,
+                                final Workspace workspace) throws IllegalArgumentException {
+        if (multiplicand.rows != cols) {
+            throwIncompatible("multiplication");
+        }
+        throwIfNotShaped(destination, rows, multiplicand.cols);
+        if (destination == this || destination == multiplicand) {
+            FloatMatrix product = multiply(multiplicand);
+            System.arraycopy(product.data, 0, destination.data, 0, product.data.length);
+        } else {
+            storeProduct(multiplicand, destination, workspace == null ? null : workspace.floatPanel());
+        }
+        return destination;
+    }
+
+    /**
+     * Multiplies by a matrix in any representation: in single precision if
+     * it is a float matrix, and in double precision otherwise.
+     */
+    @Override
+    public RealMatrix multiply(final RealMatrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand instanceof FloatMatrix) {
+            return multiply((FloatMatrix) multiplicand);
+        }
+        return toDense().multiply(multiplicand);
+    }
+
+    /**
+     * @param vector A vector with as many elements as this matrix has columns.
+     * @return The product of this matrix and the given vector, in a new array.
+     */
+    public float[] multiply(final float[] vector) throws IllegalArgumentException {
+        if (vector.length != cols) {
+            throwIncompatible("multiplication");
+        }
+        float[] product = new float[rows];
+        for (int i = 0; i < rows; i++) {
+            product[i] = Kernels.dot(cols, data, i * cols, vector, 0);
+        }
+        return product;
+    }
+
+    /**
+     * Overwrites the product with this matrix times the multiplicand, in the
+     * i-k-j order of {@link Gemm}: each panel of {@link Gemm#DEPTH_BLOCK} rows
+     * and {@link Gemm#COL_BLOCK} columns of the multiplicand is packed and
+     * then swept by every row of this matrix, four rows of the panel at a
+     * time.
+     */
+    private void storeProduct(final FloatMatrix multiplicand, final FloatMatrix product, final float[] buffer) {
+        int n = cols;
+        int p = multiplicand.cols;
+        float[] b = multiplicand.data;
+        float[] c = product.data;
+        Arrays.fill(c, 0);
+        if ((long) rows * n * p < Gemm.PACKING_THRESHOLD) {
+            for (int i = 0; i < rows; i++) {
+                for (int k = 0; k < n; k++) {
+                    Kernels.axpy(p, data[i * n + k], b, k * p, c, i * p);
+                }
+            }
+            return;
+        }
+        int panelSize = Math.min(n, Gemm.DEPTH_BLOCK) * Math.min(p, Gemm.COL_BLOCK);
+        float[] panel = buffer != null && buffer.length >= panelSize ? buffer : new float[panelSize];
+        for (int jj = 0; jj < p; jj += Gemm.COL_BLOCK) {
+            int nb = Math.min(Gemm.COL_BLOCK, p - jj);
+            for (int kk = 0; kk < n; kk += Gemm.DEPTH_BLOCK) {
+                int kb = Math.min(Gemm.DEPTH_BLOCK, n - kk);
+                for (int k = 0; k < kb; k++) {
+                    System.arraycopy(b, (kk + k) * p + jj, panel, k * nb, nb);
+                }
+                for (int i = 0; i < rows; i++) {
+                    int ai = i * n + kk;
+                    int ci = i * p + jj;
+                    int k = 0;
+                    for (; k + 3 < kb; k += 4) {
+                        Kernels.axpy4(nb, data[ai + k], data[ai + k + 1], data[ai + k + 2], data[ai + k + 3],
+                                panel, k * nb, nb, c, ci);
+                    }
+                    for (; k < kb; k++) {
+                        Kernels.axpy(nb, data[ai + k], panel, k * nb, c, ci);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FloatMatrix)) return false;
+        FloatMatrix matrix = (FloatMatrix) o;
+        return rows == matrix.rows && cols == matrix.cols && Arrays.equals(data, matrix.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * rows + cols) + Arrays.hashCode(data);
+    }
+
+    /**
+     * Formats the matrix as {@link Matrix#toString()} does.
+     */
+    @Override
+    public String toString() {
+        return TextFormat.preview(rows, cols, (builder, i, j) ->
+                TextFormat.appendScientific(builder, data[i * cols + j]));
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.subh0m0y.matrix;
+
+import java.util.Arrays;
+
+/**
+ * The restarted generalized minimal residual method, GMRES(m), for
+ * general non-symmetric systems.
+ * <p>
+ * Every iteration extends an orthonormal basis of the Krylov subspace by
+ * one vector, with modified Gram-Schmidt, and the residual is minimized
+ * over the whole subspace through Givens rotations of the Hessenberg
+ * matrix, so the residual norm never increases and is known at every
+ * step without forming x. Since each iteration costs more time than the
+ * one before and a vector of memory, the method starts over from the
+ * current x after every m iterations. A larger m converges in fewer
+ * iterations but takes m + 1 vectors.
+ * <p>
+ * The preconditioner is applied on the right, so the tracked residual is
+ * that of the original system.
+ */
+@SuppressWarnings("WeakerAccess")
+public class GMRES extends IterativeSolver {
+    /**
+     * The number of iterations between restarts, unless specified otherwise.
+     */
+    public static final int DEFAULT_RESTART = 30;
+
+    private final int restart;
+
+    public GMRES() {
+        this(DEFAULT_RESTART, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * @param restart       The number of iterations between restarts.
+     * @param tolerance     The relative residual norm to reach.
+     * @param maxIterations The largest number of iterations, over all restarts.
+     */
+    public GMRES(final int restart, final double tolerance, final int maxIterations)
+            throws IllegalArgumentException {
+        super(tolerance, maxIterations);
+        if (restart < 1) {
+            throw new IllegalArgumentException("Invalid restart : " + restart);
+        }
+        this.restart = restart;
+    }
+
+    public int getRestart() {
+        return restart;
+    }
+
+    @Override
+    Result iterate(final LinearOperator a, final double[] b, final double[] x,
+                   final Preconditioner preconditioner, final double target) {
+        int n = b.length;
+        int m = Math.min(restart, n);
+        double[][] basis = new double[m + 1][n];
+        // The Hessenberg matrix, reduced to upper triangular form as it grows
+        double[][] h = new double[m + 1][m];
+        double[] cos = new double[m];
+        double[] sin = new double[m];
+        double[] g = new double[m + 1];
+        double[] z = new double[n];
+        double norm = residual(a, b, x, basis[0]);
+        report(0, norm);
+        int iteration = 0;
+        while (norm > target && iteration < getMaxIterations()) {
+            Blas.scal(1 / norm, basis[0]);
+            Arrays.fill(g, 0);
+            g[0] = norm;
+            int k = 0;
+            boolean breakdown = false;
+            while (k < m && iteration < getMaxIterations()) {
+                double[] w = basis[k + 1];
+                preconditioner.apply(basis[k], z);
+                a.multiply(z, w);
+                for (int i = 0; i <= k; i++) {
+                    h[i][k] = Blas.dot(w, basis[i]);
+                    Blas.axpy(-h[i][k], basis[i], w);
+                }
+                double length = Blas.norm2(w);
+                if (length != 0) {
+                    Blas.scal(1 / length, w);
+                }
+                h[k + 1][k] = length;
+                for (int i = 0; i < k; i++) {
+                    double upper = h[i][k];
+                    h[i][k] = cos[i] * upper + sin[i] * h[i + 1][k];
+                    h[i + 1][k] = cos[i] * h[i + 1][k] - sin[i] * upper;
+                }
+                double diagonal = Math.hypot(h[k][k], length);
+                if (diagonal == 0) {
+                    // A is singular on the subspace: nothing more can be gained from it
+                    breakdown = true;
+                    break;
+                }
+                cos[k] = h[k][k] / diagonal;
+                sin[k] = length / diagonal;
+                h[k][k] = diagonal;
+                h[k + 1][k] = 0;
+                g[k + 1] = -sin[k] * g[k];
+                g[k] *= cos[k];
+                k++;
+                iteration++;
+                norm = Math.abs(g[k]);
+                report(iteration, norm);
+                if (norm <= target || length == 0) {
+                    break;
+                }
+            }
+            update(x, basis, h, g, k, z, preconditioner);
+            if (breakdown && k == 0) {
+                return new Result(x, iteration, norm, false);
+            }
+            if (norm <= target) {
+                return new Result(x, iteration, norm, true);
+            }
+            // Restart from the true residual, which rounding may have moved away from the estimate
+            norm = residual(a, b, x, basis[0]);
+        }
+        return new Result(x, iteration, norm, norm <= target);
+    }
+
+    /**
+     * x += M<sup>-1</sup> V y, where y solves the leading k x k triangle of
+     * h against g. The solution y is left in g.
+     */
+    private static void update(final double[] x, final double[][] basis, final double[][] h, final double[] g,
+                               final int k, final double[] z, final Preconditioner preconditioner) {
+        if (k == 0) {
+            return;
+        }
+        for (int i = k - 1; i >= 0; i--) {
+            double sum = g[i];
+            for (int j = i + 1; j < k; j++) {
+                sum -= h[i][j] * g[j];
+            }
+            g[i] = sum / h[i][i];
+        }
+        // The combination is built in basis[k], which is no longer needed
+        double[] combination = basis[k];
+        Arrays.fill(combination, 0);
+        for (int j = 0; j < k; j++) {
+            Blas.axpy(g[j], basis[j], combination);
+        }
+        preconditioner.apply(combination, z);
+        Blas.axpy(1, z, x);
+    }
+}
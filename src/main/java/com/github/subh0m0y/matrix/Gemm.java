@@ -0,0 +1,268 @@
+package com.github.subh0m0y.matrix;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The general matrix multiplication kernel used by {@link Matrix}.
+ * <p>
+ * Operands are regions of flat arrays, each addressed by an offset, a
+ * row stride and a column stride, so that element (i, j) of a lives at
+ * {@code aOffset + i * aRowStride + j * aColStride}. The product must
+ * have unit column stride; the operands may be laid out in any way,
+ * including transposed.
+ * <p>
+ * The product is computed in the i-k-j order over tiles of the right
+ * operand. Each tile (a panel of {@link #DEPTH_BLOCK} rows and
+ * {@link #COL_BLOCK} columns) is first packed into a contiguous buffer
+ * that stays resident in cache while every row of the left operand
+ * streams across it. The innermost loop therefore runs with unit stride
+ * over both the packed panel and the product row, which lets the JIT
+ * vectorize it, or {@link Kernels} hand it to its vector backend.
+ * <p>
+ * Every element of the product accumulates its terms in ascending order
+ * of k, exactly like the textbook triple loop, so the blocked kernel
+ * produces bit-identical results to it.
+ * <p>
+ * Large products can be spread over a {@link ForkJoinPool}. The rows of
+ * the product are divided into bands of {@link #ROW_BLOCK} rows, each of
+ * which is computed by a single task with its own packed panel. Since the
+ * depth dimension is never split, the parallel result is bit-identical to
+ * the sequential one regardless of the pool size or scheduling.
+ */
+final class Gemm {
+    /**
+     * The number of rows of the right operand packed in one panel.
+     */
+    static final int DEPTH_BLOCK = 256;
+    /**
+     * The number of columns of the right operand packed in one panel.
+     */
+    static final int COL_BLOCK = 512;
+    /**
+     * Products with fewer multiply-adds than this skip packing altogether.
+     */
+    static final int PACKING_THRESHOLD = 32 * 32 * 32;
+    /**
+     * The number of product rows computed by one parallel task.
+     */
+    static final int ROW_BLOCK = 64;
+    /**
+     * Products with fewer multiply-adds than this are always computed
+     * sequentially, since they finish faster than tasks can be forked.
+     */
+    static final int PARALLEL_THRESHOLD = 128 * 128 * 128;
+    /**
+     * The number of elements in the largest packed panel.
+     */
+    static final int PANEL_SIZE = DEPTH_BLOCK * COL_BLOCK;
+
+    private Gemm() {
+    }
+
+    /**
+     * Stores the product of a (m x n) and b (n x p) in c (m x p),
+     * splitting the work over the given pool if the product is large
+     * enough. A null pool forces sequential computation. The previous
+     * contents of c are overwritten; c must not overlap a or b.
+     */
+    static void multiply(final double[] a, final int aOffset, final int aRowStride, final int aColStride,
+                         final double[] b, final int bOffset, final int bRowStride, final int bColStride,
+                         final double[] c, final int cOffset, final int ldc,
+                         final int m, final int n, final int p, final ForkJoinPool pool) {
+        multiplyAdd(1, a, aOffset, aRowStride, aColStride, b, bOffset, bRowStride, bColStride,
+                0, c, cOffset, ldc, m, n, p, pool);
+    }
+
+    /**
+     * Computes c = alpha * a * b + beta * c for a (m x n), b (n x p) and
+     * c (m x p), in the manner of the BLAS routine of the same name. When
+     * beta is zero the previous contents of c are ignored altogether. With
+     * alpha one and beta zero the result is bit-identical to
+     * {@link #multiply}. c must not overlap a or b, although all three may
+     * be disjoint regions of the same array.
+     */
+    static void multiplyAdd(final double alpha,
+                            final double[] a, final int aOffset, final int aRowStride, final int aColStride,
+                            final double[] b, final int bOffset, final int bRowStride, final int bColStride,
+                            final double beta, final double[] c, final int cOffset, final int ldc,
+                            final int m, final int n, final int p, final ForkJoinPool pool) {
+        multiplyAdd(alpha, a, aOffset, aRowStride, aColStride, b, bOffset, bRowStride, bColStride,
+                beta, c, cOffset, ldc, m, n, p, pool, null);
+    }
+
+    /**
+     * As {@link #multiplyAdd(double, double[], int, int, int, double[], int, int, int, double, double[],
+     * int, int, int, int, int, ForkJoinPool)}, packing into the given buffer
+     * of at least {@link #PANEL_SIZE} elements when the product is computed
+     * on the calling thread, so that nothing needs to be allocated. A null
+     * buffer is allocated on demand.
+     */
+    static void multiplyAdd(final double alpha,
+                            final double[] a, final int aOffset, final int aRowStride, final int aColStride,
+                            final double[] b, final int bOffset, final int bRowStride, final int bColStride,
+                            final double beta, final double[] c, final int cOffset, final int ldc,
+                            final int m, final int n, final int p, final ForkJoinPool pool,
+                            final double[] panel) {
+        Operands operands = new Operands(alpha, a, aOffset, aRowStride, aColStride,
+                b, bOffset, bRowStride, bColStride, beta, c, cOffset, ldc, n, p);
+        if (pool == null || m <= ROW_BLOCK || (long) m * n * p < PARALLEL_THRESHOLD) {
+            operands.multiplyRows(0, m, panel);
+        } else {
+            pool.invoke(new RowBandTask(operands, 0, m));
+        }
+    }
+
+    /**
+     * The arguments of one product, shared by all the tasks computing it.
+     */
+    private static final class Operands {
+        private final double alpha;
+        private final double[] a;
+        private final int aOffset;
+        private final int aRowStride;
+        private final int aColStride;
+        private final double[] b;
+        private final int bOffset;
+        private final int bRowStride;
+        private final int bColStride;
+        private final double beta;
+        private final double[] c;
+        private final int cOffset;
+        private final int ldc;
+        private final int n;
+        private final int p;
+
+        Operands(final double alpha, final double[] a, final int aOffset, final int aRowStride, final int aColStride,
+                 final double[] b, final int bOffset, final int bRowStride, final int bColStride,
+                 final double beta, final double[] c, final int cOffset, final int ldc,
+                 final int n, final int p) {
+            this.alpha = alpha;
+            this.a = a;
+            this.aOffset = aOffset;
+            this.aRowStride = aRowStride;
+            this.aColStride = aColStride;
+            this.b = b;
+            this.bOffset = bOffset;
+            this.bRowStride = bRowStride;
+            this.bColStride = bColStride;
+            this.beta = beta;
+            this.c = c;
+            this.cOffset = cOffset;
+            this.ldc = ldc;
+            this.n = n;
+            this.p = p;
+        }
+
+        /**
+         * Computes rows [rowStart, rowEnd) of the product, packing into the
+         * given buffer if it is large enough.
+         */
+        void multiplyRows(final int rowStart, final int rowEnd, final double[] buffer) {
+            for (int i = rowStart; i < rowEnd; i++) {
+                int ci = cOffset + i * ldc;
+                if (beta == 0) {
+                    Arrays.fill(c, ci, ci + p, 0);
+                } else if (beta != 1) {
+                    Kernels.scale(p, beta, c, ci, 1);
+                }
+            }
+            if ((long) (rowEnd - rowStart) * n * p < PACKING_THRESHOLD) {
+                multiplyUnpacked(rowStart, rowEnd);
+                return;
+            }
+            int panelSize = Math.min(n, DEPTH_BLOCK) * Math.min(p, COL_BLOCK);
+            double[] panel = buffer != null && buffer.length >= panelSize ? buffer : new double[panelSize];
+            for (int jj = 0; jj < p; jj += COL_BLOCK) {
+                int nb = Math.min(COL_BLOCK, p - jj);
+                for (int kk = 0; kk < n; kk += DEPTH_BLOCK) {
+                    int kb = Math.min(DEPTH_BLOCK, n - kk);
+                    pack(kk, kb, jj, nb, panel);
+                    multiplyPanel(panel, rowStart, rowEnd, kk, kb, jj, nb);
+                }
+            }
+        }
+
+        /**
+         * Copies the kb x nb block of b starting at (kk, jj) into panel,
+         * row-major with a stride of nb.
+         */
+        private void pack(final int kk, final int kb, final int jj, final int nb,
+                          final double[] panel) {
+            for (int k = 0; k < kb; k++) {
+                Kernels.copy(nb, b, bOffset + (kk + k) * bRowStride + jj * bColStride, bColStride,
+                        panel, k * nb, 1);
+            }
+        }
+
+        /**
+         * Accumulates the contribution of one packed panel into
+         * rows [rowStart, rowEnd) of the product.
+         */
+        private void multiplyPanel(final double[] panel, final int rowStart, final int rowEnd,
+                                   final int kk, final int kb, final int jj, final int nb) {
+            for (int i = rowStart; i < rowEnd; i++) {
+                int ai = aOffset + i * aRowStride + kk * aColStride;
+                int ci = cOffset + i * ldc + jj;
+                int k = 0;
+                // Four rows of the panel at a time: one load and store of the
+                // product row per four multiply-adds, evaluated left to right
+                // so that the summation order is unchanged.
+                for (; k + 3 < kb; k += 4) {
+                    int ak = ai + k * aColStride;
+                    Kernels.axpy4(nb, alpha * a[ak], alpha * a[ak + aColStride],
+                            alpha * a[ak + 2 * aColStride], alpha * a[ak + 3 * aColStride],
+                            panel, k * nb, nb, c, ci);
+                }
+                for (; k < kb; k++) {
+                    Kernels.axpy(nb, alpha * a[ai + k * aColStride], panel, k * nb, 1, c, ci, 1);
+                }
+            }
+        }
+
+        /**
+         * The i-k-j loop straight over the rows of b, for products too small
+         * to amortize the cost of packing.
+         */
+        private void multiplyUnpacked(final int rowStart, final int rowEnd) {
+            for (int i = rowStart; i < rowEnd; i++) {
+                int ai = aOffset + i * aRowStride;
+                int ci = cOffset + i * ldc;
+                for (int k = 0; k < n; k++) {
+                    Kernels.axpy(p, alpha * a[ai + k * aColStride], b, bOffset + k * bRowStride, bColStride, c, ci, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recursively halves a range of product rows, keeping every split on
+     * a multiple of {@link #ROW_BLOCK}, until a single band remains.
+     */
+    private static final class RowBandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Operands operands;
+        private final int rowStart;
+        private final int rowEnd;
+
+        RowBandTask(final Operands operands, final int rowStart, final int rowEnd) {
+            this.operands = operands;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+        }
+
+        @Override
+        protected void compute() {
+            int bands = (rowEnd - rowStart + ROW_BLOCK - 1) / ROW_BLOCK;
+            if (bands <= 1) {
+                operands.multiplyRows(rowStart, rowEnd, null);
+                return;
+            }
+            int split = rowStart + (bands / 2) * ROW_BLOCK;
+            invokeAll(new RowBandTask(operands, rowStart, split),
+                    new RowBandTask(operands, split, rowEnd));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.subh0m0y.matrix;
+
+import java.util.Arrays;
+
+/**
+ * The ILU(0) preconditioner: M = LU, where L is unit lower triangular, U
+ * is upper triangular, and the two have non-zeros only where A does.
+ * <p>
+ * The factors are found by Gaussian elimination without pivoting in
+ * which every update that would fill in a zero of A is dropped. They are
+ * stored packed in a copy of the values of A, like {@link LUDecomposition}
+ * stores its factors, so the preconditioner takes as much memory as A
+ * and costs about as much to apply as one product of A with a vector.
+ * It is usually far more effective than {@link JacobiPreconditioner} for
+ * matrices from discretized partial differential equations.
+ */
+@SuppressWarnings("WeakerAccess")
+public class IncompleteLUPreconditioner implements Preconditioner {
+    private final int order;
+    private final int[] pointers;
+    private final int[] indices;
+    private final double[] lu;
+    private final int[] diagonal;
+
+    /**
+     * Factors the given matrix, which is converted to rows first if it is
+     * not a {@link CSRMatrix}.
+     *
+     * @param matrix The square matrix to factor.
+     * @throws IllegalArgumentException If the matrix is not square.
+     * @throws ArithmeticException      If the diagonal of A is not stored in
+     *                                  full, or a pivot becomes zero.
+     */
+    public IncompleteLUPreconditioner(final RealMatrix matrix) throws IllegalArgumentException, ArithmeticException {
+        this(toCSR(matrix));
+    }
+
+    /**
+     * Factors the given sparse matrix. The matrix itself is not modified.
+     *
+     * @param matrix The square matrix to factor.
+     * @throws IllegalArgumentException If the matrix is not square.
+     * @throws ArithmeticException      If the diagonal of A is not stored in
+     *                                  full, or a pivot becomes zero.
+     */
+    public IncompleteLUPreconditioner(final CSRMatrix matrix) throws IllegalArgumentException, ArithmeticException {
+        if (matrix.rows != matrix.cols) {
+            throw new IllegalArgumentException("Cannot precondition a non-square matrix.");
+        }
+        order = matrix.rows;
+        pointers = matrix.pointers;
+        indices = matrix.indices;
+        lu = matrix.values.clone();
+        diagonal = new int[order];
+        for (int i = 0; i < order; i++) {
+            diagonal[i] = Arrays.binarySearch(indices, pointers[i], pointers[i + 1], i);
+            if (diagonal[i] < 0) {
+                throw new ArithmeticException("Cannot find incomplete LU factors of a matrix "
+                        + "with a zero on the diagonal at index " + i + ".");
+            }
+        }
+        // The position of every element of the current row, by column
+        int[] position = new int[order];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < order; i++) {
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                position[indices[p]] = p;
+            }
+            // Eliminate with every earlier row k that row i has a non-zero in
+            for (int p = pointers[i]; p < diagonal[i]; p++) {
+                int k = indices[p];
+                double multiplier = lu[p] / lu[diagonal[k]];
+                lu[p] = multiplier;
+                for (int q = diagonal[k] + 1; q < pointers[k + 1]; q++) {
+                    int target = position[indices[q]];
+                    if (target >= 0) {
+                        lu[target] -= multiplier * lu[q];
+                    }
+                }
+            }
+            if (lu[diagonal[i]] == 0) {
+                throw new ArithmeticException("Cannot find incomplete LU factors: the pivot at index "
+                        + i + " is zero.");
+            }
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                position[indices[p]] = -1;
+            }
+        }
+    }
+
+    private static CSRMatrix toCSR(final RealMatrix matrix) {
+        if (matrix instanceof CSRMatrix) {
+            return (CSRMatrix) matrix;
+        }
+        if (matrix instanceof CSCMatrix) {
+            return ((CSCMatrix) matrix).toCSR();
+        }
+        return CSRMatrix.fromMatrix(matrix.toDense());
+    }
+
+    /**
+     * Solves LUz = r by forward substitution with L and back substitution
+     * with U.
+     */
+    @Override
+    public void apply(final double[] vector, final double[] destination) {
+        for (int i = 0; i < order; i++) {
+            double sum = vector[i];
+            for (int p = pointers[i]; p < diagonal[i]; p++) {
+                sum -= lu[p] * destination[indices[p]];
+            }
+            destination[i] = sum;
+        }
+        for (int i = order - 1; i >= 0; i--) {
+            double sum = destination[i];
+            for (int p = diagonal[i] + 1; p < pointers[i + 1]; p++) {
+                sum -= lu[p] * destination[indices[p]];
+            }
+            destination[i] = sum / lu[diagonal[i]];
+        }
+    }
+}
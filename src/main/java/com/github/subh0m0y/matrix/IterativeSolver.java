@@ -0,0 +1,200 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * The common ground of the Krylov subspace solvers for Ax = b, which need
+ * A only as a {@link LinearOperator}. They suit large sparse systems,
+ * where a good solution is often reached in far fewer operations than a
+ * direct factorization such as {@link LUDecomposition} would take, and
+ * without its fill-in.
+ * <p>
+ * A solve stops once the Euclidean norm of the residual b - Ax is at most
+ * the tolerance times the norm of b, or after the maximum number of
+ * iterations. Neither outcome is an error: the {@link Result} says which
+ * one it was. A listener may be attached to follow the residual norm as
+ * the iterations proceed.
+ * <p>
+ * Every solver allocates its work vectors once per solve and performs no
+ * allocation per iteration.
+ *
+ * @see ConjugateGradient
+ * @see BiCGSTAB
+ * @see GMRES
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class IterativeSolver {
+    /**
+     * The relative residual norm to reach, unless specified otherwise.
+     */
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+
+    /**
+     * The largest number of iterations, unless specified otherwise.
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 10000;
+
+    /**
+     * Receives the residual norm of every iteration of a solve.
+     */
+    public interface IterationListener {
+        /**
+         * @param iteration    The number of the iteration just completed,
+         *                     zero for the initial guess.
+         * @param residualNorm The Euclidean norm of b - Ax after it. Solvers
+         *                     may report a cheaper estimate that equals it in
+         *                     exact arithmetic.
+         */
+        void iterationDone(int iteration, double residualNorm);
+    }
+
+    /**
+     * The outcome of a solve.
+     */
+    public static class Result {
+        private final double[] solution;
+        private final int iterations;
+        private final double residualNorm;
+        private final boolean converged;
+
+        Result(final double[] solution, final int iterations, final double residualNorm, final boolean converged) {
+            this.solution = solution;
+            this.iterations = iterations;
+            this.residualNorm = residualNorm;
+            this.converged = converged;
+        }
+
+        /**
+         * @return The approximate solution x, which is the array that was
+         * given as the initial guess, if there was one.
+         */
+        public double[] getSolution() {
+            return solution;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return The norm of the residual b - Ax at the end.
+         */
+        public double getResidualNorm() {
+            return residualNorm;
+        }
+
+        /**
+         * @return Whether the tolerance was met.
+         */
+        public boolean isConverged() {
+            return converged;
+        }
+    }
+
+    private final double tolerance;
+    private final int maxIterations;
+    private IterationListener listener;
+
+    IterativeSolver(final double tolerance, final int maxIterations) throws IllegalArgumentException {
+        // Also rejects NaN
+        if (!(tolerance >= 0)) {
+            throw new IllegalArgumentException("Invalid tolerance : " + tolerance);
+        }
+        if (maxIterations < 0) {
+            throw new IllegalArgumentException("Invalid maximum number of iterations : " + maxIterations);
+        }
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @param listener The listener to report every iteration to, or null
+     *                 for none.
+     */
+    public void setIterationListener(final IterationListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Solves Ax = b, starting from x = 0 and without preconditioning.
+     *
+     * @param a The square coefficient operator.
+     * @param b The right-hand side.
+     * @return The result, with the solution in a new array.
+     */
+    public Result solve(final LinearOperator a, final double[] b) throws IllegalArgumentException {
+        return solve(a, b, new double[b.length], Preconditioner.IDENTITY);
+    }
+
+    /**
+     * Solves Ax = b, starting from x = 0.
+     *
+     * @param a              The square coefficient operator.
+     * @param b              The right-hand side.
+     * @param preconditioner The preconditioner to use.
+     * @return The result, with the solution in a new array.
+     */
+    public Result solve(final LinearOperator a, final double[] b, final Preconditioner preconditioner)
+            throws IllegalArgumentException {
+        return solve(a, b, new double[b.length], preconditioner);
+    }
+
+    /**
+     * Solves Ax = b in place.
+     *
+     * @param a              The square coefficient operator.
+     * @param b              The right-hand side.
+     * @param x              The initial guess, which is overwritten with the
+     *                       solution.
+     * @param preconditioner The preconditioner to use.
+     * @return The result.
+     * @throws IllegalArgumentException If the operator is not square, or b
+     *                                  or x is of the wrong length.
+     */
+    public Result solve(final LinearOperator a, final double[] b, final double[] x,
+                        final Preconditioner preconditioner) throws IllegalArgumentException {
+        int n = a.getRows();
+        if (a.getCols() != n) {
+            throw new IllegalArgumentException("Cannot solve a system with a non-square operator.");
+        }
+        if (b.length != n) {
+            throw new IllegalArgumentException("Invalid number of elements. Expected : " + n
+                    + " Found : " + b.length);
+        }
+        if (x.length != n) {
+            throw new IllegalArgumentException("Invalid number of elements. Expected : " + n
+                    + " Found : " + x.length);
+        }
+        return iterate(a, b, x, preconditioner, tolerance * Blas.norm2(b));
+    }
+
+    /**
+     * Improves x until the residual norm is at most the target, or the
+     * iterations run out.
+     */
+    abstract Result iterate(LinearOperator a, double[] b, double[] x, Preconditioner preconditioner, double target);
+
+    /**
+     * r = b - Ax
+     *
+     * @return The norm of r.
+     */
+    static double residual(final LinearOperator a, final double[] b, final double[] x, final double[] r) {
+        a.multiply(x, r);
+        Kernels.scale(r.length, -1, r, 0, 1);
+        Kernels.axpy(r.length, 1, b, 0, 1, r, 0, 1);
+        return Blas.norm2(r);
+    }
+
+    void report(final int iteration, final double residualNorm) {
+        if (listener != null) {
+            listener.iterationDone(iteration, residualNorm);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * The Jacobi, or diagonal, preconditioner: M is the diagonal of A.
+ * <p>
+ * It costs one multiplication per element to apply and is symmetric
+ * positive definite whenever A is, so it suits the conjugate gradient
+ * method. It helps most when the rows of A are badly scaled relative to
+ * each other.
+ */
+@SuppressWarnings("WeakerAccess")
+public class JacobiPreconditioner implements Preconditioner {
+    private final double[] inverseDiagonal;
+
+    /**
+     * @param matrix The square matrix to take the diagonal of.
+     * @throws IllegalArgumentException If the matrix is not square.
+     * @throws ArithmeticException      If an element of the diagonal is zero.
+     */
+    public JacobiPreconditioner(final RealMatrix matrix) throws IllegalArgumentException, ArithmeticException {
+        if (matrix.getRows() != matrix.getCols()) {
+            throw new IllegalArgumentException("Cannot precondition a non-square matrix.");
+        }
+        inverseDiagonal = new double[matrix.getRows()];
+        for (int i = 0; i < inverseDiagonal.length; i++) {
+            double diagonal = matrix.get(i, i);
+            if (diagonal == 0) {
+                throw new ArithmeticException("Cannot build a Jacobi preconditioner for a matrix "
+                        + "with a zero on the diagonal at index " + i + ".");
+            }
+            inverseDiagonal[i] = 1 / diagonal;
+        }
+    }
+
+    @Override
+    public void apply(final double[] vector, final double[] destination) {
+        for (int i = 0; i < inverseDiagonal.length; i++) {
+            destination[i] = vector[i] * inverseDiagonal[i];
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * Loops over strided runs of a flat array, shared by the element-wise
+ * operations of {@link Matrix}. Each run is addressed in the manner of
+ * BLAS by an array, the offset of its first element and the increment
+ * between consecutive elements. A compact matrix is processed in a
+ * single unit-stride call and any other matrix one row at a time.
+ * <p>
+ * Every kernel tests for unit increments up front and then runs a loop
+ * simple enough for the JIT to vectorize. Unit-stride runs are handed to a
+ * {@link VectorBackend} instead when one can be loaded, which needs JDK 17
+ * or later started with {@code --add-modules jdk.incubator.vector}. Setting
+ * the {@value #VECTOR_PROPERTY} system property to false keeps the scalar
+ * loops.
+ * <p>
+ * The float overloads serve {@link FloatMatrix}. They have no vector
+ * backend and rely on the JIT alone, which packs twice as many floats as
+ * doubles into each vector register.
+ */
+final class Kernels {
+    static final String VECTOR_PROPERTY = "matrix.vector";
+    static final String VECTOR_BITS_PROPERTY = "matrix.vector.bits";
+
+    /**
+     * The vectorized backend, or null. Being a static final field, the JIT
+     * folds every test of it into the loop chosen at startup.
+     */
+    private static final VectorBackend VECTOR = loadBackend();
+
+    private Kernels() {
+    }
+
+    private static VectorBackend loadBackend() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))) {
+            return null;
+        }
+        try {
+            return (VectorBackend) Class.forName("com.github.subh0m0y.matrix.DoubleVectorBackend")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not compiled in, or jdk.incubator.vector is not available
+            return null;
+        }
+    }
+
+    /**
+     * @return A description of the loops in use, such as the vector width.
+     */
+    static String describeBackend() {
+        return VECTOR == null ? "scalar" : VECTOR.describe();
+    }
+
+    /**
+     * y[i] += x[i]
+     */
+    static void add(final int n, final double[] x, final int xOffset, final int incX,
+                    final double[] y, final int yOffset, final int incY) {
+        if (incX == 1 && incY == 1) {
+            if (VECTOR != null) {
+                VECTOR.add(n, x, xOffset, y, yOffset);
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                y[yOffset + i] += x[xOffset + i];
+            }
+        } else {
+            for (int i = 0, xi = xOffset, yi = yOffset; i < n; i++, xi += incX, yi += incY) {
+                y[yi] += x[xi];
+            }
+        }
+    }
+
+    /**
+     * y[i] -= x[i]
+     */
+    static void subtract(final int n, final double[] x, final int xOffset, final int incX,
+                         final double[] y, final int yOffset, final int incY) {
+        if (incX == 1 && incY == 1) {
+            if (VECTOR != null) {
+                VECTOR.subtract(n, x, xOffset, y, yOffset);
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                y[yOffset + i] -= x[xOffset + i];
+            }
+        } else {
+            for (int i = 0, xi = xOffset, yi = yOffset; i < n; i++, xi += incX, yi += incY) {
+                y[yi] -= x[xi];
+            }
+        }
+    }
+
+    /**
+     * y[i] *= x[i]
+     */
+    static void multiply(final int n, final double[] x, final int xOffset, final int incX,
+                         final double[] y, final int yOffset, final int incY) {
+        if (incX == 1 && incY == 1) {
+            if (VECTOR != null) {
+                VECTOR.multiply(n, x, xOffset, y, yOffset);
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                y[yOffset + i] *= x[xOffset + i];
+            }
+        } else {
+            for (int i = 0, xi = xOffset, yi = yOffset; i < n; i++, xi += incX, yi += incY) {
+                y[yi] *= x[xi];
+            }
+        }
+    }
+
+    /**
+     * y[i] /= x[i]
+     */
+    static void divide(final int n, final double[] x, final int xOffset, final int incX,
+                       final double[] y, final int yOffset, final int incY) {
+        if (incX == 1 && incY == 1) {
+            if (VECTOR != null) {
+                VECTOR.divide(n, x, xOffset, y, yOffset);
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                y[yOffset + i] /= x[xOffset + i];
+            }
+        } else {
+            for (int i = 0, xi = xOffset, yi = yOffset; i < n; i++, xi += incX, yi += incY) {
+                y[yi] /= x[xi];
+            }
+        }
+    }
+
+    /**
+     * y[i] *= alpha
+     */
+    static void scale(final int n, final double alpha, final double[] y, final int yOffset, final int incY) {
+        if (incY == 1) {
+            if (VECTOR != null) {
+                VECTOR.scale(n, alpha, y, yOffset);
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                y[yOffset + i] *= alpha;
+            }
+        } else {
+            for (int i = 0, yi = yOffset; i < n; i++, yi += incY) {
+                y[yi] *= alpha;
+            }
+        }
+    }
+
+    /**
+     * y[i] += alpha * x[i]
+     */
+    static void axpy(final int n, final double alpha, final double[] x, final int xOffset, final int incX,
+                     final double[] y, final int yOffset, final int incY) {
+        if (incX == 1 && incY == 1) {
+            if (VECTOR != null) {
+                VECTOR.axpy(n, alpha, x, xOffset, y, yOffset);
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                y[yOffset + i] += alpha * x[xOffset + i];
+            }
+        } else {
+            for (int i = 0, xi = xOffset, yi = yOffset; i < n; i++, xi += incX, yi += incY) {
+                y[yi] += alpha * x[xi];
+            }
+        }
+    }
+
+    /**
+     * @return The sum of x[i] * y[i], accumulated in ascending order of i,
+     * except by the vector backend, which keeps a partial sum per lane.
+     */
+    static double dot(final int n, final double[] x, final int xOffset, final int incX,
+                      final double[] y, final int yOffset, final int incY) {
+        double sum = 0;
+        if (incX == 1 && incY == 1) {
+            if (VECTOR != null) {
+                return VECTOR.dot(n, x, xOffset, y, yOffset);
+            }
+            for (int i = 0; i < n; i++) {
+                sum += x[xOffset + i] * y[yOffset + i];
+            }
+        } else {
+            for (int i = 0, xi = xOffset, yi = yOffset; i < n; i++, xi += incX, yi += incY) {
+                sum += x[xi] * y[yi];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * y[i] = y[i] + a0 * x[i] + a1 * x[i + incX] + a2 * x[i + 2 * incX] + a3 * x[i + 3 * incX],
+     * evaluated left to right, for unit-stride runs of y and of each of the
+     * four runs of x. Four rows of x are combined per load and store of y.
+     */
+    static void axpy4(final int n, final double a0, final double a1, final double a2, final double a3,
+                      final double[] x, final int xOffset, final int incX, final double[] y, final int yOffset) {
+        if (VECTOR != null) {
+            VECTOR.axpy4(n, a0, a1, a2, a3, x, xOffset, incX, y, yOffset);
+            return;
+        }
+        int o0 = xOffset;
+        int o1 = o0 + incX;
+        int o2 = o1 + incX;
+        int o3 = o2 + incX;
+        for (int i = 0; i < n; i++) {
+            y[yOffset + i] = y[yOffset + i]
+                    + a0 * x[o0 + i]
+                    + a1 * x[o1 + i]
+                    + a2 * x[o2 + i]
+                    + a3 * x[o3 + i];
+        }
+    }
+
+    /**
+     * y[i] = x[i]
+     */
+    static void copy(final int n, final double[] x, final int xOffset, final int incX,
+                     final double[] y, final int yOffset, final int incY) {
+        if (incX == 1 && incY == 1) {
+            System.arraycopy(x, xOffset, y, yOffset, n);
+        } else {
+            for (int i = 0, xi = xOffset, yi = yOffset; i < n; i++, xi += incX, yi += incY) {
+                y[yi] = x[xi];
+            }
+        }
+    }
+
+    /**
+     * y[i] += x[i]
+     */
+    static void add(final int n, final float[] x, final int xOffset, final float[] y, final int yOffset) {
+        for (int i = 0; i < n; i++) {
+            y[yOffset + i] += x[xOffset + i];
+        }
+    }
+
+    /**
+     * y[i] -= x[i]
+     */
+    static void subtract(final int n, final float[] x, final int xOffset, final float[] y, final int yOffset) {
+        for (int i = 0; i < n; i++) {
+            y[yOffset + i] -= x[xOffset + i];
+        }
+    }
+
+    /**
+     * y[i] *= x[i]
+     */
+    static void multiply(final int n, final float[] x, final int xOffset, final float[] y, final int yOffset) {
+        for (int i = 0; i < n; i++) {
+            y[yOffset + i] *= x[xOffset + i];
+        }
+    }
+
+    /**
+     * y[i] /= x[i]
+     */
+    static void divide(final int n, final float[] x, final int xOffset, final float[] y, final int yOffset) {
+        for (int i = 0; i < n; i++) {
+            y[yOffset + i] /= x[xOffset + i];
+        }
+    }
+
+    /**
+     * y[i] *= alpha
+     */
+    static void scale(final int n, final float alpha, final float[] y, final int yOffset) {
+        for (int i = 0; i < n; i++) {
+            y[yOffset + i] *= alpha;
+        }
+    }
+
+    /**
+     * y[i] += alpha * x[i]
+     */
+    static void axpy(final int n, final float alpha, final float[] x, final int xOffset,
+                     final float[] y, final int yOffset) {
+        for (int i = 0; i < n; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    /**
+     * @return The sum of x[i] * y[i], accumulated in ascending order of i.
+     */
+    static float dot(final int n, final float[] x, final int xOffset, final float[] y, final int yOffset) {
+        float sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += x[xOffset + i] * y[yOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * The float version of {@link #axpy4(int, double, double, double, double, double[], int, int, double[], int)}.
+     */
+    static void axpy4(final int n, final float a0, final float a1, final float a2, final float a3,
+                      final float[] x, final int xOffset, final int incX, final float[] y, final int yOffset) {
+        int o0 = xOffset;
+        int o1 = o0 + incX;
+        int o2 = o1 + incX;
+        int o3 = o2 + incX;
+        for (int i = 0; i < n; i++) {
+            y[yOffset + i] = y[yOffset + i]
+                    + a0 * x[o0 + i]
+                    + a1 * x[o1 + i]
+                    + a2 * x[o2 + i]
+                    + a3 * x[o3 + i];
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.github.subh0m0y.matrix;
+
+import static com.github.subh0m0y.matrix.Standards.EPSILON;
+
+/**
+ * The LU decomposition of a square matrix with partial pivoting, such
+ * that PA = LU, where P is a row permutation, L is unit lower triangular
+ * and U is upper triangular.
+ * <p>
+ * The factors are computed once, when the decomposition is created, and
+ * stored packed in a single row-major array: U on and above the diagonal
+ * and L (without its unit diagonal) below it. Every subsequent solve,
+ * determinant or inverse costs only O(n^2) per right-hand side, so a
+ * decomposition should be kept and reused when the same coefficient
+ * matrix appears in many systems.
+ * <p>
+ * The factorization is blocked and right-looking: a panel of
+ * {@code blockSize} columns is factored, the matching block row of U is
+ * found by a triangular solve, and the rest of the matrix is updated with
+ * a single call to the cache-blocked {@link Gemm} kernel. For large
+ * matrices nearly all of the work is done in that update. A block size no
+ * smaller than the order of the matrix gives the classic unblocked
+ * elimination.
+ */
+@SuppressWarnings("WeakerAccess")
+public class LUDecomposition {
+    /**
+     * The number of columns factored per panel, unless specified otherwise.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private final int order;
+    private final double[] lu;
+    private final int[] pivot;
+    private final int pivotSign;
+    private final boolean singular;
+
+    /**
+     * Decomposes the given matrix. The matrix itself is not modified.
+     *
+     * @param matrix The square matrix to decompose.
+     * @throws IllegalArgumentException If the matrix is not square.
+     */
+    public LUDecomposition(final Matrix matrix) throws IllegalArgumentException {
+        this(matrix, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Decomposes the given matrix, factoring blockSize columns at a time.
+     * The matrix itself is not modified.
+     *
+     * @param matrix    The square matrix to decompose.
+     * @param blockSize The number of columns per panel.
+     * @throws IllegalArgumentException If the matrix is not square or the
+     *                                  block size is not positive.
+     */
+    public LUDecomposition(final Matrix matrix, final int blockSize) throws IllegalArgumentException {
+        if (!matrix.isSquare()) {
+            throw new IllegalArgumentException("Cannot find LU decomposition of a non-square matrix.");
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Invalid block size : " + blockSize);
+        }
+        order = matrix.getRows();
+        lu = matrix.toLinearArray();
+        pivot = new int[order];
+        for (int i = 0; i < order; i++) {
+            pivot[i] = i;
+        }
+        // Pivots smaller than this, relative to the largest element, are treated as zero
+        double tolerance = EPSILON * maxAbs(lu);
+        int sign = 1;
+        boolean zeroPivot = false;
+        for (int kk = 0; kk < order; kk += blockSize) {
+            int kEnd = Math.min(order, kk + blockSize);
+            for (int k = kk; k < kEnd; k++) {
+                int p = k;
+                double max = Math.abs(lu[k * order + k]);
+                for (int i = k + 1; i < order; i++) {
+                    double value = Math.abs(lu[i * order + k]);
+                    if (value > max) {
+                        max = value;
+                        p = i;
+                    }
+                }
+                if (p != k) {
+                    // Whole rows, so that the finished columns of L and the
+                    // not yet updated columns to the right follow the pivot
+                    swapRows(p, k);
+                    int temp = pivot[p];
+                    pivot[p] = pivot[k];
+                    pivot[k] = temp;
+                    sign = -sign;
+                }
+                if (max <= tolerance) {
+                    // Nothing to eliminate with; the column is already as reduced as it can be
+                    zeroPivot = true;
+                    for (int i = k + 1; i < order; i++) {
+                        lu[i * order + k] = 0;
+                    }
+                    continue;
+                }
+                double diagonal = lu[k * order + k];
+                int tail = kEnd - k - 1;
+                for (int i = k + 1; i < order; i++) {
+                    double factor = lu[i * order + k] / diagonal;
+                    lu[i * order + k] = factor;
+                    Kernels.axpy(tail, -factor, lu, k * order + k + 1, 1, lu, i * order + k + 1, 1);
+                }
+            }
+            if (kEnd < order) {
+                updateTrailing(kk, kEnd);
+            }
+        }
+        pivotSign = sign;
+        singular = zeroPivot;
+    }
+
+    /**
+     * Brings the columns to the right of the factored panel [kk, kEnd) up
+     * to date: U12 = inverse(L11) * A12, followed by A22 -= L21 * U12.
+     */
+    private void updateTrailing(final int kk, final int kEnd) {
+        int width = order - kEnd;
+        for (int i = kk + 1; i < kEnd; i++) {
+            for (int k = kk; k < i; k++) {
+                Kernels.axpy(width, -lu[i * order + k], lu, k * order + kEnd, 1, lu, i * order + kEnd, 1);
+            }
+        }
+        Gemm.multiplyAdd(-1, lu, kEnd * order + kk, order, 1,
+                lu, kk * order + kEnd, order, 1,
+                1, lu, kEnd * order + kEnd, order,
+                width, kEnd - kk, width, null);
+    }
+
+    private static double maxAbs(final double[] values) {
+        double max = 0;
+        for (double value : values) {
+            max = Math.max(max, Math.abs(value));
+        }
+        return max;
+    }
+
+    private void swapRows(final int row1, final int row2) {
+        for (int j = 0, a = row1 * order, b = row2 * order; j < order; j++, a++, b++) {
+            double temp = lu[a];
+            lu[a] = lu[b];
+            lu[b] = temp;
+        }
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * @return Whether the decomposed matrix is singular, to within
+     * {@link Standards#EPSILON} of its largest element.
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * @return The permutation applied to the rows: row i of PA is row
+     * pivot[i] of A.
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    /**
+     * @return The unit lower triangular factor L.
+     */
+    public Matrix getL() {
+        double[] l = new double[order * order];
+        for (int i = 0; i < order; i++) {
+            System.arraycopy(lu, i * order, l, i * order, i);
+            l[i * order + i] = 1;
+        }
+        return Matrix.fromLinearArray(order, order, l, false);
+    }
+
+    /**
+     * @return The upper triangular factor U.
+     */
+    public Matrix getU() {
+        double[] u = new double[order * order];
+        for (int i = 0; i < order; i++) {
+            System.arraycopy(lu, i * order + i, u, i * order + i, order - i);
+        }
+        return Matrix.fromLinearArray(order, order, u, false);
+    }
+
+    /**
+     * @return The determinant of the decomposed matrix.
+     */
+    public double determinant() {
+        double determinant = pivotSign;
+        for (int i = 0; i < order; i++) {
+            determinant *= lu[i * order + i];
+        }
+        return determinant;
+    }
+
+    private void throwIfSingular() throws ArithmeticException {
+        if (singular) {
+            throw new ArithmeticException("Cannot solve a system with a singular matrix.");
+        }
+    }
+
+    /**
+     * Solves Ax = b for x.
+     *
+     * @param b The right-hand side, of length equal to the order of A.
+     * @return The solution x, in a new array.
+     * @throws ArithmeticException If A is singular.
+     */
+    public double[] solve(final double[] b) throws IllegalArgumentException, ArithmeticException {
+        if (b.length != order) {
+            throw new IllegalArgumentException("Invalid number of elements. Expected : " + order
+                    + " Found : " + b.length);
+        }
+        throwIfSingular();
+        double[] x = new double[order];
+        for (int i = 0; i < order; i++) {
+            x[i] = b[pivot[i]];
+        }
+        // Forward substitution with the unit lower triangle
+        for (int i = 1; i < order; i++) {
+            double sum = x[i];
+            for (int k = 0, a = i * order; k < i; k++, a++) {
+                sum -= lu[a] * x[k];
+            }
+            x[i] = sum;
+        }
+        // Back substitution with the upper triangle
+        for (int i = order - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int k = i + 1, a = i * order + i + 1; k < order; k++, a++) {
+                sum -= lu[a] * x[k];
+            }
+            x[i] = sum / lu[i * order + i];
+        }
+        return x;
+    }
+
+    /**
+     * Solves AX = B for X, treating every column of B as a separate
+     * right-hand side.
+     *
+     * @param b The right-hand sides, with as many rows as the order of A.
+     * @return The solution X, in a new matrix of the same shape as B.
+     * @throws ArithmeticException If A is singular.
+     */
+    public Matrix solve(final Matrix b) throws IllegalArgumentException, ArithmeticException {
+        if (b.getRows() != order) {
+            throw new IllegalArgumentException("Given matrix is not compatible with the decomposition for "
+                    + "solving. Expected rows : " + order + " Found : " + b.getRows());
+        }
+        throwIfSingular();
+        int cols = b.getCols();
+        double[] source = b.toLinearArray();
+        double[] x = new double[order * cols];
+        for (int i = 0; i < order; i++) {
+            System.arraycopy(source, pivot[i] * cols, x, i * cols, cols);
+        }
+        // Whole rows at a time, so that every inner loop has unit stride
+        for (int k = 0; k < order; k++) {
+            for (int i = k + 1; i < order; i++) {
+                Kernels.axpy(cols, -lu[i * order + k], x, k * cols, 1, x, i * cols, 1);
+            }
+        }
+        for (int k = order - 1; k >= 0; k--) {
+            Kernels.scale(cols, 1 / lu[k * order + k], x, k * cols, 1);
+            for (int i = 0; i < k; i++) {
+                Kernels.axpy(cols, -lu[i * order + k], x, k * cols, 1, x, i * cols, 1);
+            }
+        }
+        return Matrix.fromLinearArray(order, cols, x, false);
+    }
+
+    /**
+     * @return The inverse of the decomposed matrix.
+     * @throws ArithmeticException If the matrix is singular.
+     */
+    public Matrix inverse() throws ArithmeticException {
+        if (singular) {
+            throw new ArithmeticException("Cannot find inverse of singular matrix.");
+        }
+        return solve(Matrix.identity(order));
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * A linear map from vectors of {@link #getCols()} elements to vectors of
+ * {@link #getRows()} elements, known only by its action on a vector.
+ * <p>
+ * This is all that the iterative solvers need of a coefficient matrix:
+ * dense and sparse matrices are operators, and so can be anything else
+ * that can form a product with a vector without storing its elements.
+ *
+ * @see IterativeSolver
+ */
+public interface LinearOperator {
+    int getRows();
+
+    int getCols();
+
+    /**
+     * Stores the product of this operator and the given vector in the
+     * destination.
+     *
+     * @param vector      A vector with as many elements as this operator has columns.
+     * @param destination An array with as many elements as this operator has
+     *                    rows, which should not be the vector itself.
+     * @return The destination.
+     * @throws IllegalArgumentException If either length is wrong.
+     */
+    double[] multiply(double[] vector, double[] destination) throws IllegalArgumentException;
+}
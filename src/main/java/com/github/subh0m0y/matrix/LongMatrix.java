@@ -0,0 +1,376 @@
+package com.github.subh0m0y.matrix;
+
+import java.util.Arrays;
+
+/**
+ * A dense matrix of longs, for exact integer work such as counting walks
+ * in a graph with {@link #exponentiate(int)}.
+ * <p>
+ * The elements are stored row after row in a single long array. Every
+ * operation is exact: sums and products that do not fit in a long throw
+ * an {@link ArithmeticException} instead of wrapping around, so a result
+ * that is returned is always the true one.
+ * <p>
+ * Through {@link RealMatrix}, a long matrix combines with another long
+ * matrix exactly, and with anything else in double precision, by way of
+ * {@link #toDense()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class LongMatrix implements RealMatrix {
+    /**
+     * 2<sup>63</sup>, the first double too large for a long.
+     */
+    private static final double LONG_LIMIT = 0x1p63;
+    private final int rows;
+    private final int cols;
+    private final long[] data;
+
+    /**
+     * Creates a new zero matrix of order rows x cols.
+     */
+    LongMatrix(final int rows, final int cols) {
+        this(rows, cols, new long[checkedSize(rows, cols)]);
+    }
+
+    /**
+     * Wraps the given row-major elements, without copying them.
+     */
+    LongMatrix(final int rows, final int cols, final long[] data) {
+        if (data.length != checkedSize(rows, cols)) {
+            throw new IllegalArgumentException("Invalid number of elements: " + data.length
+                    + " Expected: " + rows * cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+    }
+
+    private static int checkedSize(final int rows, final int cols) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Invalid number of rows : " + rows);
+        }
+        if (cols < 0) {
+            throw new IllegalArgumentException("Invalid number of columns : " + cols);
+        }
+        long size = (long) rows * cols;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many elements : " + rows + " x " + cols);
+        }
+        return (int) size;
+    }
+
+    public static LongMatrix zero(final int rows, final int cols) {
+        return new LongMatrix(rows, cols);
+    }
+
+    public static LongMatrix identity(final int order) {
+        LongMatrix matrix = new LongMatrix(order, order);
+        for (int i = 0; i < order; i++) {
+            matrix.data[i * order + i] = 1;
+        }
+        return matrix;
+    }
+
+    public static LongMatrix fromLinearArray(final int rows, final int cols, final long... elements) {
+        return fromLinearArray(rows, cols, elements, true);
+    }
+
+    /**
+     * Creates a matrix from the given row-major elements.
+     *
+     * @param rows         The number of rows.
+     * @param cols         The number of columns.
+     * @param elements     The rows * cols elements, row after row.
+     * @param makeDeepCopy Whether to copy the elements or wrap the given array,
+     *                     in which case changes to either are visible in the other.
+     * @return The matrix.
+     */
+    public static LongMatrix fromLinearArray(final int rows, final int cols, final long[] elements,
+                                             final boolean makeDeepCopy) {
+        return new LongMatrix(rows, cols, makeDeepCopy ? Arrays.copyOf(elements, elements.length) : elements);
+    }
+
+    /**
+     * @param matrix The matrix to convert, which may be a view.
+     * @return The elements of the given matrix as longs.
+     * @throws IllegalArgumentException If an element is not an integer
+     *                                  within the range of a long.
+     */
+    public static LongMatrix fromMatrix(final Matrix matrix) throws IllegalArgumentException {
+        int rows = matrix.getRows();
+        int cols = matrix.getCols();
+        LongMatrix converted = new LongMatrix(rows, cols);
+        double[] source = matrix.getData();
+        for (int i = 0, c = 0; i < rows; i++) {
+            for (int j = 0, k = matrix.index(i, 0); j < cols; j++, k += matrix.getColStride()) {
+                double value = source[k];
+                if (value != Math.rint(value) || value < -LONG_LIMIT || value >= LONG_LIMIT) {
+                    throw new IllegalArgumentException("Not an exact long at (" + i + ", " + j + ") : " + value);
+                }
+                converted.data[c++] = (long) value;
+            }
+        }
+        return converted;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    private void throwIfInvalidElement(final int i, final int j) throws IndexOutOfBoundsException {
+        if (i < 0 || i >= rows) {
+            throw new IndexOutOfBoundsException("Invalid row index : " + i);
+        }
+        if (j < 0 || j >= cols) {
+            throw new IndexOutOfBoundsException("Invalid column index : " + j);
+        }
+    }
+
+    /**
+     * @return The element, rounded to the nearest double if its magnitude
+     * is above 2<sup>53</sup>.
+     */
+    @Override
+    public double get(final int i, final int j) throws IndexOutOfBoundsException {
+        return getLong(i, j);
+    }
+
+    public long getLong(final int i, final int j) throws IndexOutOfBoundsException {
+        throwIfInvalidElement(i, j);
+        return data[i * cols + j];
+    }
+
+    public void set(final int i, final int j, final long value) throws IndexOutOfBoundsException {
+        throwIfInvalidElement(i, j);
+        data[i * cols + j] = value;
+    }
+
+    /**
+     * @return A copy of the elements, row after row.
+     */
+    public long[] toLinearArray() {
+        return Arrays.copyOf(data, data.length);
+    }
+
+    public LongMatrix copy() {
+        return new LongMatrix(rows, cols, toLinearArray());
+    }
+
+    /**
+     * @return The elements of this matrix as doubles, each rounded to the
+     * nearest double if its magnitude is above 2<sup>53</sup>.
+     */
+    @Override
+    public Matrix toDense() {
+        double[] converted = new double[data.length];
+        for (int i = 0; i < data.length; i++) {
+            converted[i] = data[i];
+        }
+        return Matrix.fromLinearArray(rows, cols, converted, false);
+    }
+
+    public boolean isSquare() {
+        return rows == cols;
+    }
+
+    @Override
+    public LongMatrix transpose() {
+        LongMatrix transpose = new LongMatrix(cols, rows);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                transpose.data[j * rows + i] = data[i * cols + j];
+            }
+        }
+        return transpose;
+    }
+
+    private void throwIncompatible(final String operation) throws IllegalArgumentException {
+        throw new IllegalArgumentException("Given matrix is not compatible with the invoking matrix for "
+                + operation);
+    }
+
+    private void throwIfNotSameShape(final LongMatrix matrix, final String operation) {
+        if (matrix.rows != rows || matrix.cols != cols) {
+            throwIncompatible(operation);
+        }
+    }
+
+    /**
+     * @throws ArithmeticException If an element of the sum overflows.
+     */
+    public LongMatrix add(final LongMatrix addend) throws IllegalArgumentException, ArithmeticException {
+        throwIfNotSameShape(addend, "addition");
+        LongMatrix sum = new LongMatrix(rows, cols);
+        for (int i = 0; i < data.length; i++) {
+            sum.data[i] = Math.addExact(data[i], addend.data[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * Adds a matrix in any representation: exactly if it is a long
+     * matrix, and in double precision otherwise.
+     */
+    @Override
+    public RealMatrix add(final RealMatrix addend) throws IllegalArgumentException, ArithmeticException {
+        if (addend instanceof LongMatrix) {
+            return add((LongMatrix) addend);
+        }
+        return toDense().add(addend);
+    }
+
+    /**
+     * @throws ArithmeticException If an element of the difference overflows.
+     */
+    public LongMatrix subtract(final LongMatrix subtrahend) throws IllegalArgumentException, ArithmeticException {
+        throwIfNotSameShape(subtrahend, "subtraction");
+        LongMatrix difference = new LongMatrix(rows, cols);
+        for (int i = 0; i < data.length; i++) {
+            difference.data[i] = Math.subtractExact(data[i], subtrahend.data[i]);
+        }
+        return difference;
+    }
+
+    /**
+     * @throws ArithmeticException If an element of the result overflows.
+     */
+    public LongMatrix scale(final long scale) throws ArithmeticException {
+        LongMatrix scaled = new LongMatrix(rows, cols);
+        for (int i = 0; i < data.length; i++) {
+            scaled.data[i] = Math.multiplyExact(data[i], scale);
+        }
+        return scaled;
+    }
+
+    /**
+     * @throws ArithmeticException If a term or partial sum of an element
+     *                             of the product overflows.
+     */
+    public LongMatrix multiply(final LongMatrix multiplicand) throws IllegalArgumentException, ArithmeticException {
+        if (multiplicand.rows != cols) {
+            throwIncompatible("multiplication");
+        }
+        LongMatrix product = new LongMatrix(rows, multiplicand.cols);
+        storeProduct(this, multiplicand, product);
+        return product;
+    }
+
+    /**
+     * Multiplies by a matrix in any representation: exactly if it is a
+     * long matrix, and in double precision otherwise.
+     */
+    @Override
+    public RealMatrix multiply(final RealMatrix multiplicand) throws IllegalArgumentException, ArithmeticException {
+        if (multiplicand instanceof LongMatrix) {
+            return multiply((LongMatrix) multiplicand);
+        }
+        return toDense().multiply(multiplicand);
+    }
+
+    /**
+     * @param vector A vector with as many elements as this matrix has columns.
+     * @return The product of this matrix and the given vector, in a new array.
+     * @throws ArithmeticException If an element of the product overflows.
+     */
+    public long[] multiply(final long[] vector) throws IllegalArgumentException, ArithmeticException {
+        if (vector.length != cols) {
+            throwIncompatible("multiplication");
+        }
+        long[] product = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            long sum = 0;
+            for (int j = 0, k = i * cols; j < cols; j++, k++) {
+                sum = Math.addExact(sum, Math.multiplyExact(data[k], vector[j]));
+            }
+            product[i] = sum;
+        }
+        return product;
+    }
+
+    /**
+     * Overwrites c with a times b, in the i-k-j order, so that the
+     * innermost loop runs along rows of b and c. Zero elements of a, common
+     * in adjacency matrices, are skipped.
+     */
+    private static void storeProduct(final LongMatrix a, final LongMatrix b, final LongMatrix c) {
+        int n = a.cols;
+        int p = b.cols;
+        Arrays.fill(c.data, 0);
+        for (int i = 0; i < a.rows; i++) {
+            int ci = i * p;
+            for (int k = 0; k < n; k++) {
+                long scale = a.data[i * n + k];
+                if (scale == 0) {
+                    continue;
+                }
+                for (int j = 0, bk = k * p; j < p; j++) {
+                    c.data[ci + j] = Math.addExact(c.data[ci + j], Math.multiplyExact(scale, b.data[bk + j]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Raises this matrix to the given power by repeated squaring, with
+     * every product written to one of two spare buffers in turn.
+     *
+     * @param power The non-negative power to raise to.
+     * @return The power.
+     * @throws ArithmeticException If an element of an intermediate product
+     *                             overflows.
+     */
+    public LongMatrix exponentiate(int power) throws IllegalArgumentException, ArithmeticException {
+        if (!isSquare()) {
+            throwIncompatible("exponentiation");
+        }
+        if (power < 0) {
+            throw new IllegalArgumentException("Power cannot be negative.");
+        }
+        LongMatrix x = copy();
+        LongMatrix spare = new LongMatrix(rows, cols);
+        LongMatrix product = identity(rows);
+        while (power > 0) {
+            if ((power & 1) == 1) {
+                storeProduct(product, x, spare);
+                LongMatrix temp = product;
+                product = spare;
+                spare = temp;
+            }
+            power >>= 1;
+            if (power > 0) {
+                storeProduct(x, x, spare);
+                LongMatrix temp = x;
+                x = spare;
+                spare = temp;
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LongMatrix)) return false;
+        LongMatrix matrix = (LongMatrix) o;
+        return rows == matrix.rows && cols == matrix.cols && Arrays.equals(data, matrix.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * rows + cols) + Arrays.hashCode(data);
+    }
+
+    /**
+     * Lays out the elements as {@link Matrix#toString()} does, as integers.
+     */
+    @Override
+    public String toString() {
+        return TextFormat.preview(rows, cols, (builder, i, j) -> builder.append(data[i * cols + j]));
+    }
+}
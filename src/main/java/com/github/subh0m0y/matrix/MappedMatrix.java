@@ -0,0 +1,651 @@
+package com.github.subh0m0y.matrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A dense matrix stored in a memory-mapped file instead of on the heap, for
+ * matrices too large to fit in memory.
+ * <p>
+ * The elements are stored row after row as little-endian doubles. A single
+ * mapping cannot exceed 2 GB, so the file is mapped in segments of
+ * 2<sup>27</sup> elements (1 GB), and every element is found by splitting
+ * its position into a segment and an index within it. The operating system
+ * pages the segments in and out as they are used, so the heap only ever
+ * holds the blocks an operation is working on.
+ * <p>
+ * The operations stream through the file a block at a time. Element-wise
+ * operations copy blocks of about a million elements to the heap, apply the
+ * ordinary in-place operations of {@link Matrix} to them and write the
+ * result back. Transposition and multiplication work on square tiles of
+ * {@link #DEFAULT_TILE_SIZE} elements a side, transposing each tile with
+ * {@link Matrix#transpose(Matrix)} and multiplying pairs of tiles with the
+ * same kernel as {@link Matrix#multiply(Matrix)}. Results are written to a
+ * destination the caller creates with {@link #create(Path, int, int)}, so
+ * that they can live on disk as well.
+ * <p>
+ * Writes reach the file when the operating system gets round to it, or at
+ * the latest on {@link #flush()}. A mapping stays valid until the matrix is
+ * garbage collected, even after {@link #close()}. The operations of
+ * {@link RealMatrix} that take no destination return matrices in temporary
+ * files, which {@link #close()} deletes; callers should close them once
+ * done, since they are otherwise only deleted when the virtual machine
+ * exits. A mapped matrix is not
+ * safe for use by several threads while any of them writes to it.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MappedMatrix implements RealMatrix, Closeable {
+    /**
+     * The side of the square tiles that multiplication and transposition
+     * work on, unless specified otherwise. Three tiles take 24 MB.
+     */
+    public static final int DEFAULT_TILE_SIZE = 1024;
+    /**
+     * The base two logarithm of the number of elements per mapped segment.
+     */
+    static final int SEGMENT_SHIFT = 27;
+    /**
+     * The number of elements element-wise operations copy to the heap at once.
+     */
+    private static final int BLOCK_ELEMENTS = 1 << 20;
+
+    private final int rows;
+    private final int cols;
+    private final FileChannel channel;
+    private final boolean writable;
+    private final int segmentShift;
+    private final MappedByteBuffer[] mappings;
+    private final DoubleBuffer[] segments;
+    private Path temporary;
+
+    /**
+     * Maps rows x cols elements of the file starting at the given position.
+     *
+     * @param segmentShift The base two logarithm of the number of elements
+     *                     per segment; smaller than {@link #SEGMENT_SHIFT}
+     *                     only to exercise segment boundaries in tests.
+     */
+    MappedMatrix(final FileChannel channel, final long position, final int rows, final int cols,
+                 final boolean writable, final int segmentShift) throws IOException {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Invalid number of rows : " + rows);
+        }
+        if (cols < 0) {
+            throw new IllegalArgumentException("Invalid number of columns : " + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.channel = channel;
+        this.writable = writable;
+        this.segmentShift = segmentShift;
+        long size = (long) rows * cols;
+        int count = (int) ((size + (1L << segmentShift) - 1) >>> segmentShift);
+        mappings = new MappedByteBuffer[count];
+        segments = new DoubleBuffer[count];
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        for (int s = 0; s < count; s++) {
+            long first = (long) s << segmentShift;
+            long length = Math.min(1L << segmentShift, size - first);
+            mappings[s] = channel.map(mode, position + first * Double.BYTES, length * Double.BYTES);
+            mappings[s].order(ByteOrder.LITTLE_ENDIAN);
+            segments[s] = mappings[s].asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Creates a zero matrix in the given file, replacing whatever it held.
+     * The file is sparse on file systems that support it, so no space is
+     * used until elements are written.
+     *
+     * @param file The file to store the matrix in.
+     * @param rows The number of rows.
+     * @param cols The number of columns.
+     * @return The matrix, open for reading and writing.
+     */
+    public static MappedMatrix create(final Path file, final int rows, final int cols) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new MappedMatrix(channel, 0, rows, cols, true, SEGMENT_SHIFT);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a matrix previously stored in the given file.
+     *
+     * @param file     The file holding exactly rows x cols elements.
+     * @param rows     The number of rows.
+     * @param cols     The number of columns.
+     * @param writable Whether the matrix may be modified.
+     * @return The matrix.
+     * @throws IllegalArgumentException If the size of the file does not
+     *                                  match the shape.
+     */
+    public static MappedMatrix open(final Path file, final int rows, final int cols, final boolean writable)
+            throws IOException, IllegalArgumentException {
+        FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long expected = (long) rows * cols * Double.BYTES;
+            if (channel.size() != expected) {
+                throw new IllegalArgumentException("Invalid file size. Expected : " + expected
+                        + " Found : " + channel.size());
+            }
+            return new MappedMatrix(channel, 0, rows, cols, writable, SEGMENT_SHIFT);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the given matrix into a new file.
+     *
+     * @param file   The file to store the copy in.
+     * @param matrix The matrix to copy.
+     * @return The copy, open for reading and writing.
+     */
+    public static MappedMatrix fromMatrix(final Path file, final Matrix matrix) throws IOException {
+        MappedMatrix mapped = create(file, matrix.getRows(), matrix.getCols());
+        mapped.writeBlock(0, 0, matrix);
+        return mapped;
+    }
+
+    /**
+     * Creates a matrix in a temporary file, deleted when the matrix is
+     * closed or at the latest when the virtual machine exits, for the
+     * results of the operations of {@link RealMatrix}.
+     */
+    private static MappedMatrix createTemporary(final int rows, final int cols) {
+        try {
+            Path file = Files.createTempFile("matrix", ".bin");
+            file.toFile().deleteOnExit();
+            MappedMatrix matrix = create(file, rows, cols);
+            matrix.temporary = file;
+            return matrix;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    public boolean isWritable() {
+        return writable;
+    }
+
+    private void throwIfInvalidElement(final int i, final int j) throws IndexOutOfBoundsException {
+        if (i < 0 || i >= rows) {
+            throw new IndexOutOfBoundsException("Invalid row index : " + i);
+        }
+        if (j < 0 || j >= cols) {
+            throw new IndexOutOfBoundsException("Invalid column index : " + j);
+        }
+    }
+
+    private void throwIfInvalidBlock(final int row, final int col, final int rows, final int cols)
+            throws IndexOutOfBoundsException {
+        if (row < 0 || col < 0 || rows < 0 || cols < 0
+                || (long) row + rows > this.rows || (long) col + cols > this.cols) {
+            throw new IndexOutOfBoundsException("Invalid block : " + rows + " x " + cols
+                    + " at (" + row + ", " + col + ")");
+        }
+    }
+
+    private void throwIfReadOnly() throws UnsupportedOperationException {
+        if (!writable) {
+            throw new UnsupportedOperationException("Cannot modify a read-only mapped matrix.");
+        }
+    }
+
+    private void throwIncompatible(final String operation) throws IllegalArgumentException {
+        throw new IllegalArgumentException("Given matrix is not compatible with the invoking matrix for "
+                + operation);
+    }
+
+    @Override
+    public double get(final int i, final int j) throws IndexOutOfBoundsException {
+        throwIfInvalidElement(i, j);
+        long position = (long) i * cols + j;
+        return segments[(int) (position >>> segmentShift)].get((int) (position & mask()));
+    }
+
+    public void set(final int i, final int j, final double value)
+            throws IndexOutOfBoundsException, UnsupportedOperationException {
+        throwIfReadOnly();
+        throwIfInvalidElement(i, j);
+        long position = (long) i * cols + j;
+        segments[(int) (position >>> segmentShift)].put((int) (position & mask()), value);
+    }
+
+    private long mask() {
+        return (1L << segmentShift) - 1;
+    }
+
+    /**
+     * Copies count consecutive elements, starting at the given position of
+     * the file, into the array, crossing segments as needed.
+     */
+    private void read(long position, final double[] array, int offset, int count) {
+        while (count > 0) {
+            DoubleBuffer segment = segments[(int) (position >>> segmentShift)].duplicate();
+            int index = (int) (position & mask());
+            int run = Math.min(count, segment.limit() - index);
+            segment.position(index);
+            segment.get(array, offset, run);
+            position += run;
+            offset += run;
+            count -= run;
+        }
+    }
+
+    /**
+     * Copies count consecutive elements of the array into the file, starting
+     * at the given position, crossing segments as needed.
+     */
+    private void write(long position, final double[] array, int offset, int count) {
+        while (count > 0) {
+            DoubleBuffer segment = segments[(int) (position >>> segmentShift)].duplicate();
+            int index = (int) (position & mask());
+            int run = Math.min(count, segment.limit() - index);
+            segment.position(index);
+            segment.put(array, offset, run);
+            position += run;
+            offset += run;
+            count -= run;
+        }
+    }
+
+    /**
+     * Copies a block of this matrix into a compact row-major array.
+     */
+    private void readBlock(final int row, final int col, final int rows, final int cols, final double[] block) {
+        for (int i = 0; i < rows; i++) {
+            read((long) (row + i) * this.cols + col, block, i * cols, cols);
+        }
+    }
+
+    /**
+     * Copies a block of this matrix into the heap.
+     *
+     * @param row  The first row of the block.
+     * @param col  The first column of the block.
+     * @param rows The number of rows in the block.
+     * @param cols The number of columns in the block.
+     * @return The block, as a new matrix.
+     */
+    public Matrix readBlock(final int row, final int col, final int rows, final int cols)
+            throws IndexOutOfBoundsException {
+        throwIfInvalidBlock(row, col, rows, cols);
+        Matrix block = new Matrix(rows, cols);
+        readBlock(row, col, rows, cols, block.getData());
+        return block;
+    }
+
+    /**
+     * Copies the given matrix into the block of this one starting at the
+     * given row and column.
+     *
+     * @param row   The first row of the block.
+     * @param col   The first column of the block.
+     * @param block The elements to write.
+     */
+    public void writeBlock(final int row, final int col, final Matrix block)
+            throws IndexOutOfBoundsException, UnsupportedOperationException {
+        throwIfReadOnly();
+        throwIfInvalidBlock(row, col, block.getRows(), block.getCols());
+        double[] data = block.getData();
+        double[] buffer = block.getColStride() == 1 ? null : new double[block.getCols()];
+        for (int i = 0; i < block.getRows(); i++) {
+            int offset = block.index(i, 0);
+            if (buffer != null) {
+                Kernels.copy(buffer.length, data, offset, block.getColStride(), buffer, 0, 1);
+            }
+            write((long) (row + i) * cols + col, buffer == null ? data : buffer,
+                    buffer == null ? offset : 0, block.getCols());
+        }
+    }
+
+    /**
+     * @return The given block of a matrix that is either mapped or dense.
+     */
+    private static Matrix block(final RealMatrix matrix, final int row, final int col,
+                                final int rows, final int cols) {
+        if (matrix instanceof MappedMatrix) {
+            return ((MappedMatrix) matrix).readBlock(row, col, rows, cols);
+        }
+        return ((Matrix) matrix).subMatrixView(row, col, rows, cols);
+    }
+
+    /**
+     * @return The given matrix if it is mapped, or else in dense form.
+     */
+    private static RealMatrix mappedOrDense(final RealMatrix matrix) {
+        return matrix instanceof MappedMatrix ? matrix : matrix.toDense();
+    }
+
+    /**
+     * The in-place element-wise operation applied to each block.
+     */
+    private interface BlockOperation {
+        void apply(Matrix block, int row, int col);
+    }
+
+    /**
+     * Streams this matrix through the heap in blocks of whole rows, or of
+     * parts of a row if the rows are very long, applies the operation to
+     * each block and writes it to the destination.
+     */
+    private void forEachBlock(final MappedMatrix destination, final BlockOperation operation) {
+        destination.throwIfReadOnly();
+        if (destination.rows != rows || destination.cols != cols) {
+            throw new IllegalArgumentException("Invalid destination. Expected : " + rows + " x " + cols
+                    + " Found : " + destination.rows + " x " + destination.cols);
+        }
+        int width = Math.max(1, Math.min(cols, BLOCK_ELEMENTS));
+        int height = Math.max(1, BLOCK_ELEMENTS / width);
+        for (int i = 0; i < rows; i += height) {
+            int h = Math.min(height, rows - i);
+            for (int j = 0; j < cols; j += width) {
+                int w = Math.min(width, cols - j);
+                Matrix block = readBlock(i, j, h, w);
+                operation.apply(block, i, j);
+                destination.writeBlock(i, j, block);
+            }
+        }
+    }
+
+    private MappedMatrix elementWise(final RealMatrix operand, final MappedMatrix destination,
+                                     final String operation, final BlockOperation inPlace) {
+        if (operand.getRows() != rows || operand.getCols() != cols) {
+            throwIncompatible(operation);
+        }
+        forEachBlock(destination, inPlace);
+        return destination;
+    }
+
+    /**
+     * Stores the sum of this matrix and the given one in the destination,
+     * which may be this matrix.
+     *
+     * @param addend      A mapped or in-memory matrix of the same shape.
+     * @param destination A writable mapped matrix of the same shape.
+     * @return The destination.
+     */
+    public MappedMatrix add(final RealMatrix addend, final MappedMatrix destination)
+            throws IllegalArgumentException {
+        RealMatrix source = mappedOrDense(addend);
+        return elementWise(source, destination, "addition", (block, i, j) ->
+                block.addInPlace(block(source, i, j, block.getRows(), block.getCols())));
+    }
+
+    /**
+     * Stores the difference of this matrix and the given one in the
+     * destination, which may be this matrix.
+     *
+     * @param subtrahend  A mapped or in-memory matrix of the same shape.
+     * @param destination A writable mapped matrix of the same shape.
+     * @return The destination.
+     */
+    public MappedMatrix subtract(final RealMatrix subtrahend, final MappedMatrix destination)
+            throws IllegalArgumentException {
+        RealMatrix source = mappedOrDense(subtrahend);
+        return elementWise(source, destination, "subtraction", (block, i, j) ->
+                block.subtractInPlace(block(source, i, j, block.getRows(), block.getCols())));
+    }
+
+    /**
+     * Stores the element-wise product of this matrix and the given one in
+     * the destination, which may be this matrix.
+     *
+     * @param matrix      A mapped or in-memory matrix of the same shape.
+     * @param destination A writable mapped matrix of the same shape.
+     * @return The destination.
+     */
+    public MappedMatrix elementMultiply(final RealMatrix matrix, final MappedMatrix destination)
+            throws IllegalArgumentException {
+        RealMatrix source = mappedOrDense(matrix);
+        return elementWise(source, destination, "element-wise multiplication", (block, i, j) ->
+                block.elementMultiplyInPlace(block(source, i, j, block.getRows(), block.getCols())));
+    }
+
+    /**
+     * Stores the element-wise quotient of this matrix and the given one in
+     * the destination, which may be this matrix.
+     *
+     * @param matrix      A mapped or in-memory matrix of the same shape.
+     * @param destination A writable mapped matrix of the same shape.
+     * @return The destination.
+     */
+    public MappedMatrix elementDivide(final RealMatrix matrix, final MappedMatrix destination)
+            throws IllegalArgumentException {
+        RealMatrix source = mappedOrDense(matrix);
+        return elementWise(source, destination, "element-wise division", (block, i, j) ->
+                block.elementDivideInPlace(block(source, i, j, block.getRows(), block.getCols())));
+    }
+
+    /**
+     * Stores this matrix multiplied by the given scalar in the destination,
+     * which may be this matrix.
+     *
+     * @param scale       The scalar.
+     * @param destination A writable mapped matrix of the same shape.
+     * @return The destination.
+     */
+    public MappedMatrix scale(final double scale, final MappedMatrix destination) {
+        forEachBlock(destination, (block, i, j) -> block.scaleInPlace(scale));
+        return destination;
+    }
+
+    /**
+     * Stores the transpose of this matrix in the destination, a tile at a
+     * time.
+     *
+     * @param destination A writable cols x rows mapped matrix in another file.
+     * @return The destination.
+     */
+    public MappedMatrix transpose(final MappedMatrix destination) throws IllegalArgumentException {
+        return transpose(destination, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Stores the transpose of this matrix in the destination, a tile at a
+     * time.
+     *
+     * @param destination A writable cols x rows mapped matrix in another file.
+     * @param tileSize    The side of the tiles.
+     * @return The destination.
+     */
+    public MappedMatrix transpose(final MappedMatrix destination, final int tileSize)
+            throws IllegalArgumentException {
+        throwIfInvalidTiling(destination, cols, rows, tileSize);
+        for (int i = 0; i < rows; i += tileSize) {
+            int h = Math.min(tileSize, rows - i);
+            for (int j = 0; j < cols; j += tileSize) {
+                int w = Math.min(tileSize, cols - j);
+                destination.writeBlock(j, i, readBlock(i, j, h, w).transpose());
+            }
+        }
+        return destination;
+    }
+
+    private void throwIfInvalidTiling(final MappedMatrix destination, final int rows, final int cols,
+                                      final int tileSize) throws IllegalArgumentException {
+        destination.throwIfReadOnly();
+        if (destination == this) {
+            throw new IllegalArgumentException("The destination must be another matrix.");
+        }
+        if (destination.rows != rows || destination.cols != cols) {
+            throw new IllegalArgumentException("Invalid destination. Expected : " + rows + " x " + cols
+                    + " Found : " + destination.rows + " x " + destination.cols);
+        }
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Invalid tile size : " + tileSize);
+        }
+    }
+
+    /**
+     * Stores the product of this matrix and the given one in the
+     * destination, a tile at a time.
+     *
+     * @param multiplicand A mapped or in-memory matrix with as many rows as
+     *                     this one has columns.
+     * @param destination  A writable mapped matrix in another file, with as
+     *                     many rows as this one and as many columns as the
+     *                     multiplicand.
+     * @return The destination.
+     */
+    public MappedMatrix multiply(final RealMatrix multiplicand, final MappedMatrix destination)
+            throws IllegalArgumentException {
+        return multiply(multiplicand, destination, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Stores the product of this matrix and the given one in the
+     * destination, a tile at a time. Each tile of the product is accumulated
+     * on the heap from the tiles of the row band of this matrix and the
+     * column band of the multiplicand that meet at it, and written once.
+     * Three tiles are held in memory, and the operands are each read
+     * once per tile of the product along the other dimension.
+     *
+     * @param multiplicand A mapped or in-memory matrix with as many rows as
+     *                     this one has columns.
+     * @param destination  A writable mapped matrix in another file, with as
+     *                     many rows as this one and as many columns as the
+     *                     multiplicand.
+     * @param tileSize     The side of the tiles.
+     * @return The destination.
+     */
+    public MappedMatrix multiply(final RealMatrix multiplicand, final MappedMatrix destination, final int tileSize)
+            throws IllegalArgumentException {
+        if (multiplicand.getRows() != cols) {
+            throwIncompatible("multiplication");
+        }
+        throwIfInvalidTiling(destination, rows, multiplicand.getCols(), tileSize);
+        if (multiplicand == destination) {
+            throw new IllegalArgumentException("The destination must be another matrix.");
+        }
+        RealMatrix source = mappedOrDense(multiplicand);
+        int p = multiplicand.getCols();
+        double[] left = new double[Math.min(tileSize, rows) * Math.min(tileSize, cols)];
+        double[] panel = new double[Gemm.PANEL_SIZE];
+        for (int i = 0; i < rows; i += tileSize) {
+            int h = Math.min(tileSize, rows - i);
+            for (int j = 0; j < p; j += tileSize) {
+                int w = Math.min(tileSize, p - j);
+                Matrix product = new Matrix(h, w);
+                for (int k = 0; k < cols; k += tileSize) {
+                    int d = Math.min(tileSize, cols - k);
+                    readBlock(i, k, h, d, left);
+                    Matrix right = block(source, k, j, d, w);
+                    Gemm.multiplyAdd(1, left, 0, d, 1,
+                            right.getData(), right.getOffset(), right.getRowStride(), right.getColStride(),
+                            1, product.getData(), 0, w, h, d, w, null, panel);
+                }
+                destination.writeBlock(i, j, product);
+            }
+        }
+        return destination;
+    }
+
+    /**
+     * @return The transpose, in a temporary file deleted on {@link #close()}.
+     */
+    @Override
+    public MappedMatrix transpose() {
+        return transpose(createTemporary(cols, rows));
+    }
+
+    /**
+     * @return The sum, in a temporary file deleted on {@link #close()}.
+     */
+    @Override
+    public MappedMatrix add(final RealMatrix addend) throws IllegalArgumentException {
+        if (addend.getRows() != rows || addend.getCols() != cols) {
+            throwIncompatible("addition");
+        }
+        return add(addend, createTemporary(rows, cols));
+    }
+
+    /**
+     * @return The product, in a temporary file deleted on {@link #close()}.
+     */
+    @Override
+    public MappedMatrix multiply(final RealMatrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand.getRows() != cols) {
+            throwIncompatible("multiplication");
+        }
+        return multiply(multiplicand, createTemporary(rows, multiplicand.getCols()));
+    }
+
+    /**
+     * Copies the whole matrix into the heap, which is only possible if it
+     * has fewer than 2<sup>31</sup> elements.
+     *
+     * @return This matrix in dense form.
+     */
+    @Override
+    public Matrix toDense() {
+        return readBlock(0, 0, rows, cols);
+    }
+
+    /**
+     * Writes every change made so far to the file.
+     */
+    public void flush() {
+        if (writable) {
+            for (MappedByteBuffer mapping : mappings) {
+                mapping.force();
+            }
+        }
+    }
+
+    /**
+     * @return The temporary file holding this matrix, or null if the caller
+     * chose the file.
+     */
+    Path getTemporaryFile() {
+        return temporary;
+    }
+
+    /**
+     * Writes every change made so far to the file and closes it, or deletes
+     * the file if it is temporary. The mapped elements remain accessible
+     * until the matrix is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        if (temporary == null) {
+            flush();
+            channel.close();
+            return;
+        }
+        channel.close();
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+            // Some platforms refuse to delete a file that is still mapped,
+            // in which case it is left to be deleted on exit
+        }
+    }
+}
@@ -3,52 +3,142 @@ package com.github.subh0m0y.matrix;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import static com.github.subh0m0y.matrix.Standards.EPSILON;
 
+/**
+ * A dense matrix of doubles.
+ * <p>
+ * The elements are stored in a single flat array. Element (i, j) lives at
+ * {@code offset + i * rowStride + j * colStride}. A matrix created by this
+ * class is row-major and compact: its column stride is one and its row
+ * stride equals its number of columns, so its elements form one unbroken
+ * run of the array and element-wise operations walk it in a single loop.
+ * <p>
+ * Views ({@link #subMatrixView(int, int, int, int)}, {@link #rowView(int)},
+ * {@link #columnView(int)} and {@link #transposeView()}) are matrices that
+ * share the array of the matrix they were taken from, with their own offset,
+ * shape and strides. Nothing is copied when a view is created, writes through
+ * a view are visible in its parent and vice versa, and a view can be passed
+ * to every operation that accepts a matrix. Use {@link #copy()} to obtain an
+ * independent, compact matrix.
+ * <p>
+ * Derived results such as the rank, determinant, inverse and decompositions
+ * are cached with each matrix and reused until the matrix is modified. Every
+ * mutating method, on the matrix or on any view sharing its elements,
+ * invalidates them. Writes made directly to an array wrapped by
+ * {@link #fromLinearArray(int, int, double[], boolean)} cannot be detected
+ * and must be followed by a call to {@link #markModified()}.
+ * <p>
+ * A matrix can be {@link #freeze() frozen}, after which it and every view
+ * sharing its elements reject all modification. A frozen matrix can be
+ * shared freely between threads once safely published: its derived results
+ * are computed at most once, however many threads ask for them at the same
+ * time, and read without locking after that.
+ */
 @SuppressWarnings("WeakerAccess")
-public class Matrix {
+public class Matrix implements RealMatrix, LinearOperator {
     public static final String FORMAT_STRING = "%+.2e";
-    private final int rows;
-    private final int cols;
-    private final double[][] data;
+    /**
+     * The number of leading and of trailing rows and columns that
+     * {@link #toString()} shows of a matrix too large to show whole.
+     */
+    public static final int PREVIEW_EDGE = 8;
+    /**
+     * The side of the square blocks that transposition copies or exchanges
+     * directly: 2 x 32 x 32 doubles take 16 KB, well within a level-1 cache.
+     */
+    private static final int TRANSPOSE_TILE = 32;
+    // Only a rectangular transposeInPlace changes the shape and strides
+    private int rows;
+    private int cols;
+    private final double[] data;
+    private final int offset;
+    private int rowStride;
+    private int colStride;
+    private final ModificationCounter modifications;
+    private volatile ResultCache cache;
 
     /**
-     * Creates a new matrix with the given data
+     * Creates a new matrix over the given region of an array, without copying it.
      *
-     * @param data         The raw data to encapsulate.
-     * @param makeDeepCopy Whether to copy every element or use the given reference.
+     * @param rows      The number of rows.
+     * @param cols      The number of columns.
+     * @param data      The array holding the elements.
+     * @param offset    The index of element (0, 0) in the array.
+     * @param rowStride The distance between elements (i, j) and (i + 1, j).
+     * @param colStride The distance between elements (i, j) and (i, j + 1).
      */
-    Matrix(final double[][] data, final boolean makeDeepCopy) {
-        this.rows = data.length;
-        this.cols = this.rows == 0 ? 0 : data[0].length;
-
-        if (makeDeepCopy) {
-            this.data = new double[rows][cols];
-            for (int i = 0; i < rows; i++) {
-                System.arraycopy(data[i], 0, this.data[i], 0, cols);
-            }
-        } else {
-            this.data = data;
-        }
+    Matrix(final int rows, final int cols, final double[] data, final int offset,
+           final int rowStride, final int colStride) {
+        this(rows, cols, data, offset, rowStride, colStride, new ModificationCounter());
     }
 
     /**
-     * Creates a new zero matrix of order rows x cols.
-     *
-     * @param rows The number of rows required.
-     * @param cols The number of columns required.
+     * Creates a view over the given region of an array, sharing the
+     * modification counter of the matrix the array belongs to.
      */
-    Matrix(final int rows, final int cols) {
+    private Matrix(final int rows, final int cols, final double[] data, final int offset,
+                   final int rowStride, final int colStride, final ModificationCounter modifications) {
         if (rows < 0) {
             throw new IllegalArgumentException("Invalid number of rows : " + rows);
         }
         if (cols < 0) {
             throw new IllegalArgumentException("Invalid number of columns : " + cols);
         }
+        if (rows > 0 && cols > 0 && (offset < 0 || rowStride < 0 || colStride < 0
+                || (long) offset + (long) (rows - 1) * rowStride + (long) (cols - 1) * colStride
+                >= data.length)) {
+            throw new IllegalArgumentException("Invalid region of " + data.length + " elements : offset "
+                    + offset + " strides " + rowStride + ", " + colStride + " for " + rows + " x " + cols);
+        }
         this.rows = rows;
         this.cols = cols;
-        data = new double[rows][cols];
+        this.data = data;
+        this.offset = offset;
+        this.rowStride = rowStride;
+        this.colStride = colStride;
+        this.modifications = modifications;
+    }
+
+    /**
+     * Creates a new matrix over the given region of a row-major array,
+     * without copying it.
+     *
+     * @param rows   The number of rows.
+     * @param cols   The number of columns.
+     * @param data   The array holding the elements.
+     * @param offset The index of the first element in the array.
+     * @param stride The distance between the first elements of consecutive rows.
+     */
+    Matrix(final int rows, final int cols, final double[] data, final int offset, final int stride) {
+        this(rows, cols, data, offset, stride, 1);
+    }
+
+    /**
+     * Creates a new matrix with the given row-major data.
+     *
+     * @param rows         The number of rows.
+     * @param cols         The number of columns.
+     * @param data         The raw data to encapsulate, of length rows * cols.
+     * @param makeDeepCopy Whether to copy every element or use the given reference.
+     */
+    Matrix(final int rows, final int cols, final double[] data, final boolean makeDeepCopy) {
+        this(rows, cols, makeDeepCopy ? Arrays.copyOf(data, data.length) : data, 0, cols);
+        checkLen(data, rows * cols);
+    }
+
+    /**
+     * Creates a new zero matrix of order rows x cols.
+     *
+     * @param rows The number of rows required.
+     * @param cols The number of columns required.
+     */
+    Matrix(final int rows, final int cols) {
+        this(rows, cols, new double[checkedSize(rows, cols)], 0, cols);
     }
 
     /**
@@ -58,16 +148,33 @@ public class Matrix {
      * @param matrix The matrix to copy.
      */
     public Matrix(final Matrix matrix) {
-        rows = matrix.rows;
-        cols = matrix.cols;
-        data = new double[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            System.arraycopy(matrix.data[i], 0, data[i], 0, cols);
+        this(matrix.rows, matrix.cols);
+        assign(matrix);
+    }
+
+    private static int checkedSize(final int rows, final int cols) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Invalid number of rows : " + rows);
+        }
+        if (cols < 0) {
+            throw new IllegalArgumentException("Invalid number of columns : " + cols);
         }
+        long size = (long) rows * cols;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many elements : " + rows + " x " + cols);
+        }
+        return (int) size;
     }
 
     public static Matrix fromArray(final double[][] data) {
-        return new Matrix(data, true);
+        int rows = data.length;
+        int cols = rows == 0 ? 0 : data[0].length;
+        Matrix matrix = new Matrix(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            matrix.checkLen(data[i], cols);
+            System.arraycopy(data[i], 0, matrix.data, i * cols, cols);
+        }
+        return matrix;
     }
 
     public static Matrix zero(final int rows, final int cols) {
@@ -75,121 +182,334 @@ public class Matrix {
     }
 
     public static Matrix identity(final int order) {
-        double[][] data = new double[order][order];
+        Matrix matrix = new Matrix(order, order);
         for (int i = 0; i < order; i++) {
-            data[i][i] = 1;
+            matrix.data[i * order + i] = 1;
         }
-        return new Matrix(data, false);
+        return matrix;
     }
 
     public static Matrix fromLinearArray(final int rows, final int cols,
                                          final double... elements) {
-        if (elements.length != rows * cols) {
+        return fromLinearArray(rows, cols, elements, true);
+    }
+
+    /**
+     * Creates a matrix from the given row-major elements.
+     *
+     * @param rows         The number of rows.
+     * @param cols         The number of columns.
+     * @param elements     The rows * cols elements, row after row.
+     * @param makeDeepCopy Whether to copy the elements or wrap the given array,
+     *                     in which case changes to either are visible in the other.
+     * @return The matrix.
+     */
+    public static Matrix fromLinearArray(final int rows, final int cols,
+                                         final double[] elements, final boolean makeDeepCopy) {
+        if (elements.length != checkedSize(rows, cols)) {
             throw new IllegalArgumentException("Invalid number of elements: " + elements.length
                     + " Expected: " + rows * cols);
         }
-        double[][] data = new double[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            System.arraycopy(elements, i * cols, data[i], 0, cols);
-        }
-        return new Matrix(data, false);
+        return new Matrix(rows, cols, elements, makeDeepCopy);
     }
 
     public static Matrix random(final int rows, final int cols) {
         Matrix matrix = new Matrix(rows, cols);
         Random random = new Random();
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                matrix.data[i][j] = random.nextDouble();
-            }
+        for (int i = 0; i < matrix.data.length; i++) {
+            matrix.data[i] = random.nextDouble();
         }
         return matrix;
     }
 
+    @Override
     public int getRows() {
         return rows;
     }
 
+    @Override
     public int getCols() {
         return cols;
     }
 
+    /**
+     * @return The backing array, shared with every view of this matrix.
+     * Writes to it must be followed by {@link #markModified()}.
+     */
+    double[] getData() {
+        return data;
+    }
+
+    /**
+     * @return The index of element (0, 0) in the backing array.
+     */
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return The distance between elements (i, j) and (i + 1, j) in the backing array.
+     */
+    int getRowStride() {
+        return rowStride;
+    }
+
+    /**
+     * @return The distance between elements (i, j) and (i, j + 1) in the backing array.
+     */
+    int getColStride() {
+        return colStride;
+    }
+
+    /**
+     * @return The index of element (i, j) in the backing array.
+     */
+    int index(final int i, final int j) {
+        return offset + i * rowStride + j * colStride;
+    }
+
+    /**
+     * @return Whether the elements occupy one unbroken run of the backing
+     * array, row after row.
+     */
+    boolean isCompact() {
+        return colStride == 1 && (rowStride == cols || rows <= 1);
+    }
+
+    /**
+     * @return Whether the elements occupy one unbroken run of the backing
+     * array, column after column, as in a transposed view of a compact matrix.
+     */
+    boolean isCompactTransposed() {
+        return rowStride == 1 && (colStride == rows || cols <= 1);
+    }
+
+    /**
+     * @return Whether the elements occupy one unbroken run of the backing
+     * array, in either order.
+     */
+    private boolean isContiguous() {
+        return isCompact() || isCompactTransposed();
+    }
+
+    /**
+     * @return Whether this matrix and the given one, of the same shape, can
+     * be walked together as single unit-stride runs that visit their elements
+     * in the same order.
+     */
+    private boolean isCompactWith(final Matrix matrix) {
+        return isCompact() && matrix.isCompact()
+                || isCompactTransposed() && matrix.isCompactTransposed();
+    }
+
+    @Override
     public double get(final int i, final int j) throws IndexOutOfBoundsException {
         if (i < 0 || i >= rows) {
             throw new IndexOutOfBoundsException("Invalid row index : " + i);
         }
         if (j < 0 || j >= cols) {
-            throw new IndexOutOfBoundsException("Invalid column index : " + i);
+            throw new IndexOutOfBoundsException("Invalid column index : " + j);
+        }
+        return data[index(i, j)];
+    }
+
+    public void set(final int i, final int j, final double value) throws IndexOutOfBoundsException {
+        throwIfFrozen();
+        if (i < 0 || i >= rows) {
+            throw new IndexOutOfBoundsException("Invalid row index : " + i);
+        }
+        if (j < 0 || j >= cols) {
+            throw new IndexOutOfBoundsException("Invalid column index : " + j);
         }
-        return data[i][j];
+        data[index(i, j)] = value;
+        markModified();
     }
 
     public double[] getRow(final int row) throws IllegalArgumentException {
-        throwIfInvalidIndex(row, rows, "row");
-        return Arrays.copyOf(data[row], cols);
+        throwIfInvalidElementIndex(row, rows, "row");
+        double[] elements = new double[cols];
+        Kernels.copy(cols, data, index(row, 0), colStride, elements, 0, 1);
+        return elements;
     }
 
     public double[] getColumn(final int column) throws IllegalArgumentException {
-        throwIfInvalidIndex(column, cols, "column");
+        throwIfInvalidElementIndex(column, cols, "column");
         double[] col = new double[rows];
-        for (int i = 0; i < rows; i++) {
-            col[i] = data[i][column];
-        }
+        Kernels.copy(rows, data, index(0, column), rowStride, col, 0, 1);
         return col;
     }
 
+    /**
+     * @return A new array holding the elements of this matrix row after row,
+     * as accepted by {@link #fromLinearArray(int, int, double...)}.
+     */
+    public double[] toLinearArray() {
+        double[] elements = new double[rows * cols];
+        new Matrix(rows, cols, elements, false).assign(this);
+        return elements;
+    }
+
+    /**
+     * Returns a view of a block of this matrix. The view shares the
+     * elements of this matrix: nothing is copied, and changes made through
+     * either are visible in the other.
+     *
+     * @param row  The row of this matrix at which the block starts.
+     * @param col  The column of this matrix at which the block starts.
+     * @param rows The number of rows in the block.
+     * @param cols The number of columns in the block.
+     * @return The view.
+     * @throws IllegalArgumentException If the block does not lie within this matrix.
+     */
+    public Matrix subMatrixView(final int row, final int col, final int rows, final int cols)
+            throws IllegalArgumentException {
+        if (row < 0 || rows < 0 || row + rows > this.rows
+                || col < 0 || cols < 0 || col + cols > this.cols) {
+            throw new IllegalArgumentException("Invalid block : " + rows + " x " + cols
+                    + " at (" + row + ", " + col + ")");
+        }
+        int start = rows == 0 || cols == 0 ? offset : index(row, col);
+        return new Matrix(rows, cols, data, start, rowStride, colStride, modifications);
+    }
+
+    /**
+     * Returns a 1 x cols view of the given row of this matrix.
+     *
+     * @param row The index of the row.
+     * @return The view.
+     * @see #subMatrixView(int, int, int, int)
+     */
+    public Matrix rowView(final int row) throws IllegalArgumentException {
+        throwIfInvalidElementIndex(row, rows, "row");
+        return subMatrixView(row, 0, 1, cols);
+    }
+
+    /**
+     * Returns a rows x 1 view of the given column of this matrix.
+     *
+     * @param column The index of the column.
+     * @return The view.
+     * @see #subMatrixView(int, int, int, int)
+     */
+    public Matrix columnView(final int column) throws IllegalArgumentException {
+        throwIfInvalidElementIndex(column, cols, "column");
+        return subMatrixView(0, column, rows, 1);
+    }
+
+    /**
+     * Returns a cols x rows view of this matrix in which element (j, i) is
+     * element (i, j) of this matrix. Nothing is copied; the strides are
+     * simply exchanged.
+     *
+     * @return The view.
+     * @see #transpose()
+     */
+    public Matrix transposeView() {
+        return new Matrix(cols, rows, data, offset, colStride, rowStride, modifications);
+    }
+
+    /**
+     * Starts a lazily evaluated expression with this matrix, so that a chain
+     * of operations can be evaluated in a single pass without temporaries.
+     *
+     * @return The expression.
+     * @see MatrixExpression
+     */
+    public MatrixExpression lazy() {
+        return MatrixExpression.of(this);
+    }
+
+    /**
+     * @return This matrix itself.
+     */
+    @Override
+    public Matrix toDense() {
+        return this;
+    }
+
+    /**
+     * Returns a compact copy of this matrix (or view), independent of the original.
+     *
+     * @return The copy.
+     */
+    public Matrix copy() {
+        return new Matrix(this);
+    }
+
+    /**
+     * Copies the elements of the given matrix, of the same shape, into this one.
+     */
+    void assign(final Matrix matrix) {
+        throwIfFrozen();
+        if (isCompactWith(matrix)) {
+            System.arraycopy(matrix.data, matrix.offset, data, offset, rows * cols);
+        } else {
+            for (int i = 0; i < rows; i++) {
+                Kernels.copy(cols, matrix.data, matrix.index(i, 0), matrix.colStride,
+                        data, index(i, 0), colStride);
+            }
+        }
+        markModified();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Matrix)) return false;
         Matrix matrix = (Matrix) o;
-        return rows == matrix.rows &&
-                cols == matrix.cols &&
-                Arrays.deepEquals(data, matrix.data);
+        if (rows != matrix.rows || cols != matrix.cols) {
+            return false;
+        }
+        boolean compact = isCompactWith(matrix);
+        int runs = compact ? 1 : rows;
+        int length = compact ? rows * cols : cols;
+        int inc = compact ? 1 : colStride;
+        int matrixInc = compact ? 1 : matrix.colStride;
+        for (int r = 0; r < runs; r++) {
+            int a = offset + r * rowStride;
+            int b = matrix.offset + r * matrix.rowStride;
+            for (int k = 0; k < length; k++, a += inc, b += matrixInc) {
+                if (Double.doubleToLongBits(data[a]) != Double.doubleToLongBits(matrix.data[b])) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
         int result = Objects.hash(rows, cols);
-        result = 31 * result + Arrays.deepHashCode(data);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0, k = index(i, 0); j < cols; j++, k += colStride) {
+                long bits = Double.doubleToLongBits(data[k]);
+                result = 31 * result + (int) (bits ^ (bits >>> 32));
+            }
+        }
         return result;
     }
 
+    /**
+     * Formats the matrix with {@link #FORMAT_STRING}, one row per line.
+     * Only the first and last {@link #PREVIEW_EDGE} rows and columns of a
+     * larger matrix are shown, with ellipses for the rest and its shape on
+     * a last line, so that the text stays small whatever the size. Use
+     * {@link TextFormat} to write out every element.
+     */
     @Override
     public String toString() {
-        if (rows == 0 || cols == 0) {
-            return "";
-        }
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < rows; i++) {
-            if (i == 0) {
-                builder.append(" /");
-            } else if (i == rows - 1) {
-                builder.append(" \\");
-            } else {
-                builder.append("| ");
-            }
-            builder.append(String.format(FORMAT_STRING, data[i][0]));
-            for (int j = 1; j < cols; j++) {
-                builder.append(", ");
-                builder.append(String.format(FORMAT_STRING, data[i][j]));
-            }
-            if (i == 0) {
-                builder.append("\\");
-            } else if (i == rows - 1) {
-                builder.append("/");
-            } else {
-                builder.append(" |");
-            }
-            builder.append("\n");
-        }
-        return builder.toString();
+        return TextFormat.preview(rows, cols, (builder, i, j) ->
+                TextFormat.appendScientific(builder, data[index(i, j)]));
     }
 
     public boolean isZero() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (data[i][j] != 0) {
+        boolean contiguous = isContiguous();
+        int runs = contiguous ? 1 : rows;
+        int length = contiguous ? rows * cols : cols;
+        int inc = contiguous ? 1 : colStride;
+        for (int r = 0; r < runs; r++) {
+            for (int k = 0, a = offset + r * rowStride; k < length; k++, a += inc) {
+                if (data[a] != 0) {
                     return false;
                 }
             }
@@ -206,8 +526,8 @@ public class Matrix {
             return false;
         }
         for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < i; j++) {
-                if (Math.abs(data[i][j]) > EPSILON) {
+            for (int j = 0, k = index(i, 0); j < i; j++, k += colStride) {
+                if (Math.abs(data[k]) > EPSILON) {
                     return false;
                 }
             }
@@ -220,8 +540,8 @@ public class Matrix {
             return false;
         }
         for (int i = 0; i < rows; i++) {
-            for (int j = i + 1; j < cols; j++) {
-                if (Math.abs(data[i][j]) > EPSILON) {
+            for (int j = i + 1, k = index(i, j); j < cols; j++, k += colStride) {
+                if (Math.abs(data[k]) > EPSILON) {
                     return false;
                 }
             }
@@ -238,56 +558,274 @@ public class Matrix {
             return false;
         }
         for (int i = 0; i < rows; i++) {
-            if (Math.abs(data[i][i] - 1) > EPSILON) {
+            if (Math.abs(data[index(i, i)] - 1) > EPSILON) {
                 return false;
             }
         }
         return true;
     }
 
-    public void transposeInPlace() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < i; j++) {
-                double temp = data[i][j];
-                data[i][j] = data[j][i];
-                data[j][i] = temp;
+    /**
+     * Transposes this matrix in place.
+     * <p>
+     * A square matrix is transposed by exchanging its elements across the
+     * diagonal, a tile at a time, whatever its layout. A rectangular matrix
+     * changes shape, which is only possible if its elements occupy one
+     * unbroken run of the array in row-major order; they are then permuted
+     * within that run by following the cycles of the permutation, and the
+     * matrix stays compact. Views taken earlier keep their own shape and
+     * see the permuted elements.
+     *
+     * @throws UnsupportedOperationException If the matrix is rectangular and
+     *                                       not compact, or frozen.
+     */
+    public void transposeInPlace() throws UnsupportedOperationException {
+        throwIfFrozen();
+        if (isSquare()) {
+            for (int ii = 0; ii < rows; ii += TRANSPOSE_TILE) {
+                int iEnd = Math.min(rows, ii + TRANSPOSE_TILE);
+                for (int jj = 0; jj <= ii; jj += TRANSPOSE_TILE) {
+                    int jEnd = Math.min(cols, jj + TRANSPOSE_TILE);
+                    for (int i = ii; i < iEnd; i++) {
+                        for (int j = jj, a = index(i, jj), b = index(jj, i); j < Math.min(i, jEnd);
+                             j++, a += colStride, b += rowStride) {
+                            double temp = data[a];
+                            data[a] = data[b];
+                            data[b] = temp;
+                        }
+                    }
+                }
+            }
+        } else if (isCompact()) {
+            permuteToTranspose(data, offset, rows, cols);
+            int temp = rows;
+            rows = cols;
+            cols = temp;
+            rowStride = cols;
+            colStride = 1;
+        } else {
+            throw new UnsupportedOperationException("Cannot transpose a rectangular matrix in place "
+                    + "unless it is compact.");
+        }
+        markModified();
+    }
+
+    /**
+     * Rearranges the rows x cols row-major run of the array starting at
+     * offset into its cols x rows transpose. The element at position p moves
+     * to p * rows mod (rows * cols - 1), except for the first and the last;
+     * each cycle of that permutation is walked once, from its smallest
+     * position, which a bit set records as visited.
+     */
+    private static void permuteToTranspose(final double[] data, final int offset, final int rows, final int cols) {
+        int size = rows * cols;
+        if (rows <= 1 || cols <= 1) {
+            return;
+        }
+        long modulus = size - 1;
+        long[] visited = new long[(size + 63) >>> 6];
+        for (int start = 1; start < size - 1; start++) {
+            if ((visited[start >>> 6] & 1L << start) != 0) {
+                continue;
+            }
+            // Pull each element into its place from the position it comes from
+            double first = data[offset + start];
+            int position = start;
+            while (true) {
+                visited[position >>> 6] |= 1L << position;
+                int source = (int) (position * (long) cols % modulus);
+                if (source == start) {
+                    data[offset + position] = first;
+                    break;
+                }
+                data[offset + position] = data[offset + source];
+                position = source;
             }
         }
     }
 
+    @Override
     public Matrix transpose() {
-        Matrix transpose = new Matrix(rows, cols);
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                transpose.data[j][i] = data[i][j];
+        return transpose(new Matrix(cols, rows));
+    }
+
+    /**
+     * Stores the transpose of this matrix in the given one.
+     *
+     * @param destination A cols x rows matrix, which may be this matrix
+     *                    itself if it is square.
+     * @return The destination.
+     */
+    public Matrix transpose(final Matrix destination) throws IllegalArgumentException {
+        throwIfNotShaped(destination, cols, rows);
+        if (destination.isSameRegion(this)) {
+            transposeInPlace();
+        } else if (destination.overlaps(this)) {
+            destination.assign(transpose());
+        } else {
+            destination.throwIfFrozen();
+            transpose(data, offset, rowStride, colStride,
+                    destination.data, destination.offset, destination.rowStride, destination.colStride,
+                    rows, cols);
+            destination.markModified();
+        }
+        return destination;
+    }
+
+    /**
+     * Copies the transpose of the rows x cols source into the destination.
+     * <p>
+     * The larger dimension is halved until the block fits in a
+     * {@link #TRANSPOSE_TILE} square, so that at every level of the cache
+     * hierarchy some level of the recursion has its source and destination
+     * blocks resident together, whatever the cache sizes are. A tile is
+     * then copied straight across, reading along rows of the source.
+     */
+    private static void transpose(final double[] source, final int sourceOffset,
+                                  final int sourceRowStride, final int sourceColStride,
+                                  final double[] destination, final int destinationOffset,
+                                  final int destinationRowStride, final int destinationColStride,
+                                  final int rows, final int cols) {
+        if (rows > TRANSPOSE_TILE && rows >= cols) {
+            int half = rows / 2;
+            transpose(source, sourceOffset, sourceRowStride, sourceColStride,
+                    destination, destinationOffset, destinationRowStride, destinationColStride, half, cols);
+            transpose(source, sourceOffset + half * sourceRowStride, sourceRowStride, sourceColStride,
+                    destination, destinationOffset + half * destinationColStride,
+                    destinationRowStride, destinationColStride, rows - half, cols);
+        } else if (cols > TRANSPOSE_TILE) {
+            int half = cols / 2;
+            transpose(source, sourceOffset, sourceRowStride, sourceColStride,
+                    destination, destinationOffset, destinationRowStride, destinationColStride, rows, half);
+            transpose(source, sourceOffset + half * sourceColStride, sourceRowStride, sourceColStride,
+                    destination, destinationOffset + half * destinationRowStride,
+                    destinationRowStride, destinationColStride, rows, cols - half);
+        } else {
+            for (int i = 0; i < rows; i++) {
+                Kernels.copy(cols, source, sourceOffset + i * sourceRowStride, sourceColStride,
+                        destination, destinationOffset + i * destinationColStride, destinationRowStride);
             }
         }
-        return transpose;
     }
 
     public void zeroFill() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (Math.abs(data[i][j]) < EPSILON) {
-                    data[i][j] = 0;
+        throwIfFrozen();
+        boolean contiguous = isContiguous();
+        int runs = contiguous ? 1 : rows;
+        int length = contiguous ? rows * cols : cols;
+        int inc = contiguous ? 1 : colStride;
+        for (int r = 0; r < runs; r++) {
+            for (int k = 0, a = offset + r * rowStride; k < length; k++, a += inc) {
+                if (Math.abs(data[a]) < EPSILON) {
+                    data[a] = 0;
                 }
             }
         }
+        markModified();
     }
 
 
     public void scaleInPlace(final double scale) {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] *= scale;
+        throwIfFrozen();
+        if (isContiguous()) {
+            Kernels.scale(rows * cols, scale, data, offset, 1);
+        } else {
+            for (int i = 0; i < rows; i++) {
+                Kernels.scale(cols, scale, data, index(i, 0), colStride);
             }
         }
+        markModified();
     }
 
     public Matrix scale(final double scale) {
-        Matrix temp = new Matrix(this);
-        temp.scaleInPlace(scale);
-        return temp;
+        return scale(scale, new Matrix(rows, cols));
+    }
+
+    /**
+     * Stores this matrix multiplied by the given scalar in the given matrix.
+     *
+     * @param scale       The scalar.
+     * @param destination A matrix of the same shape, which may be this one.
+     * @return The destination.
+     */
+    public Matrix scale(final double scale, final Matrix destination) throws IllegalArgumentException {
+        throwIfNotShaped(destination, rows, cols);
+        if (!destination.isSameRegion(this)) {
+            destination.assign(destination.overlaps(this) ? copy() : this);
+        }
+        destination.scaleInPlace(scale);
+        return destination;
+    }
+
+    /**
+     * @return Whether this matrix occupies exactly the same elements of the
+     * same array as the given one, in the same layout.
+     */
+    boolean isSameRegion(final Matrix matrix) {
+        return data == matrix.data && offset == matrix.offset
+                && rowStride == matrix.rowStride && colStride == matrix.colStride;
+    }
+
+    /**
+     * @return Whether this matrix may share elements with the given one.
+     * Matrices backed by the same array are assumed to.
+     */
+    private boolean overlaps(final Matrix matrix) {
+        return data == matrix.data;
+    }
+
+    /**
+     * @return The given operand, or a copy of it if it shares the array of
+     * this matrix in another region or layout, so that updating this matrix
+     * element by element cannot change elements of the operand still to be
+     * read. The same region is safe, as every element is read just before
+     * it is written.
+     */
+    private Matrix detached(final Matrix operand) {
+        return overlaps(operand) && !isSameRegion(operand) ? operand.copy() : operand;
+    }
+
+    private void throwIfNotShaped(final Matrix destination, final int rows, final int cols)
+            throws IllegalArgumentException {
+        if (destination.rows != rows || destination.cols != cols) {
+            throw new IllegalArgumentException("Invalid destination. Expected : " + rows + " x " + cols
+                    + " Found : " + destination.rows + " x " + destination.cols);
+        }
+    }
+
+    /**
+     * Stores this matrix combined element by element with the operand in
+     * the destination. Writing straight into the destination needs it to be
+     * either this matrix or apart from both; when it is the operand, the
+     * reversed operation (if there is one) is applied to it instead, and
+     * otherwise the result is computed in a temporary matrix. An operand
+     * that is read while the destination is written, and shares its array
+     * in another layout, such as a transposed view, is copied first.
+     *
+     * @param inPlace  Combines its first argument with its second, in place.
+     * @param reversed As inPlace, with the roles of the two arguments
+     *                 exchanged, or null if there is no such operation.
+     */
+    private Matrix elementWise(final Matrix operand, final Matrix destination, final String operation,
+                               final BiConsumer<Matrix, Matrix> inPlace,
+                               final BiConsumer<Matrix, Matrix> reversed) throws IllegalArgumentException {
+        if (operand.rows != rows || operand.cols != cols) {
+            throwIncompatible(operation);
+        }
+        throwIfNotShaped(destination, rows, cols);
+        if (destination.isSameRegion(this)) {
+            inPlace.accept(destination, destination.detached(operand));
+        } else if (reversed != null && destination.isSameRegion(operand)) {
+            reversed.accept(destination, destination.detached(this));
+        } else if (destination.overlaps(this) || destination.overlaps(operand)) {
+            Matrix result = copy();
+            inPlace.accept(result, operand);
+            destination.assign(result);
+        } else {
+            destination.assign(this);
+            inPlace.accept(destination, operand);
+        }
+        return destination;
     }
 
     private void throwIncompatible(String operation) throws IllegalArgumentException {
@@ -296,123 +834,665 @@ public class Matrix {
     }
 
     public void addInPlace(final Matrix addend) throws IllegalArgumentException {
+        throwIfFrozen();
         if (addend.rows != rows || addend.cols != cols) {
             throwIncompatible("addition");
         }
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] += addend.data[i][j];
+        Matrix source = detached(addend);
+        if (isCompactWith(source)) {
+            Kernels.add(rows * cols, source.data, source.offset, 1, data, offset, 1);
+        } else {
+            for (int i = 0; i < rows; i++) {
+                Kernels.add(cols, source.data, source.index(i, 0), source.colStride, data, index(i, 0), colStride);
             }
         }
+        markModified();
     }
 
     public Matrix add(final Matrix addend) throws IllegalArgumentException {
-        Matrix temp = new Matrix(this);
-        temp.addInPlace(addend);
-        return temp;
+        return add(addend, new Matrix(rows, cols));
     }
 
-    public void subtractInPlace(final Matrix addend) throws IllegalArgumentException {
-        if (addend.rows != rows || addend.cols != cols) {
-            throwIncompatible("subtraction");
+    /**
+     * Stores the sum of this matrix and the given one in the destination,
+     * without allocating.
+     *
+     * @param addend      The matrix to add.
+     * @param destination A matrix of the same shape, which may be either operand.
+     * @return The destination.
+     */
+    public Matrix add(final Matrix addend, final Matrix destination) throws IllegalArgumentException {
+        return elementWise(addend, destination, "addition", Matrix::addInPlace, Matrix::addInPlace);
+    }
+
+    /**
+     * Adds a matrix in any representation to this one. The sum is always
+     * dense.
+     *
+     * @param addend The matrix to add.
+     * @return The sum.
+     */
+    @Override
+    public Matrix add(final RealMatrix addend) throws IllegalArgumentException {
+        if (addend instanceof SparseMatrix) {
+            return ((SparseMatrix) addend).add(this);
         }
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] -= addend.data[i][j];
+        return add(addend.toDense());
+    }
+
+    public void subtractInPlace(final Matrix addend) throws IllegalArgumentException {
+        throwIfFrozen();
+        if (addend.rows != rows || addend.cols != cols) {
+            throwIncompatible("subtraction");
+        }
+        Matrix source = detached(addend);
+        if (isCompactWith(source)) {
+            Kernels.subtract(rows * cols, source.data, source.offset, 1, data, offset, 1);
+        } else {
+            for (int i = 0; i < rows; i++) {
+                Kernels.subtract(cols, source.data, source.index(i, 0), source.colStride, data, index(i, 0), colStride);
             }
         }
+        markModified();
     }
 
     public Matrix subtract(final Matrix addend) throws IllegalArgumentException {
-        Matrix temp = new Matrix(this);
-        temp.subtractInPlace(addend);
-        return temp;
+        return subtract(addend, new Matrix(rows, cols));
+    }
+
+    /**
+     * Stores the difference of this matrix and the given one in the
+     * destination, without allocating.
+     *
+     * @param subtrahend  The matrix to subtract.
+     * @param destination A matrix of the same shape, which may be either operand.
+     * @return The destination.
+     */
+    public Matrix subtract(final Matrix subtrahend, final Matrix destination) throws IllegalArgumentException {
+        return elementWise(subtrahend, destination, "subtraction", Matrix::subtractInPlace,
+                (difference, minuend) -> {
+                    // -b + a is exactly a - b
+                    difference.scaleInPlace(-1);
+                    difference.addInPlace(minuend);
+                });
     }
 
     public void multiplyInPlace(final Matrix multiplicand) throws IllegalArgumentException {
-        if (multiplicand.rows != rows || multiplicand.cols != cols) {
-            throwIncompatible("addition");
+        multiplyInPlace(multiplicand, (ForkJoinPool) null);
+    }
+
+    /**
+     * Multiplies this matrix by the given one in place, spreading the
+     * work over the given pool. The result is bit-identical to that of
+     * {@link #multiplyInPlace(Matrix)}.
+     *
+     * @param multiplicand The square matrix to multiply by.
+     * @param pool         The pool to run on, or null to stay on the calling thread.
+     */
+    public void multiplyInPlace(final Matrix multiplicand, final ForkJoinPool pool)
+            throws IllegalArgumentException {
+        throwIfFrozen();
+        if (multiplicand.rows != cols || multiplicand.cols != cols) {
+            throwIncompatible("multiplication");
         }
-        double[][] product = new double[rows][cols];
-        storeProduct(multiplicand, product);
-        for (int i = 0; i < rows; i++) {
-            System.arraycopy(product[i], 0, data[i], 0, cols);
+        Matrix product = new Matrix(rows, cols);
+        storeProduct(multiplicand, product, pool, null);
+        assign(product);
+    }
+
+    /**
+     * Multiplies this matrix by the given one in place, computing the
+     * product in the given workspace instead of a new matrix.
+     *
+     * @param multiplicand The square matrix to multiply by.
+     * @param workspace    The workspace to compute the product in.
+     */
+    public void multiplyInPlace(final Matrix multiplicand, final Workspace workspace)
+            throws IllegalArgumentException {
+        throwIfFrozen();
+        if (multiplicand.rows != cols || multiplicand.cols != cols) {
+            throwIncompatible("multiplication");
         }
+        Matrix product = workspace.matrix(0, rows, cols);
+        storeProduct(multiplicand, product, null, workspace.panel());
+        assign(product);
     }
 
     public Matrix multiply(final Matrix multiplicand) throws IllegalArgumentException {
+        return multiply(multiplicand, (ForkJoinPool) null);
+    }
+
+    /**
+     * Stores the product of this matrix and the given one in the
+     * destination. Large products need a buffer to pack their operands
+     * into, which is allocated unless a workspace is given.
+     *
+     * @param multiplicand The matrix to multiply by.
+     * @param destination  A matrix with as many rows as this one and as many
+     *                     columns as the multiplicand. If it shares elements
+     *                     with either operand, the product is computed in a
+     *                     temporary matrix first.
+     * @return The destination.
+     * @see #multiply(Matrix, Matrix, Workspace)
+     */
+    public Matrix multiply(final Matrix multiplicand, final Matrix destination) throws IllegalArgumentException {
+        return multiply(multiplicand, destination, null);
+    }
+
+    /**
+     * Stores the product of this matrix and the given one in the
+     * destination, packing operands in the given workspace, so that
+     * nothing is allocated.
+     *
+     * @param multiplicand The matrix to multiply by.
+     * @param destination  A matrix with as many rows as this one and as many
+     *                     columns as the multiplicand. If it shares elements
+     *                     with either operand, the product is computed in a
+     *                     temporary matrix first.
+     * @param workspace    The workspace, or null to allocate as needed.
+     * @return The destination.
+     */
+    public Matrix multiply(final Matrix multiplicand, final Matrix destination, final Workspace workspace)
+            throws IllegalArgumentException {
         if (multiplicand.rows != cols) {
             throwIncompatible("multiplication");
         }
-        double[][] product = new double[rows][cols];
-        storeProduct(multiplicand, product);
-        return new Matrix(product, false);
+        throwIfNotShaped(destination, rows, multiplicand.cols);
+        if (destination.colStride != 1 || destination.overlaps(this) || destination.overlaps(multiplicand)) {
+            destination.assign(multiply(multiplicand));
+        } else {
+            destination.throwIfFrozen();
+            storeProduct(multiplicand, destination, null, workspace == null ? null : workspace.panel());
+            destination.markModified();
+        }
+        return destination;
     }
 
-    private void storeProduct(Matrix multiplicand, double[][] product) {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < multiplicand.cols; j++) {
-                product[i][j] = 0;
-                for (int k = 0; k < cols; k++) {
-                    product[i][j] += data[i][k] * multiplicand.data[k][j];
-                }
-            }
+    /**
+     * Multiplies this matrix by one in any representation. A sparse or
+     * structured multiplicand is multiplied without being expanded; the
+     * product is always dense.
+     *
+     * @param multiplicand The matrix to multiply by.
+     * @return The product.
+     */
+    @Override
+    public Matrix multiply(final RealMatrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand instanceof SparseMatrix) {
+            return ((SparseMatrix) multiplicand).leftMultiply(this);
+        }
+        if (multiplicand instanceof StructuredMatrix) {
+            return ((StructuredMatrix) multiplicand).leftMultiply(this);
+        }
+        return multiply(multiplicand.toDense());
+    }
+
+    /**
+     * Multiplies this matrix by the given one on the common pool.
+     *
+     * @param multiplicand The matrix to multiply by.
+     * @return The product.
+     * @see #multiply(Matrix, ForkJoinPool)
+     */
+    public Matrix multiplyParallel(final Matrix multiplicand) throws IllegalArgumentException {
+        return multiply(multiplicand, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Multiplies this matrix by the given one, splitting the rows of the
+     * product into bands that are computed in parallel on the given pool.
+     * Products too small to benefit are computed on the calling thread.
+     * The result is bit-identical to that of {@link #multiply(Matrix)}.
+     *
+     * @param multiplicand The matrix to multiply by.
+     * @param pool         The pool to run on, or null to stay on the calling thread.
+     * @return The product.
+     */
+    public Matrix multiply(final Matrix multiplicand, final ForkJoinPool pool)
+            throws IllegalArgumentException {
+        if (multiplicand.rows != cols) {
+            throwIncompatible("multiplication");
         }
+        Matrix product = new Matrix(rows, multiplicand.cols);
+        storeProduct(multiplicand, product, pool, null);
+        return product;
+    }
+
+    /**
+     * @param vector A vector with as many elements as this matrix has columns.
+     * @return The product of this matrix and the given vector, in a new array.
+     * @see Blas#gemv(boolean, double, Matrix, double[], double, double[])
+     */
+    public double[] multiply(final double[] vector) throws IllegalArgumentException {
+        return multiply(vector, new double[rows]);
+    }
+
+    /**
+     * Stores the product of this matrix and the given vector in the
+     * destination, without allocating.
+     *
+     * @param vector      A vector with as many elements as this matrix has columns.
+     * @param destination An array with as many elements as this matrix has
+     *                    rows. If it is the vector itself, the product is
+     *                    computed in a temporary array first.
+     * @return The destination.
+     */
+    @Override
+    public double[] multiply(final double[] vector, final double[] destination) throws IllegalArgumentException {
+        if (destination == vector && rows == cols) {
+            System.arraycopy(multiply(vector), 0, destination, 0, rows);
+        } else {
+            Blas.gemv(false, 1, this, vector, 0, destination);
+        }
+        return destination;
+    }
+
+    /**
+     * Multiplies this matrix by the given one with the Strassen-Winograd
+     * algorithm, on the calling thread.
+     *
+     * @param multiplicand The matrix to multiply by.
+     * @return The product.
+     * @see #multiplyStrassen(Matrix, int, ForkJoinPool)
+     */
+    public Matrix multiplyStrassen(final Matrix multiplicand) throws IllegalArgumentException {
+        return multiplyStrassen(multiplicand, Strassen.CROSSOVER, null);
+    }
+
+    /**
+     * Multiplies this matrix by the given one with the Strassen-Winograd
+     * algorithm, running the top-level products in parallel on the given pool.
+     *
+     * @param multiplicand The matrix to multiply by.
+     * @param pool         The pool to run on, or null to stay on the calling thread.
+     * @return The product.
+     * @see #multiplyStrassen(Matrix, int, ForkJoinPool)
+     */
+    public Matrix multiplyStrassen(final Matrix multiplicand, final ForkJoinPool pool)
+            throws IllegalArgumentException {
+        return multiplyStrassen(multiplicand, Strassen.CROSSOVER, pool);
+    }
+
+    /**
+     * Multiplies this matrix by the given one with the Strassen-Winograd
+     * algorithm, which does about n<sup>2.81</sup> multiply-adds instead of
+     * n<sup>3</sup>. Operands are split in quadrants recursively until a
+     * dimension is at most the crossover, below which the classical kernel
+     * of {@link #multiply(Matrix)} is faster. Odd dimensions are handled
+     * without padding.
+     * <p>
+     * The result is as accurate as the classical product in norm, but not
+     * element by element: elements much smaller than the largest in their
+     * row of the product may lose several digits. The default crossover can
+     * be set with the {@value Strassen#CROSSOVER_PROPERTY} system property.
+     *
+     * @param multiplicand The matrix to multiply by.
+     * @param crossover    The largest dimension handed to the classical kernel.
+     * @param pool         The pool to run on, or null to stay on the calling thread.
+     * @return The product.
+     */
+    public Matrix multiplyStrassen(final Matrix multiplicand, final int crossover, final ForkJoinPool pool)
+            throws IllegalArgumentException {
+        if (multiplicand.rows != cols) {
+            throwIncompatible("multiplication");
+        }
+        if (crossover < 1) {
+            throw new IllegalArgumentException("Invalid crossover : " + crossover);
+        }
+        // The kernel needs unit column strides
+        Matrix a = colStride == 1 ? this : copy();
+        Matrix b = multiplicand.colStride == 1 ? multiplicand : multiplicand.copy();
+        Matrix product = new Matrix(rows, multiplicand.cols);
+        Strassen.multiply(a.data, a.offset, a.rowStride, b.data, b.offset, b.rowStride,
+                product.data, 0, product.cols, rows, cols, multiplicand.cols, crossover, pool);
+        return product;
+    }
+
+    private void storeProduct(Matrix multiplicand, Matrix product, ForkJoinPool pool, double[] panel) {
+        Gemm.multiplyAdd(1, data, offset, rowStride, colStride,
+                multiplicand.data, multiplicand.offset, multiplicand.rowStride, multiplicand.colStride,
+                0, product.data, product.offset, product.rowStride,
+                rows, cols, multiplicand.cols, pool, panel);
     }
 
     public void elementMultiplyInPlace(final Matrix matrix) throws IllegalArgumentException {
+        throwIfFrozen();
         if (matrix.rows != rows || matrix.cols != cols) {
             throwIncompatible("element-wise multiplication");
         }
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] *= matrix.data[i][j];
+        Matrix source = detached(matrix);
+        if (isCompactWith(source)) {
+            Kernels.multiply(rows * cols, source.data, source.offset, 1, data, offset, 1);
+        } else {
+            for (int i = 0; i < rows; i++) {
+                Kernels.multiply(cols, source.data, source.index(i, 0), source.colStride, data, index(i, 0), colStride);
             }
         }
+        markModified();
     }
 
     public Matrix elementMultiply(final Matrix matrix) throws IllegalArgumentException {
-        Matrix temp = new Matrix(this);
-        temp.elementMultiplyInPlace(matrix);
-        return temp;
+        return elementMultiply(matrix, new Matrix(rows, cols));
+    }
+
+    /**
+     * Stores the element-wise product of this matrix and the given one in
+     * the destination, without allocating.
+     *
+     * @param matrix      The matrix to multiply by.
+     * @param destination A matrix of the same shape, which may be either operand.
+     * @return The destination.
+     */
+    public Matrix elementMultiply(final Matrix matrix, final Matrix destination) throws IllegalArgumentException {
+        return elementWise(matrix, destination, "element-wise multiplication",
+                Matrix::elementMultiplyInPlace, Matrix::elementMultiplyInPlace);
     }
 
     public void elementDivideInPlace(final Matrix matrix) throws IllegalArgumentException {
+        throwIfFrozen();
         if (matrix.rows != rows || matrix.cols != cols) {
             throwIncompatible("element-wise multiplication");
         }
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] /= matrix.data[i][j];
+        Matrix source = detached(matrix);
+        if (isCompactWith(source)) {
+            Kernels.divide(rows * cols, source.data, source.offset, 1, data, offset, 1);
+        } else {
+            for (int i = 0; i < rows; i++) {
+                Kernels.divide(cols, source.data, source.index(i, 0), source.colStride, data, index(i, 0), colStride);
             }
         }
+        markModified();
     }
 
     public Matrix elementDivide(final Matrix matrix) throws IllegalArgumentException {
-        Matrix temp = new Matrix(this);
-        temp.elementDivideInPlace(matrix);
-        return temp;
+        return elementDivide(matrix, new Matrix(rows, cols));
+    }
+
+    /**
+     * Stores the element-wise quotient of this matrix and the given one in
+     * the destination. Nothing is allocated unless the destination is the
+     * divisor.
+     *
+     * @param matrix      The matrix to divide by.
+     * @param destination A matrix of the same shape, which may be either operand.
+     * @return The destination.
+     */
+    public Matrix elementDivide(final Matrix matrix, final Matrix destination) throws IllegalArgumentException {
+        return elementWise(matrix, destination, "element-wise division", Matrix::elementDivideInPlace, null);
     }
 
     public Matrix exponentiate(int power) throws IllegalArgumentException {
+        return exponentiate(power, (ForkJoinPool) null);
+    }
+
+    /**
+     * Raises this matrix to the given power on the common pool.
+     *
+     * @param power The non-negative power to raise to.
+     * @return The result.
+     * @see #exponentiate(int, ForkJoinPool)
+     */
+    public Matrix exponentiateParallel(int power) throws IllegalArgumentException {
+        return exponentiate(power, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Raises this matrix to the given power, running every multiplication
+     * on the given pool. The result is bit-identical to that of
+     * {@link #exponentiate(int)}.
+     *
+     * @param power The non-negative power to raise to.
+     * @param pool  The pool to run on, or null to stay on the calling thread.
+     * @return The result.
+     */
+    public Matrix exponentiate(int power, final ForkJoinPool pool) throws IllegalArgumentException {
+        return exponentiate(power, new Matrix(rows, cols), new Workspace(), pool);
+    }
+
+    /**
+     * Stores this matrix raised to the given power in the destination.
+     *
+     * @param power       The non-negative power to raise to.
+     * @param destination A matrix of the same shape, which may be this one.
+     * @return The destination.
+     * @see #exponentiate(int, Matrix, Workspace)
+     */
+    public Matrix exponentiate(int power, final Matrix destination) throws IllegalArgumentException {
+        return exponentiate(power, destination, new Workspace());
+    }
+
+    /**
+     * Stores this matrix raised to the given power in the destination,
+     * keeping the intermediate products in the given workspace, so that
+     * nothing is allocated.
+     *
+     * @param power       The non-negative power to raise to.
+     * @param destination A matrix of the same shape, which may be this one.
+     * @param workspace   The workspace for the intermediate products.
+     * @return The destination.
+     */
+    public Matrix exponentiate(int power, final Matrix destination, final Workspace workspace)
+            throws IllegalArgumentException {
+        return exponentiate(power, destination, workspace, null);
+    }
+
+    private Matrix exponentiate(int power, final Matrix destination, final Workspace workspace,
+                                final ForkJoinPool pool) throws IllegalArgumentException {
         if (!isSquare()) {
             throwIncompatible("exponentiation");
         }
         if (power < 0) {
             throw new IllegalArgumentException("Power cannot be negative.");
         }
-        Matrix product = Matrix.identity(rows);
-        Matrix x = new Matrix(this);
+        throwIfNotShaped(destination, rows, cols);
+        destination.throwIfFrozen();
+        Shape shape = Shape.of(this);
+        if (shape == Shape.DIAGONAL) {
+            for (int i = 0; i < rows; i++) {
+                // Read before the row is cleared, in case the destination is
+                // this matrix or its transpose; no other diagonal is touched
+                double diagonal = power(data[index(i, i)], power);
+                for (int j = 0, k = destination.index(i, 0); j < cols; j++, k += destination.colStride) {
+                    destination.data[k] = i == j ? diagonal : 0;
+                }
+            }
+            destination.markModified();
+            return destination;
+        }
+        // Binary exponentiation, with every product written to a spare buffer
+        // that then takes the place of the one it was computed from
+        Matrix x = workspace.matrix(0, rows, cols);
+        Matrix spare = workspace.matrix(1, rows, cols);
+        Matrix product = workspace.matrix(2, rows, cols);
+        x.assign(this);
+        Arrays.fill(product.data, 0, rows * cols, 0);
+        for (int i = 0; i < rows; i++) {
+            product.data[i * cols + i] = 1;
+        }
+        double[] panel = workspace.panel();
         while (power > 0) {
             if ((power & 1) == 1) {
-                product.multiplyInPlace(x);
+                shape.multiply(product, x, spare, pool, panel);
+                Matrix temp = product;
+                product = spare;
+                spare = temp;
             }
-            x.multiplyInPlace(x);
             power >>= 1;
+            if (power > 0) {
+                shape.multiply(x, x, spare, pool, panel);
+                Matrix temp = x;
+                x = spare;
+                spare = temp;
+            }
+        }
+        destination.assign(product);
+        return destination;
+    }
+
+    /**
+     * Computes this matrix raised to the given power times the given
+     * vector, without forming the power itself when that is cheaper.
+     * <p>
+     * Small powers are applied as repeated matrix-vector products, at
+     * O(power * n<sup>2</sup>). Large ones square the matrix as in
+     * {@link #exponentiate(int)}, at O(log(power) * n<sup>3</sup>), and apply
+     * each square the vector needs as soon as it is found, so that only two
+     * scratch matrices are ever held. Diagonal matrices take O(n) work.
+     *
+     * @param power  The non-negative power to raise to.
+     * @param vector A vector with as many elements as this matrix has columns.
+     * @return The product, in a new array.
+     */
+    public double[] exponentiate(int power, final double[] vector) throws IllegalArgumentException {
+        return exponentiate(power, vector, new Workspace());
+    }
+
+    /**
+     * As {@link #exponentiate(int, double[])}, keeping the scratch matrices
+     * in the given workspace.
+     *
+     * @param power     The non-negative power to raise to.
+     * @param vector    A vector with as many elements as this matrix has columns.
+     * @param workspace The workspace for the scratch matrices.
+     * @return The product, in a new array.
+     */
+    public double[] exponentiate(int power, final double[] vector, final Workspace workspace)
+            throws IllegalArgumentException {
+        if (!isSquare()) {
+            throwIncompatible("exponentiation");
+        }
+        if (power < 0) {
+            throw new IllegalArgumentException("Power cannot be negative.");
+        }
+        if (vector.length != cols) {
+            throw new IllegalArgumentException("Invalid number of elements. Expected : " + cols
+                    + " Found : " + vector.length);
+        }
+        double[] result = vector.clone();
+        Shape shape = Shape.of(this);
+        if (shape == Shape.DIAGONAL) {
+            for (int i = 0; i < rows; i++) {
+                result[i] *= power(data[index(i, i)], power);
+            }
+            return result;
+        }
+        double[] spareVector = new double[rows];
+        int bits = 32 - Integer.numberOfLeadingZeros(power);
+        if (power <= (long) bits * rows) {
+            for (int p = 0; p < power; p++) {
+                multiply(this, result, spareVector);
+                double[] temp = result;
+                result = spareVector;
+                spareVector = temp;
+            }
+            return result;
+        }
+        // The powers of the matrix commute, so the squares can be applied
+        // to the vector in whatever order they are found
+        Matrix x = workspace.matrix(0, rows, cols);
+        Matrix spare = workspace.matrix(1, rows, cols);
+        x.assign(this);
+        double[] panel = workspace.panel();
+        while (power > 0) {
+            if ((power & 1) == 1) {
+                multiply(x, result, spareVector);
+                double[] temp = result;
+                result = spareVector;
+                spareVector = temp;
+            }
+            power >>= 1;
+            if (power > 0) {
+                shape.multiply(x, x, spare, null, panel);
+                Matrix temp = x;
+                x = spare;
+                spare = temp;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores the product of the given matrix and vector in the given array.
+     */
+    private static void multiply(final Matrix matrix, final double[] vector, final double[] product) {
+        for (int i = 0; i < matrix.rows; i++) {
+            product[i] = Kernels.dot(matrix.cols, matrix.data, matrix.index(i, 0), matrix.colStride,
+                    vector, 0, 1);
+        }
+    }
+
+    /**
+     * Raises a scalar to the given power by the same sequence of
+     * multiplications as the binary exponentiation of a matrix, so that a
+     * diagonal matrix gets exactly the diagonal the general method would give.
+     */
+    private static double power(final double base, int power) {
+        double x = base;
+        double product = 1;
+        while (power > 0) {
+            if ((power & 1) == 1) {
+                product *= x;
+            }
+            power >>= 1;
+            if (power > 0) {
+                x *= x;
+            }
         }
         return product;
     }
 
+    /**
+     * The structure of a square matrix that is preserved by its powers, and
+     * the cheapest way to multiply two compact matrices that share it.
+     * <p>
+     * The triangular products skip the terms that are known to be zero,
+     * taking about a sixth of the multiply-adds of a general product. The
+     * remaining terms are accumulated in ascending order, as in {@link Gemm},
+     * so the results match the general product's bit for bit.
+     */
+    private enum Shape {
+        GENERAL, UPPER, LOWER, DIAGONAL;
+
+        /**
+         * Only exact zeros count: a shape that dropped small elements would
+         * change the powers, not merely speed them up.
+         */
+        static Shape of(final Matrix matrix) {
+            boolean upper = matrix.hasZeroTriangle(false);
+            boolean lower = matrix.hasZeroTriangle(true);
+            return upper ? (lower ? DIAGONAL : UPPER) : (lower ? LOWER : GENERAL);
+        }
+
+        void multiply(final Matrix a, final Matrix b, final Matrix product,
+                      final ForkJoinPool pool, final double[] panel) {
+            int n = a.rows;
+            double[] c = product.data;
+            switch (this) {
+                case UPPER:
+                    // c[i][j] = sum of a[i][k] * b[k][j] for i <= k <= j
+                    for (int i = 0; i < n; i++) {
+                        Arrays.fill(c, i * n, i * n + n, 0);
+                        for (int k = i; k < n; k++) {
+                            Kernels.axpy(n - k, a.data[i * n + k], b.data, k * n + k, 1, c, i * n + k, 1);
+                        }
+                    }
+                    break;
+                case LOWER:
+                    // c[i][j] = sum of a[i][k] * b[k][j] for j <= k <= i
+                    for (int i = 0; i < n; i++) {
+                        Arrays.fill(c, i * n, i * n + n, 0);
+                        for (int k = 0; k <= i; k++) {
+                            Kernels.axpy(k + 1, a.data[i * n + k], b.data, k * n, 1, c, i * n, 1);
+                        }
+                    }
+                    break;
+                default:
+                    a.storeProduct(b, product, pool, panel);
+            }
+            product.markModified();
+        }
+    }
+
     public boolean isOrthogonal() {
         Matrix value = multiply(transpose());
         value.zeroFill();
@@ -426,29 +1506,74 @@ public class Matrix {
     }
 
     public Matrix appendRight(final Matrix matrix) {
+        return appendRight(matrix, new Matrix(rows, cols + matrix.cols));
+    }
+
+    /**
+     * Stores this matrix with the given one appended to its right in the
+     * destination.
+     *
+     * @param matrix      The matrix to append, with as many rows as this one.
+     * @param destination A matrix with as many rows and the combined columns.
+     *                    If it shares elements with either operand, the
+     *                    result is computed in a temporary matrix first.
+     * @return The destination.
+     */
+    public Matrix appendRight(final Matrix matrix, final Matrix destination) throws IllegalArgumentException {
         if (matrix.rows != rows) {
             throwIncompatible("appending right");
         }
-        Matrix store = new Matrix(rows, cols + matrix.cols);
-        for (int i = 0; i < rows; i++) {
-            System.arraycopy(data[i], 0, store.data[i], 0, cols);
-            System.arraycopy(matrix.data[i], 0, store.data[i], cols, matrix.cols);
+        throwIfNotShaped(destination, rows, cols + matrix.cols);
+        if (destination.overlaps(this) || destination.overlaps(matrix)) {
+            destination.assign(appendRight(matrix));
+            return destination;
         }
-        return store;
+        destination.throwIfFrozen();
+        copyTo(destination, 0, 0);
+        matrix.copyTo(destination, 0, cols);
+        destination.markModified();
+        return destination;
     }
 
     public Matrix appendBottom(final Matrix matrix) throws IllegalArgumentException {
+        return appendBottom(matrix, new Matrix(rows + matrix.rows, cols));
+    }
+
+    /**
+     * Stores this matrix with the given one appended below it in the
+     * destination.
+     *
+     * @param matrix      The matrix to append, with as many columns as this one.
+     * @param destination A matrix with the combined rows and as many columns.
+     *                    If it shares elements with either operand, the
+     *                    result is computed in a temporary matrix first.
+     * @return The destination.
+     */
+    public Matrix appendBottom(final Matrix matrix, final Matrix destination) throws IllegalArgumentException {
         if (matrix.cols != cols) {
-            throwIncompatible("appending right");
+            throwIncompatible("appending bottom");
         }
-        Matrix store = new Matrix(rows + matrix.rows, cols);
-        for (int i = 0; i < rows; i++) {
-            System.arraycopy(data[i], 0, store.data[i], 0, cols);
+        throwIfNotShaped(destination, rows + matrix.rows, cols);
+        if (destination.overlaps(this) || destination.overlaps(matrix)) {
+            destination.assign(appendBottom(matrix));
+            return destination;
         }
-        for (int i = 0; i < matrix.rows; i++) {
-            System.arraycopy(matrix.data[i], 0, store.data[i + rows], 0, cols);
+        destination.throwIfFrozen();
+        copyTo(destination, 0, 0);
+        matrix.copyTo(destination, rows, 0);
+        destination.markModified();
+        return destination;
+    }
+
+    /**
+     * Copies this matrix into the block of the destination starting at the
+     * given row and column, without creating a view.
+     */
+    private void copyTo(final Matrix destination, final int row, final int col) {
+        for (int i = 0; i < rows; i++) {
+            Kernels.copy(cols, data, index(i, 0), colStride,
+                    destination.data, destination.index(row + i, col), destination.colStride);
         }
-        return store;
     }
 
     private void throwIfInvalidIndex(int value, int limit, String quantity) throws IllegalArgumentException {
@@ -457,39 +1582,40 @@ public class Matrix {
         }
     }
 
+    private void throwIfInvalidElementIndex(int value, int limit, String quantity)
+            throws IllegalArgumentException {
+        if (value < 0 || value >= limit) {
+            throw new IllegalArgumentException("Invalid " + quantity + " index : " + value);
+        }
+    }
+
     public Matrix[] splitAtColumn(final int column) throws IllegalArgumentException {
         throwIfInvalidIndex(column, cols, "column");
-        int columnResidue = cols - column;
-        Matrix left = new Matrix(rows, column);
-        Matrix right = new Matrix(rows, columnResidue);
-        for (int i = 0; i < rows; i++) {
-            System.arraycopy(data[i], 0, left.data[i], 0, column);
-            System.arraycopy(data[i], column, right.data[i], 0, columnResidue);
-        }
+        Matrix left = subMatrixView(0, 0, rows, column).copy();
+        Matrix right = subMatrixView(0, column, rows, cols - column).copy();
         return new Matrix[]{left, right};
     }
 
     public Matrix[] splitAtRow(final int row) throws IllegalArgumentException {
         throwIfInvalidIndex(row, rows, "row");
-        int rowResidue = rows - row;
-        Matrix top = new Matrix(row, cols);
-        Matrix bottom = new Matrix(rowResidue, cols);
-        for (int i = 0; i < row; i++) {
-            System.arraycopy(data[i], 0, top.data[i], 0, cols);
-        }
-        for (int i = 0; i < rowResidue; i++) {
-            System.arraycopy(data[i + row], 0, bottom.data[i], 0, cols);
-        }
+        Matrix top = subMatrixView(0, 0, row, cols).copy();
+        Matrix bottom = subMatrixView(row, 0, rows - row, cols).copy();
         return new Matrix[]{top, bottom};
     }
 
     public void swapRowsInPlace(final int row1, final int row2) throws IllegalArgumentException {
-        throwIfInvalidIndex(row1, rows, "row");
-        throwIfInvalidIndex(row2, rows, "row");
-        double[] row = new double[cols];
-        System.arraycopy(data[row1], 0, row, 0, cols);
-        System.arraycopy(data[row2], 0, data[row1], 0, cols);
-        System.arraycopy(row, 0, data[row2], 0, cols);
+        throwIfFrozen();
+        throwIfInvalidElementIndex(row1, rows, "row");
+        throwIfInvalidElementIndex(row2, rows, "row");
+        if (row1 == row2) {
+            return;
+        }
+        for (int j = 0, a = index(row1, 0), b = index(row2, 0); j < cols; j++, a += colStride, b += colStride) {
+            double temp = data[a];
+            data[a] = data[b];
+            data[b] = temp;
+        }
+        markModified();
     }
 
     public Matrix swapRows(final int row1, final int row2) throws IllegalArgumentException {
@@ -499,18 +1625,18 @@ public class Matrix {
     }
 
     public void swapColumnsInPlace(int col1, int col2) throws IllegalArgumentException {
-        throwIfInvalidIndex(col1, rows, "column");
-        throwIfInvalidIndex(col2, rows, "column");
-        double[] column = new double[rows];
-        for (int i = 0; i < rows; i++) {
-            column[i] = data[i][col1];
+        throwIfFrozen();
+        throwIfInvalidElementIndex(col1, cols, "column");
+        throwIfInvalidElementIndex(col2, cols, "column");
+        if (col1 == col2) {
+            return;
         }
-        for (int i = 0; i < rows; i++) {
-            data[i][col1] = data[i][col2];
-        }
-        for (int i = 0; i < rows; i++) {
-            data[i][col2] = column[i];
+        for (int i = 0, a = index(0, col1), b = index(0, col2); i < rows; i++, a += rowStride, b += rowStride) {
+            double temp = data[a];
+            data[a] = data[b];
+            data[b] = temp;
         }
+        markModified();
     }
 
     public Matrix swapColumns(final int col1, final int col2) throws IllegalArgumentException {
@@ -527,82 +1653,270 @@ public class Matrix {
         }
     }
 
-    private void addScaledRow(double scale, double[] row, int index) {
-        for (int i = 0; i < cols; i++) {
-            data[index][i] += row[i] * scale;
-        }
+    private void addScaledRow(double scale, int source, int index) {
+        Kernels.axpy(cols, scale, data, index(source, 0), colStride, data, index(index, 0), colStride);
     }
 
     private void scaleRow(double scale, int index) {
-        for (int i = 0; i < cols; i++) {
-            data[index][i] *= scale;
-        }
+        Kernels.scale(cols, scale, data, index(index, 0), colStride);
     }
 
     public void convertToReducedRowEchelon() {
+        throwIfFrozen();
         int limit = Math.min(rows, cols);
         // Cascade from the top left corner downwards and rightwards
         for (int i = 0; i < limit; i++) {
-            double factor = data[i][i];
+            double factor = data[index(i, i)];
             for (int j = i + 1; j < rows; j++) {
                 // Make all the rows below the ith row have zeros in the ith column
-                addScaledRow(-data[j][i] / factor, data[i], j);
+                addScaledRow(-data[index(j, i)] / factor, i, j);
             }
             // Normalize to make sure that the leading number in every row is 1
-            scaleRow(1 / data[i][i], i);
+            scaleRow(1 / data[index(i, i)], i);
         }
+        markModified();
     }
 
     public void convertEchelonToNormal() {
+        throwIfFrozen();
         int limit = Math.min(rows, cols);
         // Cascade from the bottom right part of original matrix upwards and leftwards
         for (int i = limit - 1; i >= 0; i--) {
-            double factor = data[i][i];
+            double factor = data[index(i, i)];
             for (int j = i - 1; j >= 0; j--) {
                 // Make all the rows above the ith row have zeros in the ith column
-                addScaledRow(-1 / factor, data[i], j);
+                addScaledRow(-1 / factor, i, j);
             }
         }
+        markModified();
+    }
+
+    /**
+     * Records that the elements of this matrix have changed, discarding
+     * every cached result derived from it and from the matrices sharing its
+     * elements. All the mutating methods call this themselves; it only needs
+     * to be called after writing directly to a wrapped array.
+     */
+    public void markModified() throws UnsupportedOperationException {
+        throwIfFrozen();
+        modifications.increment();
+    }
+
+    /**
+     * Makes this matrix, and every view sharing its elements, read-only
+     * from now on. Nothing is copied; views taken later are frozen too.
+     * Use {@link #copy()} to get a modifiable matrix back.
+     *
+     * @return This matrix.
+     */
+    public Matrix freeze() {
+        modifications.freeze();
+        return this;
+    }
+
+    /**
+     * @return Whether this matrix has been frozen, directly or through a
+     * matrix it shares its elements with.
+     */
+    public boolean isFrozen() {
+        return modifications.isFrozen();
+    }
+
+    private void throwIfFrozen() throws UnsupportedOperationException {
+        if (modifications.isFrozen()) {
+            throw new UnsupportedOperationException("Cannot modify a frozen matrix.");
+        }
     }
 
-    private Matrix rowReducedForm = null;
+    /**
+     * Returns the named result derived from this matrix, computing it only
+     * if it is not cached or the matrix has been modified since.
+     */
+    private <T> T cached(final String key, final boolean reclaimable, final Supplier<T> computation) {
+        long version = modifications.get();
+        ResultCache current = cache;
+        if (current == null || current.getVersion() != version) {
+            synchronized (this) {
+                current = cache;
+                if (current == null || current.getVersion() != version) {
+                    current = new ResultCache(version);
+                    cache = current;
+                }
+            }
+        }
+        return current.get(key, reclaimable, computation);
+    }
 
+    /**
+     * @return The rank of this matrix, from its row-reduced form.
+     */
     public int getRank() {
-        if (rowReducedForm == null) {
-            rowReducedForm = new Matrix(this);
+        return cached("rank", false, () -> {
+            Matrix rowReducedForm = new Matrix(this);
             rowReducedForm.convertToReducedRowEchelon();
-        }
-        int zeroRows = 0, limit = Math.min(rows, cols);
-        outer:
-        for (double[] row : rowReducedForm.data) {
-            for (int i = 0; i < limit; i++) {
-                if (Math.abs(row[i]) > EPSILON) {
-                    continue outer;
+            int zeroRows = 0, limit = Math.min(rows, cols);
+            outer:
+            for (int row = 0; row < rowReducedForm.rows; row++) {
+                for (int i = 0, k = rowReducedForm.index(row, 0); i < limit; i++, k += rowReducedForm.colStride) {
+                    if (Math.abs(rowReducedForm.data[k]) > EPSILON) {
+                        continue outer;
+                    }
                 }
+                zeroRows++;
             }
-            zeroRows++;
+            return limit - zeroRows;
+        });
+    }
+
+    /**
+     * Returns the LU decomposition of this matrix. The decomposition is
+     * cached until this matrix is modified, although it may be reclaimed
+     * under memory pressure.
+     *
+     * @return The decomposition.
+     * @throws ArithmeticException If this matrix is not square.
+     */
+    public LUDecomposition getLUDecomposition() throws ArithmeticException {
+        if (!isSquare()) {
+            throw new ArithmeticException("Cannot find LU decomposition of a non-square matrix.");
         }
-        return limit - zeroRows;
+        return cached("lu", true, () -> new LUDecomposition(this));
     }
 
-    private Matrix inverse = null;
+    /**
+     * Returns the Cholesky decomposition of this matrix. The decomposition
+     * is cached until this matrix is modified, although it may be reclaimed
+     * under memory pressure.
+     *
+     * @return The decomposition.
+     * @throws ArithmeticException If this matrix is not square or not
+     *                             positive definite.
+     */
+    public CholeskyDecomposition getCholeskyDecomposition() throws ArithmeticException {
+        if (!isSquare()) {
+            throw new ArithmeticException("Cannot find Cholesky decomposition of a non-square matrix.");
+        }
+        return cached("cholesky", true, () -> new CholeskyDecomposition(this));
+    }
 
-    public Matrix getInverse() throws ArithmeticException {
-        if (inverse != null) {
-            return inverse;
+    /**
+     * Returns the QR decomposition of this matrix, without column pivoting,
+     * for solving least squares problems. The decomposition is cached until
+     * this matrix is modified, although it may be reclaimed under memory
+     * pressure.
+     *
+     * @return The decomposition.
+     */
+    public QRDecomposition getQRDecomposition() {
+        return cached("qr", true, () -> new QRDecomposition(this));
+    }
+
+    /**
+     * @return This matrix packed as a {@link TriangularMatrix}, if every
+     * element on one side of the diagonal is exactly zero, or null.
+     */
+    private TriangularMatrix packTriangular() {
+        if (hasZeroTriangle(false)) {
+            return TriangularMatrix.upper(this);
         }
+        if (hasZeroTriangle(true)) {
+            return TriangularMatrix.lower(this);
+        }
+        return null;
+    }
+
+    /**
+     * @return Whether every element strictly above, or strictly below, the
+     * diagonal is exactly zero.
+     */
+    private boolean hasZeroTriangle(final boolean above) {
+        for (int i = 0; i < rows; i++) {
+            int from = above ? i + 1 : 0;
+            int to = above ? cols : i;
+            for (int j = from, k = index(i, from); j < to; j++, k += colStride) {
+                if (data[k] != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the inverse through an LU decomposition with partial pivoting,
+     * or, if this matrix is triangular, by substitution in about a sixth of
+     * the work. The result is cached until this matrix is modified, so
+     * repeated calls are free; it is therefore returned frozen.
+     *
+     * @return The inverse of this matrix.
+     * @throws ArithmeticException If this matrix is not square or is singular.
+     * @see #getLUDecomposition()
+     * @see TriangularMatrix#getInverse()
+     */
+    public Matrix getInverse() throws ArithmeticException {
         if (!isSquare()) {
             throw new ArithmeticException("Cannot find inverse of a non-square matrix.");
         }
-        Matrix augmented = appendRight(Matrix.identity(rows));
-        int rank = augmented.getRank();
-        if (rank < rows) {
-            throw new ArithmeticException("Cannot find inverse of singular matrix.");
+        return cached("inverse", true, () -> {
+            TriangularMatrix triangular = packTriangular();
+            if (triangular != null) {
+                return triangular.getInverse().toDense().freeze();
+            }
+            return getLUDecomposition().inverse().freeze();
+        });
+    }
+
+    /**
+     * @return The determinant of this matrix, the product of the diagonal
+     * if it is triangular, or else through an LU decomposition.
+     * @throws ArithmeticException If this matrix is not square.
+     */
+    public double getDeterminant() throws ArithmeticException {
+        if (!isSquare()) {
+            throw new ArithmeticException("Cannot find determinant of a non-square matrix.");
         }
-        augmented.convertEchelonToNormal();
-        Matrix[] matrices = augmented.splitAtColumn(cols);
-        rowReducedForm = matrices[0];
-        inverse = matrices[1];
-        return inverse;
+        return cached("determinant", false, () -> {
+            TriangularMatrix triangular = packTriangular();
+            return triangular != null ? triangular.getDeterminant() : getLUDecomposition().determinant();
+        });
+    }
+
+    /**
+     * @return The largest absolute column sum of this matrix.
+     */
+    public double getNorm1() {
+        return cached("norm1", false, () -> {
+            double norm = 0;
+            for (int j = 0; j < cols; j++) {
+                double sum = 0;
+                for (int i = 0, k = index(0, j); i < rows; i++, k += rowStride) {
+                    sum += Math.abs(data[k]);
+                }
+                norm = Math.max(norm, sum);
+            }
+            return norm;
+        });
+    }
+
+    /**
+     * @return The largest absolute row sum of this matrix.
+     */
+    public double getNormInfinity() {
+        return cached("normInfinity", false, () -> transposeView().getNorm1());
+    }
+
+    /**
+     * @return The square root of the sum of the squares of the elements.
+     */
+    public double getFrobeniusNorm() {
+        return cached("normFrobenius", false, () -> {
+            double sum = 0;
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0, k = index(i, 0); j < cols; j++, k += colStride) {
+                    sum += data[k] * data[k];
+                }
+            }
+            return Math.sqrt(sum);
+        });
     }
 }
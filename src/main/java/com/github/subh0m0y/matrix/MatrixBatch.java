@@ -0,0 +1,601 @@
+package com.github.subh0m0y.matrix;
+
+import java.util.Arrays;
+
+import static com.github.subh0m0y.matrix.Standards.EPSILON;
+
+/**
+ * A batch of small matrices of the same order, such as the transforms of a
+ * scene or the covariances of a filter bank, stored one after another in a
+ * single double array.
+ * <p>
+ * Matrix b of the batch occupies the rows * cols elements from
+ * b * rows * cols on, row after row. Working on the whole batch at once
+ * avoids the per-matrix object, bounds checks and dispatch of
+ * {@link Matrix}, which dominate the cost of products and inverses of a
+ * handful of elements. Square matrices of order 2, 3 and 4 use the
+ * unrolled kernels of {@link SmallKernels}; every other order uses simple
+ * loops.
+ * <p>
+ * Where a method takes a second batch with a single matrix in it, that
+ * matrix is used with every matrix of this batch.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MatrixBatch {
+    private final int count;
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final double[] data;
+
+    /**
+     * Wraps the given elements, without copying them.
+     */
+    MatrixBatch(final int count, final int rows, final int cols, final double[] data) {
+        int total = checkedTotal(count, rows, cols);
+        if (data.length != total) {
+            throw new IllegalArgumentException("Invalid number of elements: " + data.length
+                    + " Expected: " + total);
+        }
+        this.count = count;
+        this.rows = rows;
+        this.cols = cols;
+        this.size = rows * cols;
+        this.data = data;
+    }
+
+    /**
+     * Creates a new batch of count zero matrices of order rows x cols.
+     */
+    MatrixBatch(final int count, final int rows, final int cols) {
+        this(count, rows, cols, new double[checkedTotal(count, rows, cols)]);
+    }
+
+    private static int checkedTotal(final int count, final int rows, final int cols) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid number of matrices : " + count);
+        }
+        if (rows < 0) {
+            throw new IllegalArgumentException("Invalid number of rows : " + rows);
+        }
+        if (cols < 0) {
+            throw new IllegalArgumentException("Invalid number of columns : " + cols);
+        }
+        long total = (long) count * rows * cols;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many elements : " + count + " x " + rows + " x " + cols);
+        }
+        return (int) total;
+    }
+
+    public static MatrixBatch zero(final int count, final int rows, final int cols) {
+        return new MatrixBatch(count, rows, cols);
+    }
+
+    public static MatrixBatch identity(final int count, final int order) {
+        MatrixBatch batch = new MatrixBatch(count, order, order);
+        for (int b = 0; b < count; b++) {
+            for (int i = 0, k = b * batch.size; i < order; i++, k += order + 1) {
+                batch.data[k] = 1;
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Creates a batch from the given elements.
+     *
+     * @param count        The number of matrices.
+     * @param rows         The number of rows of each matrix.
+     * @param cols         The number of columns of each matrix.
+     * @param elements     The count * rows * cols elements, matrix after
+     *                     matrix and row after row within each.
+     * @param makeDeepCopy Whether to copy the elements or wrap the given array,
+     *                     in which case changes to either are visible in the other.
+     * @return The batch.
+     */
+    public static MatrixBatch fromLinearArray(final int count, final int rows, final int cols,
+                                              final double[] elements, final boolean makeDeepCopy) {
+        return new MatrixBatch(count, rows, cols,
+                makeDeepCopy ? Arrays.copyOf(elements, elements.length) : elements);
+    }
+
+    /**
+     * @param matrices Matrices of the same order, which may be views.
+     * @return A batch holding copies of the given matrices, in order.
+     */
+    public static MatrixBatch of(final Matrix... matrices) throws IllegalArgumentException {
+        if (matrices.length == 0) {
+            throw new IllegalArgumentException("A batch needs at least one matrix.");
+        }
+        MatrixBatch batch = new MatrixBatch(matrices.length, matrices[0].getRows(), matrices[0].getCols());
+        for (int b = 0; b < matrices.length; b++) {
+            batch.setMatrix(b, matrices[b]);
+        }
+        return batch;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public boolean isSquare() {
+        return rows == cols;
+    }
+
+    private void throwIfInvalidMatrix(final int b) throws IndexOutOfBoundsException {
+        if (b < 0 || b >= count) {
+            throw new IndexOutOfBoundsException("Invalid matrix index : " + b);
+        }
+    }
+
+    private int index(final int b, final int i, final int j) throws IndexOutOfBoundsException {
+        throwIfInvalidMatrix(b);
+        if (i < 0 || i >= rows) {
+            throw new IndexOutOfBoundsException("Invalid row index : " + i);
+        }
+        if (j < 0 || j >= cols) {
+            throw new IndexOutOfBoundsException("Invalid column index : " + j);
+        }
+        return b * size + i * cols + j;
+    }
+
+    public double get(final int b, final int i, final int j) throws IndexOutOfBoundsException {
+        return data[index(b, i, j)];
+    }
+
+    public void set(final int b, final int i, final int j, final double value) throws IndexOutOfBoundsException {
+        data[index(b, i, j)] = value;
+    }
+
+    /**
+     * @return A copy of matrix b of this batch.
+     */
+    public Matrix getMatrix(final int b) throws IndexOutOfBoundsException {
+        throwIfInvalidMatrix(b);
+        return Matrix.fromLinearArray(rows, cols, Arrays.copyOfRange(data, b * size, (b + 1) * size), false);
+    }
+
+    /**
+     * Overwrites matrix b of this batch with the given matrix.
+     */
+    public void setMatrix(final int b, final Matrix matrix)
+            throws IndexOutOfBoundsException, IllegalArgumentException {
+        throwIfInvalidMatrix(b);
+        if (matrix.getRows() != rows || matrix.getCols() != cols) {
+            throw new IllegalArgumentException("Invalid matrix. Expected : " + rows + " x " + cols
+                    + " Found : " + matrix.getRows() + " x " + matrix.getCols());
+        }
+        double[] source = matrix.getData();
+        for (int i = 0, k = b * size; i < rows; i++) {
+            for (int j = 0, s = matrix.index(i, 0); j < cols; j++, s += matrix.getColStride()) {
+                data[k++] = source[s];
+            }
+        }
+    }
+
+    /**
+     * @return A copy of the elements, in the order of {@link #fromLinearArray}.
+     */
+    public double[] toLinearArray() {
+        return Arrays.copyOf(data, data.length);
+    }
+
+    public MatrixBatch copy() {
+        return new MatrixBatch(count, rows, cols, toLinearArray());
+    }
+
+    private void throwIncompatible(final String operation) throws IllegalArgumentException {
+        throw new IllegalArgumentException("Given batch is not compatible with the invoking batch for "
+                + operation);
+    }
+
+    private void throwIfInvalidDestination(final MatrixBatch destination, final int rows, final int cols)
+            throws IllegalArgumentException {
+        if (destination.count != count || destination.rows != rows || destination.cols != cols) {
+            throw new IllegalArgumentException("Invalid destination. Expected : " + count + " of "
+                    + rows + " x " + cols + " Found : " + destination.count + " of "
+                    + destination.rows + " x " + destination.cols);
+        }
+    }
+
+    private void throwIfNotSquare(final String operation) throws ArithmeticException {
+        if (!isSquare()) {
+            throw new ArithmeticException("Cannot find " + operation + " of a non-square matrix.");
+        }
+    }
+
+    /**
+     * @return The matrices of this batch, each multiplied by the matrix of
+     * the given batch at the same index, or by its only matrix.
+     */
+    public MatrixBatch multiply(final MatrixBatch multiplicand) throws IllegalArgumentException {
+        return multiply(multiplicand, new MatrixBatch(count, rows, multiplicand.cols));
+    }
+
+    /**
+     * Stores the products of {@link #multiply(MatrixBatch)} in the given
+     * destination, which may be this batch or the multiplicand when the
+     * matrices are square.
+     *
+     * @return The destination.
+     */
+    public MatrixBatch multiply(final MatrixBatch multiplicand, final MatrixBatch destination)
+            throws IllegalArgumentException {
+        if (multiplicand.rows != cols || (multiplicand.count != count && multiplicand.count != 1)) {
+            throwIncompatible("multiplication");
+        }
+        int p = multiplicand.cols;
+        throwIfInvalidDestination(destination, rows, p);
+        double[] a = data;
+        double[] b = multiplicand.data;
+        double[] c = destination.data;
+        int bStep = multiplicand.count == 1 ? 0 : multiplicand.size;
+        int cSize = rows * p;
+        boolean unrolled = rows == cols && cols == p && rows >= 2 && rows <= 4;
+        if (!unrolled && (c == a || c == b)) {
+            // The loops below write elements that are still to be read
+            c = new double[c.length];
+        }
+        for (int k = 0, aOffset = 0, bOffset = 0, cOffset = 0; k < count;
+             k++, aOffset += size, bOffset += bStep, cOffset += cSize) {
+            if (unrolled && rows == 4) {
+                SmallKernels.multiply4(a, aOffset, b, bOffset, c, cOffset);
+            } else if (unrolled && rows == 3) {
+                SmallKernels.multiply3(a, aOffset, b, bOffset, c, cOffset);
+            } else if (unrolled) {
+                SmallKernels.multiply2(a, aOffset, b, bOffset, c, cOffset);
+            } else {
+                multiply(a, aOffset, b, bOffset, c, cOffset, rows, cols, p);
+            }
+        }
+        if (c != destination.data) {
+            System.arraycopy(c, 0, destination.data, 0, c.length);
+        }
+        return destination;
+    }
+
+    /**
+     * c = a * b, for an m x n matrix a and an n x p matrix b, in the
+     * i-k-j order.
+     */
+    private static void multiply(final double[] a, final int aOffset, final double[] b, final int bOffset,
+                                 final double[] c, final int cOffset, final int m, final int n, final int p) {
+        Arrays.fill(c, cOffset, cOffset + m * p, 0);
+        for (int i = 0; i < m; i++) {
+            int ci = cOffset + i * p;
+            for (int k = 0; k < n; k++) {
+                double scale = a[aOffset + i * n + k];
+                for (int j = 0, bk = bOffset + k * p; j < p; j++, bk++) {
+                    c[ci + j] += scale * b[bk];
+                }
+            }
+        }
+    }
+
+    /**
+     * Multiplies every matrix of this batch by a vector.
+     *
+     * @param vectors Either count vectors of cols elements each, one after
+     *                another, or a single vector to use with every matrix.
+     * @return The count products of rows elements each, one after another.
+     */
+    public double[] multiplyVectors(final double[] vectors) throws IllegalArgumentException {
+        return multiplyVectors(vectors, new double[count * rows]);
+    }
+
+    /**
+     * Stores the products of {@link #multiplyVectors(double[])} in the given
+     * array, which may be the vectors themselves when the matrices are square
+     * and there is one vector per matrix.
+     *
+     * @return The destination.
+     */
+    public double[] multiplyVectors(final double[] vectors, double[] destination) throws IllegalArgumentException {
+        if (vectors.length != count * cols && vectors.length != cols) {
+            throw new IllegalArgumentException("Invalid number of vector elements: " + vectors.length
+                    + " Expected: " + count * cols);
+        }
+        if (destination.length != count * rows) {
+            throw new IllegalArgumentException("Invalid destination. Expected : " + count * rows
+                    + " elements Found : " + destination.length);
+        }
+        double[] y = destination;
+        boolean unrolled = isSquare() && rows >= 2 && rows <= 4;
+        if (!unrolled && y == vectors) {
+            y = new double[y.length];
+        }
+        int xStep = vectors.length == cols && count != 1 ? 0 : cols;
+        for (int k = 0, aOffset = 0, xOffset = 0, yOffset = 0; k < count;
+             k++, aOffset += size, xOffset += xStep, yOffset += rows) {
+            if (unrolled && rows == 4) {
+                SmallKernels.multiplyVector4(data, aOffset, vectors, xOffset, y, yOffset);
+            } else if (unrolled && rows == 3) {
+                SmallKernels.multiplyVector3(data, aOffset, vectors, xOffset, y, yOffset);
+            } else if (unrolled) {
+                SmallKernels.multiplyVector2(data, aOffset, vectors, xOffset, y, yOffset);
+            } else {
+                for (int i = 0; i < rows; i++) {
+                    double sum = 0;
+                    for (int j = 0, a = aOffset + i * cols; j < cols; j++, a++) {
+                        sum += data[a] * vectors[xOffset + j];
+                    }
+                    y[yOffset + i] = sum;
+                }
+            }
+        }
+        if (y != destination) {
+            System.arraycopy(y, 0, destination, 0, y.length);
+        }
+        return destination;
+    }
+
+    public MatrixBatch transpose() {
+        return transpose(new MatrixBatch(count, cols, rows));
+    }
+
+    /**
+     * Stores the transposes of the matrices of this batch in the given
+     * destination, which may be this batch when the matrices are square.
+     *
+     * @return The destination.
+     */
+    public MatrixBatch transpose(final MatrixBatch destination) throws IllegalArgumentException {
+        throwIfInvalidDestination(destination, cols, rows);
+        double[] t = destination.data;
+        for (int k = 0, offset = 0; k < count; k++, offset += size) {
+            if (t == data) {
+                // Square, so swap across the diagonal
+                for (int i = 0; i < rows; i++) {
+                    for (int j = i + 1; j < cols; j++) {
+                        double temp = data[offset + i * cols + j];
+                        data[offset + i * cols + j] = data[offset + j * rows + i];
+                        data[offset + j * rows + i] = temp;
+                    }
+                }
+            } else {
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0; j < cols; j++) {
+                        t[offset + j * rows + i] = data[offset + i * cols + j];
+                    }
+                }
+            }
+        }
+        return destination;
+    }
+
+    /**
+     * @return The determinants of the matrices of this batch.
+     * @throws ArithmeticException If the matrices are not square.
+     */
+    public double[] determinants() throws ArithmeticException {
+        return determinants(new double[count]);
+    }
+
+    /**
+     * Stores the determinants of the matrices of this batch in the given array.
+     *
+     * @return The destination.
+     * @throws ArithmeticException If the matrices are not square.
+     */
+    public double[] determinants(final double[] destination) throws ArithmeticException, IllegalArgumentException {
+        throwIfNotSquare("determinant");
+        if (destination.length != count) {
+            throw new IllegalArgumentException("Invalid destination. Expected : " + count
+                    + " elements Found : " + destination.length);
+        }
+        double[] scratch = rows > 4 ? new double[size] : null;
+        for (int k = 0, offset = 0; k < count; k++, offset += size) {
+            switch (rows) {
+                case 4:
+                    destination[k] = SmallKernels.determinant4(data, offset);
+                    break;
+                case 3:
+                    destination[k] = SmallKernels.determinant3(data, offset);
+                    break;
+                case 2:
+                    destination[k] = SmallKernels.determinant2(data, offset);
+                    break;
+                case 1:
+                    destination[k] = data[offset];
+                    break;
+                case 0:
+                    destination[k] = 1;
+                    break;
+                default:
+                    System.arraycopy(data, offset, scratch, 0, size);
+                    destination[k] = determinant(scratch, rows);
+            }
+        }
+        return destination;
+    }
+
+    /**
+     * @return The inverses of the matrices of this batch.
+     * @throws ArithmeticException If the matrices are not square, or one of
+     *                             them is singular.
+     */
+    public MatrixBatch inverse() throws ArithmeticException {
+        return inverse(new MatrixBatch(count, rows, cols));
+    }
+
+    /**
+     * Stores the inverses of the matrices of this batch in the given
+     * destination, which may be this batch.
+     * <p>
+     * A matrix of order 2 to 4 counts as singular when its determinant is
+     * negligible next to the product of its row norms, as described in
+     * {@link SmallKernels}; any other when a pivot is, as in
+     * {@link LUDecomposition}. The matrices before the singular one have
+     * been inverted by the time the exception is thrown, and the rest are
+     * untouched.
+     *
+     * @return The destination.
+     * @throws ArithmeticException If the matrices are not square, or one of
+     *                             them is singular.
+     */
+    public MatrixBatch inverse(final MatrixBatch destination) throws ArithmeticException, IllegalArgumentException {
+        throwIfNotSquare("inverse");
+        throwIfInvalidDestination(destination, rows, cols);
+        double[] c = destination.data;
+        double[] scratch = null;
+        double[] identity = null;
+        if (rows < 2 || rows > 4) {
+            scratch = new double[size];
+            identity = new double[size];
+        }
+        for (int k = 0, offset = 0; k < count; k++, offset += size) {
+            boolean inverted;
+            switch (rows) {
+                case 4:
+                    inverted = SmallKernels.invert4(data, offset, c, offset);
+                    break;
+                case 3:
+                    inverted = SmallKernels.invert3(data, offset, c, offset);
+                    break;
+                case 2:
+                    inverted = SmallKernels.invert2(data, offset, c, offset);
+                    break;
+                default:
+                    System.arraycopy(data, offset, scratch, 0, size);
+                    inverted = invert(scratch, identity, c, offset, rows);
+            }
+            if (!inverted) {
+                throw new ArithmeticException("Cannot find inverse of the singular matrix at index " + k + ".");
+            }
+        }
+        return destination;
+    }
+
+    /**
+     * Reduces the n x n matrix in a to upper triangular form by Gaussian
+     * elimination with partial pivoting.
+     *
+     * @return The determinant of a.
+     */
+    private static double determinant(final double[] a, final int n) {
+        double determinant = 1;
+        for (int k = 0; k < n; k++) {
+            int pivot = pivot(a, k, n);
+            double value = a[pivot * n + k];
+            if (value == 0) {
+                return 0;
+            }
+            if (pivot != k) {
+                swapRows(a, k, pivot, n);
+                determinant = -determinant;
+            }
+            determinant *= value;
+            for (int i = k + 1; i < n; i++) {
+                double factor = a[i * n + k] / value;
+                for (int j = k + 1; j < n; j++) {
+                    a[i * n + j] -= factor * a[k * n + j];
+                }
+            }
+        }
+        return determinant;
+    }
+
+    /**
+     * Reduces the n x n matrix in a to the identity by Gauss-Jordan
+     * elimination with partial pivoting, applying the same steps to x,
+     * which is overwritten with the identity first, and stores the inverse
+     * that results at the given offset of c.
+     *
+     * @return Whether a could be inverted, which it cannot if a pivot is
+     * below {@link Standards#EPSILON} times its largest element. c is left
+     * alone if so.
+     */
+    private static boolean invert(final double[] a, final double[] x, final double[] c,
+                                  final int offset, final int n) {
+        double max = 0;
+        for (int i = 0; i < n * n; i++) {
+            max = Math.max(max, Math.abs(a[i]));
+        }
+        double tolerance = EPSILON * max;
+        Arrays.fill(x, 0);
+        for (int i = 0; i < n; i++) {
+            x[i * n + i] = 1;
+        }
+        for (int k = 0; k < n; k++) {
+            int pivot = pivot(a, k, n);
+            double value = a[pivot * n + k];
+            if (!(Math.abs(value) > tolerance)) {
+                return false;
+            }
+            if (pivot != k) {
+                swapRows(a, k, pivot, n);
+                swapRows(x, k, pivot, n);
+            }
+            double scale = 1 / value;
+            for (int j = k + 1; j < n; j++) {
+                a[k * n + j] *= scale;
+            }
+            for (int j = 0; j < n; j++) {
+                x[k * n + j] *= scale;
+            }
+            for (int i = 0; i < n; i++) {
+                double factor = a[i * n + k];
+                if (i == k || factor == 0) {
+                    continue;
+                }
+                for (int j = k + 1; j < n; j++) {
+                    a[i * n + j] -= factor * a[k * n + j];
+                }
+                for (int j = 0; j < n; j++) {
+                    x[i * n + j] -= factor * x[k * n + j];
+                }
+            }
+        }
+        System.arraycopy(x, 0, c, offset, n * n);
+        return true;
+    }
+
+    /**
+     * @return The row, from k on, of the largest element of column k.
+     */
+    private static int pivot(final double[] a, final int k, final int n) {
+        int pivot = k;
+        for (int i = k + 1; i < n; i++) {
+            if (Math.abs(a[i * n + k]) > Math.abs(a[pivot * n + k])) {
+                pivot = i;
+            }
+        }
+        return pivot;
+    }
+
+    private static void swapRows(final double[] a, final int i, final int j, final int n) {
+        for (int k = 0; k < n; k++) {
+            double temp = a[i * n + k];
+            a[i * n + k] = a[j * n + k];
+            a[j * n + k] = temp;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MatrixBatch)) return false;
+        MatrixBatch batch = (MatrixBatch) o;
+        return count == batch.count && rows == batch.rows && cols == batch.cols
+                && Arrays.equals(data, batch.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * count + rows) + cols) + Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return count + " matrices of order " + rows + " x " + cols;
+    }
+}
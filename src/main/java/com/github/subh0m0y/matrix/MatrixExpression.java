@@ -0,0 +1,540 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * A lazily evaluated combination of matrices.
+ * <p>
+ * Building an expression only records the operations; no arithmetic is
+ * done and no temporary matrices are allocated until it is evaluated. So
+ * <pre>{@code
+ * a.lazy().add(b).scale(2).elementMultiply(c).subtract(d).evaluate()
+ * }</pre>
+ * computes the same result as the eager chain
+ * {@code a.add(b).scale(2).elementMultiply(c).subtract(d)}, but in one pass
+ * over memory and with a single allocation for the result. Evaluating into
+ * an existing matrix with {@link #evaluateInto(Matrix)} avoids even that.
+ * <p>
+ * Element-wise operations are fused: the result is produced one tile of a
+ * row at a time, and every operation is applied to the tile while it is
+ * still in cache, reading each operand exactly once. A product of matrices
+ * at the top of an expression, possibly scaled and with a matrix added to
+ * or subtracted from it, is computed by a single fused multiply-add in the
+ * {@link Gemm} kernel. Products anywhere else are computed into a temporary
+ * matrix first.
+ * <p>
+ * Operands are read when the expression is evaluated, not when it is
+ * built, and an expression can be evaluated any number of times.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class MatrixExpression {
+    /**
+     * The number of elements of a row processed at a time.
+     */
+    static final int TILE = 1024;
+
+    final int rows;
+    final int cols;
+
+    private MatrixExpression(final int rows, final int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * @param matrix The matrix to start the expression with.
+     * @return An expression with the given matrix as its only operand.
+     * @see Matrix#lazy()
+     */
+    public static MatrixExpression of(final Matrix matrix) {
+        return new Operand(matrix);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    private void checkSameShape(final MatrixExpression expression, final String operation)
+            throws IllegalArgumentException {
+        if (expression.rows != rows || expression.cols != cols) {
+            throw new IllegalArgumentException("Given matrix is not compatible with the invoking matrix for "
+                    + operation);
+        }
+    }
+
+    public MatrixExpression add(final Matrix addend) throws IllegalArgumentException {
+        return add(of(addend));
+    }
+
+    public MatrixExpression add(final MatrixExpression addend) throws IllegalArgumentException {
+        checkSameShape(addend, "addition");
+        return new ElementWise(Operation.ADD, this, addend);
+    }
+
+    public MatrixExpression subtract(final Matrix subtrahend) throws IllegalArgumentException {
+        return subtract(of(subtrahend));
+    }
+
+    public MatrixExpression subtract(final MatrixExpression subtrahend) throws IllegalArgumentException {
+        checkSameShape(subtrahend, "subtraction");
+        return new ElementWise(Operation.SUBTRACT, this, subtrahend);
+    }
+
+    public MatrixExpression elementMultiply(final Matrix matrix) throws IllegalArgumentException {
+        return elementMultiply(of(matrix));
+    }
+
+    public MatrixExpression elementMultiply(final MatrixExpression expression) throws IllegalArgumentException {
+        checkSameShape(expression, "element-wise multiplication");
+        return new ElementWise(Operation.MULTIPLY, this, expression);
+    }
+
+    public MatrixExpression elementDivide(final Matrix matrix) throws IllegalArgumentException {
+        return elementDivide(of(matrix));
+    }
+
+    public MatrixExpression elementDivide(final MatrixExpression expression) throws IllegalArgumentException {
+        checkSameShape(expression, "element-wise division");
+        return new ElementWise(Operation.DIVIDE, this, expression);
+    }
+
+    public MatrixExpression scale(final double scale) {
+        return new Scaled(this, scale);
+    }
+
+    public MatrixExpression multiply(final Matrix multiplicand) throws IllegalArgumentException {
+        return multiply(of(multiplicand));
+    }
+
+    public MatrixExpression multiply(final MatrixExpression multiplicand) throws IllegalArgumentException {
+        if (multiplicand.rows != cols) {
+            throw new IllegalArgumentException("Given matrix is not compatible with the invoking matrix for "
+                    + "multiplication");
+        }
+        return new Product(this, multiplicand);
+    }
+
+    /**
+     * Evaluates this expression into a new matrix.
+     *
+     * @return The result.
+     */
+    public Matrix evaluate() {
+        return evaluateInto(new Matrix(rows, cols));
+    }
+
+    /**
+     * Evaluates this expression into the given matrix, overwriting its
+     * elements. The destination may be one of the operands of an
+     * element-wise expression.
+     *
+     * @param destination The matrix to store the result in, of the same
+     *                    shape as this expression.
+     * @return The destination.
+     * @throws IllegalArgumentException      If the shapes differ.
+     * @throws UnsupportedOperationException If the destination is frozen.
+     */
+    public Matrix evaluateInto(final Matrix destination)
+            throws IllegalArgumentException, UnsupportedOperationException {
+        if (destination.getRows() != rows || destination.getCols() != cols) {
+            throw new IllegalArgumentException("Destination is not compatible with the expression. Expected : "
+                    + rows + " x " + cols + " Found : " + destination.getRows() + " x " + destination.getCols());
+        }
+        destination.markModified();
+        if (!multiplyAddInto(destination)) {
+            resolveProducts().evaluateElementWise(destination);
+        }
+        return destination;
+    }
+
+    /**
+     * Evaluates this expression through a single call to the multiply-add
+     * kernel, if it has the form alpha * (A * B) + beta * E, where E is an
+     * element-wise expression or absent.
+     *
+     * @return Whether the expression had that form and has been evaluated.
+     */
+    private boolean multiplyAddInto(final Matrix destination) {
+        MatrixExpression product = this;
+        MatrixExpression addend = null;
+        double sign = 1;
+        double beta = 0;
+        if (this instanceof ElementWise) {
+            ElementWise elementWise = (ElementWise) this;
+            if (elementWise.operation == Operation.ADD || elementWise.operation == Operation.SUBTRACT) {
+                boolean subtract = elementWise.operation == Operation.SUBTRACT;
+                if (isScaledProduct(elementWise.left)) {
+                    product = elementWise.left;
+                    addend = elementWise.right;
+                    beta = subtract ? -1 : 1;
+                } else if (isScaledProduct(elementWise.right)) {
+                    product = elementWise.right;
+                    addend = elementWise.left;
+                    sign = subtract ? -1 : 1;
+                    beta = 1;
+                }
+            }
+        }
+        if (!isScaledProduct(product) || destination.getColStride() != 1) {
+            return false;
+        }
+        double alpha = sign;
+        if (product instanceof Scaled) {
+            alpha *= ((Scaled) product).scale;
+            product = ((Scaled) product).operand;
+        }
+        Matrix a = ((Product) product).left.resolve();
+        Matrix b = ((Product) product).right.resolve();
+        if (a.getData() == destination.getData() || b.getData() == destination.getData()) {
+            // The kernel cannot write over its own operands
+            return false;
+        }
+        if (addend != null) {
+            addend.resolveProducts().evaluateElementWise(destination);
+        }
+        Gemm.multiplyAdd(alpha, a.getData(), a.getOffset(), a.getRowStride(), a.getColStride(),
+                b.getData(), b.getOffset(), b.getRowStride(), b.getColStride(),
+                beta, destination.getData(), destination.getOffset(), destination.getRowStride(),
+                a.getRows(), a.getCols(), b.getCols(), null);
+        return true;
+    }
+
+    private static boolean isScaledProduct(final MatrixExpression expression) {
+        return expression instanceof Product
+                || expression instanceof Scaled && ((Scaled) expression).operand instanceof Product;
+    }
+
+    /**
+     * @return The value of this expression as a matrix, which is the
+     * operand itself for a single operand.
+     */
+    Matrix resolve() {
+        return evaluate();
+    }
+
+    /**
+     * @return An equivalent expression in which every product has been
+     * replaced by its value.
+     */
+    abstract MatrixExpression resolveProducts();
+
+    /**
+     * @return Whether the backing array of the given matrix is read by
+     * this expression.
+     */
+    abstract boolean reads(Matrix matrix);
+
+    /**
+     * @return Whether an operand shares the backing array of the given
+     * matrix in another region or layout, such as a transposed view, so
+     * that writing one element of the matrix may change another operand
+     * element still to be read.
+     */
+    abstract boolean aliases(Matrix matrix);
+
+    /**
+     * @return Whether every operand is stored as one unbroken row-major run.
+     */
+    abstract boolean isCompact();
+
+    /**
+     * Stores the given run of elements of this expression in out. When a
+     * nested expression needs a buffer of its own, it takes the one for
+     * its depth from the scratch space.
+     *
+     * @param row     The row of the run. For compact expressions this may
+     *                be zero with a run spanning several rows.
+     * @param col     The column at which the run starts.
+     * @param length  The number of elements in the run.
+     * @param out     The buffer to store the run in.
+     * @param outOff  The index of the first element of the run in out.
+     * @param scratch One buffer of {@link #TILE} elements per nesting level.
+     * @param depth   The nesting level of this expression.
+     */
+    abstract void evaluateRun(int row, int col, int length, double[] out, int outOff,
+                              double[][] scratch, int depth);
+
+    /**
+     * @return The number of nested buffers needed to evaluate this expression.
+     */
+    abstract int depth();
+
+    /**
+     * Evaluates this product-free expression into the destination, one
+     * tile at a time. An operand in the same region as the destination is
+     * read a tile ahead of every write, through scratch space; one sharing
+     * its array in any other layout could be read after it has been
+     * written, so the whole result is evaluated apart first.
+     */
+    private void evaluateElementWise(final Matrix destination) {
+        if (aliases(destination)) {
+            Matrix result = new Matrix(rows, cols);
+            evaluateElementWise(result);
+            destination.assign(result);
+            return;
+        }
+        double[][] scratch = new double[depth() + 1][];
+        for (int i = 0; i < scratch.length; i++) {
+            scratch[i] = new double[TILE];
+        }
+        double[] data = destination.getData();
+        boolean direct = destination.getColStride() == 1 && !reads(destination);
+        if (direct && destination.isCompact() && isCompact()) {
+            // One long run over every element
+            int size = rows * cols;
+            for (int start = 0; start < size; start += TILE) {
+                evaluateRun(0, start, Math.min(TILE, size - start), data, destination.getOffset() + start,
+                        scratch, 1);
+            }
+            return;
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j += TILE) {
+                int length = Math.min(TILE, cols - j);
+                if (direct) {
+                    evaluateRun(i, j, length, data, destination.index(i, j), scratch, 1);
+                } else {
+                    evaluateRun(i, j, length, scratch[0], 0, scratch, 1);
+                    Kernels.copy(length, scratch[0], 0, 1, data, destination.index(i, j),
+                            destination.getColStride());
+                }
+            }
+        }
+    }
+
+    /**
+     * The element-wise operations, applied to runs in the manner of
+     * {@link Kernels}: y[i] = y[i] op x[i].
+     */
+    enum Operation {
+        ADD {
+            @Override
+            void apply(int n, double[] x, int xOffset, int incX, double[] y, int yOffset) {
+                Kernels.add(n, x, xOffset, incX, y, yOffset, 1);
+            }
+        },
+        SUBTRACT {
+            @Override
+            void apply(int n, double[] x, int xOffset, int incX, double[] y, int yOffset) {
+                Kernels.subtract(n, x, xOffset, incX, y, yOffset, 1);
+            }
+        },
+        MULTIPLY {
+            @Override
+            void apply(int n, double[] x, int xOffset, int incX, double[] y, int yOffset) {
+                Kernels.multiply(n, x, xOffset, incX, y, yOffset, 1);
+            }
+        },
+        DIVIDE {
+            @Override
+            void apply(int n, double[] x, int xOffset, int incX, double[] y, int yOffset) {
+                Kernels.divide(n, x, xOffset, incX, y, yOffset, 1);
+            }
+        };
+
+        abstract void apply(int n, double[] x, int xOffset, int incX, double[] y, int yOffset);
+    }
+
+    /**
+     * A single matrix.
+     */
+    private static final class Operand extends MatrixExpression {
+        private final Matrix matrix;
+
+        Operand(final Matrix matrix) {
+            super(matrix.getRows(), matrix.getCols());
+            this.matrix = matrix;
+        }
+
+        @Override
+        Matrix resolve() {
+            return matrix;
+        }
+
+        @Override
+        MatrixExpression resolveProducts() {
+            return this;
+        }
+
+        @Override
+        boolean reads(final Matrix destination) {
+            return matrix.getData() == destination.getData();
+        }
+
+        @Override
+        boolean aliases(final Matrix destination) {
+            return reads(destination) && !matrix.isSameRegion(destination);
+        }
+
+        @Override
+        boolean isCompact() {
+            return matrix.isCompact();
+        }
+
+        @Override
+        int depth() {
+            return 0;
+        }
+
+        @Override
+        void evaluateRun(final int row, final int col, final int length, final double[] out, final int outOff,
+                         final double[][] scratch, final int depth) {
+            Kernels.copy(length, matrix.getData(), matrix.index(row, col), matrix.getColStride(), out, outOff, 1);
+        }
+    }
+
+    /**
+     * An expression multiplied by a scalar.
+     */
+    private static final class Scaled extends MatrixExpression {
+        private final MatrixExpression operand;
+        private final double scale;
+
+        Scaled(final MatrixExpression operand, final double scale) {
+            super(operand.rows, operand.cols);
+            this.operand = operand;
+            this.scale = scale;
+        }
+
+        @Override
+        MatrixExpression resolveProducts() {
+            MatrixExpression resolved = operand.resolveProducts();
+            return resolved == operand ? this : new Scaled(resolved, scale);
+        }
+
+        @Override
+        boolean reads(final Matrix destination) {
+            return operand.reads(destination);
+        }
+
+        @Override
+        boolean aliases(final Matrix destination) {
+            return operand.aliases(destination);
+        }
+
+        @Override
+        boolean isCompact() {
+            return operand.isCompact();
+        }
+
+        @Override
+        int depth() {
+            return operand.depth();
+        }
+
+        @Override
+        void evaluateRun(final int row, final int col, final int length, final double[] out, final int outOff,
+                         final double[][] scratch, final int depth) {
+            operand.evaluateRun(row, col, length, out, outOff, scratch, depth);
+            Kernels.scale(length, scale, out, outOff, 1);
+        }
+    }
+
+    /**
+     * Two expressions of the same shape combined element by element.
+     */
+    private static final class ElementWise extends MatrixExpression {
+        private final Operation operation;
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+
+        ElementWise(final Operation operation, final MatrixExpression left, final MatrixExpression right) {
+            super(left.rows, left.cols);
+            this.operation = operation;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        MatrixExpression resolveProducts() {
+            MatrixExpression resolvedLeft = left.resolveProducts();
+            MatrixExpression resolvedRight = right.resolveProducts();
+            return resolvedLeft == left && resolvedRight == right ? this
+                    : new ElementWise(operation, resolvedLeft, resolvedRight);
+        }
+
+        @Override
+        boolean reads(final Matrix destination) {
+            return left.reads(destination) || right.reads(destination);
+        }
+
+        @Override
+        boolean aliases(final Matrix destination) {
+            return left.aliases(destination) || right.aliases(destination);
+        }
+
+        @Override
+        boolean isCompact() {
+            return left.isCompact() && right.isCompact();
+        }
+
+        @Override
+        int depth() {
+            // The left operand is evaluated in place; only the right one needs a buffer
+            return Math.max(left.depth(), right instanceof Operand ? 0 : right.depth() + 1);
+        }
+
+        @Override
+        void evaluateRun(final int row, final int col, final int length, final double[] out, final int outOff,
+                         final double[][] scratch, final int depth) {
+            left.evaluateRun(row, col, length, out, outOff, scratch, depth);
+            if (right instanceof Operand) {
+                // Read straight from the operand, without copying it
+                Operand operand = (Operand) right;
+                operation.apply(length, operand.matrix.getData(), operand.matrix.index(row, col),
+                        operand.matrix.getColStride(), out, outOff);
+            } else {
+                double[] buffer = scratch[depth];
+                right.evaluateRun(row, col, length, buffer, 0, scratch, depth + 1);
+                operation.apply(length, buffer, 0, 1, out, outOff);
+            }
+        }
+    }
+
+    /**
+     * The matrix product of two expressions.
+     */
+    private static final class Product extends MatrixExpression {
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+
+        Product(final MatrixExpression left, final MatrixExpression right) {
+            super(left.rows, right.cols);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        MatrixExpression resolveProducts() {
+            return new Operand(left.resolve().multiply(right.resolve()));
+        }
+
+        @Override
+        boolean reads(final Matrix destination) {
+            throw new IllegalStateException("Products must be resolved before evaluation.");
+        }
+
+        @Override
+        boolean aliases(final Matrix destination) {
+            throw new IllegalStateException("Products must be resolved before evaluation.");
+        }
+
+        @Override
+        boolean isCompact() {
+            throw new IllegalStateException("Products must be resolved before evaluation.");
+        }
+
+        @Override
+        int depth() {
+            throw new IllegalStateException("Products must be resolved before evaluation.");
+        }
+
+        @Override
+        void evaluateRun(final int row, final int col, final int length, final double[] out, final int outOff,
+                         final double[][] scratch, final int depth) {
+            throw new IllegalStateException("Products must be resolved before evaluation.");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * Counts the modifications made through a matrix and all of its views,
+ * and forbids any more once they have been frozen.
+ * <p>
+ * Views share the backing array of the matrix they were taken from, so
+ * they share its counter too: a write through any one of them changes the
+ * count seen by all of them, and freezing any one of them freezes all of
+ * them. Results derived from a matrix are stamped with the count at the
+ * time they were computed and are stale as soon as it moves on.
+ */
+final class ModificationCounter {
+    private long count;
+    private boolean frozen;
+
+    long get() {
+        return count;
+    }
+
+    void increment() {
+        count++;
+    }
+
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    void freeze() {
+        frozen = true;
+    }
+}
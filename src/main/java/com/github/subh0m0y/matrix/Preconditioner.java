@@ -0,0 +1,26 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * An approximation M of a coefficient matrix A whose systems are cheap to
+ * solve. An iterative solver that works with M<sup>-1</sup>A instead of A
+ * needs far fewer iterations when M is close to A.
+ *
+ * @see JacobiPreconditioner
+ * @see IncompleteLUPreconditioner
+ */
+public interface Preconditioner {
+    /**
+     * The preconditioner that does nothing, M = I.
+     */
+    Preconditioner IDENTITY = (vector, destination) ->
+            System.arraycopy(vector, 0, destination, 0, vector.length);
+
+    /**
+     * Solves Mz = r for z.
+     *
+     * @param vector      The right-hand side r.
+     * @param destination The array to store z in, of the same length,
+     *                    which is not the vector itself.
+     */
+    void apply(double[] vector, double[] destination);
+}
@@ -0,0 +1,597 @@
+package com.github.subh0m0y.matrix;
+
+import static com.github.subh0m0y.matrix.Standards.EPSILON;
+
+/**
+ * The QR decomposition of a matrix of any shape, such that A = QR, or
+ * AP = QR with column pivoting, where Q has orthonormal columns, R is upper
+ * triangular (upper trapezoidal for a wide matrix) and P is a column
+ * permutation.
+ * <p>
+ * Its main use is {@link #solveLeastSquares(double[])}: the x minimizing
+ * ||Ax - b|| for an overdetermined system is found from R and
+ * Q<sup>T</sup>b. That keeps the condition number of A, rather than the
+ * square of it that the normal equations A<sup>T</sup>Ax = A<sup>T</sup>b
+ * suffer from, and needs no inverse.
+ * <p>
+ * Q is a product of Householder reflectors, stored as the vectors that
+ * define them below the diagonal of R in a single row-major array, and is
+ * never formed unless asked for. The factorization is blocked: the
+ * reflectors of a panel of {@code blockSize} columns are combined into
+ * the compact WY form I - VTV<sup>T</sup>, with T upper triangular, which
+ * is applied to the rest of the matrix by two calls to the cache-blocked
+ * {@link Gemm} kernel. The panel itself is halved recursively in the same
+ * way, down to a few columns reduced one reflector at a time. The same
+ * blocks apply Q<sup>T</sup> to right-hand sides and form the thin Q.
+ * <p>
+ * Column pivoting brings the column of largest remaining norm forward at
+ * every step, so that the diagonal of R decreases in magnitude and its
+ * negligible tail reveals the rank of A. As that choice depends on every
+ * remaining column, it cannot wait for a block update. Instead the
+ * blocked factorization runs first, and the pivoted one runs on the
+ * min(m, n) x n factor R it leaves, whose columns have the same norms as
+ * those of A, so that the same columns are chosen. For a tall matrix
+ * nearly all of the work is still done by the blocked part.
+ */
+@SuppressWarnings("WeakerAccess")
+public class QRDecomposition {
+    /**
+     * The number of columns factored per panel, unless specified otherwise.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 32;
+    /**
+     * Panels of at most this many columns are reduced one column at a time.
+     */
+    private static final int LEAF_SIZE = 8;
+    /**
+     * When a downdated column norm has lost this much of its relative
+     * accuracy, it is computed afresh, as in LAPACK.
+     */
+    private static final double DOWNDATE_LIMIT = Math.sqrt(Math.ulp(1.0));
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final int blockSize;
+    private final double[] qr;
+    private final double[] tau;
+    private final double[][] blockFactors;
+    /**
+     * R, in the first min(m, n) rows, with the reflectors of the pivoted
+     * factorization below its diagonal when there are any.
+     */
+    private final double[] r;
+    private final double[] pivotedTau;
+    private final int[] pivot;
+    private final int rank;
+
+    /**
+     * Decomposes the given matrix, without column pivoting. The matrix
+     * itself is not modified.
+     *
+     * @param matrix The matrix to decompose.
+     */
+    public QRDecomposition(final Matrix matrix) {
+        this(matrix, false, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Decomposes the given matrix, with or without column pivoting. The
+     * matrix itself is not modified.
+     *
+     * @param matrix   The matrix to decompose.
+     * @param pivoting Whether to pivot the columns to reveal the rank.
+     */
+    public QRDecomposition(final Matrix matrix, final boolean pivoting) {
+        this(matrix, pivoting, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Decomposes the given matrix, factoring blockSize columns at a time.
+     * The matrix itself is not modified.
+     *
+     * @param matrix    The matrix to decompose.
+     * @param pivoting  Whether to pivot the columns to reveal the rank.
+     * @param blockSize The number of columns per panel.
+     * @throws IllegalArgumentException If the block size is not positive.
+     */
+    public QRDecomposition(final Matrix matrix, final boolean pivoting, final int blockSize)
+            throws IllegalArgumentException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Invalid block size : " + blockSize);
+        }
+        rows = matrix.getRows();
+        cols = matrix.getCols();
+        size = Math.min(rows, cols);
+        this.blockSize = blockSize;
+        qr = matrix.toLinearArray();
+        tau = new double[size];
+        blockFactors = new double[(size + blockSize - 1) / blockSize][];
+        for (int block = 0; block < blockFactors.length; block++) {
+            int kk = block * blockSize;
+            int kEnd = Math.min(size, kk + blockSize);
+            blockFactors[block] = factorPanel(kk, kEnd);
+            if (kEnd < cols) {
+                applyReflectors(kk, kEnd - kk, blockFactors[block], true, qr, kk * cols + kEnd, cols, cols - kEnd);
+            }
+        }
+        pivot = new int[cols];
+        for (int j = 0; j < cols; j++) {
+            pivot[j] = j;
+        }
+        if (pivoting) {
+            r = new double[size * cols];
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(qr, i * cols + i, r, i * cols + i, cols - i);
+            }
+            pivotedTau = new double[size];
+            factorPivoted();
+        } else {
+            r = qr;
+            pivotedTau = null;
+        }
+        rank = findRank();
+    }
+
+    /**
+     * Turns column k of a, from row k down to rowEnd, into a Householder
+     * reflector H = I - tau * v * v<sup>T</sup> that maps it onto a
+     * multiple of e<sub>1</sub>, as LAPACK's dlarfg does: v, whose first
+     * element is an implicit one, replaces the elements below the
+     * diagonal, and the image replaces the diagonal element.
+     *
+     * @return tau, which is zero if the column is already reduced.
+     */
+    private static double reflect(final double[] a, final int ld, final int k, final int rowEnd) {
+        int below = rowEnd - k - 1;
+        int diagonal = k * ld + k;
+        double norm = below > 0 ? Blas.norm2(below, a, diagonal + ld, ld) : 0;
+        if (norm == 0) {
+            return 0;
+        }
+        double alpha = a[diagonal];
+        double beta = -Math.copySign(Math.hypot(alpha, norm), alpha);
+        Kernels.scale(below, 1 / (alpha - beta), a, diagonal + ld, ld);
+        a[diagonal] = beta;
+        return (beta - alpha) / beta;
+    }
+
+    /**
+     * w = v<sup>T</sup>X for the reflector v starting at vOffset, over count
+     * rows of n elements of x. Whole rows at a time, so that every inner
+     * loop has unit stride.
+     */
+    private static void reflectorTimes(final double[] v, final int vOffset, final int ldv, final int count,
+                                       final double[] x, final int xOffset, final int ldx, final int n,
+                                       final double[] w) {
+        System.arraycopy(x, xOffset, w, 0, n);
+        for (int i = 1; i < count; i++) {
+            double vi = v[vOffset + i * ldv];
+            if (vi != 0) {
+                Kernels.axpy(n, vi, x, xOffset + i * ldx, 1, w, 0, 1);
+            }
+        }
+    }
+
+    /**
+     * X -= tau * v * w, the second half of applying a reflector.
+     */
+    private static void subtractReflector(final double tau, final double[] v, final int vOffset, final int ldv,
+                                          final int count, final double[] w, final int wOffset,
+                                          final double[] x, final int xOffset, final int ldx, final int n) {
+        Kernels.axpy(n, -tau, w, wOffset, 1, x, xOffset, 1);
+        for (int i = 1; i < count; i++) {
+            double vi = v[vOffset + i * ldv];
+            if (vi != 0) {
+                Kernels.axpy(n, -tau * vi, w, wOffset, 1, x, xOffset + i * ldx, 1);
+            }
+        }
+    }
+
+    /**
+     * Reduces columns [kk, kEnd) and builds T for them, recursively as
+     * LAPACK's dgeqrt3 does: the left half is reduced, applied to the right
+     * half as a block, and the right half reduced in turn. The two halves
+     * then combine into
+     * <pre>
+     * T = | T1  -T1 * V1'V2 * T2 |
+     *     | 0    T2              |
+     * </pre>
+     * so that all but the narrowest panels are worked on by {@link Gemm}.
+     *
+     * @return T, row-major.
+     */
+    private double[] factorPanel(final int kk, final int kEnd) {
+        int width = kEnd - kk;
+        if (width <= LEAF_SIZE) {
+            return factorColumns(kk, kEnd);
+        }
+        int half = width / 2;
+        int mid = kk + half;
+        int rest = width - half;
+        double[] left = factorPanel(kk, mid);
+        applyReflectors(kk, half, left, true, qr, kk * cols + mid, cols, rest);
+        double[] right = factorPanel(mid, kEnd);
+
+        // G = V1'V2, where V2 starts with a unit lower triangle at row mid
+        double[] g = new double[half * rest];
+        for (int i = 0; i < rest; i++) {
+            int row = (mid + i) * cols;
+            for (int j = 0; j < i; j++) {
+                Kernels.axpy(half, qr[row + mid + j], qr, row + kk, 1, g, j, rest);
+            }
+            Kernels.axpy(half, 1, qr, row + kk, 1, g, i, rest);
+        }
+        if (rows > kEnd) {
+            Gemm.multiplyAdd(1, qr, kEnd * cols + kk, 1, cols, qr, kEnd * cols + mid, cols, 1,
+                    1, g, 0, rest, half, rows - kEnd, rest, null);
+        }
+        // G = T1 * G * T2, both triangles in place
+        for (int i = 0; i < half; i++) {
+            Kernels.scale(rest, left[i * half + i], g, i * rest, 1);
+            for (int j = i + 1; j < half; j++) {
+                Kernels.axpy(rest, left[i * half + j], g, j * rest, 1, g, i * rest, 1);
+            }
+        }
+        for (int j = rest - 1; j >= 0; j--) {
+            Kernels.scale(half, right[j * rest + j], g, j, rest);
+            for (int i = 0; i < j; i++) {
+                Kernels.axpy(half, right[i * rest + j], g, i, rest, g, j, rest);
+            }
+        }
+
+        double[] t = new double[width * width];
+        for (int i = 0; i < half; i++) {
+            System.arraycopy(left, i * half, t, i * width, half);
+            Kernels.axpy(rest, -1, g, i * rest, 1, t, i * width + half, 1);
+        }
+        for (int i = 0; i < rest; i++) {
+            System.arraycopy(right, i * rest, t, (half + i) * width + half, rest);
+        }
+        return t;
+    }
+
+    /**
+     * Reduces columns [kk, kEnd) one reflector at a time, applying every
+     * reflector to the rest of the panel, and builds T column by column as
+     * LAPACK's dlarft does: T<sub>jj</sub> = tau<sub>j</sub> and the column
+     * above it is -tau<sub>j</sub> * T * V<sup>T</sup>v<sub>j</sub>.
+     *
+     * @return T, row-major.
+     */
+    private double[] factorColumns(final int kk, final int kEnd) {
+        int width = kEnd - kk;
+        double[] t = new double[width * width];
+        double[] u = new double[width];
+        for (int j = 0; j < width; j++) {
+            int k = kk + j;
+            int start = k * cols + k;
+            tau[k] = reflect(qr, cols, k, rows);
+            if (tau[k] != 0) {
+                // One pass over the panel gives v against both the earlier
+                // reflectors, to the left, and the columns still to be reduced
+                reflectorTimes(qr, start, cols, rows - k, qr, k * cols + kk, cols, width, u);
+                subtractReflector(tau[k], qr, start, cols, rows - k, u, j + 1,
+                        qr, start + 1, cols, width - j - 1);
+                for (int i = 0; i < j; i++) {
+                    t[i * width + j] = -tau[k] * Kernels.dot(j - i, t, i * width + i, 1, u, i, 1);
+                }
+            }
+            t[j * width + j] = tau[k];
+        }
+        return t;
+    }
+
+    /**
+     * Applies the block of reflectors in columns [kk, kk + width),
+     * (I - VTV<sup>T</sup>), or its
+     * transpose, to the rows of c from the first row of the block down:
+     * W = V<sup>T</sup>C, W = TW or T<sup>T</sup>W, and C -= VW. The unit
+     * lower triangle on top of V is applied by rows; the dense rest, read
+     * straight from the packed factors, goes through the {@link Gemm}
+     * kernel, except for a single column.
+     */
+    private void applyReflectors(final int kk, final int width, final double[] t, final boolean transpose,
+                                 final double[] c, final int cOffset, final int ldc, final int p) {
+        int tail = rows - kk - width;
+        int v2 = (kk + width) * cols + kk;
+        int c2 = cOffset + width * ldc;
+        double[] w = new double[width * p];
+
+        for (int i = 0; i < width; i++) {
+            int ci = cOffset + i * ldc;
+            Kernels.axpy(p, 1, c, ci, 1, w, i * p, 1);
+            for (int j = 0, v = (kk + i) * cols + kk; j < i; j++, v++) {
+                Kernels.axpy(p, qr[v], c, ci, 1, w, j * p, 1);
+            }
+        }
+        if (tail > 0 && p == 1) {
+            for (int i = 0; i < tail; i++) {
+                Kernels.axpy(width, c[c2 + i * ldc], qr, v2 + i * cols, 1, w, 0, 1);
+            }
+        } else if (tail > 0) {
+            Gemm.multiplyAdd(1, qr, v2, 1, cols, c, c2, ldc, 1, 1, w, 0, p, width, tail, p, null);
+        }
+
+        if (transpose) {
+            for (int i = width - 1; i >= 0; i--) {
+                Kernels.scale(p, t[i * width + i], w, i * p, 1);
+                for (int j = 0; j < i; j++) {
+                    Kernels.axpy(p, t[j * width + i], w, j * p, 1, w, i * p, 1);
+                }
+            }
+        } else {
+            for (int i = 0; i < width; i++) {
+                Kernels.scale(p, t[i * width + i], w, i * p, 1);
+                for (int j = i + 1; j < width; j++) {
+                    Kernels.axpy(p, t[i * width + j], w, j * p, 1, w, i * p, 1);
+                }
+            }
+        }
+
+        if (tail > 0 && p == 1) {
+            for (int i = 0; i < tail; i++) {
+                c[c2 + i * ldc] -= Kernels.dot(width, qr, v2 + i * cols, 1, w, 0, 1);
+            }
+        } else if (tail > 0) {
+            Gemm.multiplyAdd(-1, qr, v2, cols, 1, w, 0, p, 1, 1, c, c2, ldc, tail, width, p, null);
+        }
+        for (int i = 0; i < width; i++) {
+            int ci = cOffset + i * ldc;
+            Kernels.axpy(p, -1, w, i * p, 1, c, ci, 1);
+            for (int j = 0, v = (kk + i) * cols + kk; j < i; j++, v++) {
+                Kernels.axpy(p, -qr[v], w, j * p, 1, c, ci, 1);
+            }
+        }
+    }
+
+    /**
+     * Applies one block of the factorization to the rows of c, from the
+     * first row of the block down.
+     */
+    private void applyBlock(final int block, final boolean transpose, final double[] c, final int ldc, final int p) {
+        int kk = block * blockSize;
+        int width = Math.min(size, kk + blockSize) - kk;
+        applyReflectors(kk, width, blockFactors[block], transpose, c, kk * ldc, ldc, p);
+    }
+
+    /**
+     * Householder QR with column pivoting on R, in the manner of LAPACK's
+     * dlaqp2. The norms of the remaining columns are downdated after every
+     * step, and recomputed when cancellation has eaten into them.
+     */
+    private void factorPivoted() {
+        double[] norms = new double[cols];
+        double[] original = new double[cols];
+        for (int j = 0; j < cols; j++) {
+            norms[j] = size > 0 ? Blas.norm2(size, r, j, cols) : 0;
+            original[j] = norms[j];
+        }
+        double[] w = new double[cols];
+        for (int s = 0; s < size; s++) {
+            int p = s;
+            for (int j = s + 1; j < cols; j++) {
+                if (norms[j] > norms[p]) {
+                    p = j;
+                }
+            }
+            if (p != s) {
+                for (int i = 0; i < size; i++) {
+                    double temp = r[i * cols + s];
+                    r[i * cols + s] = r[i * cols + p];
+                    r[i * cols + p] = temp;
+                }
+                int temp = pivot[p];
+                pivot[p] = pivot[s];
+                pivot[s] = temp;
+                norms[p] = norms[s];
+                original[p] = original[s];
+            }
+            int start = s * cols + s;
+            int rest = cols - s - 1;
+            pivotedTau[s] = reflect(r, cols, s, size);
+            if (pivotedTau[s] != 0 && rest > 0) {
+                reflectorTimes(r, start, cols, size - s, r, start + 1, cols, rest, w);
+                subtractReflector(pivotedTau[s], r, start, cols, size - s, w, 0, r, start + 1, cols, rest);
+            }
+            for (int j = s + 1; j < cols; j++) {
+                if (norms[j] == 0) {
+                    continue;
+                }
+                double ratio = Math.abs(r[s * cols + j]) / norms[j];
+                double factor = Math.max(0, (1 + ratio) * (1 - ratio));
+                double relative = norms[j] / original[j];
+                if (factor * relative * relative <= DOWNDATE_LIMIT) {
+                    norms[j] = s + 1 < size ? Blas.norm2(size - s - 1, r, (s + 1) * cols + j, cols) : 0;
+                    original[j] = norms[j];
+                } else {
+                    norms[j] *= Math.sqrt(factor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the diagonal elements of R that are not negligible next to the
+     * largest one. With pivoting they decrease, and the count stops at the
+     * first negligible one.
+     */
+    private int findRank() {
+        double max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, Math.abs(r[i * cols + i]));
+        }
+        double tolerance = EPSILON * max;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (Math.abs(r[i * cols + i]) > tolerance) {
+                count++;
+            } else if (pivotedTau != null) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public boolean isPivoting() {
+        return pivotedTau != null;
+    }
+
+    /**
+     * @return The numerical rank of A, the number of diagonal elements of
+     * R that are not negligible next to the largest one, to within
+     * {@link Standards#EPSILON}. Only column pivoting makes this reliable;
+     * without it a rank deficient matrix may still leave no small
+     * diagonal element.
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * @return Whether the rank of A is the smaller of its dimensions.
+     */
+    public boolean isFullRank() {
+        return rank == size;
+    }
+
+    /**
+     * @return The permutation applied to the columns: column j of AP is
+     * column pivot[j] of A. Without pivoting this is the identity.
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    /**
+     * @return The upper triangular (or, for a wide matrix, trapezoidal)
+     * factor R, of min(m, n) rows and n columns.
+     */
+    public Matrix getR() {
+        double[] data = new double[size * cols];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(r, i * cols + i, data, i * cols + i, cols - i);
+        }
+        return Matrix.fromLinearArray(size, cols, data, false);
+    }
+
+    /**
+     * Forms the thin (economy) Q, the first min(m, n) columns of the full
+     * orthogonal factor, which are all that A = QR needs. It is built by
+     * applying the blocks of reflectors, last first, to the leading
+     * columns of the identity.
+     *
+     * @return Q, of m rows and min(m, n) orthonormal columns.
+     */
+    public Matrix getQ() {
+        double[] q = new double[rows * size];
+        for (int i = 0; i < size; i++) {
+            q[i * size + i] = 1;
+        }
+        if (pivotedTau != null) {
+            double[] w = new double[size];
+            for (int s = size - 1; s >= 0; s--) {
+                if (pivotedTau[s] != 0) {
+                    int start = s * cols + s;
+                    reflectorTimes(r, start, cols, size - s, q, s * size, size, size, w);
+                    subtractReflector(pivotedTau[s], r, start, cols, size - s, w, 0, q, s * size, size, size);
+                }
+            }
+        }
+        for (int block = blockFactors.length - 1; block >= 0; block--) {
+            applyBlock(block, false, q, size, size);
+        }
+        return Matrix.fromLinearArray(rows, size, q, false);
+    }
+
+    /**
+     * Replaces the rows of c, each of p elements, with Q<sup>T</sup>c.
+     */
+    private void applyQTranspose(final double[] c, final int p) {
+        for (int block = 0; block < blockFactors.length; block++) {
+            applyBlock(block, true, c, p, p);
+        }
+        if (pivotedTau != null) {
+            double[] w = new double[p];
+            for (int s = 0; s < size; s++) {
+                if (pivotedTau[s] != 0) {
+                    int start = s * cols + s;
+                    reflectorTimes(r, start, cols, size - s, c, s * p, p, p, w);
+                    subtractReflector(pivotedTau[s], r, start, cols, size - s, w, 0, c, s * p, p, p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the least squares solution for the rows of c, each of p
+     * elements: Q<sup>T</sup>c, followed by back substitution with the
+     * leading block of R and the inverse column permutation. With pivoting
+     * the unknowns beyond the rank are set to zero, which gives a basic
+     * solution for a rank deficient matrix.
+     */
+    private double[] solveLeastSquares(final double[] c, final int p) throws ArithmeticException {
+        int solved = pivotedTau != null ? rank : size;
+        if (rank < solved) {
+            throw new ArithmeticException("Cannot solve a least squares problem with a rank deficient matrix.");
+        }
+        applyQTranspose(c, p);
+        for (int i = solved - 1; i >= 0; i--) {
+            for (int j = i + 1; j < solved; j++) {
+                Kernels.axpy(p, -r[i * cols + j], c, j * p, 1, c, i * p, 1);
+            }
+            Kernels.scale(p, 1 / r[i * cols + i], c, i * p, 1);
+        }
+        double[] x = new double[cols * p];
+        for (int i = 0; i < solved; i++) {
+            System.arraycopy(c, i * p, x, pivot[i] * p, p);
+        }
+        return x;
+    }
+
+    /**
+     * Finds the x that minimizes ||Ax - b||. For a wide matrix, or a rank
+     * deficient one decomposed with pivoting, only as many unknowns as the
+     * rank are solved for, and the rest are zero.
+     *
+     * @param b The right-hand side, of length equal to the rows of A.
+     * @return The solution x, in a new array of length equal to the
+     * columns of A.
+     * @throws ArithmeticException If A is rank deficient and was
+     *                             decomposed without pivoting.
+     */
+    public double[] solveLeastSquares(final double[] b) throws IllegalArgumentException, ArithmeticException {
+        if (b.length != rows) {
+            throw new IllegalArgumentException("Invalid number of elements. Expected : " + rows
+                    + " Found : " + b.length);
+        }
+        return solveLeastSquares(b.clone(), 1);
+    }
+
+    /**
+     * Finds the least squares solution for every column of B, as a
+     * separate right-hand side. Q<sup>T</sup>B is found with the same
+     * blocked updates as the factorization.
+     *
+     * @param b The right-hand sides, with as many rows as A.
+     * @return The solution X, with as many rows as A has columns.
+     * @throws ArithmeticException If A is rank deficient and was
+     *                             decomposed without pivoting.
+     */
+    public Matrix solveLeastSquares(final Matrix b) throws IllegalArgumentException, ArithmeticException {
+        if (b.getRows() != rows) {
+            throw new IllegalArgumentException("Given matrix is not compatible with the decomposition for "
+                    + "solving. Expected rows : " + rows + " Found : " + b.getRows());
+        }
+        int p = b.getCols();
+        return Matrix.fromLinearArray(cols, p, solveLeastSquares(b.toLinearArray(), p), false);
+    }
+}
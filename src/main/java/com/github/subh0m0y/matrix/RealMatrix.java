@@ -0,0 +1,44 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * The operations shared by every representation of a real matrix, so that
+ * callers can switch between dense ({@link Matrix}) and sparse
+ * ({@link CSRMatrix}, {@link CSCMatrix}) storage without changing their
+ * code.
+ * <p>
+ * Operations pick the cheapest representation for their result: combining
+ * two sparse matrices of the same kind gives a sparse matrix, while
+ * anything involving a dense matrix gives a dense one.
+ */
+public interface RealMatrix {
+    int getRows();
+
+    int getCols();
+
+    double get(int i, int j) throws IndexOutOfBoundsException;
+
+    /**
+     * @return The transpose of this matrix.
+     */
+    RealMatrix transpose();
+
+    /**
+     * @param addend The matrix to add, of the same shape as this one.
+     * @return The sum.
+     * @throws IllegalArgumentException If the shapes differ.
+     */
+    RealMatrix add(RealMatrix addend) throws IllegalArgumentException;
+
+    /**
+     * @param multiplicand The matrix to multiply by, with as many rows as
+     *                     this matrix has columns.
+     * @return The product.
+     * @throws IllegalArgumentException If the shapes are incompatible.
+     */
+    RealMatrix multiply(RealMatrix multiplicand) throws IllegalArgumentException;
+
+    /**
+     * @return This matrix in dense form. A dense matrix returns itself.
+     */
+    Matrix toDense();
+}
@@ -0,0 +1,82 @@
+package com.github.subh0m0y.matrix;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * The results derived from one matrix, such as its rank, determinant,
+ * inverse or decompositions, keyed by name.
+ * <p>
+ * A cache holds the results computed at one modification count of the
+ * matrix and is replaced by a new one once the matrix moves on. Results
+ * that are expensive to hold, such as whole matrices, can be cached as
+ * reclaimable, in which case they are kept only through soft references
+ * and the garbage collector may drop them under memory pressure; they are
+ * then recomputed on the next lookup.
+ * <p>
+ * Lookups are safe from any number of threads, as needed by frozen
+ * matrices. A result that is present is returned without locking; one that
+ * is missing is computed by exactly one thread while the others asking for
+ * it wait.
+ */
+final class ResultCache {
+    private final long version;
+    private final ConcurrentMap<String, Entry> results = new ConcurrentHashMap<>();
+
+    /**
+     * @param version The modification count the results are computed at.
+     */
+    ResultCache(final long version) {
+        this.version = version;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param key         The name of the result.
+     * @param reclaimable Whether the result may be reclaimed by the garbage collector.
+     * @param computation Computes the result if it is not cached.
+     * @return The cached or freshly computed result.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(final String key, final boolean reclaimable, final Supplier<T> computation) {
+        Entry entry = results.get(key);
+        if (entry == null) {
+            entry = results.computeIfAbsent(key, k -> new Entry());
+        }
+        Object result = entry.get();
+        if (result == null) {
+            synchronized (entry) {
+                result = entry.get();
+                if (result == null) {
+                    result = computation.get();
+                    entry.set(result, reclaimable);
+                }
+            }
+        }
+        return (T) result;
+    }
+
+    /**
+     * Holds one result, either directly or through a soft reference.
+     */
+    private static final class Entry {
+        private volatile Object value;
+
+        Object get() {
+            Object result = value;
+            if (result instanceof SoftReference) {
+                result = ((SoftReference<?>) result).get();
+            }
+            return result;
+        }
+
+        void set(final Object result, final boolean reclaimable) {
+            value = reclaimable ? new SoftReference<>(result) : result;
+        }
+    }
+}
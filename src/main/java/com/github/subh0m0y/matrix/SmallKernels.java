@@ -0,0 +1,282 @@
+package com.github.subh0m0y.matrix;
+
+import static com.github.subh0m0y.matrix.Standards.EPSILON;
+
+/**
+ * Fully unrolled kernels for 2 x 2, 3 x 3 and 4 x 4 matrices, shared by
+ * the operations of {@link MatrixBatch}.
+ * <p>
+ * Each matrix is a compact, row-major run of an array, addressed by the
+ * array and the offset of its first element. Every kernel loads all of its
+ * operands into locals before storing anything, so that the result may
+ * overwrite an operand. There are no loops, bounds checks beyond the
+ * array's own, or allocations, which leaves the JIT free to keep the
+ * elements in registers.
+ * <p>
+ * Determinants and inverses use cofactor expansion. A matrix is treated as
+ * singular when its determinant is no larger than {@link Standards#EPSILON}
+ * times the product of the norms of its rows. That product bounds the
+ * determinant (Hadamard's inequality), and their ratio is unchanged by
+ * scaling any row, so it falls only as the rows approach dependence:
+ * diag(1, 1e-5, 1e-5, 1e-5) is as invertible as the identity.
+ */
+final class SmallKernels {
+    private SmallKernels() {
+    }
+
+    /**
+     * @return Whether a determinant is negligible next to the product of
+     * the row norms of the n x n matrix at the given offset.
+     */
+    static boolean isSingular(final double determinant, final double[] a, final int offset, final int n) {
+        double scale = 1;
+        for (int i = 0, k = offset; i < n; i++) {
+            double squares = 0;
+            for (int j = 0; j < n; j++, k++) {
+                squares += a[k] * a[k];
+            }
+            scale *= Math.sqrt(squares);
+        }
+        return !(Math.abs(determinant) > EPSILON * scale);
+    }
+
+    // ---- 2 x 2 ----
+
+    /**
+     * c = a * b
+     */
+    static void multiply2(final double[] a, final int aOffset, final double[] b, final int bOffset,
+                          final double[] c, final int cOffset) {
+        double a00 = a[aOffset], a01 = a[aOffset + 1];
+        double a10 = a[aOffset + 2], a11 = a[aOffset + 3];
+        double b00 = b[bOffset], b01 = b[bOffset + 1];
+        double b10 = b[bOffset + 2], b11 = b[bOffset + 3];
+        c[cOffset] = a00 * b00 + a01 * b10;
+        c[cOffset + 1] = a00 * b01 + a01 * b11;
+        c[cOffset + 2] = a10 * b00 + a11 * b10;
+        c[cOffset + 3] = a10 * b01 + a11 * b11;
+    }
+
+    /**
+     * y = a * x
+     */
+    static void multiplyVector2(final double[] a, final int aOffset, final double[] x, final int xOffset,
+                                final double[] y, final int yOffset) {
+        double x0 = x[xOffset], x1 = x[xOffset + 1];
+        y[yOffset] = a[aOffset] * x0 + a[aOffset + 1] * x1;
+        y[yOffset + 1] = a[aOffset + 2] * x0 + a[aOffset + 3] * x1;
+    }
+
+    static double determinant2(final double[] a, final int offset) {
+        return a[offset] * a[offset + 3] - a[offset + 1] * a[offset + 2];
+    }
+
+    /**
+     * c = inverse(a), unless a is singular, in which case c is left alone.
+     *
+     * @return Whether a could be inverted.
+     */
+    static boolean invert2(final double[] a, final int aOffset, final double[] c, final int cOffset) {
+        double a00 = a[aOffset], a01 = a[aOffset + 1];
+        double a10 = a[aOffset + 2], a11 = a[aOffset + 3];
+        double determinant = a00 * a11 - a01 * a10;
+        if (isSingular(determinant, a, aOffset, 2)) {
+            return false;
+        }
+        double inverse = 1 / determinant;
+        c[cOffset] = a11 * inverse;
+        c[cOffset + 1] = -a01 * inverse;
+        c[cOffset + 2] = -a10 * inverse;
+        c[cOffset + 3] = a00 * inverse;
+        return true;
+    }
+
+    // ---- 3 x 3 ----
+
+    /**
+     * c = a * b
+     */
+    static void multiply3(final double[] a, final int aOffset, final double[] b, final int bOffset,
+                          final double[] c, final int cOffset) {
+        double a00 = a[aOffset], a01 = a[aOffset + 1], a02 = a[aOffset + 2];
+        double a10 = a[aOffset + 3], a11 = a[aOffset + 4], a12 = a[aOffset + 5];
+        double a20 = a[aOffset + 6], a21 = a[aOffset + 7], a22 = a[aOffset + 8];
+        double b00 = b[bOffset], b01 = b[bOffset + 1], b02 = b[bOffset + 2];
+        double b10 = b[bOffset + 3], b11 = b[bOffset + 4], b12 = b[bOffset + 5];
+        double b20 = b[bOffset + 6], b21 = b[bOffset + 7], b22 = b[bOffset + 8];
+        c[cOffset] = a00 * b00 + a01 * b10 + a02 * b20;
+        c[cOffset + 1] = a00 * b01 + a01 * b11 + a02 * b21;
+        c[cOffset + 2] = a00 * b02 + a01 * b12 + a02 * b22;
+        c[cOffset + 3] = a10 * b00 + a11 * b10 + a12 * b20;
+        c[cOffset + 4] = a10 * b01 + a11 * b11 + a12 * b21;
+        c[cOffset + 5] = a10 * b02 + a11 * b12 + a12 * b22;
+        c[cOffset + 6] = a20 * b00 + a21 * b10 + a22 * b20;
+        c[cOffset + 7] = a20 * b01 + a21 * b11 + a22 * b21;
+        c[cOffset + 8] = a20 * b02 + a21 * b12 + a22 * b22;
+    }
+
+    /**
+     * y = a * x
+     */
+    static void multiplyVector3(final double[] a, final int aOffset, final double[] x, final int xOffset,
+                                final double[] y, final int yOffset) {
+        double x0 = x[xOffset], x1 = x[xOffset + 1], x2 = x[xOffset + 2];
+        y[yOffset] = a[aOffset] * x0 + a[aOffset + 1] * x1 + a[aOffset + 2] * x2;
+        y[yOffset + 1] = a[aOffset + 3] * x0 + a[aOffset + 4] * x1 + a[aOffset + 5] * x2;
+        y[yOffset + 2] = a[aOffset + 6] * x0 + a[aOffset + 7] * x1 + a[aOffset + 8] * x2;
+    }
+
+    static double determinant3(final double[] a, final int offset) {
+        double a00 = a[offset], a01 = a[offset + 1], a02 = a[offset + 2];
+        double a10 = a[offset + 3], a11 = a[offset + 4], a12 = a[offset + 5];
+        double a20 = a[offset + 6], a21 = a[offset + 7], a22 = a[offset + 8];
+        return a00 * (a11 * a22 - a12 * a21)
+                - a01 * (a10 * a22 - a12 * a20)
+                + a02 * (a10 * a21 - a11 * a20);
+    }
+
+    /**
+     * c = inverse(a), unless a is singular, in which case c is left alone.
+     *
+     * @return Whether a could be inverted.
+     */
+    static boolean invert3(final double[] a, final int aOffset, final double[] c, final int cOffset) {
+        double a00 = a[aOffset], a01 = a[aOffset + 1], a02 = a[aOffset + 2];
+        double a10 = a[aOffset + 3], a11 = a[aOffset + 4], a12 = a[aOffset + 5];
+        double a20 = a[aOffset + 6], a21 = a[aOffset + 7], a22 = a[aOffset + 8];
+        // Cofactors of the first row
+        double c00 = a11 * a22 - a12 * a21;
+        double c01 = a12 * a20 - a10 * a22;
+        double c02 = a10 * a21 - a11 * a20;
+        double determinant = a00 * c00 + a01 * c01 + a02 * c02;
+        if (isSingular(determinant, a, aOffset, 3)) {
+            return false;
+        }
+        double inverse = 1 / determinant;
+        c[cOffset] = c00 * inverse;
+        c[cOffset + 1] = (a02 * a21 - a01 * a22) * inverse;
+        c[cOffset + 2] = (a01 * a12 - a02 * a11) * inverse;
+        c[cOffset + 3] = c01 * inverse;
+        c[cOffset + 4] = (a00 * a22 - a02 * a20) * inverse;
+        c[cOffset + 5] = (a02 * a10 - a00 * a12) * inverse;
+        c[cOffset + 6] = c02 * inverse;
+        c[cOffset + 7] = (a01 * a20 - a00 * a21) * inverse;
+        c[cOffset + 8] = (a00 * a11 - a01 * a10) * inverse;
+        return true;
+    }
+
+    // ---- 4 x 4 ----
+
+    /**
+     * c = a * b
+     */
+    static void multiply4(final double[] a, final int aOffset, final double[] b, final int bOffset,
+                          final double[] c, final int cOffset) {
+        double b00 = b[bOffset], b01 = b[bOffset + 1], b02 = b[bOffset + 2], b03 = b[bOffset + 3];
+        double b10 = b[bOffset + 4], b11 = b[bOffset + 5], b12 = b[bOffset + 6], b13 = b[bOffset + 7];
+        double b20 = b[bOffset + 8], b21 = b[bOffset + 9], b22 = b[bOffset + 10], b23 = b[bOffset + 11];
+        double b30 = b[bOffset + 12], b31 = b[bOffset + 13], b32 = b[bOffset + 14], b33 = b[bOffset + 15];
+        double a0 = a[aOffset], a1 = a[aOffset + 1], a2 = a[aOffset + 2], a3 = a[aOffset + 3];
+        double a4 = a[aOffset + 4], a5 = a[aOffset + 5], a6 = a[aOffset + 6], a7 = a[aOffset + 7];
+        double a8 = a[aOffset + 8], a9 = a[aOffset + 9], a10 = a[aOffset + 10], a11 = a[aOffset + 11];
+        double a12 = a[aOffset + 12], a13 = a[aOffset + 13], a14 = a[aOffset + 14], a15 = a[aOffset + 15];
+        c[cOffset] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+        c[cOffset + 1] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+        c[cOffset + 2] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+        c[cOffset + 3] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
+        c[cOffset + 4] = a4 * b00 + a5 * b10 + a6 * b20 + a7 * b30;
+        c[cOffset + 5] = a4 * b01 + a5 * b11 + a6 * b21 + a7 * b31;
+        c[cOffset + 6] = a4 * b02 + a5 * b12 + a6 * b22 + a7 * b32;
+        c[cOffset + 7] = a4 * b03 + a5 * b13 + a6 * b23 + a7 * b33;
+        c[cOffset + 8] = a8 * b00 + a9 * b10 + a10 * b20 + a11 * b30;
+        c[cOffset + 9] = a8 * b01 + a9 * b11 + a10 * b21 + a11 * b31;
+        c[cOffset + 10] = a8 * b02 + a9 * b12 + a10 * b22 + a11 * b32;
+        c[cOffset + 11] = a8 * b03 + a9 * b13 + a10 * b23 + a11 * b33;
+        c[cOffset + 12] = a12 * b00 + a13 * b10 + a14 * b20 + a15 * b30;
+        c[cOffset + 13] = a12 * b01 + a13 * b11 + a14 * b21 + a15 * b31;
+        c[cOffset + 14] = a12 * b02 + a13 * b12 + a14 * b22 + a15 * b32;
+        c[cOffset + 15] = a12 * b03 + a13 * b13 + a14 * b23 + a15 * b33;
+    }
+
+    /**
+     * y = a * x
+     */
+    static void multiplyVector4(final double[] a, final int aOffset, final double[] x, final int xOffset,
+                                final double[] y, final int yOffset) {
+        double x0 = x[xOffset], x1 = x[xOffset + 1], x2 = x[xOffset + 2], x3 = x[xOffset + 3];
+        y[yOffset] = a[aOffset] * x0 + a[aOffset + 1] * x1 + a[aOffset + 2] * x2 + a[aOffset + 3] * x3;
+        y[yOffset + 1] = a[aOffset + 4] * x0 + a[aOffset + 5] * x1 + a[aOffset + 6] * x2 + a[aOffset + 7] * x3;
+        y[yOffset + 2] = a[aOffset + 8] * x0 + a[aOffset + 9] * x1 + a[aOffset + 10] * x2 + a[aOffset + 11] * x3;
+        y[yOffset + 3] = a[aOffset + 12] * x0 + a[aOffset + 13] * x1 + a[aOffset + 14] * x2
+                + a[aOffset + 15] * x3;
+    }
+
+    static double determinant4(final double[] a, final int offset) {
+        double a00 = a[offset], a01 = a[offset + 1], a02 = a[offset + 2], a03 = a[offset + 3];
+        double a10 = a[offset + 4], a11 = a[offset + 5], a12 = a[offset + 6], a13 = a[offset + 7];
+        double a20 = a[offset + 8], a21 = a[offset + 9], a22 = a[offset + 10], a23 = a[offset + 11];
+        double a30 = a[offset + 12], a31 = a[offset + 13], a32 = a[offset + 14], a33 = a[offset + 15];
+        // 2 x 2 minors of the top two rows (s) and of the bottom two (t)
+        double s0 = a00 * a11 - a10 * a01;
+        double s1 = a00 * a12 - a10 * a02;
+        double s2 = a00 * a13 - a10 * a03;
+        double s3 = a01 * a12 - a11 * a02;
+        double s4 = a01 * a13 - a11 * a03;
+        double s5 = a02 * a13 - a12 * a03;
+        double t5 = a22 * a33 - a32 * a23;
+        double t4 = a21 * a33 - a31 * a23;
+        double t3 = a21 * a32 - a31 * a22;
+        double t2 = a20 * a33 - a30 * a23;
+        double t1 = a20 * a32 - a30 * a22;
+        double t0 = a20 * a31 - a30 * a21;
+        return s0 * t5 - s1 * t4 + s2 * t3 + s3 * t2 - s4 * t1 + s5 * t0;
+    }
+
+    /**
+     * c = inverse(a), unless a is singular, in which case c is left alone.
+     * The inverse is the adjugate, built from the same 2 x 2 minors as the
+     * determinant, divided by the determinant.
+     *
+     * @return Whether a could be inverted.
+     */
+    static boolean invert4(final double[] a, final int aOffset, final double[] c, final int cOffset) {
+        double a00 = a[aOffset], a01 = a[aOffset + 1], a02 = a[aOffset + 2], a03 = a[aOffset + 3];
+        double a10 = a[aOffset + 4], a11 = a[aOffset + 5], a12 = a[aOffset + 6], a13 = a[aOffset + 7];
+        double a20 = a[aOffset + 8], a21 = a[aOffset + 9], a22 = a[aOffset + 10], a23 = a[aOffset + 11];
+        double a30 = a[aOffset + 12], a31 = a[aOffset + 13], a32 = a[aOffset + 14], a33 = a[aOffset + 15];
+        double s0 = a00 * a11 - a10 * a01;
+        double s1 = a00 * a12 - a10 * a02;
+        double s2 = a00 * a13 - a10 * a03;
+        double s3 = a01 * a12 - a11 * a02;
+        double s4 = a01 * a13 - a11 * a03;
+        double s5 = a02 * a13 - a12 * a03;
+        double t5 = a22 * a33 - a32 * a23;
+        double t4 = a21 * a33 - a31 * a23;
+        double t3 = a21 * a32 - a31 * a22;
+        double t2 = a20 * a33 - a30 * a23;
+        double t1 = a20 * a32 - a30 * a22;
+        double t0 = a20 * a31 - a30 * a21;
+        double determinant = s0 * t5 - s1 * t4 + s2 * t3 + s3 * t2 - s4 * t1 + s5 * t0;
+        if (isSingular(determinant, a, aOffset, 4)) {
+            return false;
+        }
+        double inverse = 1 / determinant;
+        c[cOffset] = (a11 * t5 - a12 * t4 + a13 * t3) * inverse;
+        c[cOffset + 1] = (-a01 * t5 + a02 * t4 - a03 * t3) * inverse;
+        c[cOffset + 2] = (a31 * s5 - a32 * s4 + a33 * s3) * inverse;
+        c[cOffset + 3] = (-a21 * s5 + a22 * s4 - a23 * s3) * inverse;
+        c[cOffset + 4] = (-a10 * t5 + a12 * t2 - a13 * t1) * inverse;
+        c[cOffset + 5] = (a00 * t5 - a02 * t2 + a03 * t1) * inverse;
+        c[cOffset + 6] = (-a30 * s5 + a32 * s2 - a33 * s1) * inverse;
+        c[cOffset + 7] = (a20 * s5 - a22 * s2 + a23 * s1) * inverse;
+        c[cOffset + 8] = (a10 * t4 - a11 * t2 + a13 * t0) * inverse;
+        c[cOffset + 9] = (-a00 * t4 + a01 * t2 - a03 * t0) * inverse;
+        c[cOffset + 10] = (a30 * s4 - a31 * s2 + a33 * s0) * inverse;
+        c[cOffset + 11] = (-a20 * s4 + a21 * s2 - a23 * s0) * inverse;
+        c[cOffset + 12] = (-a10 * t3 + a11 * t1 - a12 * t0) * inverse;
+        c[cOffset + 13] = (a00 * t3 - a01 * t1 + a02 * t0) * inverse;
+        c[cOffset + 14] = (-a30 * s3 + a31 * s1 - a32 * s0) * inverse;
+        c[cOffset + 15] = (a20 * s3 - a21 * s1 + a22 * s0) * inverse;
+        return true;
+    }
+}
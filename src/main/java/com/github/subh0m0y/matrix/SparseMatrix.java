@@ -0,0 +1,372 @@
+package com.github.subh0m0y.matrix;
+
+import java.util.Arrays;
+
+/**
+ * A sparse matrix in compressed form, storing only its non-zero elements.
+ * <p>
+ * The elements are grouped by their major index (the row in
+ * {@link CSRMatrix}, the column in {@link CSCMatrix}). The non-zeros of
+ * major m occupy positions [pointers[m], pointers[m + 1]) of the indices
+ * and values arrays, in ascending order of their minor index. There are
+ * never any duplicates or explicitly stored zeros, so two matrices with
+ * the same elements have the same arrays.
+ * <p>
+ * Sparse matrices are immutable, which lets conversions such as
+ * {@link CSRMatrix#transpose()} share arrays instead of copying them.
+ * Storage and the cost of every operation scale with the number of
+ * non-zeros rather than with the number of elements.
+ */
+public abstract class SparseMatrix implements RealMatrix, LinearOperator {
+    final int rows;
+    final int cols;
+    final int[] pointers;
+    final int[] indices;
+    final double[] values;
+
+    SparseMatrix(final int rows, final int cols, final int[] pointers,
+                 final int[] indices, final double[] values) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Invalid number of rows : " + rows);
+        }
+        if (cols < 0) {
+            throw new IllegalArgumentException("Invalid number of columns : " + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.pointers = pointers;
+        this.indices = indices;
+        this.values = values;
+    }
+
+    /**
+     * Creates a sparse matrix of one kind from compressed arrays; the
+     * constructors of the subclasses.
+     */
+    interface Factory<T extends SparseMatrix> {
+        T create(int rows, int cols, int[] pointers, int[] indices, double[] values);
+    }
+
+    /**
+     * @return The product of the given dense matrix and this one.
+     */
+    abstract Matrix leftMultiply(Matrix multiplier) throws IllegalArgumentException;
+
+    /**
+     * Adds this matrix to the given dense matrix of the same shape, in place.
+     */
+    abstract void addTo(Matrix target);
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return The number of stored, non-zero elements.
+     */
+    public int getNonZeroCount() {
+        return pointers[pointers.length - 1];
+    }
+
+    public boolean isZero() {
+        return getNonZeroCount() == 0;
+    }
+
+    void throwIncompatible(final String operation) throws IllegalArgumentException {
+        throw new IllegalArgumentException("Given matrix is not compatible with the invoking matrix for "
+                + operation);
+    }
+
+    void throwIfInvalidElement(final int i, final int j) throws IndexOutOfBoundsException {
+        if (i < 0 || i >= rows) {
+            throw new IndexOutOfBoundsException("Invalid row index : " + i);
+        }
+        if (j < 0 || j >= cols) {
+            throw new IndexOutOfBoundsException("Invalid column index : " + j);
+        }
+    }
+
+    /**
+     * @return The element at the given major and minor index, found by a
+     * binary search of the major.
+     */
+    double find(final int major, final int minor) {
+        int position = Arrays.binarySearch(indices, pointers[major], pointers[major + 1], minor);
+        return position >= 0 ? values[position] : 0;
+    }
+
+    /**
+     * @param addend A matrix of the same shape as this one.
+     * @return The dense sum of the given dense matrix and this one.
+     */
+    public Matrix add(final Matrix addend) throws IllegalArgumentException {
+        if (addend.getRows() != rows || addend.getCols() != cols) {
+            throwIncompatible("addition");
+        }
+        Matrix sum = addend.copy();
+        addTo(sum);
+        return sum;
+    }
+
+    /**
+     * @param multiplicand A matrix with as many rows as this one has columns.
+     * @return The dense product of this matrix and the given dense one.
+     */
+    public abstract Matrix multiply(Matrix multiplicand) throws IllegalArgumentException;
+
+    /**
+     * @param vector A vector with as many elements as this matrix has columns.
+     * @return The product of this matrix and the given vector, in a new array.
+     */
+    public double[] multiply(final double[] vector) throws IllegalArgumentException {
+        return multiply(vector, new double[rows]);
+    }
+
+    /**
+     * Stores the product of this matrix and the given vector in the
+     * destination, without allocating.
+     *
+     * @param vector      A vector with as many elements as this matrix has columns.
+     * @param destination An array with as many elements as this matrix has
+     *                    rows, which must not be the vector itself.
+     * @return The destination.
+     * @throws IllegalArgumentException If either length is wrong, or the
+     *                                  destination is the vector.
+     */
+    @Override
+    public abstract double[] multiply(double[] vector, double[] destination) throws IllegalArgumentException;
+
+    void throwIfInvalidVectors(final double[] vector, final double[] destination) throws IllegalArgumentException {
+        if (vector.length != cols) {
+            throwIncompatible("multiplication");
+        }
+        if (destination.length != rows) {
+            throw new IllegalArgumentException("Invalid destination. Expected : " + rows
+                    + " Found : " + destination.length);
+        }
+        if (vector == destination) {
+            throw new IllegalArgumentException("The destination cannot be the vector itself.");
+        }
+    }
+
+    @Override
+    public Matrix toDense() {
+        Matrix dense = Matrix.zero(rows, cols);
+        addTo(dense);
+        return dense;
+    }
+
+    /**
+     * Merges the non-zeros of this matrix with those of another of the
+     * same kind and shape, major by major.
+     */
+    <T extends SparseMatrix> T merge(final T addend, final Factory<T> factory) {
+        int majors = pointers.length - 1;
+        int[] sumPointers = new int[majors + 1];
+        int[] sumIndices = new int[getNonZeroCount() + addend.getNonZeroCount()];
+        double[] sumValues = new double[sumIndices.length];
+        int count = 0;
+        for (int m = 0; m < majors; m++) {
+            int a = pointers[m], aEnd = pointers[m + 1];
+            int b = addend.pointers[m], bEnd = addend.pointers[m + 1];
+            while (a < aEnd || b < bEnd) {
+                int index;
+                double value;
+                if (b == bEnd || a < aEnd && indices[a] < addend.indices[b]) {
+                    index = indices[a];
+                    value = values[a++];
+                } else if (a == aEnd || addend.indices[b] < indices[a]) {
+                    index = addend.indices[b];
+                    value = addend.values[b++];
+                } else {
+                    index = indices[a];
+                    value = values[a++] + addend.values[b++];
+                }
+                if (value != 0) {
+                    sumIndices[count] = index;
+                    sumValues[count++] = value;
+                }
+            }
+            sumPointers[m + 1] = count;
+        }
+        return factory.create(rows, cols, sumPointers, Arrays.copyOf(sumIndices, count),
+                Arrays.copyOf(sumValues, count));
+    }
+
+    /**
+     * Gustavson's algorithm: major j of the result is the sum, over every
+     * non-zero (k, v) in major j of x, of v times major k of y. With both
+     * operands in row-major form, x is the left operand; in column-major
+     * form, it is the right one. Each major is accumulated in a dense
+     * array of minorCount elements, so the cost is proportional to the
+     * number of multiplications performed.
+     */
+    static <T extends SparseMatrix> T product(final T x, final T y, final int minorCount,
+                                              final int rows, final int cols, final Factory<T> factory) {
+        int majors = x.pointers.length - 1;
+        int[] productPointers = new int[majors + 1];
+        int[] productIndices = new int[Math.max(16, x.getNonZeroCount() + y.getNonZeroCount())];
+        double[] productValues = new double[productIndices.length];
+        double[] accumulator = new double[minorCount];
+        int[] lastSeen = new int[minorCount];
+        Arrays.fill(lastSeen, -1);
+        int[] touched = new int[minorCount];
+        int count = 0;
+        for (int j = 0; j < majors; j++) {
+            int touchedCount = 0;
+            for (int p = x.pointers[j]; p < x.pointers[j + 1]; p++) {
+                int k = x.indices[p];
+                double v = x.values[p];
+                for (int q = y.pointers[k]; q < y.pointers[k + 1]; q++) {
+                    int i = y.indices[q];
+                    if (lastSeen[i] != j) {
+                        lastSeen[i] = j;
+                        accumulator[i] = 0;
+                        touched[touchedCount++] = i;
+                    }
+                    accumulator[i] += v * y.values[q];
+                }
+            }
+            Arrays.sort(touched, 0, touchedCount);
+            if (count + touchedCount > productIndices.length) {
+                int capacity = Math.max(count + touchedCount, 2 * productIndices.length);
+                productIndices = Arrays.copyOf(productIndices, capacity);
+                productValues = Arrays.copyOf(productValues, capacity);
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                int i = touched[t];
+                if (accumulator[i] != 0) {
+                    productIndices[count] = i;
+                    productValues[count++] = accumulator[i];
+                }
+            }
+            productPointers[j + 1] = count;
+        }
+        return factory.create(rows, cols, productPointers, Arrays.copyOf(productIndices, count),
+                Arrays.copyOf(productValues, count));
+    }
+
+    /**
+     * Regroups the non-zeros of this matrix by their minor index, giving
+     * the same matrix in the other compressed form.
+     */
+    <T extends SparseMatrix> T regroup(final int minorCount, final Factory<T> factory) {
+        int majors = pointers.length - 1;
+        int nonZeros = getNonZeroCount();
+        int[] newPointers = new int[minorCount + 1];
+        int[] newIndices = new int[nonZeros];
+        double[] newValues = new double[nonZeros];
+        for (int p = 0; p < nonZeros; p++) {
+            newPointers[indices[p] + 1]++;
+        }
+        for (int i = 0; i < minorCount; i++) {
+            newPointers[i + 1] += newPointers[i];
+        }
+        int[] next = Arrays.copyOf(newPointers, minorCount);
+        for (int m = 0; m < majors; m++) {
+            for (int p = pointers[m]; p < pointers[m + 1]; p++) {
+                int position = next[indices[p]]++;
+                newIndices[position] = m;
+                newValues[position] = values[p];
+            }
+        }
+        return factory.create(rows, cols, newPointers, newIndices, newValues);
+    }
+
+    /**
+     * Compresses a list of (major, minor, value) triplets, in any order,
+     * into a sparse matrix. Duplicates are summed and zeros dropped.
+     */
+    static <T extends SparseMatrix> T compress(final int rows, final int cols,
+                                               final int majorCount, final int minorCount,
+                                               final int[] majors, final int[] minors,
+                                               final double[] tripletValues, final Factory<T> factory) {
+        if (majors.length != minors.length || majors.length != tripletValues.length) {
+            throw new IllegalArgumentException("Triplet arrays differ in length : " + majors.length
+                    + ", " + minors.length + ", " + tripletValues.length);
+        }
+        for (int t = 0; t < majors.length; t++) {
+            if (majors[t] < 0 || majors[t] >= majorCount || minors[t] < 0 || minors[t] >= minorCount) {
+                throw new IndexOutOfBoundsException("Invalid triplet index : (" + majors[t]
+                        + ", " + minors[t] + ")");
+            }
+        }
+        // Group by minor and then by major; both passes are stable, so every
+        // major ends up sorted by minor
+        int[] pointers = new int[majorCount + 1];
+        int[] byMinor = new int[majors.length];
+        int[] minorStarts = new int[minorCount + 1];
+        for (int minor : minors) {
+            minorStarts[minor + 1]++;
+        }
+        for (int i = 0; i < minorCount; i++) {
+            minorStarts[i + 1] += minorStarts[i];
+        }
+        for (int t = 0; t < minors.length; t++) {
+            byMinor[minorStarts[minors[t]]++] = t;
+        }
+        for (int major : majors) {
+            pointers[major + 1]++;
+        }
+        for (int m = 0; m < majorCount; m++) {
+            pointers[m + 1] += pointers[m];
+        }
+        int[] order = new int[majors.length];
+        int[] next = Arrays.copyOf(pointers, majorCount);
+        for (int t : byMinor) {
+            order[next[majors[t]]++] = t;
+        }
+        int[] indices = new int[majors.length];
+        double[] values = new double[majors.length];
+        int count = 0;
+        for (int m = 0; m < majorCount; m++) {
+            int start = count;
+            for (int p = pointers[m]; p < pointers[m + 1]; p++) {
+                int t = order[p];
+                if (count > start && indices[count - 1] == minors[t]) {
+                    values[count - 1] += tripletValues[t];
+                } else {
+                    indices[count] = minors[t];
+                    values[count++] = tripletValues[t];
+                }
+            }
+            // Drop whatever summed to zero
+            int kept = start;
+            for (int p = start; p < count; p++) {
+                if (values[p] != 0) {
+                    indices[kept] = indices[p];
+                    values[kept++] = values[p];
+                }
+            }
+            count = kept;
+            pointers[m] = start;
+        }
+        pointers[majorCount] = count;
+        return factory.create(rows, cols, pointers, Arrays.copyOf(indices, count), Arrays.copyOf(values, count));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SparseMatrix matrix = (SparseMatrix) o;
+        return rows == matrix.rows && cols == matrix.cols
+                && Arrays.equals(pointers, matrix.pointers)
+                && Arrays.equals(indices, matrix.indices)
+                && Arrays.equals(values, matrix.values);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 31 * rows + cols;
+        result = 31 * result + Arrays.hashCode(indices);
+        result = 31 * result + Arrays.hashCode(values);
+        return result;
+    }
+}
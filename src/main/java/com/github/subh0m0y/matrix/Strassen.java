@@ -0,0 +1,290 @@
+package com.github.subh0m0y.matrix;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Matrix multiplication by the Strassen-Winograd algorithm, for products
+ * large enough that doing 7 half-size products instead of 8 pays for the
+ * extra additions.
+ * <p>
+ * Operands are row-major regions of flat arrays, each addressed by an
+ * offset and a row stride, as in {@link Gemm}. Each level of recursion
+ * splits the operands into quadrants and forms the product from 7
+ * products of sums of quadrants and 15 additions. The recursion stops
+ * at products with a dimension of at most the crossover, which go to
+ * {@link Gemm}. Odd dimensions are peeled: the even part is computed
+ * recursively, and the last row, column or rank-one term is added by
+ * {@link Gemm}, so no padding is ever allocated.
+ * <p>
+ * On the calling thread the product follows the schedule of Boyer, Dumas,
+ * Pernet and Zhou ("Memory efficient scheduling of Strassen-Winograd's
+ * matrix multiplication algorithm", 2009). It uses the quadrants of the
+ * product as scratch space plus two temporaries per level, which are
+ * kept for the whole computation. Given a pool, the 7 products of the top
+ * level run as parallel tasks instead. That needs temporaries for all the
+ * sums and for 3 of the products at once, about 2.75 times the size of
+ * the product. Below the top level every task recurses on its own thread.
+ * Both evaluate the same expressions in the same order, so the parallel
+ * result is bit-identical to the sequential one.
+ * <p>
+ * The result differs from the classical product in the last few bits.
+ * Its error is bounded by the norms of the operands rather than element
+ * by element, and grows by a small constant factor per level.
+ */
+final class Strassen {
+    static final String CROSSOVER_PROPERTY = "matrix.strassen.crossover";
+    /**
+     * The default crossover, measured on the blocked kernel of {@link Gemm}.
+     */
+    static final int DEFAULT_CROSSOVER = 256;
+    /**
+     * The crossover used unless one is given, which can be set with the
+     * {@value #CROSSOVER_PROPERTY} system property.
+     */
+    static final int CROSSOVER = Math.max(1, Integer.getInteger(CROSSOVER_PROPERTY, DEFAULT_CROSSOVER));
+
+    private final int crossover;
+    private final double[] panel = new double[Gemm.PANEL_SIZE];
+    /**
+     * The two temporaries of each level of recursion, by depth.
+     */
+    private double[][] xs = new double[0][];
+    private double[][] ys = new double[0][];
+
+    private Strassen(final int crossover) {
+        this.crossover = crossover;
+    }
+
+    /**
+     * Stores the product of a (m x n) and b (n x p) in c (m x p). The
+     * previous contents of c are overwritten; c must not overlap a or b.
+     * A null pool forces sequential computation.
+     */
+    static void multiply(final double[] a, final int aOffset, final int lda,
+                         final double[] b, final int bOffset, final int ldb,
+                         final double[] c, final int cOffset, final int ldc,
+                         final int m, final int n, final int p,
+                         final int crossover, final ForkJoinPool pool) {
+        new Strassen(crossover).recurse(a, aOffset, lda, b, bOffset, ldb, c, cOffset, ldc, m, n, p, 0, pool);
+    }
+
+    private void recurse(final double[] a, final int aOffset, final int lda,
+                         final double[] b, final int bOffset, final int ldb,
+                         final double[] c, final int cOffset, final int ldc,
+                         final int m, final int n, final int p, final int depth, final ForkJoinPool pool) {
+        if (m <= crossover || n <= crossover || p <= crossover) {
+            Gemm.multiplyAdd(1, a, aOffset, lda, 1, b, bOffset, ldb, 1, 0, c, cOffset, ldc,
+                    m, n, p, pool, panel);
+            return;
+        }
+        int me = m & ~1;
+        int ne = n & ~1;
+        int pe = p & ~1;
+        if (pool == null) {
+            multiplyEven(a, aOffset, lda, b, bOffset, ldb, c, cOffset, ldc, me, ne, pe, depth);
+        } else {
+            multiplyEven(a, aOffset, lda, b, bOffset, ldb, c, cOffset, ldc, me, ne, pe, pool);
+        }
+        if (ne < n) {
+            // The last column of a times the last row of b
+            Gemm.multiplyAdd(1, a, aOffset + ne, lda, 1, b, bOffset + ne * ldb, ldb, 1,
+                    1, c, cOffset, ldc, me, 1, pe, null, panel);
+        }
+        if (pe < p) {
+            Gemm.multiplyAdd(1, a, aOffset, lda, 1, b, bOffset + pe, ldb, 1,
+                    0, c, cOffset + pe, ldc, me, n, 1, null, panel);
+        }
+        if (me < m) {
+            Gemm.multiplyAdd(1, a, aOffset + me * lda, lda, 1, b, bOffset, ldb, 1,
+                    0, c, cOffset + me * ldc, ldc, 1, n, p, null, panel);
+        }
+    }
+
+    /**
+     * One level of the algorithm on the calling thread, for even m, n and p.
+     */
+    private void multiplyEven(final double[] a, final int aOffset, final int lda,
+                              final double[] b, final int bOffset, final int ldb,
+                              final double[] c, final int cOffset, final int ldc,
+                              final int m, final int n, final int p, final int depth) {
+        int m2 = m / 2;
+        int n2 = n / 2;
+        int p2 = p / 2;
+        int a11 = aOffset, a12 = a11 + n2, a21 = a11 + m2 * lda, a22 = a21 + n2;
+        int b11 = bOffset, b12 = b11 + p2, b21 = b11 + n2 * ldb, b22 = b21 + p2;
+        int c11 = cOffset, c12 = c11 + p2, c21 = c11 + m2 * ldc, c22 = c21 + p2;
+        if (xs.length <= depth) {
+            xs = Arrays.copyOf(xs, depth + 1);
+            ys = Arrays.copyOf(ys, depth + 1);
+        }
+        if (xs[depth] == null) {
+            xs[depth] = new double[m2 * Math.max(n2, p2)];
+            ys[depth] = new double[n2 * p2];
+        }
+        double[] x = xs[depth];
+        double[] y = ys[depth];
+        int next = depth + 1;
+
+        difference(m2, n2, a, a11, lda, a, a21, lda, x, 0, n2);                  // S3
+        difference(n2, p2, b, b22, ldb, b, b12, ldb, y, 0, p2);                  // T3
+        recurse(x, 0, n2, y, 0, p2, c, c21, ldc, m2, n2, p2, next, null);        // P7
+        sum(m2, n2, a, a21, lda, a, a22, lda, x, 0, n2);                         // S1
+        difference(n2, p2, b, b12, ldb, b, b11, ldb, y, 0, p2);                  // T1
+        recurse(x, 0, n2, y, 0, p2, c, c22, ldc, m2, n2, p2, next, null);        // P5
+        difference(n2, p2, b, b22, ldb, y, 0, p2, y, 0, p2);                     // T2
+        difference(m2, n2, x, 0, n2, a, a11, lda, x, 0, n2);                     // S2
+        recurse(x, 0, n2, y, 0, p2, c, c12, ldc, m2, n2, p2, next, null);        // P6
+        difference(m2, n2, a, a12, lda, x, 0, n2, x, 0, n2);                     // S4
+        recurse(x, 0, n2, b, b22, ldb, c, c11, ldc, m2, n2, p2, next, null);     // P3
+        recurse(a, a11, lda, b, b11, ldb, x, 0, p2, m2, n2, p2, next, null);     // P1
+        sum(m2, p2, x, 0, p2, c, c12, ldc, c, c12, ldc);                         // U2
+        sum(m2, p2, c, c12, ldc, c, c21, ldc, c, c21, ldc);                      // U3
+        sum(m2, p2, c, c12, ldc, c, c22, ldc, c, c12, ldc);                      // U4
+        sum(m2, p2, c, c21, ldc, c, c22, ldc, c, c22, ldc);                      // U7
+        sum(m2, p2, c, c12, ldc, c, c11, ldc, c, c12, ldc);                      // U5
+        difference(n2, p2, y, 0, p2, b, b21, ldb, y, 0, p2);                     // T4
+        recurse(a, a22, lda, y, 0, p2, c, c11, ldc, m2, n2, p2, next, null);     // P4
+        difference(m2, p2, c, c21, ldc, c, c11, ldc, c, c21, ldc);               // U6
+        recurse(a, a12, lda, b, b21, ldb, c, c11, ldc, m2, n2, p2, next, null);  // P2
+        sum(m2, p2, x, 0, p2, c, c11, ldc, c, c11, ldc);                         // U1
+    }
+
+    /**
+     * One level of the algorithm with its 7 products spread over the pool,
+     * for even m, n and p.
+     */
+    private void multiplyEven(final double[] a, final int aOffset, final int lda,
+                              final double[] b, final int bOffset, final int ldb,
+                              final double[] c, final int cOffset, final int ldc,
+                              final int m, final int n, final int p, final ForkJoinPool pool) {
+        int m2 = m / 2;
+        int n2 = n / 2;
+        int p2 = p / 2;
+        int a11 = aOffset, a12 = a11 + n2, a21 = a11 + m2 * lda, a22 = a21 + n2;
+        int b11 = bOffset, b12 = b11 + p2, b21 = b11 + n2 * ldb, b22 = b21 + p2;
+        int c11 = cOffset, c12 = c11 + p2, c21 = c11 + m2 * ldc, c22 = c21 + p2;
+        double[] s1 = new double[m2 * n2];
+        double[] s2 = new double[m2 * n2];
+        double[] s3 = new double[m2 * n2];
+        double[] s4 = new double[m2 * n2];
+        double[] t1 = new double[n2 * p2];
+        double[] t2 = new double[n2 * p2];
+        double[] t3 = new double[n2 * p2];
+        double[] t4 = new double[n2 * p2];
+        sum(m2, n2, a, a21, lda, a, a22, lda, s1, 0, n2);
+        difference(m2, n2, s1, 0, n2, a, a11, lda, s2, 0, n2);
+        difference(m2, n2, a, a11, lda, a, a21, lda, s3, 0, n2);
+        difference(m2, n2, a, a12, lda, s2, 0, n2, s4, 0, n2);
+        difference(n2, p2, b, b12, ldb, b, b11, ldb, t1, 0, p2);
+        difference(n2, p2, b, b22, ldb, t1, 0, p2, t2, 0, p2);
+        difference(n2, p2, b, b22, ldb, b, b12, ldb, t3, 0, p2);
+        difference(n2, p2, t2, 0, p2, b, b21, ldb, t4, 0, p2);
+        // P2, P3, P4 and P7 go straight into the quadrants of c
+        double[] p1 = new double[m2 * p2];
+        double[] p5 = new double[m2 * p2];
+        double[] p6 = new double[m2 * p2];
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(
+                new ProductTask(a, a11, lda, b, b11, ldb, p1, 0, p2, m2, n2, p2, crossover),
+                new ProductTask(a, a12, lda, b, b21, ldb, c, c11, ldc, m2, n2, p2, crossover),
+                new ProductTask(s4, 0, n2, b, b22, ldb, c, c12, ldc, m2, n2, p2, crossover),
+                new ProductTask(a, a22, lda, t4, 0, p2, c, c21, ldc, m2, n2, p2, crossover),
+                new ProductTask(s1, 0, n2, t1, 0, p2, p5, 0, p2, m2, n2, p2, crossover),
+                new ProductTask(s2, 0, n2, t2, 0, p2, p6, 0, p2, m2, n2, p2, crossover),
+                new ProductTask(s3, 0, n2, t3, 0, p2, c, c22, ldc, m2, n2, p2, crossover))));
+        // The additions of the sequential schedule, fused into one pass
+        for (int i = 0; i < m2; i++) {
+            for (int j = 0, k = i * p2; j < p2; j++, k++) {
+                int ij = i * ldc + j;
+                double u2 = p1[k] + p6[k];
+                double u3 = u2 + c[c22 + ij];
+                c[c12 + ij] = u2 + p5[k] + c[c12 + ij];
+                c[c22 + ij] = u3 + p5[k];
+                c[c21 + ij] = u3 - c[c21 + ij];
+                c[c11 + ij] = p1[k] + c[c11 + ij];
+            }
+        }
+    }
+
+    /**
+     * z = x + y, where z may be x or y.
+     */
+    private static void sum(final int rows, final int cols,
+                            final double[] x, final int xOffset, final int ldx,
+                            final double[] y, final int yOffset, final int ldy,
+                            final double[] z, final int zOffset, final int ldz) {
+        for (int i = 0; i < rows; i++) {
+            int xi = xOffset + i * ldx;
+            int yi = yOffset + i * ldy;
+            int zi = zOffset + i * ldz;
+            for (int j = 0; j < cols; j++) {
+                z[zi + j] = x[xi + j] + y[yi + j];
+            }
+        }
+    }
+
+    /**
+     * z = x - y, where z may be x or y.
+     */
+    private static void difference(final int rows, final int cols,
+                                   final double[] x, final int xOffset, final int ldx,
+                                   final double[] y, final int yOffset, final int ldy,
+                                   final double[] z, final int zOffset, final int ldz) {
+        for (int i = 0; i < rows; i++) {
+            int xi = xOffset + i * ldx;
+            int yi = yOffset + i * ldy;
+            int zi = zOffset + i * ldz;
+            for (int j = 0; j < cols; j++) {
+                z[zi + j] = x[xi + j] - y[yi + j];
+            }
+        }
+    }
+
+    /**
+     * One of the products of the top level, computed sequentially with
+     * temporaries of its own.
+     */
+    private static final class ProductTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] a;
+        private final int aOffset;
+        private final int lda;
+        private final double[] b;
+        private final int bOffset;
+        private final int ldb;
+        private final double[] c;
+        private final int cOffset;
+        private final int ldc;
+        private final int m;
+        private final int n;
+        private final int p;
+        private final int crossover;
+
+        ProductTask(final double[] a, final int aOffset, final int lda,
+                    final double[] b, final int bOffset, final int ldb,
+                    final double[] c, final int cOffset, final int ldc,
+                    final int m, final int n, final int p, final int crossover) {
+            this.a = a;
+            this.aOffset = aOffset;
+            this.lda = lda;
+            this.b = b;
+            this.bOffset = bOffset;
+            this.ldb = ldb;
+            this.c = c;
+            this.cOffset = cOffset;
+            this.ldc = ldc;
+            this.m = m;
+            this.n = n;
+            this.p = p;
+            this.crossover = crossover;
+        }
+
+        @Override
+        protected void compute() {
+            new Strassen(crossover).recurse(a, aOffset, lda, b, bOffset, ldb, c, cOffset, ldc, m, n, p, 1, null);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.github.subh0m0y.matrix;
+
+import java.util.Arrays;
+
+import static com.github.subh0m0y.matrix.Standards.EPSILON;
+
+/**
+ * A square matrix whose structure is known in advance, storing only the
+ * elements that the structure allows to be non-zero, packed into a single
+ * array.
+ * <p>
+ * Besides the memory, which is about halved for {@link SymmetricMatrix}
+ * and {@link TriangularMatrix} and linear in the order for
+ * {@link BandMatrix}, every operation skips the elements that are known
+ * to be zero or known to mirror others. {@link Matrix#multiply(RealMatrix)}
+ * recognizes structured operands and uses their kernels as well.
+ * <p>
+ * Elements may be changed with {@code set}, but only within the
+ * structure: setting a non-zero where the structure demands a zero is an
+ * error.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class StructuredMatrix implements RealMatrix, LinearOperator {
+    final int order;
+    final double[] packed;
+
+    StructuredMatrix(final int order, final double[] packed) {
+        this.order = order;
+        this.packed = packed;
+    }
+
+    static void throwIfInvalidOrder(final int order) throws IllegalArgumentException {
+        if (order < 0) {
+            throw new IllegalArgumentException("Invalid order : " + order);
+        }
+    }
+
+    static void throwIfNotSquare(final Matrix matrix) throws IllegalArgumentException {
+        if (!matrix.isSquare()) {
+            throw new IllegalArgumentException("Cannot pack a non-square matrix.");
+        }
+    }
+
+    /**
+     * @return The element at (i, j), which must be a valid index.
+     */
+    abstract double element(int i, int j);
+
+    /**
+     * @return Whether the given matrix has the same class, order and
+     * structure as this one, so that their packed arrays line up.
+     */
+    abstract boolean hasSameStructure(StructuredMatrix matrix);
+
+    /**
+     * @return A matrix with the structure of this one and the given packed
+     * elements.
+     */
+    abstract StructuredMatrix withPacked(double[] elements);
+
+    /**
+     * @return The product of the given dense matrix and this one.
+     */
+    abstract Matrix leftMultiply(Matrix multiplier) throws IllegalArgumentException;
+
+    @Override
+    public int getRows() {
+        return order;
+    }
+
+    @Override
+    public int getCols() {
+        return order;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * @return The number of elements actually stored.
+     */
+    public int getStoredCount() {
+        return packed.length;
+    }
+
+    @Override
+    public double get(final int i, final int j) throws IndexOutOfBoundsException {
+        throwIfInvalidElement(i, j);
+        return element(i, j);
+    }
+
+    void throwIfInvalidElement(final int i, final int j) throws IndexOutOfBoundsException {
+        if (i < 0 || i >= order) {
+            throw new IndexOutOfBoundsException("Invalid row index : " + i);
+        }
+        if (j < 0 || j >= order) {
+            throw new IndexOutOfBoundsException("Invalid column index : " + j);
+        }
+    }
+
+    void throwIncompatible(final String operation) throws IllegalArgumentException {
+        throw new IllegalArgumentException("Given matrix is not compatible with the invoking matrix for "
+                + operation);
+    }
+
+    void throwIfInvalidVectors(final double[] vector, final double[] destination) throws IllegalArgumentException {
+        if (vector.length != order) {
+            throwIncompatible("multiplication");
+        }
+        if (destination.length != order) {
+            throw new IllegalArgumentException("Invalid destination. Expected : " + order
+                    + " Found : " + destination.length);
+        }
+    }
+
+    void throwIfInvalidRightHandSide(final double[] b) throws IllegalArgumentException {
+        if (b.length != order) {
+            throw new IllegalArgumentException("Invalid number of elements. Expected : " + order
+                    + " Found : " + b.length);
+        }
+    }
+
+    void throwIfInvalidRightHandSide(final Matrix b) throws IllegalArgumentException {
+        if (b.getRows() != order) {
+            throw new IllegalArgumentException("Given matrix is not compatible with the invoking matrix for "
+                    + "solving. Expected rows : " + order + " Found : " + b.getRows());
+        }
+    }
+
+    /**
+     * @return The magnitude below which a pivot is treated as zero, the
+     * same relative tolerance that {@link LUDecomposition} uses.
+     */
+    double pivotTolerance() {
+        double max = 0;
+        for (double value : packed) {
+            max = Math.max(max, Math.abs(value));
+        }
+        return EPSILON * max;
+    }
+
+    /**
+     * @param vector A vector with as many elements as the order of this matrix.
+     * @return The product of this matrix and the given vector, in a new array.
+     */
+    public double[] multiply(final double[] vector) throws IllegalArgumentException {
+        return multiply(vector, new double[order]);
+    }
+
+    /**
+     * Stores the product of this matrix and the given vector in the
+     * destination, without allocating.
+     *
+     * @param vector      A vector with as many elements as the order of this matrix.
+     * @param destination An array of the same length, which must not be the
+     *                    vector itself.
+     * @return The destination.
+     */
+    @Override
+    public abstract double[] multiply(double[] vector, double[] destination) throws IllegalArgumentException;
+
+    /**
+     * @param multiplicand A matrix with as many rows as the order of this one.
+     * @return The dense product of this matrix and the given dense one.
+     */
+    public abstract Matrix multiply(Matrix multiplicand) throws IllegalArgumentException;
+
+    @Override
+    public Matrix multiply(final RealMatrix multiplicand) throws IllegalArgumentException {
+        return multiply(multiplicand.toDense());
+    }
+
+    /**
+     * Adds a matrix in any representation to this one. Matrices of the same
+     * structure are added element by element and give a packed sum; any
+     * other sum is dense.
+     *
+     * @param addend The matrix to add.
+     * @return The sum.
+     */
+    @Override
+    public RealMatrix add(final RealMatrix addend) throws IllegalArgumentException {
+        if (addend instanceof StructuredMatrix && hasSameStructure((StructuredMatrix) addend)) {
+            double[] sum = packed.clone();
+            Kernels.add(sum.length, ((StructuredMatrix) addend).packed, 0, 1, sum, 0, 1);
+            return withPacked(sum);
+        }
+        return toDense().add(addend);
+    }
+
+    @Override
+    public Matrix toDense() {
+        double[] data = new double[order * order];
+        for (int i = 0; i < order; i++) {
+            for (int j = 0; j < order; j++) {
+                data[i * order + j] = element(i, j);
+            }
+        }
+        return Matrix.fromLinearArray(order, order, data, false);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StructuredMatrix matrix = (StructuredMatrix) o;
+        return hasSameStructure(matrix) && Arrays.equals(packed, matrix.packed);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * order + Arrays.hashCode(packed);
+    }
+
+    @Override
+    public String toString() {
+        return TextFormat.preview(order, order, (builder, i, j) ->
+                TextFormat.appendScientific(builder, element(i, j)));
+    }
+}
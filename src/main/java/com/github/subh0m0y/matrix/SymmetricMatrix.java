@@ -0,0 +1,199 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * A symmetric matrix, storing only its lower triangle: row i holds
+ * elements (i, 0) to (i, i), and the rows follow each other in one array
+ * of n(n + 1) / 2 elements. Element (i, j) above the diagonal is read
+ * from (j, i), and setting either sets both.
+ * <p>
+ * Products with vectors and matrices read every stored element once and
+ * apply it on both sides of the diagonal, so they move half the data of
+ * the dense product. {@link #gram(Matrix)} forms A<sup>T</sup>A, such as
+ * a covariance matrix, with half the work of the general product.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SymmetricMatrix extends StructuredMatrix {
+    /**
+     * The number of rows of the Gram matrix computed per call to the
+     * product kernel.
+     */
+    private static final int GRAM_BLOCK = 64;
+
+    SymmetricMatrix(final int order, final double[] packed) {
+        super(order, packed);
+    }
+
+    public static SymmetricMatrix zero(final int order) throws IllegalArgumentException {
+        throwIfInvalidOrder(order);
+        return new SymmetricMatrix(order, new double[position(order, 0)]);
+    }
+
+    /**
+     * Packs the lower triangle of the given matrix. The upper triangle is
+     * not read, and is assumed to mirror it.
+     *
+     * @param matrix The square matrix to pack.
+     * @return The symmetric matrix.
+     * @throws IllegalArgumentException If the matrix is not square.
+     */
+    public static SymmetricMatrix fromMatrix(final Matrix matrix) throws IllegalArgumentException {
+        throwIfNotSquare(matrix);
+        int order = matrix.getRows();
+        double[] packed = new double[position(order, 0)];
+        double[] data = matrix.getData();
+        for (int i = 0, p = 0; i < order; p += ++i) {
+            Kernels.copy(i + 1, data, matrix.index(i, 0), matrix.getColStride(), packed, p, 1);
+        }
+        return new SymmetricMatrix(order, packed);
+    }
+
+    /**
+     * Computes A<sup>T</sup>A, whose element (i, j) is the dot product of
+     * columns i and j of A. Only the lower triangle is computed, a band of
+     * rows at a time with the cache-blocked {@link Gemm} kernel, which
+     * takes about half the multiplications of the full product.
+     *
+     * @param matrix The matrix A, of any shape and layout.
+     * @return The Gram matrix, of order equal to the number of columns of A.
+     */
+    public static SymmetricMatrix gram(final Matrix matrix) {
+        int depth = matrix.getRows();
+        int order = matrix.getCols();
+        double[] a = matrix.getData();
+        int rowStride = matrix.getRowStride();
+        int colStride = matrix.getColStride();
+        double[] packed = new double[position(order, 0)];
+        double[] band = new double[Math.min(order, GRAM_BLOCK) * order];
+        double[] panel = (long) depth * order * order >= Gemm.PACKING_THRESHOLD ? new double[Gemm.PANEL_SIZE] : null;
+        for (int r = 0; r < order; r += GRAM_BLOCK) {
+            int rEnd = Math.min(order, r + GRAM_BLOCK);
+            // Rows [r, rEnd) of the transpose, times the first rEnd columns of A
+            Gemm.multiplyAdd(1, a, matrix.index(0, r), colStride, rowStride,
+                    a, matrix.index(0, 0), rowStride, colStride,
+                    0, band, 0, rEnd, rEnd - r, depth, rEnd, null, panel);
+            for (int i = r; i < rEnd; i++) {
+                System.arraycopy(band, (i - r) * rEnd, packed, position(i, 0), i + 1);
+            }
+        }
+        return new SymmetricMatrix(order, packed);
+    }
+
+    /**
+     * @return The position of element (i, j), for j &lt;= i, in the packed array.
+     */
+    static int position(final int i, final int j) {
+        return (int) ((long) i * (i + 1) / 2) + j;
+    }
+
+    @Override
+    double element(final int i, final int j) {
+        return i >= j ? packed[position(i, j)] : packed[position(j, i)];
+    }
+
+    /**
+     * Sets element (i, j) and its mirror (j, i).
+     */
+    public void set(final int i, final int j, final double value) throws IndexOutOfBoundsException {
+        throwIfInvalidElement(i, j);
+        packed[i >= j ? position(i, j) : position(j, i)] = value;
+    }
+
+    @Override
+    boolean hasSameStructure(final StructuredMatrix matrix) {
+        return matrix instanceof SymmetricMatrix && matrix.order == order;
+    }
+
+    @Override
+    SymmetricMatrix withPacked(final double[] elements) {
+        return new SymmetricMatrix(order, elements);
+    }
+
+    /**
+     * y = Sx for x and y within arrays, reading each stored row once: the
+     * row gives element i of y as a dot product, and, through the mirrored
+     * column, adds to the elements of y before i.
+     */
+    private void multiply(final double[] x, final int xOffset, final int incX,
+                          final double[] y, final int yOffset, final int incY) {
+        for (int i = 0, k = yOffset; i < order; i++, k += incY) {
+            y[k] = 0;
+        }
+        for (int i = 0, p = 0; i < order; p += ++i) {
+            double xi = x[xOffset + i * incX];
+            Kernels.axpy(i, xi, packed, p, 1, y, yOffset, incY);
+            y[yOffset + i * incY] += Kernels.dot(i + 1, packed, p, 1, x, xOffset, incX);
+        }
+    }
+
+    @Override
+    public double[] multiply(final double[] vector, final double[] destination) throws IllegalArgumentException {
+        throwIfInvalidVectors(vector, destination);
+        multiply(vector, 0, 1, destination, 0, 1);
+        return destination;
+    }
+
+    @Override
+    public Matrix multiply(final Matrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand.getRows() != order) {
+            throwIncompatible("multiplication");
+        }
+        int p = multiplicand.getCols();
+        double[] b = multiplicand.getData();
+        int bColStride = multiplicand.getColStride();
+        double[] product = new double[order * p];
+        // Element (i, j) adds row j of the multiplicand to row i, and row i to row j
+        for (int i = 0, q = 0; i < order; q += ++i) {
+            for (int j = 0; j < i; j++) {
+                double value = packed[q + j];
+                Kernels.axpy(p, value, b, multiplicand.index(j, 0), bColStride, product, i * p, 1);
+                Kernels.axpy(p, value, b, multiplicand.index(i, 0), bColStride, product, j * p, 1);
+            }
+            Kernels.axpy(p, packed[q + i], b, multiplicand.index(i, 0), bColStride, product, i * p, 1);
+        }
+        return Matrix.fromLinearArray(order, p, product, false);
+    }
+
+    @Override
+    Matrix leftMultiply(final Matrix multiplier) throws IllegalArgumentException {
+        if (multiplier.getCols() != order) {
+            throwIncompatible("multiplication");
+        }
+        int m = multiplier.getRows();
+        double[] product = new double[m * order];
+        // Row r of AS is S times row r of A, as S is symmetric
+        for (int r = 0; r < m; r++) {
+            multiply(multiplier.getData(), multiplier.index(r, 0), multiplier.getColStride(),
+                    product, r * order, 1);
+        }
+        return Matrix.fromLinearArray(m, order, product, false);
+    }
+
+    /**
+     * A symmetric matrix is its own transpose.
+     *
+     * @return A copy of this matrix.
+     */
+    @Override
+    public SymmetricMatrix transpose() {
+        return new SymmetricMatrix(order, packed.clone());
+    }
+
+    /**
+     * Finds the inverse, which is symmetric as well, through a Cholesky
+     * decomposition if this matrix is positive definite and through an LU
+     * decomposition otherwise.
+     *
+     * @return The inverse of this matrix.
+     * @throws ArithmeticException If this matrix is singular.
+     */
+    public SymmetricMatrix getInverse() throws ArithmeticException {
+        Matrix dense = toDense();
+        Matrix inverse;
+        try {
+            inverse = new CholeskyDecomposition(dense).inverse();
+        } catch (ArithmeticException e) {
+            inverse = new LUDecomposition(dense).inverse();
+        }
+        return fromMatrix(inverse);
+    }
+}
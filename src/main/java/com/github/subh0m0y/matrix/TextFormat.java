@@ -0,0 +1,841 @@
+package com.github.subh0m0y.matrix;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reads and writes matrices as text, in CSV and Matrix Market formats.
+ * <p>
+ * CSV holds one row of a dense matrix per line, with its elements
+ * separated by commas. Blanks around an element and empty lines are
+ * ignored, as is a carriage return before a line feed. Quoted fields and
+ * header lines are not supported.
+ * <p>
+ * Matrix Market is read in its array (dense) and coordinate (sparse)
+ * formats, with real, integer or pattern elements and general, symmetric
+ * or skew-symmetric structure. Arrays are read into a {@link Matrix} and
+ * coordinate files into a {@link CSRMatrix}. Dense matrices are written as
+ * general real arrays and sparse ones as general real coordinate files.
+ * <p>
+ * Readers parse numbers straight from a buffer of at most
+ * {@link #CHUNK_SIZE} bytes into the elements of the matrix, with no
+ * string per element. Numbers are correctly rounded by
+ * {@link DecimalToDouble}; only the rare ones it cannot decide go through
+ * {@link Double#parseDouble(String)}. Writers format into a reused buffer that is handed to the
+ * {@link Appendable} every {@link #CHUNK_SIZE} characters or so. Elements
+ * are written in the shortest decimal form found by a fast path for
+ * integers and short fractions, or else by {@link StringBuilder#append(double)},
+ * and always read back to the same double.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TextFormat {
+    /**
+     * The size of the buffer that input is read through, and roughly the
+     * number of characters handed to an {@link Appendable} at a time.
+     */
+    static final int CHUNK_SIZE = 1 << 16;
+    /**
+     * The longest number that can be read. Longer ones are rejected rather
+     * than buffered without bound.
+     */
+    static final int MAX_TOKEN = 1 << 10;
+    private static final String BANNER = "%%MatrixMarket";
+    /**
+     * The powers of ten that are exact doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    /**
+     * Every integer below this is an exact double.
+     */
+    private static final double EXACT_INTEGERS = 1L << 53;
+    /**
+     * The most significant digits that always fit in a long.
+     */
+    private static final int MAX_DIGITS = 18;
+
+    private TextFormat() {
+    }
+
+    // ---- Writing ----
+
+    /**
+     * Writes the given matrix as CSV, one line per row.
+     */
+    public static void writeCsv(final Matrix matrix, final Appendable out) throws IOException {
+        StringBuilder builder = new StringBuilder(CHUNK_SIZE + 32);
+        int rows = matrix.getRows();
+        int cols = matrix.getCols();
+        double[] data = matrix.getData();
+        int colStride = matrix.getColStride();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0, k = matrix.index(i, 0); j < cols; j++, k += colStride) {
+                if (j > 0) {
+                    builder.append(',');
+                }
+                appendDouble(builder, data[k]);
+                flushIfFull(builder, out);
+            }
+            builder.append('\n');
+        }
+        out.append(builder);
+    }
+
+    /**
+     * Writes the given matrix in Matrix Market format: a sparse matrix as
+     * a coordinate file of its non-zeros in row order, anything else as an
+     * array of its elements in column order.
+     */
+    public static void writeMatrixMarket(final RealMatrix matrix, final Appendable out) throws IOException {
+        StringBuilder builder = new StringBuilder(CHUNK_SIZE + 64);
+        int rows = matrix.getRows();
+        int cols = matrix.getCols();
+        if (matrix instanceof SparseMatrix) {
+            SparseMatrix sparse = matrix instanceof CSCMatrix
+                    ? ((CSCMatrix) matrix).toCSR() : (SparseMatrix) matrix;
+            builder.append(BANNER).append(" matrix coordinate real general\n")
+                    .append(rows).append(' ').append(cols).append(' ')
+                    .append(sparse.getNonZeroCount()).append('\n');
+            for (int i = 0; i < rows; i++) {
+                for (int p = sparse.pointers[i]; p < sparse.pointers[i + 1]; p++) {
+                    builder.append(i + 1).append(' ').append(sparse.indices[p] + 1).append(' ');
+                    appendDouble(builder, sparse.values[p]);
+                    builder.append('\n');
+                    flushIfFull(builder, out);
+                }
+            }
+        } else {
+            builder.append(BANNER).append(" matrix array real general\n")
+                    .append(rows).append(' ').append(cols).append('\n');
+            if (matrix instanceof Matrix) {
+                Matrix dense = (Matrix) matrix;
+                double[] data = dense.getData();
+                for (int j = 0; j < cols; j++) {
+                    for (int i = 0, k = dense.index(0, j); i < rows; i++, k += dense.getRowStride()) {
+                        appendDouble(builder, data[k]);
+                        builder.append('\n');
+                        flushIfFull(builder, out);
+                    }
+                }
+            } else {
+                for (int j = 0; j < cols; j++) {
+                    for (int i = 0; i < rows; i++) {
+                        appendDouble(builder, matrix.get(i, j));
+                        builder.append('\n');
+                        flushIfFull(builder, out);
+                    }
+                }
+            }
+        }
+        out.append(builder);
+    }
+
+    private static void flushIfFull(final StringBuilder builder, final Appendable out) throws IOException {
+        if (builder.length() >= CHUNK_SIZE) {
+            out.append(builder);
+            builder.setLength(0);
+        }
+    }
+
+    /**
+     * Appends the given value in a form that {@link Double#parseDouble(String)}
+     * and the readers of this class read back exactly. Integers and values
+     * with few decimal places are written without an exponent or trailing
+     * zeros.
+     */
+    static StringBuilder appendDouble(final StringBuilder builder, final double value) {
+        if (value == 0) {
+            return builder.append(Double.doubleToRawLongBits(value) == 0 ? "0" : "-0");
+        }
+        double magnitude = Math.abs(value);
+        if (magnitude < EXACT_INTEGERS && magnitude >= 1e-7) {
+            // Find the fewest decimal places d such that the value is the
+            // double nearest to some integer m / 10^d. Both are exact, so
+            // the division is correctly rounded, just as parsing is.
+            for (int places = 0; places < POWERS_OF_TEN.length; places++) {
+                double scaled = magnitude * POWERS_OF_TEN[places];
+                if (scaled >= EXACT_INTEGERS) {
+                    break;
+                }
+                double integer = Math.rint(scaled);
+                if (integer == scaled && integer / POWERS_OF_TEN[places] == magnitude) {
+                    if (value < 0) {
+                        builder.append('-');
+                    }
+                    return appendDecimal(builder, (long) integer, places);
+                }
+            }
+        }
+        // Allocation-free, and the shortest form that reads back exactly
+        return builder.append(value);
+    }
+
+    /**
+     * Appends the given non-negative integer divided by 10^places, without
+     * trailing zeros.
+     */
+    private static StringBuilder appendDecimal(final StringBuilder builder, long integer, int places) {
+        for (; places > 0 && integer % 10 == 0; places--) {
+            integer /= 10;
+        }
+        int start = builder.length();
+        builder.append(integer);
+        if (places == 0) {
+            return builder;
+        }
+        int point = builder.length() - places;
+        if (point > start) {
+            return builder.insert(point, '.');
+        }
+        builder.insert(start, "0.");
+        for (int zeros = start - point; zeros > 0; zeros--) {
+            builder.insert(start + 2, '0');
+        }
+        return builder;
+    }
+
+    /**
+     * Appends the given value in scientific notation with a sign and
+     * three significant digits, exactly as {@link Matrix#FORMAT_STRING}
+     * does, but without {@link String#format(String, Object...)}. Like the
+     * formatter, it rounds the shortest decimal digits that identify the
+     * value, those of {@link Double#toString(double)}, half up, rather than
+     * the exact binary value.
+     */
+    static StringBuilder appendScientific(final StringBuilder builder, final double value) {
+        if (Double.isNaN(value)) {
+            return builder.append("NaN");
+        }
+        builder.append(value < 0 || Double.doubleToRawLongBits(value) != 0 && value == 0 ? '-' : '+');
+        if (Double.isInfinite(value)) {
+            return builder.append("Infinity");
+        }
+        int exponent = 0;
+        int digits = 0;
+        if (value != 0) {
+            // Either plain, as in 0.00123 or 98765.0, or computerized, as in 1.0E-5
+            String decimal = Double.toString(Math.abs(value));
+            int mark = decimal.indexOf('E');
+            int end = mark < 0 ? decimal.length() : mark;
+            int point = decimal.indexOf('.');
+            int count = 0;
+            int next = 0;
+            for (int i = 0; i < end; i++) {
+                char c = decimal.charAt(i);
+                if (c == '.' || count == 0 && c == '0') {
+                    continue;
+                }
+                if (count == 0) {
+                    exponent = i < point ? point - i - 1 : point - i;
+                }
+                if (count < 3) {
+                    digits = 10 * digits + c - '0';
+                } else if (count == 3) {
+                    next = c - '0';
+                }
+                count++;
+            }
+            for (; count < 3; count++) {
+                digits *= 10;
+            }
+            if (mark >= 0) {
+                exponent += Integer.parseInt(decimal.substring(mark + 1));
+            }
+            if (next >= 5 && ++digits == 1000) {
+                digits = 100;
+                exponent++;
+            }
+        }
+        builder.append((char) ('0' + digits / 100)).append('.')
+                .append((char) ('0' + digits / 10 % 10)).append((char) ('0' + digits % 10))
+                .append('e').append(exponent < 0 ? '-' : '+');
+        int absolute = Math.abs(exponent);
+        if (absolute < 10) {
+            builder.append('0');
+        }
+        return builder.append(absolute);
+    }
+
+    /**
+     * Appends element (i, j) of a matrix being previewed.
+     */
+    interface ElementFormatter {
+        void append(StringBuilder builder, int i, int j);
+    }
+
+    /**
+     * Lays out the elements of a matrix one row per line, as
+     * {@link Matrix#toString()} describes.
+     */
+    static String preview(final int rows, final int cols, final ElementFormatter formatter) {
+        if (rows == 0 || cols == 0) {
+            return "";
+        }
+        int edge = Matrix.PREVIEW_EDGE;
+        boolean rowsCut = rows > 2 * edge;
+        boolean colsCut = cols > 2 * edge;
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            if (rowsCut && i == edge) {
+                builder.append("| ... |\n");
+                i = rows - edge;
+            }
+            if (rows == 1) {
+                builder.append(" [");
+            } else if (i == 0) {
+                builder.append(" /");
+            } else if (i == rows - 1) {
+                builder.append(" \\");
+            } else {
+                builder.append("| ");
+            }
+            for (int j = 0; j < cols; j++) {
+                if (j > 0) {
+                    builder.append(", ");
+                }
+                if (colsCut && j == edge) {
+                    builder.append("..., ");
+                    j = cols - edge;
+                }
+                formatter.append(builder, i, j);
+            }
+            if (rows == 1) {
+                builder.append("]");
+            } else if (i == 0) {
+                builder.append("\\");
+            } else if (i == rows - 1) {
+                builder.append("/");
+            } else {
+                builder.append(" |");
+            }
+            builder.append("\n");
+        }
+        if (rowsCut || colsCut) {
+            builder.append("(").append(rows).append(" x ").append(cols).append(")\n");
+        }
+        return builder.toString();
+    }
+
+    // ---- Reading ----
+
+    /**
+     * Reads a CSV matrix from the stream, to its end.
+     *
+     * @throws IOException If a line holds something other than numbers, or
+     *                     the lines differ in length.
+     */
+    public static Matrix readCsv(final InputStream stream) throws IOException {
+        return readCsv(new Tokenizer(stream::read));
+    }
+
+    /**
+     * Reads a CSV matrix from the channel, to its end.
+     *
+     * @throws IOException If a line holds something other than numbers, or
+     *                     the lines differ in length.
+     */
+    public static Matrix readCsv(final ReadableByteChannel channel) throws IOException {
+        return readCsv(new Tokenizer(channelSource(channel)));
+    }
+
+    /**
+     * Reads a Matrix Market file from the stream, to its end.
+     *
+     * @return A {@link Matrix} for the array format, or a {@link CSRMatrix}
+     * for the coordinate format.
+     * @throws IOException If the stream does not hold a supported Matrix
+     *                     Market file.
+     */
+    public static RealMatrix readMatrixMarket(final InputStream stream) throws IOException {
+        return readMatrixMarket(new Tokenizer(stream::read));
+    }
+
+    /**
+     * Reads a Matrix Market file from the channel, to its end.
+     *
+     * @return A {@link Matrix} for the array format, or a {@link CSRMatrix}
+     * for the coordinate format.
+     * @throws IOException If the channel does not hold a supported Matrix
+     *                     Market file.
+     */
+    public static RealMatrix readMatrixMarket(final ReadableByteChannel channel) throws IOException {
+        return readMatrixMarket(new Tokenizer(channelSource(channel)));
+    }
+
+    private static Source channelSource(final ReadableByteChannel channel) {
+        return (bytes, offset, length) -> channel.read(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    private static Matrix readCsv(final Tokenizer tokenizer) throws IOException {
+        // The shape is unknown until the end, so the elements are collected
+        // in an array that grows by half as needed
+        double[] data = new double[1024];
+        int size = 0;
+        int rows = 0;
+        int cols = -1;
+        while (tokenizer.skipEmptyLines()) {
+            int count = 0;
+            while (true) {
+                if (size == data.length) {
+                    if (size == Integer.MAX_VALUE - 8) {
+                        throw new IOException("The matrix is too large to read into memory.");
+                    }
+                    data = Arrays.copyOf(data, Math.min(Integer.MAX_VALUE - 8, size + (size >> 1)));
+                }
+                tokenizer.skipBlanks();
+                data[size++] = tokenizer.nextDouble();
+                count++;
+                tokenizer.skipBlanks();
+                if (!tokenizer.skip(',')) {
+                    break;
+                }
+            }
+            if (!tokenizer.endLine()) {
+                throw tokenizer.error("Expected a comma or the end of the line");
+            }
+            if (cols < 0) {
+                cols = count;
+            } else if (count != cols) {
+                throw tokenizer.error("Expected " + cols + " elements but found " + count);
+            }
+            rows++;
+        }
+        if (rows == 0) {
+            return new Matrix(0, 0);
+        }
+        return new Matrix(rows, cols, size == data.length ? data : Arrays.copyOf(data, size), false);
+    }
+
+    private static RealMatrix readMatrixMarket(final Tokenizer tokenizer) throws IOException {
+        String[] banner = tokenizer.nextLine().trim().toLowerCase(Locale.ROOT).split("\\s+");
+        if (banner.length != 5 || !banner[0].equals(BANNER.toLowerCase(Locale.ROOT))
+                || !banner[1].equals("matrix")) {
+            throw new IOException("The data does not hold a Matrix Market matrix.");
+        }
+        boolean coordinate = banner[2].equals("coordinate");
+        if (!coordinate && !banner[2].equals("array")) {
+            throw new IOException("Unsupported Matrix Market format : " + banner[2]);
+        }
+        String field = banner[3];
+        boolean pattern = field.equals("pattern");
+        if (!field.equals("real") && !field.equals("integer") && !(pattern && coordinate)) {
+            throw new IOException("Unsupported Matrix Market field : " + field);
+        }
+        String symmetry = banner[4];
+        boolean skew = symmetry.equals("skew-symmetric");
+        boolean symmetric = skew || symmetry.equals("symmetric");
+        if (!symmetric && !symmetry.equals("general")) {
+            throw new IOException("Unsupported Matrix Market symmetry : " + symmetry);
+        }
+        while (tokenizer.skipEmptyLines() && tokenizer.skip('%')) {
+            tokenizer.skipLine();
+        }
+        int rows = nextInt(tokenizer);
+        int cols = nextInt(tokenizer);
+        if (symmetric && rows != cols) {
+            throw tokenizer.error("A " + symmetry + " matrix must be square : " + rows + " x " + cols);
+        }
+        return coordinate
+                ? readCoordinate(tokenizer, rows, cols, pattern, symmetric, skew)
+                : readArray(tokenizer, rows, cols, symmetric, skew);
+    }
+
+    /**
+     * Reads the elements of an array, stored in column order, straight
+     * into a column-major matrix, or into a row-major one, both triangles
+     * at once, if only the lower triangle is stored.
+     */
+    private static Matrix readArray(final Tokenizer tokenizer, final int rows, final int cols,
+                                    final boolean symmetric, final boolean skew) throws IOException {
+        if ((long) rows * cols > Integer.MAX_VALUE - 8) {
+            throw new IOException("The matrix is too large to read into memory : " + rows + " x " + cols);
+        }
+        double[] data = new double[rows * cols];
+        if (!symmetric) {
+            for (int k = 0; k < data.length; k++) {
+                data[k] = nextDouble(tokenizer);
+            }
+            tokenizer.expectEnd();
+            return new Matrix(rows, cols, data, 0, 1, rows);
+        }
+        for (int j = 0; j < cols; j++) {
+            for (int i = skew ? j + 1 : j; i < rows; i++) {
+                double value = nextDouble(tokenizer);
+                data[i * cols + j] = value;
+                data[j * cols + i] = skew ? -value : value;
+            }
+        }
+        tokenizer.expectEnd();
+        return new Matrix(rows, cols, data, false);
+    }
+
+    private static CSRMatrix readCoordinate(final Tokenizer tokenizer, final int rows, final int cols,
+                                            final boolean pattern, final boolean symmetric,
+                                            final boolean skew) throws IOException {
+        int count = nextInt(tokenizer);
+        if (symmetric && count > (Integer.MAX_VALUE - 8) / 2) {
+            throw new IOException("Too many non-zero elements : " + count);
+        }
+        int capacity = symmetric ? 2 * count : count;
+        int[] rowIndices = new int[capacity];
+        int[] columnIndices = new int[capacity];
+        double[] values = new double[capacity];
+        int size = 0;
+        for (int t = 0; t < count; t++) {
+            int i = nextInt(tokenizer) - 1;
+            int j = nextInt(tokenizer) - 1;
+            if (i < 0 || i >= rows || j < 0 || j >= cols) {
+                throw tokenizer.error("Invalid element index : (" + (i + 1) + ", " + (j + 1) + ")");
+            }
+            double value = pattern ? 1 : nextDouble(tokenizer);
+            rowIndices[size] = i;
+            columnIndices[size] = j;
+            values[size++] = value;
+            if (symmetric && i != j) {
+                rowIndices[size] = j;
+                columnIndices[size] = i;
+                values[size++] = skew ? -value : value;
+            }
+        }
+        tokenizer.expectEnd();
+        if (size < capacity) {
+            rowIndices = Arrays.copyOf(rowIndices, size);
+            columnIndices = Arrays.copyOf(columnIndices, size);
+            values = Arrays.copyOf(values, size);
+        }
+        return CSRMatrix.fromTriplets(rows, cols, rowIndices, columnIndices, values);
+    }
+
+    /**
+     * Matrix Market separates its numbers by any whitespace, line breaks
+     * included.
+     */
+    private static int nextInt(final Tokenizer tokenizer) throws IOException {
+        tokenizer.skipWhitespace();
+        return tokenizer.nextInt();
+    }
+
+    private static double nextDouble(final Tokenizer tokenizer) throws IOException {
+        tokenizer.skipWhitespace();
+        return tokenizer.nextDouble();
+    }
+
+    /**
+     * Where the bytes being read come from; {@link InputStream#read(byte[], int, int)}
+     * in form.
+     */
+    private interface Source {
+        /**
+         * @return The number of bytes read, or -1 at the end of the input.
+         */
+        int read(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    /**
+     * Splits ASCII input into numbers and separators, reading it through a
+     * fixed buffer. A number is always parsed from the buffer in one piece;
+     * the unread bytes are moved to its front whenever fewer than
+     * {@link #MAX_TOKEN} of them are left.
+     */
+    private static final class Tokenizer {
+        private final Source source;
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int position;
+        private int limit;
+        private boolean ended;
+        private long line = 1;
+
+        Tokenizer(final Source source) {
+            this.source = source;
+        }
+
+        /**
+         * Reads until at least the given number of bytes are buffered or
+         * the input ends.
+         */
+        private void ensure(final int count) throws IOException {
+            if (limit - position >= count || ended) {
+                return;
+            }
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+            while (limit < count && !ended) {
+                int read = source.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    ended = true;
+                } else {
+                    limit += read;
+                }
+            }
+        }
+
+        /**
+         * @return The next byte, without consuming it, or -1 at the end of
+         * the input.
+         */
+        private int peek() throws IOException {
+            if (position == limit) {
+                ensure(1);
+                if (position == limit) {
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        boolean skip(final char c) throws IOException {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void skipBlanks() throws IOException {
+            for (int c = peek(); c == ' ' || c == '\t'; c = peek()) {
+                position++;
+            }
+        }
+
+        /**
+         * Consumes the end of the current line, if that is all that is left
+         * of it.
+         *
+         * @return Whether it was.
+         */
+        boolean endLine() throws IOException {
+            skip('\r');
+            if (skip('\n')) {
+                line++;
+                return true;
+            }
+            return peek() < 0;
+        }
+
+        /**
+         * Consumes lines holding only blanks.
+         *
+         * @return Whether any input is left.
+         */
+        boolean skipEmptyLines() throws IOException {
+            while (true) {
+                skipBlanks();
+                int c = peek();
+                if (c < 0) {
+                    return false;
+                }
+                if (c != '\r' && c != '\n') {
+                    return true;
+                }
+                endLine();
+            }
+        }
+
+        void skipLine() throws IOException {
+            for (int c = peek(); c >= 0; c = peek()) {
+                position++;
+                if (c == '\n') {
+                    line++;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return The rest of the current line; only used for headers.
+         */
+        String nextLine() throws IOException {
+            StringBuilder builder = new StringBuilder();
+            for (int c = peek(); c >= 0 && c != '\n'; c = peek()) {
+                builder.append((char) (c & 0xFF));
+                position++;
+            }
+            endLine();
+            return builder.toString();
+        }
+
+        /**
+         * Skips any whitespace, across lines.
+         */
+        void skipWhitespace() throws IOException {
+            for (int c = peek(); c == ' ' || c == '\t' || c == '\r' || c == '\n'; c = peek()) {
+                position++;
+                if (c == '\n') {
+                    line++;
+                }
+            }
+        }
+
+        /**
+         * Checks that nothing but whitespace is left.
+         */
+        void expectEnd() throws IOException {
+            skipWhitespace();
+            if (peek() >= 0) {
+                throw error("Expected the end of the data");
+            }
+        }
+
+        /**
+         * Parses the next unsigned integer, which must start right here.
+         */
+        int nextInt() throws IOException {
+            ensure(MAX_TOKEN);
+            int p = position;
+            long value = 0;
+            while (p < limit && buffer[p] >= '0' && buffer[p] <= '9' && value <= Integer.MAX_VALUE) {
+                value = value * 10 + (buffer[p++] - '0');
+            }
+            if (p == position || value > Integer.MAX_VALUE || !endsToken(p)) {
+                throw error("Expected a non-negative integer");
+            }
+            position = p;
+            return (int) value;
+        }
+
+        /**
+         * Parses the next number, which must start right here.
+         */
+        double nextDouble() throws IOException {
+            ensure(MAX_TOKEN);
+            int start = position;
+            if (start == limit) {
+                throw error("Expected a number");
+            }
+            int p = start;
+            boolean negative = false;
+            if (p < limit && (buffer[p] == '-' || buffer[p] == '+')) {
+                negative = buffer[p++] == '-';
+            }
+            long mantissa = 0;
+            // The number of significant digits, and how many were not kept
+            int digits = 0;
+            int dropped = 0;
+            int exponent = 0;
+            boolean any = false;
+            for (; p < limit && buffer[p] >= '0' && buffer[p] <= '9'; p++) {
+                any = true;
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (buffer[p] - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                } else {
+                    dropped++;
+                    exponent++;
+                }
+            }
+            if (p < limit && buffer[p] == '.') {
+                for (p++; p < limit && buffer[p] >= '0' && buffer[p] <= '9'; p++) {
+                    any = true;
+                    if (digits < MAX_DIGITS) {
+                        mantissa = mantissa * 10 + (buffer[p] - '0');
+                        if (mantissa != 0) {
+                            digits++;
+                        }
+                        exponent--;
+                    } else {
+                        dropped++;
+                    }
+                }
+            }
+            if (!any) {
+                return special(start);
+            }
+            if (p < limit && (buffer[p] == 'e' || buffer[p] == 'E')) {
+                p++;
+                boolean negativeExponent = false;
+                if (p < limit && (buffer[p] == '-' || buffer[p] == '+')) {
+                    negativeExponent = buffer[p++] == '-';
+                }
+                int exponentStart = p;
+                int written = 0;
+                for (; p < limit && buffer[p] >= '0' && buffer[p] <= '9'; p++) {
+                    if (written < 100_000) {
+                        written = written * 10 + (buffer[p] - '0');
+                    }
+                }
+                if (p == exponentStart) {
+                    throw error("Invalid number");
+                }
+                exponent += negativeExponent ? -written : written;
+            }
+            if (!endsToken(p)) {
+                throw error("Invalid number");
+            }
+            position = p;
+            double value;
+            if (dropped == 0 && mantissa < (long) EXACT_INTEGERS && Math.abs(exponent) < POWERS_OF_TEN.length) {
+                // Clinger's fast path: both operands are exact, so the single
+                // rounding of the product or quotient is the correct one
+                value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            } else {
+                value = DecimalToDouble.convert(mantissa, exponent, false);
+                // Dropped digits put the number between m and m + 1 units
+                if (dropped > 0 && value != DecimalToDouble.convert(mantissa + 1, exponent, false)) {
+                    value = Double.NaN;
+                }
+                if (Double.isNaN(value)) {
+                    return Double.parseDouble(new String(buffer, start, p - start, StandardCharsets.ISO_8859_1));
+                }
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses NaN or an infinity, written as {@link Double#toString(double)}
+         * does or abbreviated to Inf, in any case.
+         */
+        private double special(final int start) throws IOException {
+            int p = start;
+            boolean negative = false;
+            if (buffer[p] == '-' || buffer[p] == '+') {
+                negative = buffer[p++] == '-';
+            }
+            int end = p;
+            while (end < limit && Character.isLetter(buffer[end])) {
+                end++;
+            }
+            String word = new String(buffer, p, end - p, StandardCharsets.ISO_8859_1).toLowerCase(Locale.ROOT);
+            if (!endsToken(end)) {
+                throw error("Invalid number");
+            }
+            double value;
+            if (word.equals("nan")) {
+                value = Double.NaN;
+            } else if (word.equals("inf") || word.equals("infinity")) {
+                value = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            } else {
+                throw error("Invalid number");
+            }
+            position = end;
+            return value;
+        }
+
+        /**
+         * @return Whether a token may end before the given index.
+         */
+        private boolean endsToken(final int p) throws IOException {
+            if (p == limit) {
+                if (!ended) {
+                    throw error("A token is longer than " + MAX_TOKEN + " bytes");
+                }
+                return true;
+            }
+            byte c = buffer[p];
+            return c == ',' || c == ' ' || c == '\t' || c == '\r' || c == '\n';
+        }
+
+        IOException error(final String message) {
+            return new IOException(message + " at line " + line + ".");
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * A lower or upper triangular matrix, storing only its triangle, row by
+ * row, in one array of n(n + 1) / 2 elements. Row i of a lower triangular
+ * matrix holds elements (i, 0) to (i, i); row i of an upper triangular one
+ * holds (i, i) to (i, n - 1).
+ * <p>
+ * Besides products that skip the zero triangle, it solves triangular
+ * systems by substitution ({@link #solve(double[])}, {@link #solve(Matrix)})
+ * and is inverted in about a sixth of the multiplications of a general
+ * matrix, the inverse being triangular of the same kind. Every stored row
+ * is a unit-stride run, so all of these work a row at a time.
+ */
+@SuppressWarnings("WeakerAccess")
+public class TriangularMatrix extends StructuredMatrix {
+    private final boolean upper;
+
+    TriangularMatrix(final int order, final boolean upper, final double[] packed) {
+        super(order, packed);
+        this.upper = upper;
+    }
+
+    public static TriangularMatrix zero(final int order, final boolean upper) throws IllegalArgumentException {
+        throwIfInvalidOrder(order);
+        return new TriangularMatrix(order, upper, new double[SymmetricMatrix.position(order, 0)]);
+    }
+
+    /**
+     * Packs the lower triangle of the given matrix, including the diagonal.
+     * The rest is not read, and is taken to be zero.
+     *
+     * @param matrix The square matrix to pack.
+     * @return The lower triangular matrix.
+     * @throws IllegalArgumentException If the matrix is not square.
+     */
+    public static TriangularMatrix lower(final Matrix matrix) throws IllegalArgumentException {
+        return fromMatrix(matrix, false);
+    }
+
+    /**
+     * Packs the upper triangle of the given matrix, including the diagonal.
+     * The rest is not read, and is taken to be zero.
+     *
+     * @param matrix The square matrix to pack.
+     * @return The upper triangular matrix.
+     * @throws IllegalArgumentException If the matrix is not square.
+     */
+    public static TriangularMatrix upper(final Matrix matrix) throws IllegalArgumentException {
+        return fromMatrix(matrix, true);
+    }
+
+    private static TriangularMatrix fromMatrix(final Matrix matrix, final boolean upper) {
+        throwIfNotSquare(matrix);
+        TriangularMatrix triangular = zero(matrix.getRows(), upper);
+        double[] data = matrix.getData();
+        for (int i = 0; i < triangular.order; i++) {
+            Kernels.copy(triangular.rowLength(i), data, matrix.index(i, triangular.firstColumn(i)),
+                    matrix.getColStride(), triangular.packed, triangular.rowStart(i), 1);
+        }
+        return triangular;
+    }
+
+    public boolean isUpper() {
+        return upper;
+    }
+
+    public boolean isLower() {
+        return !upper;
+    }
+
+    /**
+     * @return The position of the first stored element of row i.
+     */
+    private int rowStart(final int i) {
+        return upper ? (int) ((long) i * order - (long) i * (i - 1) / 2) : SymmetricMatrix.position(i, 0);
+    }
+
+    private int firstColumn(final int i) {
+        return upper ? i : 0;
+    }
+
+    private int rowLength(final int i) {
+        return upper ? order - i : i + 1;
+    }
+
+    private int diagonal(final int i) {
+        return upper ? rowStart(i) : rowStart(i) + i;
+    }
+
+    private boolean isInTriangle(final int i, final int j) {
+        return upper ? j >= i : j <= i;
+    }
+
+    @Override
+    double element(final int i, final int j) {
+        return isInTriangle(i, j) ? packed[rowStart(i) + j - firstColumn(i)] : 0;
+    }
+
+    /**
+     * Sets an element of the triangle.
+     *
+     * @throws IllegalArgumentException If a non-zero value is set outside
+     *                                  the triangle.
+     */
+    public void set(final int i, final int j, final double value)
+            throws IndexOutOfBoundsException, IllegalArgumentException {
+        throwIfInvalidElement(i, j);
+        if (isInTriangle(i, j)) {
+            packed[rowStart(i) + j - firstColumn(i)] = value;
+        } else if (value != 0) {
+            throw new IllegalArgumentException("Cannot set an element outside the triangle : ("
+                    + i + ", " + j + ")");
+        }
+    }
+
+    @Override
+    boolean hasSameStructure(final StructuredMatrix matrix) {
+        return matrix instanceof TriangularMatrix && matrix.order == order
+                && ((TriangularMatrix) matrix).upper == upper;
+    }
+
+    @Override
+    TriangularMatrix withPacked(final double[] elements) {
+        return new TriangularMatrix(order, upper, elements);
+    }
+
+    @Override
+    public double[] multiply(final double[] vector, final double[] destination) throws IllegalArgumentException {
+        throwIfInvalidVectors(vector, destination);
+        for (int i = 0; i < order; i++) {
+            destination[i] = Kernels.dot(rowLength(i), packed, rowStart(i), 1, vector, firstColumn(i), 1);
+        }
+        return destination;
+    }
+
+    @Override
+    public Matrix multiply(final Matrix multiplicand) throws IllegalArgumentException {
+        if (multiplicand.getRows() != order) {
+            throwIncompatible("multiplication");
+        }
+        int p = multiplicand.getCols();
+        double[] b = multiplicand.getData();
+        double[] product = new double[order * p];
+        for (int i = 0; i < order; i++) {
+            for (int k = 0, q = rowStart(i), j = firstColumn(i); k < rowLength(i); k++, q++, j++) {
+                Kernels.axpy(p, packed[q], b, multiplicand.index(j, 0), multiplicand.getColStride(),
+                        product, i * p, 1);
+            }
+        }
+        return Matrix.fromLinearArray(order, p, product, false);
+    }
+
+    @Override
+    Matrix leftMultiply(final Matrix multiplier) throws IllegalArgumentException {
+        if (multiplier.getCols() != order) {
+            throwIncompatible("multiplication");
+        }
+        int m = multiplier.getRows();
+        double[] a = multiplier.getData();
+        double[] product = new double[m * order];
+        // Row r of AT adds up the rows of T, weighted by row r of A
+        for (int r = 0; r < m; r++) {
+            for (int k = 0, ak = multiplier.index(r, 0); k < order; k++, ak += multiplier.getColStride()) {
+                if (a[ak] != 0) {
+                    Kernels.axpy(rowLength(k), a[ak], packed, rowStart(k), 1,
+                            product, r * order + firstColumn(k), 1);
+                }
+            }
+        }
+        return Matrix.fromLinearArray(m, order, product, false);
+    }
+
+    /**
+     * @return The transpose, which is triangular of the other kind.
+     */
+    @Override
+    public TriangularMatrix transpose() {
+        TriangularMatrix transpose = zero(order, !upper);
+        for (int i = 0; i < order; i++) {
+            for (int k = 0, q = rowStart(i), j = firstColumn(i); k < rowLength(i); k++, q++, j++) {
+                transpose.packed[transpose.rowStart(j) + i - transpose.firstColumn(j)] = packed[q];
+            }
+        }
+        return transpose;
+    }
+
+    /**
+     * @return The determinant, the product of the diagonal.
+     */
+    public double getDeterminant() {
+        double determinant = 1;
+        for (int i = 0; i < order; i++) {
+            determinant *= packed[diagonal(i)];
+        }
+        return determinant;
+    }
+
+    /**
+     * @return Whether a diagonal element is zero, relative to the largest
+     * element, by the same measure as {@link LUDecomposition#isSingular()}.
+     */
+    public boolean isSingular() {
+        double tolerance = pivotTolerance();
+        for (int i = 0; i < order; i++) {
+            if (Math.abs(packed[diagonal(i)]) <= tolerance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void throwIfSingular(final String message) throws ArithmeticException {
+        if (isSingular()) {
+            throw new ArithmeticException(message);
+        }
+    }
+
+    /**
+     * Solves Tx = b by forward substitution for a lower triangular T, or
+     * back substitution for an upper triangular one.
+     *
+     * @param b The right-hand side, of length equal to the order of T.
+     * @return The solution x, in a new array.
+     * @throws ArithmeticException If T is singular.
+     */
+    public double[] solve(final double[] b) throws IllegalArgumentException, ArithmeticException {
+        throwIfInvalidRightHandSide(b);
+        throwIfSingular("Cannot solve a system with a singular matrix.");
+        double[] x = b.clone();
+        for (int s = 0; s < order; s++) {
+            int i = upper ? order - 1 - s : s;
+            int start = rowStart(i);
+            // The rest of row i, off the diagonal, against the part of x already solved
+            double sum = upper
+                    ? Kernels.dot(order - 1 - i, packed, start + 1, 1, x, i + 1, 1)
+                    : Kernels.dot(i, packed, start, 1, x, 0, 1);
+            x[i] = (x[i] - sum) / packed[diagonal(i)];
+        }
+        return x;
+    }
+
+    /**
+     * Solves TX = B for X, treating every column of B as a separate
+     * right-hand side.
+     *
+     * @param b The right-hand sides, with as many rows as the order of T.
+     * @return The solution X, in a new matrix of the same shape as B.
+     * @throws ArithmeticException If T is singular.
+     */
+    public Matrix solve(final Matrix b) throws IllegalArgumentException, ArithmeticException {
+        throwIfInvalidRightHandSide(b);
+        throwIfSingular("Cannot solve a system with a singular matrix.");
+        int cols = b.getCols();
+        double[] x = b.toLinearArray();
+        // Whole rows at a time, so that every inner loop has unit stride
+        for (int s = 0; s < order; s++) {
+            int i = upper ? order - 1 - s : s;
+            for (int k = 0, q = rowStart(i), j = firstColumn(i); k < rowLength(i); k++, q++, j++) {
+                if (j != i && packed[q] != 0) {
+                    Kernels.axpy(cols, -packed[q], x, j * cols, 1, x, i * cols, 1);
+                }
+            }
+            Kernels.scale(cols, 1 / packed[diagonal(i)], x, i * cols, 1);
+        }
+        return Matrix.fromLinearArray(order, cols, x, false);
+    }
+
+    /**
+     * Finds the inverse by substitution, one row at a time: row i of the
+     * inverse is the unit vector e<sub>i</sub>, less the multiples of the
+     * rows already found that row i of this matrix gives, divided by the
+     * diagonal. Only the triangle is ever touched.
+     *
+     * @return The inverse, triangular of the same kind.
+     * @throws ArithmeticException If this matrix is singular.
+     */
+    public TriangularMatrix getInverse() throws ArithmeticException {
+        throwIfSingular("Cannot find inverse of singular matrix.");
+        TriangularMatrix inverse = zero(order, upper);
+        double[] x = inverse.packed;
+        for (int s = 0; s < order; s++) {
+            int i = upper ? order - 1 - s : s;
+            int target = rowStart(i);
+            for (int k = 0, q = target, j = firstColumn(i); k < rowLength(i); k++, q++, j++) {
+                if (j != i && packed[q] != 0) {
+                    // Row j of the inverse is a sub-run of row i, ending (lower) or starting (upper) at j
+                    int offset = upper ? target + j - i : target;
+                    Kernels.axpy(rowLength(j), -packed[q], x, rowStart(j), 1, x, offset, 1);
+                }
+            }
+            x[diagonal(i)] += 1;
+            Kernels.scale(rowLength(i), 1 / packed[diagonal(i)], x, target, 1);
+        }
+        return inverse;
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * Explicitly vectorized versions of the unit-stride loops of
+ * {@link Kernels}, which the kernels hand their work to when a backend is
+ * available.
+ * <p>
+ * The only implementation, {@code DoubleVectorBackend}, is built on the
+ * incubating {@code jdk.incubator.vector} API. It is compiled only on JDK 17
+ * and later (by the {@code vector} profile) and is found by reflection, so
+ * the rest of the library still runs on Java 8. Every method performs, lane
+ * by lane, exactly the arithmetic of the scalar loop it replaces, so the
+ * results are bit-identical; the only exception is {@link #dot}, whose
+ * partial sums are kept per lane.
+ */
+interface VectorBackend {
+    /**
+     * y[i] += x[i]
+     */
+    void add(int n, double[] x, int xOffset, double[] y, int yOffset);
+
+    /**
+     * y[i] -= x[i]
+     */
+    void subtract(int n, double[] x, int xOffset, double[] y, int yOffset);
+
+    /**
+     * y[i] *= x[i]
+     */
+    void multiply(int n, double[] x, int xOffset, double[] y, int yOffset);
+
+    /**
+     * y[i] /= x[i]
+     */
+    void divide(int n, double[] x, int xOffset, double[] y, int yOffset);
+
+    /**
+     * y[i] *= alpha
+     */
+    void scale(int n, double alpha, double[] y, int yOffset);
+
+    /**
+     * y[i] += alpha * x[i]
+     */
+    void axpy(int n, double alpha, double[] x, int xOffset, double[] y, int yOffset);
+
+    /**
+     * @return The sum of x[i] * y[i].
+     */
+    double dot(int n, double[] x, int xOffset, double[] y, int yOffset);
+
+    /**
+     * y[i] = y[i] + a0 * x[i] + a1 * x[i + incX] + a2 * x[i + 2 * incX] + a3 * x[i + 3 * incX],
+     * evaluated left to right.
+     */
+    void axpy4(int n, double a0, double a1, double a2, double a3, double[] x, int xOffset, int incX,
+               double[] y, int yOffset);
+
+    /**
+     * @return A short description of the backend, such as its vector width.
+     */
+    String describe();
+}
@@ -0,0 +1,73 @@
+package com.github.subh0m0y.matrix;
+
+/**
+ * Scratch space for the operations of {@link Matrix} and {@link FloatMatrix}
+ * that need temporary storage, such as
+ * {@link Matrix#multiplyInPlace(Matrix, Workspace)} and
+ * {@link Matrix#exponentiate(int, Matrix, Workspace)}.
+ * <p>
+ * A workspace keeps the buffers it hands out and reuses them on every
+ * later call, growing them only when a larger size is asked for. A loop
+ * that repeats the same operations on matrices of the same shapes with one
+ * workspace therefore allocates nothing once the first iteration is done.
+ * <p>
+ * A workspace is not thread-safe; every thread should have its own. The
+ * operations taking a workspace compute their products on the calling
+ * thread.
+ */
+@SuppressWarnings("WeakerAccess")
+public class Workspace {
+    /**
+     * The number of scratch matrices an operation may use at once.
+     */
+    static final int SLOTS = 3;
+
+    private final double[][] buffers = new double[SLOTS][];
+    private final Matrix[] matrices = new Matrix[SLOTS];
+    private double[] panel;
+    private float[] floatPanel;
+
+    /**
+     * Returns a compact scratch matrix of the given shape. Its elements are
+     * unspecified, and it stays valid only until the same slot is asked for
+     * again.
+     *
+     * @param slot The slot, from 0 to {@link #SLOTS} - 1.
+     * @param rows The number of rows.
+     * @param cols The number of columns.
+     * @return The matrix.
+     */
+    Matrix matrix(final int slot, final int rows, final int cols) {
+        Matrix matrix = matrices[slot];
+        if (matrix != null && matrix.getRows() == rows && matrix.getCols() == cols) {
+            return matrix;
+        }
+        int size = rows * cols;
+        if (buffers[slot] == null || buffers[slot].length < size) {
+            buffers[slot] = new double[size];
+        }
+        matrix = new Matrix(rows, cols, buffers[slot], 0, cols);
+        matrices[slot] = matrix;
+        return matrix;
+    }
+
+    /**
+     * @return The buffer the multiplication kernel packs its panels into.
+     */
+    double[] panel() {
+        if (panel == null) {
+            panel = new double[Gemm.PANEL_SIZE];
+        }
+        return panel;
+    }
+
+    /**
+     * @return The buffer the float multiplication kernel packs its panels into.
+     */
+    float[] floatPanel() {
+        if (floatPanel == null) {
+            floatPanel = new float[Gemm.PANEL_SIZE];
+        }
+        return floatPanel;
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.subh0m0y.matrix;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link VectorBackend} on {@link DoubleVector}.
+ * <p>
+ * The species is the preferred one of the platform unless the
+ * {@code matrix.vector.bits} system property asks for a particular width
+ * (64, 128, 256 or 512). It is fixed when the class is initialized, since
+ * the JIT only compiles vector operations to single instructions when the
+ * species is a constant.
+ */
+final class DoubleVectorBackend implements VectorBackend {
+    private static final VectorSpecies<Double> SPECIES = species();
+
+    private static VectorSpecies<Double> species() {
+        int bits = Integer.getInteger(Kernels.VECTOR_BITS_PROPERTY, 0);
+        return bits == 0 ? DoubleVector.SPECIES_PREFERRED
+                : VectorSpecies.of(double.class, VectorShape.forBitSize(bits));
+    }
+
+    @Override
+    public void add(final int n, final double[] x, final int xOffset, final double[] y, final int yOffset) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, y, yOffset + i)
+                    .add(DoubleVector.fromArray(SPECIES, x, xOffset + i))
+                    .intoArray(y, yOffset + i);
+        }
+        for (; i < n; i++) {
+            y[yOffset + i] += x[xOffset + i];
+        }
+    }
+
+    @Override
+    public void subtract(final int n, final double[] x, final int xOffset, final double[] y, final int yOffset) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, y, yOffset + i)
+                    .sub(DoubleVector.fromArray(SPECIES, x, xOffset + i))
+                    .intoArray(y, yOffset + i);
+        }
+        for (; i < n; i++) {
+            y[yOffset + i] -= x[xOffset + i];
+        }
+    }
+
+    @Override
+    public void multiply(final int n, final double[] x, final int xOffset, final double[] y, final int yOffset) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, y, yOffset + i)
+                    .mul(DoubleVector.fromArray(SPECIES, x, xOffset + i))
+                    .intoArray(y, yOffset + i);
+        }
+        for (; i < n; i++) {
+            y[yOffset + i] *= x[xOffset + i];
+        }
+    }
+
+    @Override
+    public void divide(final int n, final double[] x, final int xOffset, final double[] y, final int yOffset) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, y, yOffset + i)
+                    .div(DoubleVector.fromArray(SPECIES, x, xOffset + i))
+                    .intoArray(y, yOffset + i);
+        }
+        for (; i < n; i++) {
+            y[yOffset + i] /= x[xOffset + i];
+        }
+    }
+
+    @Override
+    public void scale(final int n, final double alpha, final double[] y, final int yOffset) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, y, yOffset + i)
+                    .mul(alpha)
+                    .intoArray(y, yOffset + i);
+        }
+        for (; i < n; i++) {
+            y[yOffset + i] *= alpha;
+        }
+    }
+
+    @Override
+    public void axpy(final int n, final double alpha, final double[] x, final int xOffset,
+                     final double[] y, final int yOffset) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            // Multiply and add separately rather than fused, to round as the scalar loop does
+            DoubleVector.fromArray(SPECIES, y, yOffset + i)
+                    .add(DoubleVector.fromArray(SPECIES, x, xOffset + i).mul(alpha))
+                    .intoArray(y, yOffset + i);
+        }
+        for (; i < n; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    @Override
+    public double dot(final int n, final double[] x, final int xOffset, final double[] y, final int yOffset) {
+        DoubleVector sums = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            sums = sums.add(DoubleVector.fromArray(SPECIES, x, xOffset + i)
+                    .mul(DoubleVector.fromArray(SPECIES, y, yOffset + i)));
+        }
+        double sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            sum += x[xOffset + i] * y[yOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy4(final int n, final double a0, final double a1, final double a2, final double a3,
+                      final double[] x, final int xOffset, final int incX, final double[] y, final int yOffset) {
+        int o0 = xOffset;
+        int o1 = o0 + incX;
+        int o2 = o1 + incX;
+        int o3 = o2 + incX;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, y, yOffset + i)
+                    .add(DoubleVector.fromArray(SPECIES, x, o0 + i).mul(a0))
+                    .add(DoubleVector.fromArray(SPECIES, x, o1 + i).mul(a1))
+                    .add(DoubleVector.fromArray(SPECIES, x, o2 + i).mul(a2))
+                    .add(DoubleVector.fromArray(SPECIES, x, o3 + i).mul(a3))
+                    .intoArray(y, yOffset + i);
+        }
+        for (; i < n; i++) {
+            y[yOffset + i] = y[yOffset + i]
+                    + a0 * x[o0 + i]
+                    + a1 * x[o1 + i]
+                    + a2 * x[o2 + i]
+                    + a3 * x[o3 + i];
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "DoubleVector, " + SPECIES.vectorBitSize() + " bits";
+    }
+}
@@ -3,7 +3,13 @@ package com.github.subh0m0y.matrix;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.testng.Assert.*;
 
@@ -17,16 +23,16 @@ public class BasicMatrixTest {
         random = new Random();
     }
 
-    private static void changeElement(double[][] data, Random random) {
-        data[random.nextInt(ROWS)][random.nextInt(COLS)] *= random.nextGaussian() * 2;
-        data[random.nextInt(ROWS)][random.nextInt(COLS)] += random.nextGaussian() + 1;
+    private static void changeElement(double[] data, Random random) {
+        data[random.nextInt(ROWS * COLS)] *= random.nextGaussian() * 2;
+        data[random.nextInt(ROWS * COLS)] += random.nextGaussian() + 1;
     }
 
     @Test
     public void testEqualsAndHashCode() {
-        double[][] data = new double[ROWS][COLS];
+        double[] data = new double[ROWS * COLS];
         Utilities.populate(data, random);
-        Matrix matrix1 = new Matrix(data, false);
+        Matrix matrix1 = new Matrix(ROWS, COLS, data, false);
         Matrix matrix2 = new Matrix(matrix1);
         assertTrue(matrix1.equals(matrix2));
         assertEquals(matrix1.hashCode(), matrix2.hashCode());
@@ -37,9 +43,9 @@ public class BasicMatrixTest {
 
     @Test
     public void testConstructors() {
-        double[][] data = new double[ROWS][COLS];
+        double[] data = new double[ROWS * COLS];
         Matrix matrixZero1 = new Matrix(ROWS, COLS);
-        Matrix matrixZero2 = new Matrix(data, true);
+        Matrix matrixZero2 = new Matrix(ROWS, COLS, data, true);
 
         assertTrue(matrixZero1.isZero());
         assertTrue(matrixZero2.isZero());
@@ -47,8 +53,8 @@ public class BasicMatrixTest {
 
         Utilities.populate(data, random);
 
-        Matrix matrix1 = new Matrix(data, true);
-        Matrix matrix2 = new Matrix(data, false);
+        Matrix matrix1 = new Matrix(ROWS, COLS, data, true);
+        Matrix matrix2 = new Matrix(ROWS, COLS, data, false);
         assertEquals(matrix1, matrix2);
 
         changeElement(data, random);
@@ -66,22 +72,49 @@ public class BasicMatrixTest {
         for (int i = 0; i < ROWS; i++) {
             System.arraycopy(data[i], 0, linear, i * COLS, COLS);
         }
-        Matrix matrix1 = new Matrix(data, false);
+        Matrix matrix1 = new Matrix(ROWS, COLS, linear, false);
         Matrix matrix2 = Matrix.fromArray(data);
         Matrix matrix3 = Matrix.fromLinearArray(ROWS, COLS, linear);
+        Matrix matrix4 = Matrix.fromLinearArray(ROWS, COLS, linear, false);
         assertEquals(matrix1, matrix2);
         assertEquals(matrix2, matrix3);
-        changeElement(data, random);
+        assertEquals(matrix3, matrix4);
+        changeElement(linear, random);
         assertNotEquals(matrix1, matrix2);
         assertNotEquals(matrix1, matrix3);
+        assertEquals(matrix1, matrix4);
+    }
+
+    @Test
+    public void testStridedStorage() {
+        int stride = COLS + 7;
+        int offset = 5;
+        double[] backing = new double[offset + ROWS * stride];
+        Utilities.populate(backing, random);
+        Matrix strided = new Matrix(ROWS, COLS, backing, offset, stride);
+        Matrix compact = new Matrix(strided);
+        assertEquals(strided, compact);
+        assertEquals(strided.hashCode(), compact.hashCode());
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLS; j++) {
+                assertEquals(strided.get(i, j), backing[offset + i * stride + j]);
+            }
+        }
+        assertEquals(strided.add(compact), compact.add(compact));
+        assertEquals(strided.multiply(compact), compact.multiply(compact));
+        assertEquals(strided.transpose(), compact.transpose());
+        strided.scaleInPlace(2);
+        compact.scaleInPlace(2);
+        assertEquals(strided, compact);
+        assertThrows(() -> new Matrix(ROWS, COLS, backing, offset + 8, stride));
     }
 
     @Test
     public void testGet() {
-        double[][] data = new double[ROWS][COLS];
+        double[] data = new double[ROWS * COLS];
         Utilities.populate(data, random);
 
-        Matrix matrix1 = new Matrix(data, false);
+        Matrix matrix1 = new Matrix(ROWS, COLS, data, false);
         Matrix matrix2 = new Matrix(matrix1);
 
         assertEquals(matrix1.getRows(), ROWS);
@@ -103,8 +136,8 @@ public class BasicMatrixTest {
 
     @Test
     public void testIsZero() {
-        double[][] data = new double[ROWS][COLS];
-        Matrix matrix1 = new Matrix(data, false);
+        double[] data = new double[ROWS * COLS];
+        Matrix matrix1 = new Matrix(ROWS, COLS, data, false);
         assertTrue(matrix1.isZero());
         changeElement(data, random);
         assertFalse(matrix1.isZero());
@@ -114,11 +147,11 @@ public class BasicMatrixTest {
 
     @Test
     public void testIsIdentity() {
-        double[][] data = new double[ROWS][ROWS];
-        Matrix matrix1 = new Matrix(data, false);
+        double[] data = new double[ROWS * ROWS];
+        Matrix matrix1 = new Matrix(ROWS, ROWS, data, false);
         assertFalse(matrix1.isIdentity());
         for (int i = 0; i < ROWS; i++) {
-            data[i][i] = 1;
+            data[i * ROWS + i] = 1;
         }
         assertTrue(matrix1.isSquare());
         assertTrue(matrix1.isIdentity());
@@ -131,13 +164,11 @@ public class BasicMatrixTest {
 
     @Test
     public void testZeroFill() {
-        double[][] data = new double[ROWS][COLS];
-        for (int i = 0; i < ROWS; i++) {
-            for (int j = 0; j < COLS; j++) {
-                data[i][j] = random.nextDouble() * Standards.EPSILON;
-            }
+        double[] data = new double[ROWS * COLS];
+        for (int i = 0; i < ROWS * COLS; i++) {
+            data[i] = random.nextDouble() * Standards.EPSILON;
         }
-        Matrix matrix = new Matrix(data, false);
+        Matrix matrix = new Matrix(ROWS, COLS, data, false);
         assertFalse(matrix.isZero());
         matrix.zeroFill();
         assertTrue(matrix.isZero());
@@ -145,14 +176,118 @@ public class BasicMatrixTest {
 
     @Test
     public void testTranspose() {
-        double[][] data = new double[ROWS][COLS];
+        double[] data = new double[ROWS * COLS];
         Utilities.populate(data, random);
-        Matrix matrix1 = new Matrix(data, false);
+        Matrix matrix1 = new Matrix(ROWS, COLS, data, false);
         Matrix matrix2 = matrix1.transpose();
         matrix1.transposeInPlace();
         assertEquals(matrix1, matrix2);
     }
 
+    @Test
+    public void testRectangularTranspose() {
+        // Ragged shapes, to leave partial tiles at every level of the recursion
+        int rows = ROWS + 37;
+        int cols = COLS / 3 + 5;
+        Matrix matrix = Matrix.random(rows, cols);
+        Matrix transpose = matrix.transpose();
+        assertEquals(transpose.getRows(), cols);
+        assertEquals(transpose.getCols(), rows);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                assertEquals(transpose.get(j, i), matrix.get(i, j));
+            }
+        }
+        assertEquals(matrix.transposeView().transpose(), matrix);
+        assertEquals(matrix.subMatrixView(1, 2, rows - 3, cols - 4).transpose(),
+                matrix.subMatrixView(1, 2, rows - 3, cols - 4).copy().transpose());
+
+        Matrix copy = matrix.copy();
+        copy.transposeInPlace();
+        assertEquals(copy, transpose);
+        assertEquals(copy.getRows(), cols);
+        copy.transposeInPlace();
+        assertEquals(copy, matrix);
+
+        // A band of whole rows is compact; its transpose stays in its own rows
+        Matrix band = copy.subMatrixView(2, 0, 5, cols);
+        Matrix expected = band.transpose();
+        band.transposeInPlace();
+        assertEquals(band, expected);
+        assertEquals(copy.rowView(7), matrix.rowView(7));
+        assertThrows(UnsupportedOperationException.class,
+                () -> copy.subMatrixView(0, 0, 5, cols - 1).transposeInPlace());
+    }
+
+    @Test
+    public void testViews() {
+        Matrix matrix = Matrix.random(ROWS, COLS);
+        Matrix original = matrix.copy();
+        int row = random.nextInt(ROWS / 2);
+        int col = random.nextInt(COLS / 2);
+        int rows = ROWS / 2 - 1;
+        int cols = COLS / 2 - 1;
+
+        Matrix block = matrix.subMatrixView(row, col, rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                assertEquals(block.get(i, j), matrix.get(row + i, col + j));
+            }
+        }
+        block.scaleInPlace(2);
+        assertEquals(matrix.get(row, col), original.get(row, col) * 2);
+        assertEquals(matrix.get(ROWS - 1, COLS - 1), original.get(ROWS - 1, COLS - 1));
+        matrix.set(row + 1, col + 1, 42);
+        assertEquals(block.get(1, 1), 42.0);
+
+        Matrix transposed = matrix.transposeView();
+        assertEquals(transposed, matrix.transpose());
+        assertEquals(transposed.transposeView(), matrix);
+        assertEquals(matrix.rowView(row).copy(), Matrix.fromLinearArray(1, COLS, matrix.getRow(row)));
+        assertEquals(matrix.columnView(col).copy(), Matrix.fromLinearArray(ROWS, 1, matrix.getColumn(col)));
+
+        Matrix copy = block.copy();
+        assertEquals(copy, block);
+        assertEquals(block.add(block), copy.add(copy));
+        assertEquals(block.multiply(block.transposeView()), copy.multiply(copy.transpose()));
+        assertEquals(transposed.multiply(matrix), matrix.transpose().multiply(matrix));
+        block.addInPlace(block.transposeView().transposeView());
+        copy.scaleInPlace(2);
+        assertEquals(block, copy);
+
+        assertThrows(() -> matrix.subMatrixView(ROWS - 1, 0, 2, 1));
+    }
+
+    @Test
+    public void testAliasedViews() {
+        // An operand that is a transposed view of the destination must be
+        // read as it was before any element is written
+        Matrix original = Matrix.fromLinearArray(3, 3, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        Matrix transpose = original.transpose();
+        Matrix symmetric = original.add(transpose);
+
+        Matrix a = original.copy();
+        assertSame(a.add(a.transposeView(), a), a);
+        assertEquals(a, symmetric);
+        a = original.copy();
+        a.addInPlace(a.transposeView());
+        assertEquals(a, symmetric);
+
+        a = original.copy();
+        a.transposeView().subtract(a, a);
+        assertEquals(a, transpose.subtract(original));
+        a = original.copy();
+        a.subtractInPlace(a.transposeView());
+        assertEquals(a, original.subtract(transpose));
+
+        a = original.copy();
+        a.elementMultiplyInPlace(a.transposeView());
+        assertEquals(a, original.elementMultiply(transpose));
+        a = original.copy();
+        a.elementDivideInPlace(a.transposeView());
+        assertEquals(a, original.elementDivide(transpose));
+    }
+
     @Test
     public void testAppendingAndSplitting() {
         Matrix matrix1 = Matrix.random(ROWS, COLS);
@@ -192,4 +327,42 @@ public class BasicMatrixTest {
         assertEquals(matrix1.getColumn(col1), matrix2.getColumn(col2));
         assertEquals(matrix1.getColumn(col2), matrix2.getColumn(col1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFreeze() throws Exception {
+        double[] data = new double[ROWS * COLS];
+        Utilities.populate(data, random);
+        Matrix matrix = new Matrix(ROWS, COLS, data, true);
+        Matrix view = matrix.rowView(0);
+        assertFalse(matrix.isFrozen());
+        assertSame(matrix.freeze(), matrix);
+        assertTrue(view.isFrozen());
+        assertTrue(matrix.columnView(1).isFrozen());
+        assertThrows(UnsupportedOperationException.class, () -> matrix.set(0, 0, 1));
+        assertThrows(UnsupportedOperationException.class, () -> view.scaleInPlace(2));
+        assertThrows(UnsupportedOperationException.class, () -> matrix.addInPlace(matrix));
+        assertThrows(UnsupportedOperationException.class, matrix::transposeInPlace);
+        assertEquals(matrix.toLinearArray(), data);
+
+        Matrix copy = matrix.copy();
+        assertFalse(copy.isFrozen());
+        copy.set(0, 0, 1);
+        assertEquals(matrix.get(0, 0), data[0]);
+
+        // Every thread gets the one inverse, computed once
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Matrix>> tasks = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                tasks.add(matrix::getInverse);
+            }
+            Matrix inverse = matrix.getInverse();
+            assertTrue(inverse.isFrozen());
+            for (Future<Matrix> future : executor.invokeAll(tasks)) {
+                assertSame(future.get(), inverse);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
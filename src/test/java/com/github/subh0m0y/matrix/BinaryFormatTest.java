@@ -0,0 +1,128 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+public class BinaryFormatTest {
+    private static final int ROWS = 100;
+    private static final int COLS = 70;
+
+    private static Matrix throughStream(final Matrix matrix) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BinaryFormat.write(matrix, stream);
+        assertEquals(stream.size(), BinaryFormat.sizeOf(matrix));
+        return BinaryFormat.read(new ByteArrayInputStream(stream.toByteArray()));
+    }
+
+    private static Matrix throughChannel(final Matrix matrix) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BinaryFormat.write(matrix, Channels.newChannel(stream));
+        return BinaryFormat.read(Channels.newChannel(new ByteArrayInputStream(stream.toByteArray())));
+    }
+
+    private static Matrix throughBuffer(final Matrix matrix) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) BinaryFormat.sizeOf(matrix) + 3);
+        buffer.position(3);
+        BinaryFormat.write(matrix, buffer);
+        assertFalse(buffer.hasRemaining());
+        buffer.position(3);
+        Matrix copy = BinaryFormat.read(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(buffer.order(), ByteOrder.BIG_ENDIAN);
+        return copy;
+    }
+
+    private static void assertRoundTrips(final Matrix matrix) throws IOException {
+        assertEquals(throughStream(matrix), matrix);
+        assertEquals(throughChannel(matrix), matrix);
+        assertEquals(throughBuffer(matrix), matrix);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Matrix matrix = Matrix.random(ROWS, COLS);
+        assertRoundTrips(matrix);
+        assertRoundTrips(matrix.transposeView());
+        assertRoundTrips(matrix.subMatrixView(3, 4, ROWS / 2, COLS / 2));
+        assertRoundTrips(matrix.subMatrixView(3, 4, ROWS / 2, COLS / 2).transposeView());
+        assertRoundTrips(matrix.columnView(5));
+        assertRoundTrips(new Matrix(0, COLS));
+        // Larger than a chunk, as a whole and in a single row
+        int count = BinaryFormat.CHUNK_SIZE / Double.BYTES + 17;
+        assertRoundTrips(Matrix.random(count / COLS + 1, COLS));
+        assertRoundTrips(Matrix.random(1, count));
+        assertRoundTrips(Matrix.random(2, count).transposeView());
+    }
+
+    @Test
+    public void testLayout() throws IOException {
+        Matrix matrix = Matrix.fromLinearArray(2, 3, 1, 2, 3, 4, 5, 6);
+        ByteBuffer buffer = ByteBuffer.allocate((int) BinaryFormat.sizeOf(matrix)).order(ByteOrder.LITTLE_ENDIAN);
+        BinaryFormat.write(matrix.transposeView(), buffer);
+        buffer.flip();
+        byte[] magic = new byte[4];
+        buffer.get(magic);
+        assertEquals(new String(magic, "US-ASCII"), "MTRX");
+        assertEquals(buffer.getShort(), BinaryFormat.VERSION);
+        assertEquals(buffer.get(), BinaryFormat.FLOAT64);
+        assertEquals(buffer.get(), BinaryFormat.COLUMN_MAJOR);
+        assertEquals(buffer.getInt(), 3);
+        assertEquals(buffer.getInt(), 2);
+        double[] elements = new double[6];
+        buffer.position(BinaryFormat.HEADER_SIZE);
+        buffer.asDoubleBuffer().get(elements);
+        assertEquals(elements, new double[]{1, 2, 3, 4, 5, 6});
+    }
+
+    @Test
+    public void testInvalidData() throws IOException {
+        Matrix matrix = Matrix.random(ROWS, COLS);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BinaryFormat.write(matrix, stream);
+        byte[] bytes = stream.toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(EOFException.class, () -> BinaryFormat.read(new ByteArrayInputStream(truncated)));
+        bytes[0] = 'X';
+        assertThrows(IOException.class, () -> BinaryFormat.read(new ByteArrayInputStream(bytes)));
+        assertThrows(IllegalArgumentException.class, () -> BinaryFormat.read(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    public void testMapping() throws IOException {
+        Matrix matrix = Matrix.random(ROWS, COLS);
+        Path file = Files.createTempFile("matrix", ".bin");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                BinaryFormat.write(matrix, channel);
+            }
+            try (MappedMatrix mapped = BinaryFormat.map(file, true)) {
+                assertEquals(mapped.toDense(), matrix);
+                mapped.set(1, 2, 42);
+            }
+            Matrix changed = BinaryFormat.read(Files.newInputStream(file));
+            assertEquals(changed.get(1, 2), 42.0);
+
+            try (MappedMatrix created = BinaryFormat.createMapped(file, COLS, ROWS)) {
+                matrix.transpose(created.toDense());
+                created.writeBlock(0, 0, matrix.transpose());
+            }
+            assertEquals(BinaryFormat.read(Files.newInputStream(file)), matrix.transpose());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
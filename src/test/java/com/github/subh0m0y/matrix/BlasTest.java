@@ -0,0 +1,139 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.github.subh0m0y.matrix.Utilities.randomVector;
+import static org.testng.Assert.*;
+
+public class BlasTest {
+    private static final int ROWS = 67;
+    private static final int COLS = 43;
+    private static final double TOLERANCE = 1e-12;
+
+    private static Random random;
+
+    @BeforeMethod
+    public void setUp() {
+        random = new Random();
+    }
+
+    /**
+     * alpha * op(a) * x + beta * y by the definition.
+     */
+    private static double[] expectedGemv(final boolean transpose, final double alpha, final Matrix a,
+                                         final double[] x, final double beta, final double[] y) {
+        Matrix op = transpose ? a.transpose() : a;
+        double[] expected = new double[op.getRows()];
+        for (int i = 0; i < op.getRows(); i++) {
+            double sum = 0;
+            for (int j = 0; j < op.getCols(); j++) {
+                sum += op.get(i, j) * x[j];
+            }
+            expected[i] = alpha * sum + beta * y[i];
+        }
+        return expected;
+    }
+
+    @Test
+    public void testLevel1() {
+        double[] x = randomVector(COLS, random);
+        double[] y = randomVector(COLS, random);
+        double dot = 0;
+        for (int i = 0; i < COLS; i++) {
+            dot += x[i] * y[i];
+        }
+        assertEquals(Blas.dot(x, y), dot, TOLERANCE);
+        assertEquals(Blas.norm2(x), Math.sqrt(Blas.dot(x, x)), TOLERANCE);
+
+        double[] expected = y.clone();
+        for (int i = 0; i < COLS; i++) {
+            expected[i] = (expected[i] + 2.5 * x[i]) * -3;
+        }
+        Blas.axpy(2.5, x, y);
+        Blas.scal(-3, y);
+        Utilities.assertClose(y, expected, TOLERANCE);
+
+        // Every third element, from the second on
+        double[] strided = new double[3 * COLS];
+        for (int i = 0; i < COLS; i++) {
+            strided[1 + 3 * i] = x[i];
+        }
+        assertEquals(Blas.dot(COLS, strided, 1, 3, x, 0, 1), Blas.dot(x, x), TOLERANCE);
+        assertEquals(Blas.norm2(COLS, strided, 1, 3), Blas.norm2(x), TOLERANCE);
+        assertThrows(IllegalArgumentException.class, () -> Blas.dot(COLS, strided, 3, 3, x, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> Blas.axpy(1, x, new double[COLS + 1]));
+    }
+
+    @Test
+    public void testNorm2Range() {
+        assertEquals(Blas.norm2(new double[]{3e200, 4e200}), 5e200, 1e186);
+        assertEquals(Blas.norm2(new double[]{3e-200, -4e-200}), 5e-200, 1e-214);
+        assertEquals(Blas.norm2(new double[]{Double.MIN_VALUE}), Double.MIN_VALUE);
+        assertEquals(Blas.norm2(new double[4]), 0.0);
+        assertEquals(Blas.norm2(new double[]{1, Double.NEGATIVE_INFINITY}), Double.POSITIVE_INFINITY);
+        assertTrue(Double.isNaN(Blas.norm2(new double[]{1, Double.NaN})));
+    }
+
+    @Test
+    public void testGemv() {
+        Matrix a = Matrix.random(ROWS, COLS);
+        // The same matrix through a transposed view, with the other loop order
+        Matrix[] layouts = {a, a.transpose().transposeView(), a.copy().subMatrixView(0, 0, ROWS, COLS)};
+        for (Matrix layout : layouts) {
+            for (boolean transpose : new boolean[]{false, true}) {
+                int m = transpose ? COLS : ROWS;
+                int n = transpose ? ROWS : COLS;
+                double[] x = randomVector(n, random);
+                double[] y = randomVector(m, random);
+                double[] expected = expectedGemv(transpose, 1.5, a, x, -0.5, y);
+                Blas.gemv(transpose, 1.5, layout, x, -0.5, y);
+                Utilities.assertClose(y, expected, TOLERANCE);
+
+                // Strided vectors, and a garbage y that beta = 0 must ignore
+                double[] xs = new double[2 * n];
+                double[] ys = new double[3 * m + 1];
+                for (int j = 0; j < n; j++) {
+                    xs[2 * j] = x[j];
+                }
+                Arrays.fill(ys, Double.NaN);
+                Blas.gemv(transpose, 2, layout, xs, 0, 2, 0, ys, 1, 3);
+                double[] product = expectedGemv(transpose, 2, a, x, 0, new double[m]);
+                for (int i = 0; i < m; i++) {
+                    assertEquals(ys[1 + 3 * i], product[i], TOLERANCE);
+                }
+            }
+        }
+        double[] x = randomVector(COLS, random);
+        Utilities.assertClose(a.multiply(x), expectedGemv(false, 1, a, x, 0, new double[ROWS]), TOLERANCE);
+        Matrix square = Matrix.random(COLS, COLS);
+        double[] expected = square.multiply(x);
+        Utilities.assertClose(square.multiply(x, x), expected, 0);
+        assertThrows(IllegalArgumentException.class, () -> a.multiply(new double[ROWS]));
+        assertThrows(IllegalArgumentException.class, () -> Blas.gemv(true, 1, a, new double[COLS], 0, new double[ROWS]));
+    }
+
+    @Test
+    public void testGer() {
+        double[] x = randomVector(ROWS, random);
+        double[] y = randomVector(COLS, random);
+        for (Matrix a : new Matrix[]{Matrix.random(ROWS, COLS), Matrix.random(COLS, ROWS).transposeView()}) {
+            Matrix expected = a.copy();
+            for (int i = 0; i < ROWS; i++) {
+                for (int j = 0; j < COLS; j++) {
+                    expected.set(i, j, expected.get(i, j) + 0.75 * x[i] * y[j]);
+                }
+            }
+            double norm = a.getNorm1();
+            Blas.ger(0.75, x, y, a);
+            Utilities.assertClose(a, expected, TOLERANCE);
+            // The cached norm is discarded
+            assertNotEquals(a.getNorm1(), norm);
+            a.freeze();
+            assertThrows(UnsupportedOperationException.class, () -> Blas.ger(1, x, y, a));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static com.github.subh0m0y.matrix.Utilities.assertClose;
+import static com.github.subh0m0y.matrix.Utilities.randomMatrix;
+import static org.testng.Assert.*;
+
+public class CholeskyDecompositionTest {
+    private static final int ORDER = 100;
+    private static final int RHS = 7;
+    private static final double TOLERANCE = 1e-9;
+
+    private static Random random;
+
+    @BeforeMethod
+    public void setUp() {
+        random = new Random();
+    }
+
+    private static Matrix positiveDefinite(int order) {
+        Matrix matrix = randomMatrix(order, order, random);
+        Matrix gram = matrix.transpose().multiply(matrix);
+        for (int i = 0; i < order; i++) {
+            gram.set(i, i, gram.get(i, i) + order);
+        }
+        return gram;
+    }
+
+    @Test
+    public void testFactor() {
+        Matrix matrix = positiveDefinite(ORDER);
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(matrix);
+        Matrix l = cholesky.getL();
+        assertTrue(l.isLowerTriangular());
+        assertClose(l.multiply(l.transpose()), matrix, TOLERANCE);
+        assertEquals(cholesky.determinant() / matrix.getDeterminant(), 1.0, TOLERANCE);
+
+        for (int blockSize : new int[]{1, 7, ORDER}) {
+            assertClose(new CholeskyDecomposition(matrix, blockSize).getL(), l, TOLERANCE);
+        }
+    }
+
+    @Test
+    public void testSolve() {
+        Matrix matrix = positiveDefinite(ORDER);
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(matrix, 16);
+
+        Matrix b = randomMatrix(ORDER, RHS, random);
+        Matrix x = cholesky.solve(b);
+        assertClose(matrix.multiply(x), b, TOLERANCE);
+        assertClose(cholesky.solve(b.getColumn(0)), x.getColumn(0), TOLERANCE);
+        assertClose(matrix.multiply(cholesky.inverse()), Matrix.identity(ORDER), TOLERANCE);
+    }
+
+    @Test
+    public void testNotPositiveDefinite() {
+        Matrix indefinite = Matrix.fromLinearArray(2, 2, 1, 2, 2, 1);
+        assertThrows(ArithmeticException.class, () -> new CholeskyDecomposition(indefinite));
+        Matrix matrix = positiveDefinite(ORDER);
+        matrix.set(ORDER - 1, ORDER - 1, -1);
+        assertThrows(ArithmeticException.class, () -> new CholeskyDecomposition(matrix, 8));
+        assertThrows(IllegalArgumentException.class, () -> new CholeskyDecomposition(Matrix.zero(2, 3)));
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+public class FloatMatrixTest {
+    private static final int ROWS = 150;
+    private static final int COLS = 90;
+
+    private static FloatMatrix random(final int rows, final int cols, final Random random) {
+        float[] elements = new float[rows * cols];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = (float) random.nextGaussian();
+        }
+        return FloatMatrix.fromLinearArray(rows, cols, elements, false);
+    }
+
+    /**
+     * The product by the textbook triple loop, accumulated in float in
+     * ascending order of k.
+     */
+    private static FloatMatrix naiveProduct(final FloatMatrix a, final FloatMatrix b) {
+        FloatMatrix product = FloatMatrix.zero(a.getRows(), b.getCols());
+        for (int i = 0; i < a.getRows(); i++) {
+            for (int j = 0; j < b.getCols(); j++) {
+                float sum = 0;
+                for (int k = 0; k < a.getCols(); k++) {
+                    sum += a.getFloat(i, k) * b.getFloat(k, j);
+                }
+                product.set(i, j, sum);
+            }
+        }
+        return product;
+    }
+
+    @Test
+    public void testElementWise() {
+        Random random = new Random(1);
+        FloatMatrix a = random(ROWS, COLS, random);
+        FloatMatrix b = random(ROWS, COLS, random);
+        float[] x = a.toLinearArray();
+        float[] y = b.toLinearArray();
+        float[] sum = a.add(b).toLinearArray();
+        float[] difference = a.subtract(b).toLinearArray();
+        float[] product = a.elementMultiply(b).toLinearArray();
+        float[] quotient = a.elementDivide(b).toLinearArray();
+        float[] scaled = a.scale(3).toLinearArray();
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(sum[i], x[i] + y[i]);
+            assertEquals(difference[i], x[i] - y[i]);
+            assertEquals(product[i], x[i] * y[i]);
+            assertEquals(quotient[i], x[i] / y[i]);
+            assertEquals(scaled[i], x[i] * 3);
+        }
+        // Into either operand
+        assertEquals(a.subtract(b, b.copy()), a.subtract(b));
+        FloatMatrix target = b.copy();
+        assertSame(a.subtract(target, target), target);
+        assertEquals(target, a.subtract(b));
+        target = a.copy();
+        target.elementMultiplyInPlace(b);
+        assertEquals(target, a.elementMultiply(b));
+        target = b.copy();
+        assertSame(a.elementDivide(target, target), target);
+        assertEquals(target, a.elementDivide(b));
+        target = a.copy();
+        assertSame(target.elementDivide(b, target), target);
+        assertEquals(target, a.elementDivide(b));
+        assertThrows(IllegalArgumentException.class, () -> a.add(FloatMatrix.zero(COLS, ROWS)));
+    }
+
+    @Test
+    public void testMultiply() {
+        Random random = new Random(2);
+        // Large enough to be packed, with partial panels and a depth that is not a multiple of four
+        FloatMatrix a = random(ROWS, Gemm.DEPTH_BLOCK + 7, random);
+        FloatMatrix b = random(Gemm.DEPTH_BLOCK + 7, Gemm.COL_BLOCK + 5, random);
+        assertEquals(a.multiply(b), naiveProduct(a, b));
+        FloatMatrix destination = FloatMatrix.zero(ROWS, Gemm.COL_BLOCK + 5);
+        assertSame(a.multiply(b, destination, new Workspace()), destination);
+        assertEquals(destination, naiveProduct(a, b));
+        FloatMatrix small = random(5, 7, random);
+        FloatMatrix smaller = random(7, 3, random);
+        assertEquals(small.multiply(smaller), naiveProduct(small, smaller));
+
+        FloatMatrix square = random(40, 40, random);
+        FloatMatrix expected = naiveProduct(square, square);
+        assertEquals(square.multiply(square, square), expected);
+
+        float[] vector = new float[COLS];
+        FloatMatrix m = random(ROWS, COLS, random);
+        for (int j = 0; j < COLS; j++) {
+            vector[j] = (float) random.nextGaussian();
+        }
+        float[] mv = m.multiply(vector);
+        float[] expectedMv = naiveProduct(m, FloatMatrix.fromLinearArray(COLS, 1, vector)).toLinearArray();
+        assertEquals(mv, expectedMv);
+    }
+
+    @Test
+    public void testConversions() {
+        Random random = new Random(3);
+        FloatMatrix a = random(ROWS, COLS, random);
+        Matrix dense = a.toDense();
+        assertEquals(FloatMatrix.fromMatrix(dense), a);
+        assertEquals(FloatMatrix.fromMatrix(dense.transposeView()), a.transpose());
+        assertEquals(a.transpose().transpose(), a);
+        assertEquals(dense.get(4, 5), (double) a.getFloat(4, 5));
+        assertEquals(FloatMatrix.fromMatrix(Matrix.fromLinearArray(1, 2, 0.1, 1e40)),
+                FloatMatrix.fromLinearArray(1, 2, 0.1f, Float.POSITIVE_INFINITY));
+
+        // Mixed with double precision matrices through RealMatrix
+        FloatMatrix b = random(COLS, 20, random);
+        assertTrue(a.multiply((RealMatrix) b) instanceof FloatMatrix);
+        RealMatrix mixed = a.multiply((RealMatrix) b.toDense());
+        assertTrue(mixed instanceof Matrix);
+        Utilities.assertClose((Matrix) mixed, dense.multiply(b.toDense()), 0);
+        assertEquals(a.add((RealMatrix) a), a.scale(2));
+        assertEquals(a.toString(), dense.toString());
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.github.subh0m0y.matrix.Utilities.randomVector;
+import static org.testng.Assert.*;
+
+public class IterativeSolverTest {
+    private static final int GRID = 16;
+    private static final double TOLERANCE = 1e-10;
+
+    private static Random random;
+
+    @BeforeMethod
+    public void setUp() {
+        random = new Random();
+    }
+
+    /**
+     * The five-point finite difference operator on a square grid, with a
+     * convection term that makes it non-symmetric when non-zero.
+     */
+    private static CSRMatrix gridOperator(final double convection) {
+        int n = GRID * GRID;
+        int[] rows = new int[5 * n];
+        int[] cols = new int[5 * n];
+        double[] values = new double[5 * n];
+        int count = 0;
+        for (int x = 0; x < GRID; x++) {
+            for (int y = 0; y < GRID; y++) {
+                int i = x * GRID + y;
+                rows[count] = i;
+                cols[count] = i;
+                values[count++] = 4;
+                int[][] neighbours = {{x - 1, y}, {x + 1, y}, {x, y - 1}, {x, y + 1}};
+                for (int k = 0; k < neighbours.length; k++) {
+                    int nx = neighbours[k][0];
+                    int ny = neighbours[k][1];
+                    if (nx >= 0 && nx < GRID && ny >= 0 && ny < GRID) {
+                        rows[count] = i;
+                        cols[count] = nx * GRID + ny;
+                        values[count++] = k == 1 ? -1 + convection : k == 0 ? -1 - convection : -1;
+                    }
+                }
+            }
+        }
+        return CSRMatrix.fromTriplets(n, n, Arrays.copyOf(rows, count),
+                Arrays.copyOf(cols, count), Arrays.copyOf(values, count));
+    }
+
+    /**
+     * DAD for a random positive diagonal D spanning two orders of
+     * magnitude, which keeps A symmetric positive definite if it was, but
+     * makes it badly scaled.
+     */
+    private static Matrix badlyScaled(final RealMatrix a) {
+        int n = a.getRows();
+        double[] scale = new double[n];
+        for (int i = 0; i < n; i++) {
+            scale[i] = Math.pow(10, 2 * random.nextDouble());
+        }
+        Matrix scaled = a.toDense();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                scaled.set(i, j, scaled.get(i, j) * scale[i] * scale[j]);
+            }
+        }
+        return scaled;
+    }
+
+    private static void assertSolved(final IterativeSolver.Result result, final LinearOperator a,
+                                     final double[] b, final double tolerance) {
+        assertTrue(result.isConverged(), "Not converged after " + result.getIterations() + " iterations");
+        double[] residual = a.multiply(result.getSolution(), new double[b.length]);
+        for (int i = 0; i < b.length; i++) {
+            residual[i] = b[i] - residual[i];
+        }
+        // The estimate and the true residual drift apart only by rounding
+        assertTrue(Blas.norm2(residual) <= tolerance * Blas.norm2(b) * 10,
+                "Residual " + Blas.norm2(residual) + " for " + result.getResidualNorm());
+    }
+
+    @Test
+    public void testConjugateGradient() {
+        CSRMatrix a = gridOperator(0);
+        double[] b = randomVector(a.getRows(), random);
+        ConjugateGradient solver = new ConjugateGradient(TOLERANCE, 1000);
+        IterativeSolver.Result plain = solver.solve(a, b);
+        assertSolved(plain, a, b, TOLERANCE);
+        IterativeSolver.Result ilu = solver.solve(a, b, new IncompleteLUPreconditioner(a));
+        assertSolved(ilu, a, b, TOLERANCE);
+        assertTrue(ilu.getIterations() < plain.getIterations());
+
+        // Dense operators work the same, and Jacobi undoes the bad scaling
+        Matrix scaled = badlyScaled(a);
+        IterativeSolver.Result unscaled = solver.solve(scaled, b);
+        IterativeSolver.Result jacobi = solver.solve(scaled, b, new JacobiPreconditioner(scaled));
+        assertSolved(jacobi, scaled, b, TOLERANCE);
+        assertTrue(jacobi.getIterations() < unscaled.getIterations());
+
+        // A good initial guess is used
+        double[] x = new LUDecomposition(a.toDense()).solve(b);
+        IterativeSolver.Result exact = solver.solve(a, b, x, Preconditioner.IDENTITY);
+        assertSame(exact.getSolution(), x);
+        assertTrue(exact.getIterations() <= 1);
+    }
+
+    @Test
+    public void testNonSymmetric() {
+        CSRMatrix a = gridOperator(0.4);
+        Matrix scaled = badlyScaled(a);
+        double[] b = randomVector(a.getRows(), random);
+        IterativeSolver[] solvers = {new GMRES(20, TOLERANCE, 5000), new BiCGSTAB(TOLERANCE, 1000)};
+        for (IterativeSolver solver : solvers) {
+            IterativeSolver.Result plain = solver.solve(a, b);
+            assertSolved(plain, a, b, TOLERANCE);
+            IterativeSolver.Result ilu = solver.solve(a, b, new IncompleteLUPreconditioner(a));
+            assertSolved(ilu, a, b, TOLERANCE);
+            assertTrue(ilu.getIterations() < plain.getIterations(), solver.getClass().getSimpleName());
+
+            IterativeSolver.Result dense = solver.solve(scaled, b, new IncompleteLUPreconditioner(scaled));
+            assertSolved(dense, scaled, b, TOLERANCE);
+            IterativeSolver.Result jacobi = solver.solve(scaled.transpose(), b,
+                    new JacobiPreconditioner(scaled.transpose()));
+            assertSolved(jacobi, scaled.transpose(), b, TOLERANCE);
+        }
+    }
+
+    @Test
+    public void testIncompleteLUIsExactWithoutFill() {
+        // A tridiagonal matrix has no fill-in, so ILU(0) is its LU decomposition
+        int n = 50;
+        Matrix a = Matrix.zero(n, n);
+        for (int i = 0; i < n; i++) {
+            a.set(i, i, 3 + random.nextDouble());
+            if (i > 0) {
+                a.set(i, i - 1, random.nextGaussian());
+                a.set(i - 1, i, random.nextGaussian());
+            }
+        }
+        double[] b = randomVector(n, random);
+        double[] x = new double[n];
+        new IncompleteLUPreconditioner(a).apply(b, x);
+        Utilities.assertClose(x, new LUDecomposition(a).solve(b), 1e-12);
+        IterativeSolver.Result result = new GMRES().solve(CSRMatrix.fromMatrix(a), b,
+                new IncompleteLUPreconditioner(a));
+        assertSolved(result, a, b, IterativeSolver.DEFAULT_TOLERANCE);
+        assertEquals(result.getIterations(), 1);
+
+        a.set(7, 7, 0);
+        assertThrows(ArithmeticException.class, () -> new IncompleteLUPreconditioner(a));
+        assertThrows(ArithmeticException.class, () -> new JacobiPreconditioner(a));
+    }
+
+    @Test
+    public void testListener() {
+        CSRMatrix a = gridOperator(0.4);
+        double[] b = randomVector(a.getRows(), random);
+        IterativeSolver[] solvers = {new ConjugateGradient(TOLERANCE, 5),
+                new GMRES(4, TOLERANCE, 10), new BiCGSTAB(TOLERANCE, 5)};
+        for (IterativeSolver solver : solvers) {
+            List<Double> residuals = new ArrayList<>();
+            solver.setIterationListener((iteration, residualNorm) -> {
+                assertEquals(iteration, residuals.size());
+                residuals.add(residualNorm);
+            });
+            IterativeSolver.Result result = solver.solve(a, b);
+            assertFalse(result.isConverged());
+            assertEquals(result.getIterations(), solver.getMaxIterations());
+            assertEquals(residuals.size(), solver.getMaxIterations() + 1);
+            assertEquals(residuals.get(0), Blas.norm2(b), 1e-12);
+            if (solver instanceof GMRES) {
+                // The residual is minimized over a growing subspace between restarts
+                for (int i = 1; i < residuals.size(); i++) {
+                    assertTrue(residuals.get(i) <= residuals.get(i - 1) * (1 + 1e-12));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        ConjugateGradient solver = new ConjugateGradient();
+        assertEquals(solver.solve(gridOperator(0), new double[GRID * GRID]).getIterations(), 0);
+        assertThrows(IllegalArgumentException.class, () -> solver.solve(Matrix.zero(3, 4), new double[3]));
+        assertThrows(IllegalArgumentException.class, () -> solver.solve(gridOperator(0), new double[3]));
+        assertThrows(IllegalArgumentException.class, () -> new ConjugateGradient(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new GMRES(0, 1e-8, 10));
+        assertThrows(IllegalArgumentException.class, () -> new JacobiPreconditioner(Matrix.zero(3, 4)));
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Checks the kernels against plain loops, with odd lengths and offsets so
+ * that the vector backend, when it is loaded, also runs its scalar tails.
+ */
+public class KernelsTest {
+    private static final int LENGTH = 1031;
+    private static final int OFFSET = 3;
+
+    private static Random random;
+
+    @BeforeMethod
+    public void setUp() {
+        random = new Random();
+    }
+
+    @Test
+    public void testElementWise() {
+        double[] x = new double[LENGTH + OFFSET];
+        double[] y = new double[LENGTH + OFFSET];
+        Utilities.populate(x, random);
+        Utilities.populate(y, random);
+        int n = LENGTH - OFFSET;
+        double alpha = random.nextGaussian();
+
+        double[] expected = y.clone();
+        double[] actual = y.clone();
+        for (int i = 0; i < n; i++) {
+            expected[OFFSET + i] = (expected[OFFSET + i] + x[i] - x[i + 1]) * x[i + 2] / x[i + 3] * alpha
+                    + alpha * x[i + 2];
+        }
+        Kernels.add(n, x, 0, 1, actual, OFFSET, 1);
+        Kernels.subtract(n, x, 1, 1, actual, OFFSET, 1);
+        Kernels.multiply(n, x, 2, 1, actual, OFFSET, 1);
+        Kernels.divide(n, x, 3, 1, actual, OFFSET, 1);
+        Kernels.scale(n, alpha, actual, OFFSET, 1);
+        Kernels.axpy(n, alpha, x, 2, 1, actual, OFFSET, 1);
+        assertEquals(actual, expected, Kernels.describeBackend());
+
+        expected = y.clone();
+        actual = y.clone();
+        int rows = (LENGTH - 4) / 4;
+        for (int i = 0; i < rows; i++) {
+            expected[i] = expected[i] + 2 * x[1 + i] + 3 * x[1 + rows + i] + 5 * x[1 + 2 * rows + i]
+                    + 7 * x[1 + 3 * rows + i];
+        }
+        Kernels.axpy4(rows, 2, 3, 5, 7, x, 1, rows, actual, 0);
+        assertEquals(actual, expected, Kernels.describeBackend());
+
+        double dot = 0;
+        for (int i = 0; i < n; i++) {
+            dot += x[i] * y[OFFSET + i];
+        }
+        assertEquals(Kernels.dot(n, x, 0, 1, y, OFFSET, 1), dot, 1e-10 * n);
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static com.github.subh0m0y.matrix.Utilities.assertClose;
+import static com.github.subh0m0y.matrix.Utilities.randomMatrix;
+import static org.testng.Assert.*;
+
+public class LUDecompositionTest {
+    private static final int ORDER = 100;
+    private static final int RHS = 7;
+    private static final double TOLERANCE = 1e-9;
+
+    private static Random random;
+
+    @BeforeMethod
+    public void setUp() {
+        random = new Random();
+    }
+
+    @Test
+    public void testFactors() {
+        Matrix matrix = randomMatrix(ORDER, ORDER, random);
+        LUDecomposition lu = new LUDecomposition(matrix);
+        assertFalse(lu.isSingular());
+        assertTrue(lu.getL().isLowerTriangular());
+        assertTrue(lu.getU().isUpperTriangular());
+        int[] pivot = lu.getPivot();
+        Matrix permuted = Matrix.zero(ORDER, ORDER);
+        for (int i = 0; i < ORDER; i++) {
+            permuted.rowView(i).addInPlace(matrix.rowView(pivot[i]));
+        }
+        assertClose(lu.getL().multiply(lu.getU()), permuted, TOLERANCE);
+    }
+
+    @Test
+    public void testBlockSizes() {
+        Matrix matrix = randomMatrix(ORDER, ORDER, random);
+        LUDecomposition unblocked = new LUDecomposition(matrix, ORDER);
+        for (int blockSize : new int[]{1, 7, 32, ORDER - 1}) {
+            LUDecomposition blocked = new LUDecomposition(matrix, blockSize);
+            assertEquals(blocked.getPivot(), unblocked.getPivot());
+            assertClose(blocked.getL(), unblocked.getL(), TOLERANCE);
+            assertClose(blocked.getU(), unblocked.getU(), TOLERANCE);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new LUDecomposition(matrix, 0));
+    }
+
+    @Test
+    public void testSolve() {
+        Matrix matrix = randomMatrix(ORDER, ORDER, random);
+        LUDecomposition lu = new LUDecomposition(matrix);
+
+        Matrix b = randomMatrix(ORDER, RHS, random);
+        Matrix x = lu.solve(b);
+        assertClose(matrix.multiply(x), b, TOLERANCE);
+
+        double[] vector = b.getColumn(0);
+        double[] solution = lu.solve(vector);
+        assertClose(solution, x.getColumn(0), TOLERANCE);
+    }
+
+    @Test
+    public void testInverseAndDeterminant() {
+        Matrix matrix = randomMatrix(ORDER, ORDER, random);
+        Matrix inverse = matrix.getInverse();
+        assertClose(matrix.multiply(inverse), Matrix.identity(ORDER), TOLERANCE);
+
+        // The first column needs a row exchange, which divided by zero without pivoting
+        Matrix permutation = Matrix.fromLinearArray(3, 3, 0, 1, 0, 1, 0, 0, 0, 0, 2);
+        assertEquals(permutation.getDeterminant(), -2.0, TOLERANCE);
+        assertClose(permutation.getInverse(), Matrix.fromLinearArray(3, 3, 0, 1, 0, 1, 0, 0, 0, 0, 0.5), TOLERANCE);
+
+        Matrix triangular = Matrix.fromLinearArray(3, 3, 2, 5, 7, 0, 3, 1, 0, 0, 4);
+        assertEquals(triangular.getDeterminant(), 24.0, TOLERANCE);
+    }
+
+    @Test
+    public void testSingular() {
+        Matrix matrix = randomMatrix(ORDER, ORDER, random);
+        // Make the last row a combination of the first two
+        matrix.rowView(ORDER - 1).scaleInPlace(0);
+        matrix.rowView(ORDER - 1).addInPlace(matrix.rowView(0));
+        matrix.rowView(ORDER - 1).addInPlace(matrix.rowView(1).scale(3));
+        LUDecomposition lu = new LUDecomposition(matrix);
+        assertTrue(lu.isSingular());
+        assertThrows(ArithmeticException.class, lu::inverse);
+        assertThrows(ArithmeticException.class, () -> lu.solve(new double[ORDER]));
+        assertThrows(ArithmeticException.class, matrix::getInverse);
+        assertThrows(IllegalArgumentException.class, () -> new LUDecomposition(Matrix.zero(2, 3)));
+    }
+}
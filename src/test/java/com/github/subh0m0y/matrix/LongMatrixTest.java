@@ -0,0 +1,56 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+
+import static org.testng.Assert.*;
+
+public class LongMatrixTest {
+    @Test
+    public void testArithmetic() {
+        LongMatrix a = LongMatrix.fromLinearArray(2, 3, 1, 2, 3, 4, 5, 6);
+        LongMatrix b = LongMatrix.fromLinearArray(3, 2, 7, 8, 9, 10, 11, 12);
+        assertEquals(a.multiply(b), LongMatrix.fromLinearArray(2, 2, 58, 64, 139, 154));
+        assertEquals(a.add(a), a.scale(2));
+        assertEquals(a.subtract(a), LongMatrix.zero(2, 3));
+        assertEquals(a.transpose(), LongMatrix.fromLinearArray(3, 2, 1, 4, 2, 5, 3, 6));
+        assertEquals(a.multiply(new long[]{1, 1, 1}), new long[]{6, 15});
+        assertThrows(IllegalArgumentException.class, () -> a.multiply(a));
+        assertEquals(a.toString(), " /1, 2, 3\\\n \\4, 5, 6/\n");
+    }
+
+    @Test
+    public void testExponentiate() {
+        // F(n + 1), F(n), F(n - 1)
+        LongMatrix fibonacci = LongMatrix.fromLinearArray(2, 2, 1, 1, 1, 0);
+        assertEquals(fibonacci.exponentiate(0), LongMatrix.identity(2));
+        assertEquals(fibonacci.exponentiate(90).getLong(0, 1), 2880067194370816120L);
+        // F(93) is beyond a long, so the power must fail rather than wrap
+        assertThrows(ArithmeticException.class, () -> fibonacci.exponentiate(93));
+
+        // Walks of length 20 in the complete graph on five vertices
+        int order = 5;
+        LongMatrix complete = LongMatrix.zero(order, order);
+        for (int i = 0; i < order; i++) {
+            for (int j = 0; j < order; j++) {
+                complete.set(i, j, i == j ? 0 : 1);
+            }
+        }
+        BigInteger walks = BigInteger.valueOf(4).pow(20).add(BigInteger.valueOf(4)).divide(BigInteger.valueOf(5));
+        assertEquals(complete.exponentiate(20).getLong(0, 0), walks.longValueExact());
+    }
+
+    @Test
+    public void testConversions() {
+        Matrix dense = Matrix.fromLinearArray(2, 2, 1, -2, 3e15, 4);
+        LongMatrix exact = LongMatrix.fromMatrix(dense);
+        assertEquals(exact.getLong(1, 0), 3_000_000_000_000_000L);
+        assertEquals(exact.toDense(), dense);
+        assertEquals(LongMatrix.fromMatrix(dense.transposeView()), exact.transpose());
+        assertThrows(IllegalArgumentException.class, () -> LongMatrix.fromMatrix(Matrix.fromLinearArray(1, 1, 0.5)));
+        assertThrows(IllegalArgumentException.class, () -> LongMatrix.fromMatrix(Matrix.fromLinearArray(1, 1, 0x1p63)));
+        assertTrue(exact.multiply((RealMatrix) exact) instanceof LongMatrix);
+        assertEquals(exact.add((RealMatrix) dense), dense.add(dense));
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class MappedMatrixTest {
+    private static final int ROWS = 37;
+    private static final int COLS = 23;
+    /**
+     * Segments of 32 elements, so that rows and tiles straddle them.
+     */
+    private static final int SEGMENT_SHIFT = 5;
+    private static final int TILE_SIZE = 10;
+
+    private final List<Path> files = new ArrayList<>();
+
+    @BeforeMethod
+    public void setUp() {
+        files.clear();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path newFile() throws IOException {
+        Path file = Files.createTempFile("mapped", ".bin");
+        files.add(file);
+        return file;
+    }
+
+    private MappedMatrix map(final Matrix matrix) throws IOException {
+        MappedMatrix mapped = zero(matrix.getRows(), matrix.getCols());
+        mapped.writeBlock(0, 0, matrix);
+        return mapped;
+    }
+
+    private MappedMatrix zero(final int rows, final int cols) throws IOException {
+        FileChannel channel = FileChannel.open(newFile(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new MappedMatrix(channel, 0, rows, cols, true, SEGMENT_SHIFT);
+    }
+
+    @Test
+    public void testElements() throws IOException {
+        Matrix matrix = Matrix.random(ROWS, COLS);
+        MappedMatrix mapped = map(matrix);
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLS; j++) {
+                assertEquals(mapped.get(i, j), matrix.get(i, j));
+            }
+        }
+        assertEquals(mapped.toDense(), matrix);
+        assertEquals(mapped.readBlock(3, 5, 20, 11), matrix.subMatrixView(3, 5, 20, 11));
+
+        mapped.set(ROWS - 1, COLS - 1, 42);
+        assertEquals(mapped.get(ROWS - 1, COLS - 1), 42.0);
+        mapped.writeBlock(1, 2, matrix.subMatrixView(0, 0, 5, 5).transposeView());
+        assertEquals(mapped.readBlock(1, 2, 5, 5), matrix.subMatrixView(0, 0, 5, 5).transpose());
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.get(ROWS, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.readBlock(ROWS - 1, 0, 2, 1));
+        mapped.close();
+    }
+
+    @Test
+    public void testFiles() throws IOException {
+        Matrix matrix = Matrix.random(ROWS, COLS);
+        Path file = newFile();
+        MappedMatrix.fromMatrix(file, matrix).close();
+        assertEquals(Files.size(file), (long) ROWS * COLS * Double.BYTES);
+
+        MappedMatrix readOnly = MappedMatrix.open(file, ROWS, COLS, false);
+        assertFalse(readOnly.isWritable());
+        assertEquals(readOnly.toDense(), matrix);
+        assertThrows(UnsupportedOperationException.class, () -> readOnly.set(0, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> MappedMatrix.open(file, COLS, COLS, false));
+        readOnly.close();
+    }
+
+    @Test
+    public void testElementWise() throws IOException {
+        Matrix a = Matrix.random(ROWS, COLS);
+        Matrix b = Matrix.random(ROWS, COLS);
+        MappedMatrix mappedA = map(a);
+        MappedMatrix mappedB = map(b);
+        MappedMatrix destination = zero(ROWS, COLS);
+        assertEquals(mappedA.add(mappedB, destination).toDense(), a.add(b));
+        assertEquals(mappedA.subtract(b, destination).toDense(), a.subtract(b));
+        assertEquals(mappedA.elementMultiply(mappedB, destination).toDense(), a.elementMultiply(b));
+        assertEquals(mappedA.elementDivide(mappedB, destination).toDense(), a.elementDivide(b));
+        // In place
+        assertEquals(mappedA.scale(3, mappedA).toDense(), a.scale(3));
+        assertThrows(IllegalArgumentException.class, () -> mappedA.add(Matrix.random(COLS, ROWS), destination));
+    }
+
+    @Test
+    public void testTiledOperations() throws IOException {
+        Matrix a = Matrix.random(ROWS, COLS);
+        Matrix b = Matrix.random(COLS, ROWS + 5);
+        MappedMatrix mappedA = map(a);
+        MappedMatrix mappedB = map(b);
+
+        assertEquals(mappedA.transpose(zero(COLS, ROWS), TILE_SIZE).toDense(), a.transpose());
+        // Tiling changes the order in which the terms of each element are summed
+        Matrix product = a.multiply(b);
+        Utilities.assertClose(mappedA.multiply(mappedB, zero(ROWS, ROWS + 5), TILE_SIZE).toDense(), product, 1e-12);
+        Utilities.assertClose(mappedA.multiply(b, zero(ROWS, ROWS + 5), TILE_SIZE).toDense(), product, 1e-12);
+        assertEquals(mappedA.multiply(mappedB, zero(ROWS, ROWS + 5), 2 * ROWS).toDense(), product);
+        assertThrows(IllegalArgumentException.class, () -> mappedA.multiply(mappedA, zero(ROWS, COLS)));
+        assertThrows(IllegalArgumentException.class, () -> mappedA.transpose(mappedA));
+    }
+
+    @Test
+    public void testTemporaryResults() throws IOException {
+        Matrix a = Matrix.random(ROWS, COLS);
+        MappedMatrix mapped = map(a);
+        assertNull(mapped.getTemporaryFile());
+        MappedMatrix[] results = {mapped.transpose(), mapped.add(a), mapped.multiply(a.transpose())};
+        assertEquals(results[0].toDense(), a.transpose());
+        assertEquals(results[1].toDense(), a.add(a));
+        for (MappedMatrix result : results) {
+            Path file = result.getTemporaryFile();
+            assertTrue(Files.exists(file));
+            result.close();
+            assertFalse(Files.exists(file));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.Test;
+
+import static com.github.subh0m0y.matrix.Utilities.assertClose;
+import static org.testng.Assert.*;
+
+public class MatrixBatchTest {
+    private static final int COUNT = 20;
+    private static final double DELTA = 1e-9;
+
+    private static MatrixBatch random(final int order) {
+        Matrix[] matrices = new Matrix[COUNT];
+        for (int b = 0; b < COUNT; b++) {
+            // Diagonally dominant, so safely invertible
+            matrices[b] = Matrix.random(order, order).add(Matrix.identity(order).scale(order));
+        }
+        return MatrixBatch.of(matrices);
+    }
+
+    @Test
+    public void testAgainstMatrix() {
+        for (int order = 1; order <= 6; order++) {
+            MatrixBatch a = random(order);
+            MatrixBatch b = random(order);
+            MatrixBatch product = a.multiply(b);
+            MatrixBatch inverse = a.inverse();
+            MatrixBatch transpose = a.transpose();
+            double[] determinants = a.determinants();
+            double[] vectors = new double[COUNT * order];
+            for (int k = 0; k < vectors.length; k++) {
+                vectors[k] = k % 7 - 3;
+            }
+            double[] images = a.multiplyVectors(vectors);
+            for (int k = 0; k < COUNT; k++) {
+                Matrix left = a.getMatrix(k);
+                assertClose(product.getMatrix(k), left.multiply(b.getMatrix(k)), DELTA);
+                assertClose(inverse.getMatrix(k), left.getInverse(), DELTA);
+                assertEquals(transpose.getMatrix(k), left.transpose());
+                assertEquals(determinants[k], left.getDeterminant(), DELTA * Math.abs(determinants[k]));
+                for (int i = 0; i < order; i++) {
+                    double sum = 0;
+                    for (int j = 0; j < order; j++) {
+                        sum += left.get(i, j) * vectors[k * order + j];
+                    }
+                    assertEquals(images[k * order + i], sum, DELTA);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInPlace() {
+        for (int order = 2; order <= 5; order++) {
+            MatrixBatch a = random(order);
+            MatrixBatch b = random(order);
+            MatrixBatch expected = a.multiply(b);
+            assertEquals(a.copy().multiply(b, a), expected);
+            a = random(order);
+            expected = a.inverse();
+            assertEquals(a.inverse(a), expected);
+            expected = a.transpose();
+            assertEquals(a.transpose(a), expected);
+            double[] vectors = new double[COUNT * order];
+            vectors[0] = 1;
+            double[] image = a.multiplyVectors(vectors);
+            assertEquals(a.multiplyVectors(vectors, vectors), image);
+        }
+    }
+
+    @Test
+    public void testBroadcast() {
+        MatrixBatch a = random(3);
+        Matrix rotation = Matrix.fromLinearArray(3, 3, 0, -1, 0, 1, 0, 0, 0, 0, 1);
+        MatrixBatch product = a.multiply(MatrixBatch.of(rotation));
+        double[] vector = {1, 2, 3};
+        double[] images = a.multiplyVectors(vector);
+        for (int k = 0; k < COUNT; k++) {
+            assertClose(product.getMatrix(k), a.getMatrix(k).multiply(rotation), DELTA);
+            assertEquals(images[3 * k], a.get(k, 0, 0) + 2 * a.get(k, 0, 1) + 3 * a.get(k, 0, 2), DELTA);
+        }
+    }
+
+    @Test
+    public void testRectangular() {
+        MatrixBatch a = MatrixBatch.fromLinearArray(2, 2, 3, new double[]{
+                1, 2, 3, 4, 5, 6,
+                0, 1, 0, 1, 0, 1}, true);
+        MatrixBatch b = MatrixBatch.fromLinearArray(1, 3, 1, new double[]{1, 1, 1}, true);
+        assertEquals(a.multiply(b).toLinearArray(), new double[]{6, 15, 1, 2});
+        assertEquals(a.transpose().getMatrix(0), Matrix.fromLinearArray(3, 2, 1, 4, 2, 5, 3, 6));
+        assertThrows(IllegalArgumentException.class, () -> a.multiply(a));
+        assertThrows(ArithmeticException.class, a::inverse);
+        assertThrows(ArithmeticException.class, a::determinants);
+    }
+
+    @Test
+    public void testSingular() {
+        for (int order = 2; order <= 5; order++) {
+            MatrixBatch batch = random(order);
+            for (int j = 0; j < order; j++) {
+                // A row that is twice another
+                batch.set(7, 1, j, 2 * batch.get(7, 0, j));
+            }
+            assertEquals(batch.determinants()[7], 0, DELTA);
+            MatrixBatch inverse = MatrixBatch.zero(COUNT, order, order);
+            try {
+                batch.inverse(inverse);
+                fail("Inverted a singular matrix of order " + order);
+            } catch (ArithmeticException e) {
+                assertTrue(e.getMessage().contains("index 7"));
+            }
+            assertClose(inverse.getMatrix(6), batch.getMatrix(6).getInverse(), DELTA);
+            assertEquals(inverse.getMatrix(7), Matrix.zero(order, order));
+
+            // Badly scaled, but perfectly conditioned once the rows are normalized
+            Matrix scaled = Matrix.identity(order).scale(1e-5);
+            scaled.set(0, 0, 1);
+            scaled.set(0, order - 1, 0.5);
+            Matrix expected = scaled.getInverse();
+            assertEquals(expected.get(1, 1), 1e5, 1e-5);
+            assertClose(MatrixBatch.of(scaled).inverse().getMatrix(0), expected, DELTA);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static com.github.subh0m0y.matrix.Utilities.assertClose;
+import static com.github.subh0m0y.matrix.Utilities.randomMatrix;
+import static org.testng.Assert.*;
+
+public class MatrixExpressionTest {
+    private static final int ROWS = 70;
+    private static final int COLS = 50;
+    private static final double TOLERANCE = 1e-9;
+
+    private static Random random;
+
+    @BeforeMethod
+    public void setUp() {
+        random = new Random();
+    }
+
+    @Test
+    public void testElementWiseChain() {
+        Matrix a = randomMatrix(ROWS, COLS, random);
+        Matrix b = randomMatrix(ROWS, COLS, random);
+        Matrix c = randomMatrix(ROWS, COLS, random);
+        Matrix d = randomMatrix(ROWS, COLS, random);
+        Matrix expected = a.add(b).scale(2).elementMultiply(c).subtract(d);
+        assertEquals(a.lazy().add(b).scale(2).elementMultiply(c).subtract(d).evaluate(), expected);
+
+        // Nested right operands, views and a strided destination
+        Matrix nested = a.lazy().subtract(b.lazy().elementDivide(c.lazy().add(d))).evaluate();
+        assertEquals(nested, a.subtract(b.elementDivide(c.add(d))));
+        Matrix transposed = Matrix.zero(ROWS, COLS);
+        a.transpose().lazy().add(b.transposeView()).evaluateInto(transposed.transposeView());
+        assertEquals(transposed, a.add(b));
+
+        // The destination may also be an operand
+        Matrix sum = a.add(b);
+        b.lazy().add(a).scale(1).evaluateInto(a);
+        assertEquals(a, sum);
+        // Even through a view of it in another layout
+        Matrix square = randomMatrix(ROWS, ROWS, random);
+        Matrix symmetric = square.add(square.transpose());
+        square.lazy().add(square.transposeView()).evaluateInto(square);
+        assertEquals(square, symmetric);
+        Matrix other = randomMatrix(ROWS, ROWS, random);
+        Matrix fused = other.multiply(other).add(symmetric.transpose());
+        other.lazy().multiply(other).add(square.transposeView()).evaluateInto(square);
+        assertClose(square, fused, TOLERANCE);
+        assertThrows(IllegalArgumentException.class, () -> a.lazy().add(Matrix.zero(ROWS, ROWS)));
+        assertThrows(IllegalArgumentException.class, () -> a.lazy().evaluateInto(Matrix.zero(COLS, ROWS)));
+    }
+
+    @Test
+    public void testMultiplyAdd() {
+        Matrix a = randomMatrix(ROWS, COLS, random);
+        Matrix b = randomMatrix(COLS, ROWS, random);
+        Matrix c = randomMatrix(ROWS, ROWS, random);
+        Matrix d = randomMatrix(ROWS, ROWS, random);
+        Matrix product = a.multiply(b);
+        assertEquals(a.lazy().multiply(b).evaluate(), product);
+        assertClose(a.lazy().multiply(b).add(c).evaluate(), product.add(c), TOLERANCE);
+        assertClose(c.lazy().subtract(a.lazy().multiply(b).scale(3)).evaluate(),
+                c.subtract(product.scale(3)), TOLERANCE);
+        assertClose(a.lazy().multiply(b).subtract(c.lazy().elementMultiply(d)).evaluate(),
+                product.subtract(c.elementMultiply(d)), TOLERANCE);
+
+        // Products that cannot be fused are computed first
+        assertClose(a.lazy().multiply(b).elementMultiply(c).evaluate(), product.elementMultiply(c), TOLERANCE);
+        Matrix square = randomMatrix(ROWS, ROWS, random);
+        Matrix expected = square.multiply(square).add(square);
+        square.lazy().multiply(square).add(square).evaluateInto(square);
+        assertClose(square, expected, TOLERANCE);
+    }
+}
@@ -4,6 +4,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.testng.Assert.*;
 
@@ -27,8 +28,8 @@ public class MatrixMathTest {
         double[][] data2 = new double[ROWS][COLS];
         Utilities.populate(data1, random);
         Utilities.populate(data2, random);
-        Matrix matrix1 = new Matrix(data1, false);
-        Matrix matrix2 = new Matrix(data1, false);
+        Matrix matrix1 = Matrix.fromArray(data1);
+        Matrix matrix2 = Matrix.fromArray(data1);
         Matrix matrix3 = matrix1.add(matrix2);
         matrix1.addInPlace(matrix2);
         assertEquals(matrix1, matrix3);
@@ -40,8 +41,8 @@ public class MatrixMathTest {
         double[][] data2 = new double[ROWS][COLS];
         Utilities.populate(data1, random);
         Utilities.populate(data2, random);
-        Matrix matrix1 = new Matrix(data1, false);
-        Matrix matrix2 = new Matrix(data1, false);
+        Matrix matrix1 = Matrix.fromArray(data1);
+        Matrix matrix2 = Matrix.fromArray(data1);
         Matrix matrix3 = matrix1.subtract(matrix2);
         matrix1.subtractInPlace(matrix2);
         assertEquals(matrix1, matrix3);
@@ -53,8 +54,8 @@ public class MatrixMathTest {
         double[][] data2 = new double[ROWS][COLS];
         Utilities.populate(data1, random);
         Utilities.populate(data2, random);
-        Matrix matrix1 = new Matrix(data1, false);
-        Matrix matrix2 = new Matrix(data1, false);
+        Matrix matrix1 = Matrix.fromArray(data1);
+        Matrix matrix2 = Matrix.fromArray(data1);
         Matrix matrix3 = matrix1.elementMultiply(matrix2);
         matrix1.elementMultiplyInPlace(matrix2);
         assertEquals(matrix1, matrix3);
@@ -66,8 +67,8 @@ public class MatrixMathTest {
         double[][] data2 = new double[ROWS][COLS];
         Utilities.populate(data1, random);
         Utilities.populate(data2, random);
-        Matrix matrix1 = new Matrix(data1, false);
-        Matrix matrix2 = new Matrix(data1, false);
+        Matrix matrix1 = Matrix.fromArray(data1);
+        Matrix matrix2 = Matrix.fromArray(data1);
         Matrix matrix3 = matrix1.elementDivide(matrix2);
         matrix1.elementDivideInPlace(matrix2);
         assertEquals(matrix1, matrix3);
@@ -79,19 +80,96 @@ public class MatrixMathTest {
         double[][] data2 = new double[ROWS][ROWS];
         Utilities.populate(data1, random);
         Utilities.populate(data2, random);
-        Matrix matrix1 = new Matrix(data1, false);
-        Matrix matrix2 = new Matrix(data1, false);
+        Matrix matrix1 = Matrix.fromArray(data1);
+        Matrix matrix2 = Matrix.fromArray(data1);
         Matrix matrix3 = matrix1.multiply(matrix2);
         matrix1.multiplyInPlace(matrix2);
         assertEquals(matrix1, matrix3);
     }
 
+    @Test
+    public void testBlockedMultiplication() {
+        // Large and ragged enough to cross every block boundary of the kernel
+        int m = Gemm.DEPTH_BLOCK + 37;
+        int n = Gemm.DEPTH_BLOCK * 2 + 3;
+        int p = Gemm.COL_BLOCK + 19;
+        double[][] data1 = new double[m][n];
+        double[][] data2 = new double[n][p];
+        Utilities.populate(data1, random);
+        Utilities.populate(data2, random);
+        Matrix product = Matrix.fromArray(data1).multiply(Matrix.fromArray(data2));
+        assertEquals(product.getRows(), m);
+        assertEquals(product.getCols(), p);
+        double[][] expected = new double[m][p];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < p; j++) {
+                for (int k = 0; k < n; k++) {
+                    expected[i][j] += data1[i][k] * data2[k][j];
+                }
+            }
+        }
+        assertEquals(product, Matrix.fromArray(expected));
+    }
+
+    @Test
+    public void testStrassenMultiplication() {
+        // Odd and even dimensions at every level, with a small crossover so
+        // that the recursion goes several levels deep
+        int crossover = 16;
+        int[][] shapes = {{200, 200, 200}, {131, 97, 150}, {64, 257, 33}, {17, 17, 17}, {5, 300, 7}};
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int[] shape : shapes) {
+                Matrix matrix1 = Matrix.random(shape[0], shape[1]).subtract(Matrix.random(shape[0], shape[1]));
+                Matrix matrix2 = Matrix.random(shape[1], shape[2]).subtract(Matrix.random(shape[1], shape[2]));
+                Matrix classical = matrix1.multiply(matrix2);
+                Matrix strassen = matrix1.multiplyStrassen(matrix2, crossover, null);
+                // Relative to the norms of the operands, which bound the error
+                double tolerance = 1e-13 * shape[1] * matrix1.getNormInfinity() * matrix2.getNormInfinity();
+                Utilities.assertClose(strassen, classical, tolerance);
+                assertEquals(matrix1.multiplyStrassen(matrix2, crossover, pool), strassen);
+                // Too small to split at the default crossover
+                assertEquals(matrix1.multiplyStrassen(matrix2), classical);
+            }
+            // Strided operands
+            Matrix matrix = Matrix.random(90, 90);
+            Utilities.assertClose(matrix.transposeView().multiplyStrassen(matrix, crossover, pool),
+                    matrix.transpose().multiply(matrix), 1e-10);
+        } finally {
+            pool.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> Matrix.random(3, 4).multiplyStrassen(Matrix.random(3, 4)));
+        assertThrows(IllegalArgumentException.class,
+                () -> Matrix.random(3, 3).multiplyStrassen(Matrix.random(3, 3), 0, null));
+    }
+
+    @Test
+    public void testParallelMultiplication() {
+        int m = Gemm.ROW_BLOCK * 5 + 7;
+        int n = Gemm.DEPTH_BLOCK + 11;
+        int p = 150;
+        Matrix matrix1 = Matrix.random(m, n);
+        Matrix matrix2 = Matrix.random(n, p);
+        Matrix sequential = matrix1.multiply(matrix2);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(matrix1.multiply(matrix2, pool), sequential);
+            assertEquals(matrix1.multiplyParallel(matrix2), sequential);
+
+            Matrix square = Matrix.random(m, m);
+            assertEquals(square.exponentiate(5, pool), square.exponentiate(5));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     public void testScale() {
         double[][] data1 = new double[ROWS][ROWS];
         double scale = random.nextDouble();
         Utilities.populate(data1, random);
-        Matrix matrix1 = new Matrix(data1, false);
+        Matrix matrix1 = Matrix.fromArray(data1);
         Matrix matrix2 = matrix1.scale(scale);
         matrix1.scaleInPlace(scale);
         assertEquals(matrix1, matrix2);
@@ -99,18 +177,134 @@ public class MatrixMathTest {
 
     @Test
     public void testExponentiation() {
+        // A transition matrix, so that its powers neither overflow nor vanish
         double[][] data = new double[ROWS][ROWS];
         Utilities.populate(data, random);
+        for (double[] row : data) {
+            double sum = 0;
+            for (int j = 0; j < ROWS; j++) {
+                row[j] = Math.abs(row[j]);
+                sum += row[j];
+            }
+            for (int j = 0; j < ROWS; j++) {
+                row[j] /= sum;
+            }
+        }
         int power = random.nextInt(POWER_BOUND);
 
-        Matrix matrix1 = new Matrix(data, false);
-        Matrix matrix2 = new Matrix(data, true);
+        Matrix matrix1 = Matrix.fromArray(data);
+        Matrix matrix2 = Matrix.fromArray(data);
         Matrix product = Matrix.identity(ROWS);
         for (int i = 0; i < power; i++) {
             product.multiplyInPlace(matrix1);
         }
         matrix2 = matrix2.exponentiate(power);
-        assertEquals(product, matrix2);
+        // Repeated and binary exponentiation round differently
+        Utilities.assertClose(matrix2, product, 1e-12);
+
+        double[] vector = new double[ROWS];
+        Utilities.populate(vector, random);
+        double[] expected = product.multiply(Matrix.fromLinearArray(ROWS, 1, vector)).toLinearArray();
+        Utilities.assertClose(matrix1.exponentiate(power, vector), expected, 1e-12);
+        Utilities.assertClose(matrix1.exponentiate(POWER_BOUND * ROWS, vector),
+                matrix1.exponentiate(POWER_BOUND * ROWS).multiply(Matrix.fromLinearArray(ROWS, 1, vector))
+                        .toLinearArray(), 1e-12);
+    }
+
+    @Test
+    public void testStructuredExponentiation() {
+        int power = random.nextInt(POWER_BOUND) + 1;
+        double[][] data = new double[ROWS][ROWS];
+        Utilities.populate(data, random);
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < i; j++) {
+                data[i][j] = 0;
+            }
+            data[i][i] = 1 + 1e-3 * data[i][i];
+        }
+        Matrix upper = Matrix.fromArray(data).scale(1.0 / ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            upper.set(i, i, data[i][i]);
+        }
+        Matrix lower = upper.transpose();
+        // The triangular products skip only exact zeros, so they agree with
+        // the general product exactly
+        Matrix square = upper.multiply(upper);
+        assertEquals(upper.exponentiate(7), upper.multiply(square).multiply(square.multiply(square)));
+        Utilities.assertClose(lower.exponentiate(20), upper.exponentiate(20).transpose(), 1e-9);
+
+        Matrix diagonal = Matrix.identity(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            diagonal.set(i, i, data[i][i]);
+        }
+        Matrix expected = Matrix.identity(ROWS);
+        double[] vector = new double[ROWS];
+        double[] expectedVector = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            expected.set(i, i, Math.pow(data[i][i], power));
+            vector[i] = 1;
+            expectedVector[i] = expected.get(i, i);
+        }
+        Utilities.assertClose(diagonal.exponentiate(power), expected, 1e-9);
+        Utilities.assertClose(diagonal.exponentiate(power, vector), expectedVector, 1e-9);
+        assertSame(diagonal.exponentiate(power, diagonal), diagonal);
+        Utilities.assertClose(diagonal, expected, 1e-9);
+        Matrix transposed = expected.copy();
+        transposed.exponentiate(2, transposed.transposeView());
+        assertEquals(transposed, expected.elementMultiply(expected));
+
+        // Elements far below EPSILON are still not zeros, and must be kept
+        Matrix tiny = Matrix.fromLinearArray(2, 2, 1e-15, 1e-15, 1e-15, 1e-15);
+        assertEquals(tiny.exponentiate(1), tiny);
+        assertEquals(tiny.exponentiate(1, new double[]{1, 1}), new double[]{2e-15, 2e-15});
+        Matrix almostUpper = Matrix.fromLinearArray(2, 2, 1, 2, 1e-15, 1);
+        assertEquals(almostUpper.exponentiate(2), almostUpper.multiply(almostUpper));
+        assertEquals(almostUpper.exponentiate(2).get(1, 0), 2e-15);
+    }
+
+    @Test
+    public void testDestinationOverloads() {
+        Matrix a = Matrix.random(ROWS, COLS);
+        Matrix b = Matrix.random(ROWS, COLS);
+        Matrix destination = new Matrix(ROWS, COLS);
+        assertSame(a.add(b, destination), destination);
+        assertEquals(destination, a.add(b));
+        assertEquals(a.subtract(b, destination), a.subtract(b));
+        assertEquals(a.elementMultiply(b, destination), a.elementMultiply(b));
+        assertEquals(a.elementDivide(b, destination), a.elementDivide(b));
+        assertEquals(a.scale(3, destination), a.scale(3));
+
+        // The destination may be either operand
+        Matrix difference = a.subtract(b);
+        Matrix quotient = a.elementDivide(b);
+        Matrix copy = b.copy();
+        assertEquals(a.subtract(copy, copy), difference);
+        copy = b.copy();
+        assertEquals(a.elementDivide(copy, copy), quotient);
+        copy = a.copy();
+        assertEquals(copy.subtract(b, copy), difference);
+
+        Matrix c = Matrix.random(COLS, ROWS / 2);
+        Workspace workspace = new Workspace();
+        Matrix product = new Matrix(ROWS, ROWS / 2);
+        assertEquals(a.multiply(c, product, workspace), a.multiply(c));
+        assertEquals(a.transpose(new Matrix(COLS, ROWS)), a.transpose());
+        assertEquals(a.appendRight(c, new Matrix(ROWS, COLS + ROWS / 2)), a.appendRight(c));
+        assertEquals(a.appendBottom(b, new Matrix(2 * ROWS, COLS)), a.appendBottom(b));
+
+        // Overlapping regions of the same array go through a temporary
+        Matrix square = Matrix.random(ROWS, ROWS);
+        Matrix expected = square.multiply(square);
+        Matrix view = square.subMatrixView(0, 0, ROWS, ROWS);
+        assertEquals(square.multiply(view, square, workspace), expected);
+        Matrix power = Matrix.random(ROWS, ROWS).scale(1.0 / ROWS);
+        assertEquals(power.exponentiate(7, power.copy(), workspace), power.exponentiate(7));
+        copy = power.copy();
+        assertEquals(copy.transpose(copy), power.transpose());
+
+        copy = power.copy();
+        copy.multiplyInPlace(power, workspace);
+        assertEquals(copy, power.multiply(power));
     }
 
     @Test
@@ -127,4 +321,37 @@ public class MatrixMathTest {
             assertTrue(matrix.isOrthogonal());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCachedResults() {
+        double[][] data = new double[ROWS][COLS];
+        Utilities.populate(data, random);
+        Matrix matrix = Matrix.fromArray(data);
+        Matrix inverse = matrix.getInverse();
+        assertSame(matrix.getInverse(), inverse);
+        assertSame(matrix.getLUDecomposition(), matrix.getLUDecomposition());
+        double determinant = matrix.getDeterminant();
+
+        matrix.scaleInPlace(2);
+        assertNotSame(matrix.getInverse(), inverse);
+        assertEquals(matrix.getInverse(), inverse.scale(0.5));
+        assertEquals(matrix.getDeterminant(), determinant * Math.pow(2, ROWS), Math.abs(determinant) * 1e-6);
+
+        // Writes through a view invalidate the results of the parent
+        assertEquals(matrix.getRank(), ROWS);
+        matrix.rowView(ROWS - 1).scaleInPlace(0);
+        assertEquals(matrix.getRank(), ROWS - 1);
+        double norm = matrix.getFrobeniusNorm();
+        matrix.set(0, 0, matrix.get(0, 0) + 1);
+        assertNotEquals(matrix.getFrobeniusNorm(), norm);
+
+        // Direct writes to a wrapped array need to be announced
+        double[] elements = {1, 2, 3, 4};
+        Matrix wrapped = Matrix.fromLinearArray(2, 2, elements, false);
+        assertEquals(wrapped.getNormInfinity(), 7.0);
+        elements[3] = 40;
+        wrapped.markModified();
+        assertEquals(wrapped.getNormInfinity(), 43.0);
+        assertEquals(wrapped.getNorm1(), 42.0);
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static com.github.subh0m0y.matrix.Utilities.assertClose;
+import static com.github.subh0m0y.matrix.Utilities.randomMatrix;
+import static org.testng.Assert.*;
+
+public class QRDecompositionTest {
+    private static final int ROWS = 150;
+    private static final int COLS = 70;
+    private static final int RHS = 5;
+    private static final double TOLERANCE = 1e-9;
+
+    private static Random random;
+
+    @BeforeMethod
+    public void setUp() {
+        random = new Random();
+    }
+
+    /**
+     * Checks that Q has orthonormal columns, that R is upper triangular,
+     * and that QR gives back A with its columns permuted.
+     */
+    private static void assertFactors(final QRDecomposition qr, final Matrix matrix) {
+        Matrix q = qr.getQ();
+        Matrix r = qr.getR();
+        int size = Math.min(matrix.getRows(), matrix.getCols());
+        assertEquals(q.getRows(), matrix.getRows());
+        assertEquals(q.getCols(), size);
+        assertEquals(r.getRows(), size);
+        assertClose(q.transpose().multiply(q), Matrix.identity(size), TOLERANCE);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < i; j++) {
+                assertEquals(r.get(i, j), 0.0);
+            }
+        }
+        int[] pivot = qr.getPivot();
+        Matrix permuted = Matrix.zero(matrix.getRows(), matrix.getCols());
+        for (int j = 0; j < pivot.length; j++) {
+            for (int i = 0; i < matrix.getRows(); i++) {
+                permuted.set(i, j, matrix.get(i, pivot[j]));
+            }
+        }
+        assertClose(q.multiply(r), permuted, TOLERANCE);
+    }
+
+    @Test
+    public void testFactor() {
+        // Tall, wide and square, over one and several blocks
+        for (int[] shape : new int[][]{{ROWS, COLS}, {COLS, ROWS}, {COLS, COLS}, {1, 1}}) {
+            Matrix matrix = randomMatrix(shape[0], shape[1], random);
+            for (int blockSize : new int[]{1, 7, QRDecomposition.DEFAULT_BLOCK_SIZE, ROWS}) {
+                assertFactors(new QRDecomposition(matrix, false, blockSize), matrix);
+                assertFactors(new QRDecomposition(matrix, true, blockSize), matrix);
+            }
+        }
+        // The pivoted diagonal of R decreases in magnitude
+        Matrix r = new QRDecomposition(randomMatrix(ROWS, COLS, random), true).getR();
+        for (int i = 1; i < COLS; i++) {
+            assertTrue(Math.abs(r.get(i, i)) <= Math.abs(r.get(i - 1, i - 1)) * (1 + TOLERANCE));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new QRDecomposition(r, false, 0));
+    }
+
+    @Test
+    public void testLeastSquares() {
+        Matrix a = randomMatrix(ROWS, COLS, random);
+        Matrix b = randomMatrix(ROWS, RHS, random);
+        // The residual of the least squares solution is orthogonal to the columns of A
+        for (boolean pivoting : new boolean[]{false, true}) {
+            QRDecomposition qr = new QRDecomposition(a, pivoting, 16);
+            assertTrue(qr.isFullRank());
+            Matrix x = qr.solveLeastSquares(b);
+            Matrix residual = a.multiply(x).subtract(b);
+            assertClose(a.transpose().multiply(residual), Matrix.zero(COLS, RHS), TOLERANCE);
+            assertClose(qr.solveLeastSquares(b.getColumn(0)), x.getColumn(0), TOLERANCE);
+        }
+        assertClose(a.getQRDecomposition().solveLeastSquares(b),
+                a.transpose().multiply(a).getInverse().multiply(a.transpose().multiply(b)), 1e-8);
+
+        // A consistent square system is solved exactly
+        Matrix square = randomMatrix(COLS, COLS, random);
+        double[] rhs = square.getColumn(1);
+        assertClose(new QRDecomposition(square).solveLeastSquares(rhs), new LUDecomposition(square).solve(rhs),
+                TOLERANCE);
+
+        assertThrows(IllegalArgumentException.class, () -> a.getQRDecomposition().solveLeastSquares(new double[3]));
+        assertThrows(IllegalArgumentException.class,
+                () -> a.getQRDecomposition().solveLeastSquares(randomMatrix(COLS, 2, random)));
+    }
+
+    @Test
+    public void testRankDeficient() {
+        // Columns 5 to 9 repeat columns 0 to 4, scaled
+        int rank = COLS - 5;
+        Matrix a = randomMatrix(ROWS, COLS, random);
+        for (int j = 0; j < 5; j++) {
+            for (int i = 0; i < ROWS; i++) {
+                a.set(i, j + 5, 3 * a.get(i, j));
+            }
+        }
+        QRDecomposition pivoted = new QRDecomposition(a, true);
+        assertEquals(pivoted.getRank(), rank);
+        assertFalse(pivoted.isFullRank());
+        assertFactors(pivoted, a);
+
+        // The basic solution still leaves a residual orthogonal to the columns
+        double[] b = a.multiply(randomMatrix(COLS, 1, random)).getColumn(0);
+        double[] x = pivoted.solveLeastSquares(b);
+        int zeros = 0;
+        for (double value : x) {
+            zeros += value == 0 ? 1 : 0;
+        }
+        assertEquals(zeros, COLS - rank);
+        assertClose(a.multiply(x), b, TOLERANCE);
+
+        Matrix zero = Matrix.zero(ROWS, COLS);
+        assertEquals(new QRDecomposition(zero, true).getRank(), 0);
+        assertThrows(ArithmeticException.class, () -> new QRDecomposition(zero).solveLeastSquares(b));
+    }
+}
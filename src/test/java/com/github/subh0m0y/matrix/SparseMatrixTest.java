@@ -0,0 +1,121 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static com.github.subh0m0y.matrix.Utilities.assertClose;
+import static com.github.subh0m0y.matrix.Utilities.randomMatrix;
+import static org.testng.Assert.*;
+
+public class SparseMatrixTest {
+    private static final int ROWS = 60;
+    private static final int COLS = 40;
+    private static final double DENSITY = 0.05;
+    private static final double TOLERANCE = 1e-12;
+
+    private static Random random;
+
+    @BeforeMethod
+    public void setUp() {
+        random = new Random();
+    }
+
+    private static Matrix sparseDense(int rows, int cols) {
+        Matrix matrix = Matrix.zero(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (random.nextDouble() < DENSITY) {
+                    matrix.set(i, j, random.nextGaussian());
+                }
+            }
+        }
+        return matrix;
+    }
+
+    @Test
+    public void testConversions() {
+        Matrix dense = sparseDense(ROWS, COLS);
+        CSRMatrix csr = CSRMatrix.fromMatrix(dense);
+        CSCMatrix csc = CSCMatrix.fromMatrix(dense);
+        assertEquals(csr.toDense(), dense);
+        assertEquals(csc.toDense(), dense);
+        assertEquals(csr.toCSC(), csc);
+        assertEquals(csc.toCSR(), csr);
+        assertEquals(csr.transpose().toDense(), dense.transpose());
+        assertEquals(csc.transpose().toDense(), dense.transpose());
+        assertEquals(CSRMatrix.fromMatrix(dense.transposeView()), csr.transpose().toCSR());
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLS; j++) {
+                assertEquals(csr.get(i, j), dense.get(i, j));
+                assertEquals(csc.get(i, j), dense.get(i, j));
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> csr.get(ROWS, 0));
+    }
+
+    @Test
+    public void testTriplets() {
+        int[] rows = {2, 0, 2, 1, 2};
+        int[] cols = {1, 0, 1, 2, 0};
+        double[] values = {1.5, 2, 2.5, -1, 0};
+        double[] expected = {2, 0, 0, 0, 0, -1, 0, 4, 0};
+        CSRMatrix csr = CSRMatrix.fromTriplets(3, 3, rows, cols, values);
+        CSCMatrix csc = CSCMatrix.fromTriplets(3, 3, rows, cols, values);
+        assertEquals(csr.getNonZeroCount(), 3);
+        assertEquals(csr.toDense().toLinearArray(), expected);
+        assertEquals(csc.toDense().toLinearArray(), expected);
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> CSRMatrix.fromTriplets(3, 3, new int[]{3}, new int[]{0}, new double[]{1}));
+    }
+
+    @Test
+    public void testAddition() {
+        Matrix a = sparseDense(ROWS, COLS);
+        Matrix b = sparseDense(ROWS, COLS);
+        Matrix sum = a.add(b);
+        CSRMatrix csrA = CSRMatrix.fromMatrix(a);
+        CSCMatrix cscB = CSCMatrix.fromMatrix(b);
+        assertEquals(csrA.add(CSRMatrix.fromMatrix(b)).toDense(), sum);
+        assertEquals(csrA.toCSC().add(cscB).toDense(), sum);
+        assertEquals(csrA.add((RealMatrix) cscB).toDense(), sum);
+        assertEquals(a.add((RealMatrix) cscB), sum);
+        assertEquals(cscB.add(a), sum);
+        assertTrue(csrA.add(CSRMatrix.fromMatrix(a.scale(-1))).isZero());
+    }
+
+    @Test
+    public void testMultiplication() {
+        Matrix a = sparseDense(ROWS, COLS);
+        Matrix b = sparseDense(COLS, ROWS);
+        Matrix product = a.multiply(b);
+        CSRMatrix csrA = CSRMatrix.fromMatrix(a);
+        CSCMatrix cscA = CSCMatrix.fromMatrix(a);
+        CSRMatrix csrB = CSRMatrix.fromMatrix(b);
+        CSCMatrix cscB = CSCMatrix.fromMatrix(b);
+        assertClose(csrA.multiply(csrB).toDense(), product, TOLERANCE);
+        assertClose(cscA.multiply(cscB).toDense(), product, TOLERANCE);
+        assertClose(csrA.multiply((RealMatrix) cscB).toDense(), product, TOLERANCE);
+
+        Matrix dense = randomMatrix(COLS, 7, random);
+        assertClose(csrA.multiply(dense), a.multiply(dense), TOLERANCE);
+        assertClose(cscA.multiply(dense), a.multiply(dense), TOLERANCE);
+        assertClose(csrA.multiply(dense.transpose().transposeView()), a.multiply(dense), TOLERANCE);
+
+        Matrix left = randomMatrix(7, ROWS, random);
+        assertClose(left.multiply((RealMatrix) csrA), left.multiply(a), TOLERANCE);
+        assertClose(left.multiply((RealMatrix) cscA), left.multiply(a), TOLERANCE);
+
+        double[] vector = dense.getColumn(0);
+        assertClose(csrA.multiply(vector), a.multiply(dense).getColumn(0), TOLERANCE);
+        assertClose(cscA.multiply(vector), a.multiply(dense).getColumn(0), TOLERANCE);
+        assertThrows(IllegalArgumentException.class, () -> csrA.multiply(csrA));
+
+        // The product cannot overwrite the vector it is computed from
+        Matrix square = sparseDense(ROWS, ROWS);
+        double[] aliased = new double[ROWS];
+        assertThrows(IllegalArgumentException.class, () -> CSRMatrix.fromMatrix(square).multiply(aliased, aliased));
+        assertThrows(IllegalArgumentException.class, () -> CSCMatrix.fromMatrix(square).multiply(aliased, aliased));
+    }
+}
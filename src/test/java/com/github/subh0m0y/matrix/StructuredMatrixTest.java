@@ -0,0 +1,176 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static com.github.subh0m0y.matrix.Utilities.assertClose;
+import static com.github.subh0m0y.matrix.Utilities.randomMatrix;
+import static com.github.subh0m0y.matrix.Utilities.randomVector;
+import static org.testng.Assert.*;
+
+public class StructuredMatrixTest {
+    private static final int ORDER = 37;
+    private static final int COLS = 11;
+    private static final double TOLERANCE = 1e-10;
+
+    private static Random random;
+
+    @BeforeMethod
+    public void setUp() {
+        random = new Random();
+    }
+
+    /**
+     * Keeps the elements of the given matrix within the band, and
+     * strengthens the diagonal so that the result is well conditioned.
+     */
+    private static Matrix banded(final Matrix matrix, final int lower, final int upper) {
+        Matrix band = matrix.copy();
+        for (int i = 0; i < band.getRows(); i++) {
+            for (int j = 0; j < band.getCols(); j++) {
+                if (j < i - lower || j > i + upper) {
+                    band.set(i, j, 0);
+                }
+            }
+            band.set(i, i, band.get(i, i) + 4 * Math.signum(band.get(i, i)));
+        }
+        return band;
+    }
+
+    /**
+     * Checks every product of the given structured matrix against that of
+     * its dense equivalent.
+     */
+    private static void assertProducts(final StructuredMatrix structured, final Matrix dense) {
+        assertEquals(structured.toDense(), dense);
+        double[] x = randomVector(ORDER, random);
+        assertClose(structured.multiply(x), dense.multiply(x), TOLERANCE);
+        Matrix right = randomMatrix(ORDER, COLS, random);
+        assertClose(structured.multiply(right), dense.multiply(right), TOLERANCE);
+        // Through a transposed view, with non-unit column stride
+        assertClose(structured.multiply(right.transpose().transposeView()), dense.multiply(right), TOLERANCE);
+        Matrix left = randomMatrix(COLS, ORDER, random);
+        assertClose(left.multiply((RealMatrix) structured), left.multiply(dense), TOLERANCE);
+        assertClose((Matrix) structured.add(dense), dense.add(dense), TOLERANCE);
+        assertThrows(IllegalArgumentException.class, () -> structured.multiply(new double[ORDER + 1]));
+        assertThrows(IllegalArgumentException.class, () -> structured.multiply(randomMatrix(ORDER + 1, 2, random)));
+    }
+
+    @Test
+    public void testSymmetric() {
+        Matrix a = randomMatrix(ORDER, ORDER, random);
+        Matrix dense = a.add(a.transpose());
+        SymmetricMatrix symmetric = SymmetricMatrix.fromMatrix(dense);
+        assertEquals(symmetric.getStoredCount(), ORDER * (ORDER + 1) / 2);
+        assertProducts(symmetric, dense);
+        assertEquals(symmetric.transpose(), symmetric);
+        assertEquals(symmetric.add(symmetric), SymmetricMatrix.fromMatrix(dense.scale(2)));
+
+        // Indefinite, through LU, and positive definite, through Cholesky
+        Matrix identity = Matrix.identity(ORDER);
+        assertClose(dense.multiply(symmetric.getInverse().toDense()), identity, 1e-8);
+        SymmetricMatrix gram = SymmetricMatrix.gram(randomMatrix(3 * ORDER, ORDER, random));
+        assertClose(gram.toDense().multiply(gram.getInverse().toDense()), identity, 1e-8);
+
+        symmetric.set(2, 5, 7);
+        assertEquals(symmetric.get(5, 2), 7.0);
+        assertThrows(IndexOutOfBoundsException.class, () -> symmetric.get(ORDER, 0));
+        assertThrows(IllegalArgumentException.class, () -> SymmetricMatrix.fromMatrix(randomMatrix(3, 4, random)));
+    }
+
+    @Test
+    public void testGram() {
+        // Tall and wide, over several bands, and in a transposed layout
+        for (int[] shape : new int[][]{{300, 150}, {20, 130}, {1, 1}}) {
+            Matrix a = randomMatrix(shape[0], shape[1], random);
+            Matrix expected = a.transpose().multiply(a);
+            assertClose(SymmetricMatrix.gram(a).toDense(), expected, TOLERANCE);
+            Matrix view = a.transpose().transposeView();
+            assertClose(SymmetricMatrix.gram(view).toDense(), expected, TOLERANCE);
+        }
+        assertEquals(SymmetricMatrix.gram(Matrix.zero(5, 0)).getOrder(), 0);
+    }
+
+    @Test
+    public void testTriangular() {
+        Matrix a = banded(randomMatrix(ORDER, ORDER, random), ORDER, ORDER);
+        TriangularMatrix[] triangles = {TriangularMatrix.lower(a), TriangularMatrix.upper(a)};
+        for (TriangularMatrix triangular : triangles) {
+            Matrix dense = triangular.toDense();
+            assertTrue(triangular.isUpper() ? dense.isUpperTriangular() : dense.isLowerTriangular());
+            assertProducts(triangular, dense);
+            assertEquals(triangular.transpose().toDense(), dense.transpose());
+            assertEquals(triangular.transpose().isUpper(), triangular.isLower());
+
+            double[] b = randomVector(ORDER, random);
+            assertClose(triangular.solve(b), new LUDecomposition(dense).solve(b), TOLERANCE);
+            Matrix rhs = randomMatrix(ORDER, COLS, random);
+            assertClose(triangular.solve(rhs), new LUDecomposition(dense).solve(rhs), TOLERANCE);
+            TriangularMatrix inverse = triangular.getInverse();
+            assertEquals(inverse.isUpper(), triangular.isUpper());
+            assertClose(inverse.toDense(), new LUDecomposition(dense).inverse(), TOLERANCE);
+            assertEquals(triangular.getDeterminant(), new LUDecomposition(dense).determinant(),
+                    Math.abs(triangular.getDeterminant()) * 1e-12);
+
+            // Dense triangular matrices are recognized
+            assertClose(dense.getInverse(), inverse.toDense(), 0);
+            assertEquals(dense.getDeterminant(), triangular.getDeterminant());
+
+            int i = triangular.isUpper() ? 3 : 1;
+            int j = triangular.isUpper() ? 1 : 3;
+            triangular.set(i, j, 0);
+            assertThrows(IllegalArgumentException.class, () -> triangular.set(i, j, 1));
+            triangular.set(4, 4, 0);
+            assertTrue(triangular.isSingular());
+            assertThrows(ArithmeticException.class, triangular::getInverse);
+            assertThrows(ArithmeticException.class, () -> triangular.solve(b));
+            Matrix singular = triangular.toDense();
+            assertThrows(ArithmeticException.class, singular::getInverse);
+        }
+    }
+
+    @Test
+    public void testBand() {
+        int[][] bandwidths = {{1, 1}, {0, 3}, {2, 0}, {4, 2}};
+        for (int[] widths : bandwidths) {
+            Matrix dense = banded(randomMatrix(ORDER, ORDER, random), widths[0], widths[1]);
+            BandMatrix band = BandMatrix.fromMatrix(dense, widths[0], widths[1]);
+            assertEquals(band.getStoredCount(), ORDER * (widths[0] + widths[1] + 1));
+            assertProducts(band, dense);
+            assertEquals(band.transpose().toDense(), dense.transpose());
+            double[] b = randomVector(ORDER, random);
+            assertClose(band.solve(b), new LUDecomposition(dense).solve(b), TOLERANCE);
+            Matrix rhs = randomMatrix(ORDER, COLS, random);
+            assertClose(band.solve(rhs), new LUDecomposition(dense).solve(rhs), TOLERANCE);
+            assertClose(band.getInverse().toDense(), dense.getInverse(), TOLERANCE);
+            assertThrows(IllegalArgumentException.class, () -> band.set(0, ORDER - 1, 1));
+        }
+
+        // A tridiagonal matrix with a zero diagonal, but for its last element,
+        // needs a row exchange at every step, and is regular for an odd order
+        Matrix tridiagonal = Matrix.zero(ORDER, ORDER);
+        for (int i = 0; i < ORDER - 1; i++) {
+            tridiagonal.set(i, i + 1, i + 1.0);
+            tridiagonal.set(i + 1, i, 0.5);
+        }
+        tridiagonal.set(ORDER - 1, ORDER - 1, 1);
+        BandMatrix pivoting = BandMatrix.fromMatrix(tridiagonal, 1, 1);
+        double[] b = randomVector(ORDER, random);
+        assertClose(pivoting.solve(b), new LUDecomposition(tridiagonal).solve(b), TOLERANCE);
+
+        double[] diagonal = randomVector(ORDER, random);
+        BandMatrix diagonalMatrix = BandMatrix.diagonal(diagonal);
+        assertTrue(diagonalMatrix.isDiagonal());
+        RealMatrix inverse = diagonalMatrix.getInverse();
+        assertTrue(inverse instanceof BandMatrix);
+        for (int i = 0; i < ORDER; i++) {
+            assertEquals(inverse.get(i, i), 1 / diagonal[i]);
+        }
+        diagonalMatrix.set(3, 3, 0);
+        assertThrows(ArithmeticException.class, diagonalMatrix::getInverse);
+        assertThrows(ArithmeticException.class, () -> BandMatrix.zero(ORDER, 1, 1).solve(b));
+        assertThrows(IllegalArgumentException.class, () -> BandMatrix.zero(ORDER, -1, 1));
+    }
+}
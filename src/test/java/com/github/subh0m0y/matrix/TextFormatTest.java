@@ -0,0 +1,162 @@
+package com.github.subh0m0y.matrix;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+public class TextFormatTest {
+    private static final int ROWS = 100;
+    private static final int COLS = 70;
+
+    private static ByteArrayInputStream bytes(final CharSequence text) {
+        return new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Matrix throughCsv(final Matrix matrix) throws IOException {
+        StringBuilder text = new StringBuilder();
+        TextFormat.writeCsv(matrix, text);
+        Matrix fromStream = TextFormat.readCsv(bytes(text));
+        assertEquals(TextFormat.readCsv(Channels.newChannel(bytes(text))), fromStream);
+        return fromStream;
+    }
+
+    private static RealMatrix throughMatrixMarket(final RealMatrix matrix) throws IOException {
+        StringBuilder text = new StringBuilder();
+        TextFormat.writeMatrixMarket(matrix, text);
+        return TextFormat.readMatrixMarket(bytes(text));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Matrix matrix = Matrix.random(ROWS, COLS);
+        matrix.set(0, 0, 0.1);
+        matrix.set(0, 1, -3);
+        matrix.set(0, 2, 1e300);
+        matrix.set(0, 3, -Double.MIN_VALUE);
+        matrix.set(0, 4, 123456.789);
+        matrix.set(0, 5, Double.NaN);
+        matrix.set(0, 6, Double.NEGATIVE_INFINITY);
+        matrix.set(0, 7, -0.0);
+        matrix.set(0, 8, 0.000123);
+        assertEquals(throughCsv(matrix), matrix);
+        assertEquals(throughCsv(matrix.transposeView()), matrix.transpose());
+        assertEquals(throughCsv(matrix.subMatrixView(3, 4, 5, 6)), matrix.subMatrixView(3, 4, 5, 6).copy());
+        assertEquals(throughMatrixMarket(matrix), matrix);
+        assertEquals(throughMatrixMarket(matrix.transposeView()), matrix.transpose());
+        // Larger than the buffer the input is read through
+        Matrix large = Matrix.random(TextFormat.CHUNK_SIZE / COLS, COLS);
+        assertEquals(throughCsv(large), large);
+
+        CSRMatrix sparse = CSRMatrix.fromTriplets(4, 5, new int[]{0, 3, 2}, new int[]{4, 0, 2},
+                new double[]{1.5, -2, 7e-9});
+        assertEquals(throughMatrixMarket(sparse), sparse);
+        assertEquals(throughMatrixMarket(sparse.toCSC()), sparse);
+    }
+
+    @Test
+    public void testParsing() throws IOException {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        String[] numbers = new String[1000];
+        for (int k = 0; k < numbers.length; k++) {
+            double value = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            numbers[k] = random.nextBoolean() ? Double.toString(value)
+                    : String.format("%." + random.nextInt(20) + "e", value);
+            text.append(numbers[k]).append(k % 10 == 9 ? "\n" : ",");
+        }
+        text.append("0.1000000000000000055511151231257827021181583404541015625,")
+                .append("123456789012345678901234567890,2.2250738585072011e-308,1E23,")
+                .append(" +4.5 ,\t-.5,7.,inf,-Infinity,nan\r\n\n");
+        double[] elements = TextFormat.readCsv(bytes(text)).toLinearArray();
+        for (int k = 0; k < numbers.length; k++) {
+            assertEquals(elements[k], Double.parseDouble(numbers[k]), 0, numbers[k]);
+        }
+        assertEquals(elements[1000], 0.1);
+        assertEquals(elements[1001], 123456789012345678901234567890.0);
+        assertEquals(elements[1002], 2.2250738585072011e-308);
+        assertEquals(elements[1003], 1e23);
+        assertEquals(elements[1004], 4.5);
+        assertEquals(elements[1005], -0.5);
+        assertEquals(elements[1006], 7.0);
+        assertEquals(elements[1007], Double.POSITIVE_INFINITY);
+        assertEquals(elements[1008], Double.NEGATIVE_INFINITY);
+        assertTrue(Double.isNaN(elements[1009]));
+    }
+
+    @Test
+    public void testMatrixMarket() throws IOException {
+        String symmetric = "%%MatrixMarket matrix array real symmetric\n% A comment\n\n3 3\n1\n2\n3\n4\n5\n6\n";
+        assertEquals(TextFormat.readMatrixMarket(bytes(symmetric)),
+                Matrix.fromLinearArray(3, 3, 1, 2, 3, 2, 4, 5, 3, 5, 6));
+        String skew = "%%MatrixMarket matrix coordinate integer skew-symmetric\n3 3 2\n2 1 4\n3 2 -1\n";
+        assertEquals(TextFormat.readMatrixMarket(bytes(skew)).toDense(),
+                Matrix.fromLinearArray(3, 3, 0, -4, 0, 4, 0, 1, 0, -1, 0));
+        String pattern = "%%MatrixMarket matrix coordinate pattern general\n2 3 2\n1 3\n2 1\n";
+        assertEquals(TextFormat.readMatrixMarket(bytes(pattern)).toDense(),
+                Matrix.fromLinearArray(2, 3, 0, 0, 1, 1, 0, 0));
+    }
+
+    @Test
+    public void testInvalidData() {
+        assertThrows(IOException.class, () -> TextFormat.readCsv(bytes("1,2\n3\n")));
+        assertThrows(IOException.class, () -> TextFormat.readCsv(bytes("1,2\n3,x\n")));
+        assertThrows(IOException.class, () -> TextFormat.readCsv(bytes("1,2,\n3,4\n")));
+        assertThrows(IOException.class, () -> TextFormat.readCsv(bytes("1e,2\n")));
+        assertThrows(IOException.class, () -> TextFormat.readMatrixMarket(bytes("1 2\n3 4\n")));
+        assertThrows(IOException.class, () -> TextFormat.readMatrixMarket(
+                bytes("%%MatrixMarket matrix array complex general\n1 1\n1 0\n")));
+        assertThrows(IOException.class, () -> TextFormat.readMatrixMarket(
+                bytes("%%MatrixMarket matrix array real general\n2 2\n1\n2\n3\n")));
+        assertThrows(IOException.class, () -> TextFormat.readMatrixMarket(
+                bytes("%%MatrixMarket matrix coordinate real general\n2 2 1\n3 1 5\n")));
+    }
+
+    @Test
+    public void testToString() {
+        Matrix matrix = Matrix.fromLinearArray(2, 2, 1, -0.000123456, 98765, 0);
+        String[] lines = matrix.toString().split("\n");
+        assertEquals(lines[0], " /" + String.format(Matrix.FORMAT_STRING, 1.0) + ", "
+                + String.format(Matrix.FORMAT_STRING, -0.000123456) + "\\");
+        assertEquals(lines[1], " \\" + String.format(Matrix.FORMAT_STRING, 98765.0) + ", "
+                + String.format(Matrix.FORMAT_STRING, 0.0) + "/");
+        assertEquals(matrix.rowView(1).toString(), " [+9.88e+04, +0.00e+00]\n");
+
+        Random random = new Random(7);
+        double[] special = {1.125, 1.005, 0.0125, 9.995, 9.9951, 999.5, -2.675e-7, 1e23, -0.0,
+                Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, Double.NaN, Double.NEGATIVE_INFINITY};
+        for (double value : special) {
+            assertEquals(TextFormat.appendScientific(new StringBuilder(), value).toString(),
+                    String.format(Matrix.FORMAT_STRING, value), Double.toString(value));
+        }
+        for (int k = 0; k < 30000; k++) {
+            double value;
+            switch (k % 3) {
+                case 0:
+                    value = random.nextGaussian() * Math.pow(10, random.nextInt(600) - 300);
+                    break;
+                case 1:
+                    // Ties and near ties at the third significant digit, including subnormals
+                    value = (random.nextInt(20000) * 5 + random.nextInt(3) - 1) * Math.pow(10, random.nextInt(640) - 330);
+                    break;
+                default:
+                    value = Double.longBitsToDouble(random.nextLong());
+            }
+            assertEquals(TextFormat.appendScientific(new StringBuilder(), value).toString(),
+                    String.format(Matrix.FORMAT_STRING, value), Double.toString(value));
+        }
+
+        int size = 10 * Matrix.PREVIEW_EDGE;
+        String preview = Matrix.random(size, size).toString();
+        lines = preview.split("\n");
+        assertEquals(lines.length, 2 * Matrix.PREVIEW_EDGE + 2);
+        assertEquals(lines[Matrix.PREVIEW_EDGE], "| ... |");
+        assertEquals(lines[lines.length - 1], "(" + size + " x " + size + ")");
+        assertTrue(lines[0].contains(", ..., "));
+    }
+}
@@ -2,6 +2,8 @@ package com.github.subh0m0y.matrix;
 
 import java.util.Random;
 
+import static org.testng.Assert.assertEquals;
+
 public class Utilities {
     public static void populate(double[][] data, Random random) {
         for (int i = 0; i < data.length; i++) {
@@ -10,4 +12,35 @@ public class Utilities {
             }
         }
     }
+
+    public static void populate(double[] data, Random random) {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextGaussian();
+        }
+    }
+
+    public static Matrix randomMatrix(int rows, int cols, Random random) {
+        double[][] data = new double[rows][cols];
+        populate(data, random);
+        return Matrix.fromArray(data);
+    }
+
+    public static double[] randomVector(int length, Random random) {
+        double[] vector = new double[length];
+        populate(vector, random);
+        return vector;
+    }
+
+    public static void assertClose(double[] actual, double[] expected, double tolerance) {
+        assertEquals(actual.length, expected.length);
+        for (int i = 0; i < actual.length; i++) {
+            assertEquals(actual[i], expected[i], tolerance, "At index " + i);
+        }
+    }
+
+    public static void assertClose(Matrix actual, Matrix expected, double tolerance) {
+        assertEquals(actual.getRows(), expected.getRows());
+        assertEquals(actual.getCols(), expected.getCols());
+        assertClose(actual.toLinearArray(), expected.toLinearArray(), tolerance);
+    }
 }